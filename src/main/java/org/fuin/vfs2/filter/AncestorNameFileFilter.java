@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.vfs2.FileFilter;
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileSelectInfo;
+
+/**
+ * Filters files located below a directory with a certain name at any depth.
+ * <p>
+ * A file is accepted if one of the directories between the base folder and
+ * the file has one of the names. The base folder itself and the file are not
+ * checked, so combine this filter with a {@link NameFileFilter} to accept the
+ * directories themselves as well.
+ * <p>
+ * The decision is remembered for the chain of directories from the base
+ * folder down to the parent of the last file checked. All files of a
+ * directory share the decision of their parent, and a new directory only
+ * checks the names of the directories not yet part of the chain. Directories
+ * the traversal has left are dropped from the chain, so the memory used is
+ * bounded by the depth of the tree.
+ * <p>
+ * For example, to print all files below a <code>tmp</code>,
+ * <code>cache</code> or <code>node_modules</code> directory:
+ * 
+ * <pre>
+ * FileSystemManager fsManager = VFS.getManager();
+ * FileObject dir = fsManager.toFileObject(new File(&quot;.&quot;));
+ * FileFilter filter = new AncestorNameFileFilter(&quot;tmp&quot;, &quot;cache&quot;,
+ *         &quot;node_modules&quot;);
+ * FileObject[] files = dir.findFiles(new FileFilterSelector(filter));
+ * for (int i = 0; i &lt; files.length; i++) {
+ *     System.out.println(files[i]);
+ * }
+ * </pre>
+ */
+public class AncestorNameFileFilter implements FileFilter, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Whether the comparison is case sensitive. */
+    private final IOCase caseSensitivity;
+
+    /** The directory names to search for. */
+    private final List<String> names;
+
+    /** Hash index of the names respecting the case sensitivity. */
+    private transient NameTable index;
+
+    /** Decisions for the directories of the last parent checked. */
+    private transient volatile Chain chain;
+
+    /**
+     * Constructs a new case-sensitive ancestor name file filter for a list of
+     * names.
+     * 
+     * @param names
+     *            the directory names to search for, must not be null
+     */
+    public AncestorNameFileFilter(final List<String> names) {
+        this(IOCase.SENSITIVE, names);
+    }
+
+    /**
+     * Constructs a new ancestor name file filter for a list of names
+     * specifying case-sensitivity.
+     * 
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param names
+     *            the directory names to search for, must not be null
+     */
+    public AncestorNameFileFilter(final IOCase caseSensitivity, final List<String> names) {
+        if (names == null) {
+            throw new IllegalArgumentException("The list of names must not be null");
+        }
+        this.names = new ArrayList<String>(names);
+        this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.index = new NameTable(this.names, this.caseSensitivity);
+    }
+
+    /**
+     * Constructs a new case-sensitive ancestor name file filter for an array
+     * of names.
+     * 
+     * @param names
+     *            the directory names to search for, must not be null
+     */
+    public AncestorNameFileFilter(final String... names) {
+        this(IOCase.SENSITIVE, names);
+    }
+
+    /**
+     * Constructs a new ancestor name file filter for an array of names
+     * specifying case-sensitivity.
+     * 
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param names
+     *            the directory names to search for, must not be null
+     */
+    public AncestorNameFileFilter(final IOCase caseSensitivity, final String... names) {
+        if (names == null) {
+            throw new IllegalArgumentException("The array of names must not be null");
+        }
+        this.names = new ArrayList<String>(Arrays.asList(names));
+        this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.index = new NameTable(this.names, this.caseSensitivity);
+    }
+
+    /**
+     * Checks to see if one of the directories between the base folder and the
+     * file has one of the names.
+     * 
+     * @param fileInfo
+     *            the File to check
+     * 
+     * @return true if the file is located below a directory with one of our
+     *         names
+     */
+    @Override
+    public boolean accept(final FileSelectInfo fileInfo) {
+        final FileName base = fileInfo.getBaseFolder().getName();
+        final FileName parent = fileInfo.getFile().getName().getParent();
+        if (parent == null || parent.getDepth() <= base.getDepth()) {
+            return false;
+        }
+        final Chain current = chain;
+        // Only created if the parent is not part of the current chain
+        List<FileName> added = null;
+        FileName dir = parent;
+        int known = 0;
+        while (dir.getDepth() > base.getDepth()) {
+            known = current == null ? 0 : current.indexOf(base, dir) + 1;
+            if (known > 0) {
+                break;
+            }
+            if (added == null) {
+                added = new ArrayList<FileName>();
+            }
+            added.add(dir);
+            dir = dir.getParent();
+        }
+        if (added == null) {
+            return current.matches[known - 1];
+        }
+        if (known == 0 && !dir.equals(base)) {
+            // Not below the base folder
+            return false;
+        }
+        final Chain next = new Chain(base, current, known, added, index);
+        chain = next;
+        return next.matches[next.matches.length - 1];
+    }
+
+    /**
+     * Restores the index after deserialization.
+     * 
+     * @param in
+     *            the stream to read from
+     * @throws IOException
+     *             error reading the stream
+     * @throws ClassNotFoundException
+     *             class of a serialized object not found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.index = new NameTable(this.names, this.caseSensitivity);
+    }
+
+    /**
+     * Provide a String representation of this file filter.
+     * 
+     * @return a String representation
+     */
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append(super.toString());
+        buffer.append("(");
+        if (names != null) {
+            for (int i = 0; i < names.size(); i++) {
+                if (i > 0) {
+                    buffer.append(",");
+                }
+                buffer.append(names.get(i));
+            }
+        }
+        buffer.append(")");
+        return buffer.toString();
+    }
+
+    /**
+     * Immutable chain of the directories from the base folder down to a
+     * parent together with the decision for every directory. Instances are
+     * replaced as a whole, so the filter can be used by several threads.
+     */
+    private static final class Chain {
+
+        /** Name of the base folder. */
+        private final FileName base;
+
+        /** Directories below the base folder, the first one is a child of it. */
+        private final FileName[] dirs;
+
+        /** Whether the directory or one of its ancestors has one of the names. */
+        private final boolean[] matches;
+
+        /**
+         * Constructor extending the start of another chain.
+         * 
+         * @param base
+         *            name of the base folder
+         * @param previous
+         *            the previous chain or <code>null</code>
+         * @param keep
+         *            number of directories to keep from the previous chain
+         * @param added
+         *            the new directories, deepest first
+         * @param index
+         *            the names to search for
+         */
+        Chain(final FileName base, final Chain previous, final int keep, final List<FileName> added,
+                final NameTable index) {
+            this.base = base;
+            this.dirs = new FileName[keep + added.size()];
+            this.matches = new boolean[dirs.length];
+            if (keep > 0) {
+                System.arraycopy(previous.dirs, 0, dirs, 0, keep);
+                System.arraycopy(previous.matches, 0, matches, 0, keep);
+            }
+            for (int i = keep; i < dirs.length; i++) {
+                dirs[i] = added.get(dirs.length - 1 - i);
+                matches[i] = (i > 0 && matches[i - 1]) || index.contains(dirs[i].getBaseName());
+            }
+        }
+
+        /**
+         * Returns the position of a directory in the chain.
+         * 
+         * @param baseFolder
+         *            name of the base folder
+         * @param dir
+         *            name of the directory
+         * 
+         * @return the index or -1 if the directory is not part of the chain
+         */
+        int indexOf(final FileName baseFolder, final FileName dir) {
+            final int idx = dir.getDepth() - base.getDepth() - 1;
+            if (idx >= 0 && idx < dirs.length && dirs[idx].equals(dir) && base.equals(baseFolder)) {
+                return idx;
+            }
+            return -1;
+        }
+
+    }
+
+}
@@ -86,8 +86,10 @@ public class AndFileFilter implements FileFilter, ConditionalFileFilter, Seriali
         if (this.fileFilters.isEmpty()) {
             return false;
         }
+        // All filters share the name related values of the file
+        final FileNameView view = FileNameView.of(fileInfo);
         for (final FileFilter fileFilter : fileFilters) {
-            if (!fileFilter.accept(fileInfo)) {
+            if (!fileFilter.accept(view)) {
                 return false;
             }
         }
@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.vfs2.FileFilter;
+import org.apache.commons.vfs2.FileSelectInfo;
+
+/**
+ * Puts a Bloom filter in front of a {@link NameFileFilter} or a
+ * {@link NameListFileFilter}.
+ * <p>
+ * The Bloom filter contains all names of the wrapped filter and is stored
+ * off-heap in a direct {@link java.nio.ByteBuffer}. Most filenames that are
+ * not part of a large name set are rejected after a few hash probes without
+ * touching the set itself; only the remaining filenames are checked by the
+ * wrapped filter. The result is always the same as that of the wrapped
+ * filter. The false positive rate is configurable and the rates and counters
+ * of the filter are available as metrics, so the benefit can be monitored.
+ * <p>
+ * For example, to print all files and directories in the current directory
+ * whose name is on a large deny list:
+ * 
+ * <pre>
+ * FileSystemManager fsManager = VFS.getManager();
+ * FileObject dir = fsManager.toFileObject(new File(&quot;.&quot;));
+ * FileFilter filter = new BloomFileFilter(new NameListFileFilter(new File(&quot;deny.lst&quot;)), 0.001);
+ * FileObject[] files = dir.findFiles(new FileFilterSelector(filter));
+ * for (int i = 0; i &lt; files.length; i++) {
+ *     System.out.println(files[i]);
+ * }
+ * </pre>
+ */
+public class BloomFileFilter implements FileFilter, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** False positive rate used if none is given. */
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+    /** The wrapped filter. */
+    private final FileFilter filter;
+
+    /** The configured false positive rate. */
+    private final double falsePositiveRate;
+
+    /** The Bloom filter. */
+    private transient NameBloomFilter bloom;
+
+    /** Number of filenames rejected by the Bloom filter. */
+    private transient AtomicLong rejected;
+
+    /** Number of filenames passing the Bloom filter only. */
+    private transient AtomicLong falsePositives;
+
+    /** Number of filenames accepted. */
+    private transient AtomicLong matches;
+
+    /**
+     * Constructs a new Bloom file filter for a name file filter with the
+     * default false positive rate.
+     * 
+     * @param filter
+     *            the filter to put the Bloom filter in front of, must not be
+     *            null
+     */
+    public BloomFileFilter(final NameFileFilter filter) {
+        this(filter, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Constructs a new Bloom file filter for a name file filter.
+     * 
+     * @param filter
+     *            the filter to put the Bloom filter in front of, must not be
+     *            null
+     * @param falsePositiveRate
+     *            the false positive rate, greater than 0 and less than 1
+     */
+    public BloomFileFilter(final NameFileFilter filter, final double falsePositiveRate) {
+        this((FileFilter) filter, falsePositiveRate);
+    }
+
+    /**
+     * Constructs a new Bloom file filter for a name list file filter with the
+     * default false positive rate.
+     * 
+     * @param filter
+     *            the filter to put the Bloom filter in front of, must not be
+     *            null
+     */
+    public BloomFileFilter(final NameListFileFilter filter) {
+        this(filter, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Constructs a new Bloom file filter for a name list file filter.
+     * 
+     * @param filter
+     *            the filter to put the Bloom filter in front of, must not be
+     *            null
+     * @param falsePositiveRate
+     *            the false positive rate, greater than 0 and less than 1
+     */
+    public BloomFileFilter(final NameListFileFilter filter, final double falsePositiveRate) {
+        this((FileFilter) filter, falsePositiveRate);
+    }
+
+    /**
+     * Constructs a new Bloom file filter for any supported filter.
+     * 
+     * @param filter
+     *            the filter to put the Bloom filter in front of, must not be
+     *            null
+     * @param falsePositiveRate
+     *            the false positive rate, greater than 0 and less than 1
+     */
+    private BloomFileFilter(final FileFilter filter, final double falsePositiveRate) {
+        if (filter == null) {
+            throw new IllegalArgumentException("The filter must not be null");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException(
+                    "The false positive rate must be greater than 0 and less than 1: " + falsePositiveRate);
+        }
+        this.filter = filter;
+        this.falsePositiveRate = falsePositiveRate;
+        init();
+    }
+
+    /**
+     * Creates the Bloom filter and the counters.
+     */
+    private void init() {
+        if (filter instanceof NameFileFilter) {
+            final NameFileFilter nameFilter = (NameFileFilter) filter;
+            final int mode = nameFilter.getCaseSensitivity().isCaseSensitive() ? NameBloomFilter.SENSITIVE
+                    : NameBloomFilter.FOLD_CHARS;
+            bloom = new NameBloomFilter(nameFilter.getNames().size(), falsePositiveRate, mode);
+            for (final String name : nameFilter.getNames()) {
+                if (name != null) {
+                    bloom.add(name, mode);
+                }
+            }
+        } else {
+            final MappedNameList list = ((NameListFileFilter) filter).getList();
+            final int mode = list.isFolded() ? NameBloomFilter.FOLD_CODE_POINTS : NameBloomFilter.SENSITIVE;
+            bloom = new NameBloomFilter(list.size(), falsePositiveRate, mode);
+            // The names of the list are already folded
+            for (final String name : list) {
+                bloom.add(name, NameBloomFilter.SENSITIVE);
+            }
+        }
+        rejected = new AtomicLong();
+        falsePositives = new AtomicLong();
+        matches = new AtomicLong();
+    }
+
+    /**
+     * Checks to see if the filename is accepted by the wrapped filter.
+     * Filenames the Bloom filter rejects are not passed to the wrapped
+     * filter.
+     * 
+     * @param fileInfo
+     *            the File to check
+     * 
+     * @return true if the wrapped filter accepts the file
+     */
+    @Override
+    public boolean accept(final FileSelectInfo fileInfo) {
+        final FileNameView view = FileNameView.of(fileInfo);
+        if (!bloom.mightContain(view.getBaseName())) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        if (filter.accept(view)) {
+            matches.incrementAndGet();
+            return true;
+        }
+        falsePositives.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Returns the wrapped filter.
+     * 
+     * @return the filter passed to the constructor
+     */
+    public FileFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Returns the configured false positive rate.
+     * 
+     * @return the false positive rate passed to the constructor
+     */
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * Returns the false positive rate expected for the names of the wrapped
+     * filter and the actual size of the Bloom filter.
+     * 
+     * @return probability that a filename not accepted by the wrapped filter
+     *         passes the Bloom filter
+     */
+    public double getExpectedFalsePositiveRate() {
+        return bloom.getExpectedFalsePositiveRate();
+    }
+
+    /**
+     * Returns the false positive rate observed so far.
+     * 
+     * @return share of the filenames not accepted by the wrapped filter that
+     *         passed the Bloom filter, 0 if there were none
+     */
+    public double getObservedFalsePositiveRate() {
+        final long fp = falsePositives.get();
+        final long negatives = fp + rejected.get();
+        if (negatives == 0) {
+            return 0;
+        }
+        return (double) fp / negatives;
+    }
+
+    /**
+     * Returns the number of filenames rejected by the Bloom filter.
+     * 
+     * @return number of definite misses
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns the number of filenames that passed the Bloom filter but were
+     * rejected by the wrapped filter.
+     * 
+     * @return number of false positives
+     */
+    public long getFalsePositiveCount() {
+        return falsePositives.get();
+    }
+
+    /**
+     * Returns the number of filenames accepted.
+     * 
+     * @return number of matches
+     */
+    public long getMatchCount() {
+        return matches.get();
+    }
+
+    /**
+     * Returns the size of the Bloom filter.
+     * 
+     * @return number of off-heap bytes
+     */
+    public long getByteCount() {
+        return bloom.getBitCount() / 8;
+    }
+
+    /**
+     * Restores the Bloom filter after deserialization. The counters start
+     * again at 0.
+     * 
+     * @param in
+     *            the stream to read from
+     * @throws IOException
+     *             error reading the stream
+     * @throws ClassNotFoundException
+     *             class of a serialized object not found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        init();
+    }
+
+    /**
+     * Provide a String representation of this file filter.
+     * 
+     * @return a String representation
+     */
+    @Override
+    public String toString() {
+        return super.toString() + "(" + filter + "," + falsePositiveRate + ")";
+    }
+
+}
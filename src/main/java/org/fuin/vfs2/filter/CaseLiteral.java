@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.Arrays;
+
+/**
+ * Immutable literal text prepared once for repeated comparisons with
+ * filenames using a case sensitivity rule.
+ * <p>
+ * The methods return the same results as the corresponding <code>check</code>
+ * methods of {@link IOCase}. Case-insensitive literals are folded (see
+ * {@link IOCase#foldCase(char)}) when they are created, so a comparison only
+ * folds the filename characters, which is a table lookup for ASCII
+ * characters. As the JDK compares surrogate pairs as code points, literals
+ * containing surrogates are compared with
+ * {@link String#regionMatches(boolean, int, String, int, int)} instead.
+ * <p>
+ * Case-sensitive searches use {@link String#indexOf(String, int)}.
+ * Case-insensitive searches use the Boyer-Moore-Horspool algorithm with a
+ * skip table built from the folded characters, so on average only a fraction
+ * of the characters of the searched string are looked at.
+ */
+final class CaseLiteral {
+
+    /** Size of the skip table - characters share an entry modulo this size. */
+    private static final int SKIP_TABLE_SIZE = 128;
+
+    /** The literal text. */
+    private final String text;
+
+    /** Whether the comparison is case sensitive. */
+    private final boolean sensitive;
+
+    /** Folded characters of the text or <code>null</code> if not required. */
+    private final char[] folded;
+
+    /**
+     * Distance from the last occurrence of a folded character to the end of
+     * the text or <code>null</code> if the text is searched without skipping.
+     */
+    private final char[] skip;
+
+    /**
+     * Constructor with text and case sensitivity.
+     * 
+     * @param text
+     *            the literal text, not null
+     * @param caseSensitivity
+     *            what case sensitivity rule to use, not null
+     */
+    CaseLiteral(final String text, final IOCase caseSensitivity) {
+        this.text = text;
+        this.sensitive = caseSensitivity.isCaseSensitive();
+        if (sensitive || IOCase.containsSurrogate(text)) {
+            this.folded = null;
+            this.skip = null;
+        } else {
+            this.folded = new char[text.length()];
+            for (int i = 0; i < folded.length; i++) {
+                folded[i] = IOCase.foldCase(text.charAt(i));
+            }
+            this.skip = createSkipTable(folded);
+        }
+    }
+
+    /**
+     * Returns the length of the text.
+     * 
+     * @return number of characters
+     */
+    int length() {
+        return text.length();
+    }
+
+    /**
+     * Checks if the string contains the text at a specific index. Same as
+     * {@link IOCase#checkRegionMatches(String, int, String)}.
+     * 
+     * @param str
+     *            the string to check, not null
+     * @param start
+     *            the index to start at in str
+     * 
+     * @return true if equal using the case rules
+     */
+    boolean matchesAt(final String str, final int start) {
+        final int length = text.length();
+        if (folded == null) {
+            return str.regionMatches(!sensitive, start, text, 0, length);
+        }
+        if (start < 0 || start > str.length() - length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            final char ch = str.charAt(start + i);
+            if (IOCase.isSurrogate(ch)) {
+                // A surrogate never equals a character of a text without surrogates
+                return false;
+            }
+            if (IOCase.foldCase(ch) != folded[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Searches the text in the string. Same as
+     * {@link IOCase#checkIndexOf(String, int, String)}.
+     * 
+     * @param str
+     *            the string to search, not null
+     * @param fromIndex
+     *            the index to start at in str
+     * 
+     * @return the first index of the text at or after the start index or -1
+     *         if the text is not found
+     */
+    int indexOf(final String str, final int fromIndex) {
+        final int last = str.length() - text.length();
+        if (last < fromIndex) {
+            return -1;
+        }
+        if (sensitive) {
+            return str.indexOf(text, fromIndex);
+        }
+        if (skip == null) {
+            for (int i = Math.max(fromIndex, 0); i <= last; i++) {
+                if (matchesAt(str, i)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        final int end = folded.length - 1;
+        final char lastChar = folded[end];
+        int i = Math.max(fromIndex, 0);
+        while (i <= last) {
+            // Surrogates are folded to themselves and never match
+            final char ch = IOCase.foldCase(str.charAt(i + end));
+            if (ch == lastChar && matchesAt(str, i)) {
+                return i;
+            }
+            i = i + skip[ch % SKIP_TABLE_SIZE];
+        }
+        return -1;
+    }
+
+    /**
+     * Creates the Horspool skip table for the folded characters. Characters
+     * sharing an entry get the smallest distance, so no occurrence is
+     * skipped.
+     * 
+     * @param chars
+     *            the folded characters of the text
+     * 
+     * @return the skip table or <code>null</code> if the text is too short
+     *         for skipping
+     */
+    private static char[] createSkipTable(final char[] chars) {
+        final int length = chars.length;
+        if (length < 2 || length > Character.MAX_VALUE) {
+            return null;
+        }
+        final char[] table = new char[SKIP_TABLE_SIZE];
+        Arrays.fill(table, (char) length);
+        for (int i = 0; i < length - 1; i++) {
+            table[chars[i] % SKIP_TABLE_SIZE] = (char) (length - 1 - i);
+        }
+        return table;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable patterns of a filter together with the matcher compiled from
+ * them.
+ * <p>
+ * The patterns are stored in an array that is never exposed, so instances
+ * can be shared by any number of filters. Instances for identical patterns
+ * are shared through the {@link PatternRegistry}.
+ * 
+ * @param <M>
+ *            type of the compiled matcher
+ */
+final class CompiledPatterns<M> {
+
+    /** The patterns. */
+    private final String[] patterns;
+
+    /** Unmodifiable list view of the patterns. */
+    private final List<String> list;
+
+    /** How to handle case sensitivity. */
+    private final IOCase caseSensitivity;
+
+    /** The compiled matcher. */
+    private final M matcher;
+
+    /**
+     * Constructor compiling the patterns.
+     * 
+     * @param patterns
+     *            the patterns, not null - the array is not copied
+     * @param caseSensitivity
+     *            how to handle case sensitivity, not null
+     * @param compiler
+     *            creates the matcher, not null
+     */
+    CompiledPatterns(final String[] patterns, final IOCase caseSensitivity, final Compiler<M> compiler) {
+        this.patterns = patterns;
+        this.list = Collections.unmodifiableList(Arrays.asList(patterns));
+        this.caseSensitivity = caseSensitivity;
+        this.matcher = compiler.compile(list, caseSensitivity);
+    }
+
+    /**
+     * Returns the patterns.
+     * 
+     * @return unmodifiable list of the patterns
+     */
+    List<String> getPatterns() {
+        return list;
+    }
+
+    /**
+     * Returns the case sensitivity the patterns were compiled with.
+     * 
+     * @return how case sensitivity is handled
+     */
+    IOCase getCaseSensitivity() {
+        return caseSensitivity;
+    }
+
+    /**
+     * Returns the compiled matcher.
+     * 
+     * @return the matcher
+     */
+    M getMatcher() {
+        return matcher;
+    }
+
+    /**
+     * Compiles patterns into a matcher.
+     * 
+     * @param <M>
+     *            type of the compiled matcher
+     */
+    interface Compiler<M> {
+
+        /**
+         * Creates the matcher for patterns.
+         * 
+         * @param patterns
+         *            the patterns, not null
+         * @param caseSensitivity
+         *            how to handle case sensitivity, not null
+         * 
+         * @return the matcher
+         */
+        M compile(List<String> patterns, IOCase caseSensitivity);
+
+    }
+
+}
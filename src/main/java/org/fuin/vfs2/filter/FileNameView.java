@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSelectInfo;
+
+/**
+ * Name related values of a file computed at most once per evaluation.
+ * <p>
+ * A view is a {@link FileSelectInfo} wrapping the one passed to a filter, so
+ * it can be passed to any filter. {@link AndFileFilter}, {@link OrFileFilter}
+ * and {@link NotFileFilter} wrap the file info once and pass the view to all
+ * of their filters, and the name based filters of this package take the base
+ * name from the view. Nested filters share the same view, so the base name,
+ * the extension, the case-folded base name and the path relative to the base
+ * folder are computed only once for the complete filter tree, and only if a
+ * filter needs them. Custom filters can use {@link #of(FileSelectInfo)} to
+ * benefit from the view as well.
+ * <p>
+ * A view is meant to be used for a single evaluation by a single thread.
+ */
+public final class FileNameView implements FileSelectInfo {
+
+    /** The wrapped file info. */
+    private final FileSelectInfo fileInfo;
+
+    /** The base name or <code>null</code> if not yet computed. */
+    private String baseName;
+
+    /** The extension or <code>null</code> if not yet computed. */
+    private String extension;
+
+    /** The folded base name or <code>null</code> if not yet computed. */
+    private String foldedBaseName;
+
+    /** The relative path or <code>null</code> if not yet computed. */
+    private String relativePath;
+
+    /** Whether the relative path was computed. */
+    private boolean relativePathKnown;
+
+    /**
+     * Constructor with the file info to wrap.
+     * 
+     * @param fileInfo
+     *            the file info, not null
+     */
+    private FileNameView(final FileSelectInfo fileInfo) {
+        this.fileInfo = fileInfo;
+    }
+
+    /**
+     * Returns a view of a file info. If the file info already is a view, it
+     * is returned unchanged.
+     * 
+     * @param fileInfo
+     *            the file info, must not be null
+     * 
+     * @return the view
+     */
+    public static FileNameView of(final FileSelectInfo fileInfo) {
+        if (fileInfo == null) {
+            throw new IllegalArgumentException("The file info must not be null");
+        }
+        if (fileInfo instanceof FileNameView) {
+            return (FileNameView) fileInfo;
+        }
+        return new FileNameView(fileInfo);
+    }
+
+    /**
+     * Returns the base name of a file, taken from the view if the file info
+     * is one.
+     * 
+     * @param fileInfo
+     *            the file info, not null
+     * 
+     * @return the base name of the file
+     */
+    static String baseName(final FileSelectInfo fileInfo) {
+        if (fileInfo instanceof FileNameView) {
+            return ((FileNameView) fileInfo).getBaseName();
+        }
+        return fileInfo.getFile().getName().getBaseName();
+    }
+
+    @Override
+    public FileObject getBaseFolder() {
+        return fileInfo.getBaseFolder();
+    }
+
+    @Override
+    public FileObject getFile() {
+        return fileInfo.getFile();
+    }
+
+    @Override
+    public int getDepth() {
+        return fileInfo.getDepth();
+    }
+
+    /**
+     * Returns the base name of the file.
+     * 
+     * @return the last element of the name
+     */
+    public String getBaseName() {
+        if (baseName == null) {
+            baseName = fileInfo.getFile().getName().getBaseName();
+        }
+        return baseName;
+    }
+
+    /**
+     * Returns the extension of the file.
+     * 
+     * @return the part of the base name after the last dot, an empty string
+     *         if the base name contains no dot
+     */
+    public String getExtension() {
+        if (extension == null) {
+            final String name = getBaseName();
+            final int dot = name.lastIndexOf('.');
+            extension = dot < 0 ? "" : name.substring(dot + 1);
+        }
+        return extension;
+    }
+
+    /**
+     * Returns the base name with every character folded (see
+     * {@link IOCase#foldCase(char)}). Two base names without surrogates are
+     * equal ignoring case exactly if their folded base names are equal.
+     * 
+     * @return the folded base name
+     */
+    public String getFoldedBaseName() {
+        if (foldedBaseName == null) {
+            final String name = getBaseName();
+            final char[] chars = new char[name.length()];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = IOCase.foldCase(name.charAt(i));
+            }
+            foldedBaseName = new String(chars);
+        }
+        return foldedBaseName;
+    }
+
+    /**
+     * Returns the path of the file relative to the base folder.
+     * 
+     * @return the names between the base folder and the file separated by
+     *         '/', an empty string for the base folder itself or
+     *         <code>null</code> if the file is not located below the base
+     *         folder
+     */
+    public String getRelativePath() {
+        if (!relativePathKnown) {
+            relativePath = relativePath(fileInfo.getBaseFolder().getName(), fileInfo.getFile().getName());
+            relativePathKnown = true;
+        }
+        return relativePath;
+    }
+
+    /**
+     * Computes the path of a file relative to a base folder.
+     * 
+     * @param base
+     *            name of the base folder
+     * @param file
+     *            name of the file
+     * 
+     * @return the relative path or <code>null</code> if the file is not
+     *         located below the base folder
+     */
+    private static String relativePath(final FileName base, final FileName file) {
+        final String basePath = base.getPath();
+        final String path = file.getPath();
+        if (path.equals(basePath)) {
+            return "";
+        }
+        final int start = basePath.endsWith("/") ? basePath.length() : basePath.length() + 1;
+        if (path.length() <= start || !path.startsWith(basePath) || path.charAt(start - 1) != '/') {
+            return null;
+        }
+        return path.substring(start);
+    }
+
+    @Override
+    public String toString() {
+        return fileInfo.toString();
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.vfs2.FileName;
+
+/**
+ * Thread-safe cache of values computed per folder of a selection.
+ * <p>
+ * Values are keyed by the name of the folder and are only returned for the
+ * base folder they were computed for, so a filter can be used for several
+ * selections. When the cache reaches {@link #MAX_SIZE} entries, the deepest
+ * folders are removed until it is at most half full. These have no cached
+ * sub folders, so the values of their ancestors, which the traversal still
+ * needs, are kept.
+ * 
+ * @param <V>
+ *            type of the cached values
+ */
+final class FolderCache<V> {
+
+    /** Maximum number of cached folders. */
+    static final int MAX_SIZE = 10000;
+
+    /** Values by folder name. */
+    private final ConcurrentMap<FileName, Entry<V>> entries;
+
+    /**
+     * Default constructor.
+     */
+    FolderCache() {
+        entries = new ConcurrentHashMap<FileName, Entry<V>>();
+    }
+
+    /**
+     * Returns the value of a folder.
+     * 
+     * @param base
+     *            name of the base folder, not null
+     * @param folder
+     *            name of the folder, not null
+     * 
+     * @return the value or <code>null</code> if there is none for the base
+     *         folder
+     */
+    V get(final FileName base, final FileName folder) {
+        final Entry<V> entry = entries.get(folder);
+        if (entry == null || !entry.base.equals(base)) {
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Stores the value of a folder.
+     * 
+     * @param base
+     *            name of the base folder, not null
+     * @param folder
+     *            name of the folder, not null
+     * @param value
+     *            the value, not null
+     */
+    void put(final FileName base, final FileName folder, final V value) {
+        if (entries.size() >= MAX_SIZE) {
+            evictDeepest();
+        }
+        entries.put(folder, new Entry<V>(base, value));
+    }
+
+    /**
+     * Removes the deepest folders until the cache is at most half full.
+     */
+    private synchronized void evictDeepest() {
+        while (entries.size() > MAX_SIZE / 2) {
+            int deepest = 0;
+            for (final FileName name : entries.keySet()) {
+                deepest = Math.max(deepest, name.getDepth());
+            }
+            final Iterator<FileName> it = entries.keySet().iterator();
+            while (it.hasNext()) {
+                if (it.next().getDepth() == deepest) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Cached value together with the base folder it belongs to.
+     * 
+     * @param <V>
+     *            type of the value
+     */
+    private static final class Entry<V> {
+
+        /** Name of the base folder. */
+        private final FileName base;
+
+        /** The value. */
+        private final V value;
+
+        /**
+         * Constructor with all data.
+         * 
+         * @param base
+         *            name of the base folder
+         * @param value
+         *            the value
+         */
+        Entry(final FileName base, final V value) {
+            this.base = base;
+            this.value = value;
+        }
+
+    }
+
+}
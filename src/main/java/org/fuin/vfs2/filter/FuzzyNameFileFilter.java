@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.vfs2.FileFilter;
+import org.apache.commons.vfs2.FileSelectInfo;
+
+/**
+ * Filters filenames that are similar to any of a list of names.
+ * <p>
+ * A filename is accepted if its Levenshtein distance to one of the names is
+ * not greater than a maximum distance. The distance is the minimum number of
+ * characters that must be inserted, deleted or substituted to turn the
+ * filename into the name. All names are combined into one automaton, so a
+ * filename is checked in a single pass over its characters, and most
+ * filenames are rejected after a few characters.
+ * <p>
+ * For example, to print all files and directories in the current directory
+ * whose name differs from <code>settings.xml</code> in at most two
+ * characters:
+ * 
+ * <pre>
+ * FileSystemManager fsManager = VFS.getManager();
+ * FileObject dir = fsManager.toFileObject(new File(&quot;.&quot;));
+ * FileFilter filter = new FuzzyNameFileFilter(2, &quot;settings.xml&quot;);
+ * FileObject[] files = dir.findFiles(new FileFilterSelector(filter));
+ * for (int i = 0; i &lt; files.length; i++) {
+ *     System.out.println(files[i]);
+ * }
+ * </pre>
+ */
+public class FuzzyNameFileFilter implements FileFilter, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Whether the comparison is case sensitive. */
+    private final IOCase caseSensitivity;
+
+    /** The maximum distance. */
+    private final int maxDistance;
+
+    /** The names to compare with. */
+    private final List<String> names;
+
+    /** Automaton comparing with all names at once. */
+    private transient LevenshteinAutomaton automaton;
+
+    /**
+     * Constructs a new case-sensitive fuzzy name file filter for a list of
+     * names.
+     * 
+     * @param maxDistance
+     *            the maximum distance of an accepted filename, between 0 and
+     *            126
+     * @param names
+     *            the names to compare with, must not be null
+     */
+    public FuzzyNameFileFilter(final int maxDistance, final List<String> names) {
+        this(IOCase.SENSITIVE, maxDistance, names);
+    }
+
+    /**
+     * Constructs a new fuzzy name file filter for a list of names specifying
+     * case-sensitivity.
+     * 
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param maxDistance
+     *            the maximum distance of an accepted filename, between 0 and
+     *            126
+     * @param names
+     *            the names to compare with, must not be null
+     */
+    public FuzzyNameFileFilter(final IOCase caseSensitivity, final int maxDistance,
+            final List<String> names) {
+        if (names == null) {
+            throw new IllegalArgumentException("The list of names must not be null");
+        }
+        checkMaxDistance(maxDistance);
+        this.names = new ArrayList<String>(names);
+        this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.maxDistance = maxDistance;
+        this.automaton = new LevenshteinAutomaton(this.names, maxDistance, this.caseSensitivity);
+    }
+
+    /**
+     * Constructs a new case-sensitive fuzzy name file filter for an array of
+     * names.
+     * 
+     * @param maxDistance
+     *            the maximum distance of an accepted filename, between 0 and
+     *            126
+     * @param names
+     *            the names to compare with, must not be null
+     */
+    public FuzzyNameFileFilter(final int maxDistance, final String... names) {
+        this(IOCase.SENSITIVE, maxDistance, names);
+    }
+
+    /**
+     * Constructs a new fuzzy name file filter for an array of names
+     * specifying case-sensitivity.
+     * 
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param maxDistance
+     *            the maximum distance of an accepted filename, between 0 and
+     *            126
+     * @param names
+     *            the names to compare with, must not be null
+     */
+    public FuzzyNameFileFilter(final IOCase caseSensitivity, final int maxDistance, final String... names) {
+        if (names == null) {
+            throw new IllegalArgumentException("The array of names must not be null");
+        }
+        checkMaxDistance(maxDistance);
+        this.names = new ArrayList<String>(Arrays.asList(names));
+        this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.maxDistance = maxDistance;
+        this.automaton = new LevenshteinAutomaton(this.names, maxDistance, this.caseSensitivity);
+    }
+
+    /**
+     * Checks the maximum distance.
+     * 
+     * @param maxDistance
+     *            the maximum distance
+     */
+    private static void checkMaxDistance(final int maxDistance) {
+        if (maxDistance < 0 || maxDistance > LevenshteinAutomaton.MAX_DISTANCE) {
+            throw new IllegalArgumentException("The maximum distance must be between 0 and "
+                    + LevenshteinAutomaton.MAX_DISTANCE + ": " + maxDistance);
+        }
+    }
+
+    /**
+     * Checks to see if the filename is similar to one of the names.
+     * 
+     * @param fileInfo
+     *            the File to check
+     * 
+     * @return true if the distance of the filename to one of our names is
+     *         not greater than the maximum distance
+     */
+    @Override
+    public boolean accept(final FileSelectInfo fileInfo) {
+        final String name = FileNameView.baseName(fileInfo);
+        return automaton.matches(name);
+    }
+
+    /**
+     * Restores the automaton after deserialization.
+     * 
+     * @param in
+     *            the stream to read from
+     * @throws IOException
+     *             error reading the stream
+     * @throws ClassNotFoundException
+     *             class of a serialized object not found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.automaton = new LevenshteinAutomaton(this.names, this.maxDistance, this.caseSensitivity);
+    }
+
+    /**
+     * Provide a String representation of this file filter.
+     * 
+     * @return a String representation
+     */
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append(super.toString());
+        buffer.append("(");
+        buffer.append(maxDistance);
+        buffer.append(";");
+        if (names != null) {
+            for (int i = 0; i < names.size(); i++) {
+                if (i > 0) {
+                    buffer.append(",");
+                }
+                buffer.append(names.get(i));
+            }
+        }
+        buffer.append(")");
+        return buffer.toString();
+    }
+
+}
@@ -0,0 +1,486 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.vfs2.FileContent;
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSelectInfo;
+
+/**
+ * Filters files that are not ignored by the <code>.gitignore</code> files of
+ * the base folder of the selection and its subfolders.
+ * <p>
+ * The ignore files are read with the rules of Git:
+ * <ul>
+ * <li>Blank lines and lines starting with <code>#</code> are skipped,
+ * trailing spaces are removed unless escaped with a backslash.</li>
+ * <li>A rule starting with <code>!</code> includes a path again that was
+ * ignored by a preceding rule.</li>
+ * <li>A rule ending with <code>/</code> only matches directories.</li>
+ * <li>A rule containing a <code>/</code> at the beginning or in the middle is
+ * relative to the folder of the ignore file, any other rule matches at any
+ * level below it.</li>
+ * <li><code>*</code>, <code>?</code> and <code>[a-z]</code> never match
+ * <code>/</code>, <code>**</code> matches zero or more directories, and a
+ * trailing <code>/**</code> matches everything inside a directory.</li>
+ * <li>The last matching rule decides. Rules of an ignore file in a deeper
+ * folder override the rules of its parent folders.</li>
+ * <li>A path inside an ignored directory is ignored, negated rules cannot
+ * include it again.</li>
+ * </ul>
+ * The names of the ignore files can be configured, for example to honour
+ * <code>.dockerignore</code> files too. Several ignore files in one folder
+ * are applied in the order of their names as if they were one file. The
+ * base folder itself is never ignored. Testing is case-sensitive by default,
+ * but this can be configured.
+ * <p>
+ * Ignore files are read and compiled once when the traversal enters their
+ * folder. The rules that may still match below a folder are cached together
+ * with their matching state by the name of the folder, so every file is
+ * checked with one step per active ignore file for its base name. At most
+ * 10000 folders are cached; beyond that the deepest folders are dropped
+ * first, so only their own ignore files may have to be read again. Used with
+ * a {@link PruningFileSelector} ignored directories are not traversed at
+ * all.
+ * <p>
+ * For example, to retrieve and print all files of the current directory that
+ * are not ignored:
+ * 
+ * <pre>
+ * FileSystemManager fsManager = VFS.getManager();
+ * FileObject dir = fsManager.toFileObject(new File(&quot;.&quot;));
+ * FileObject[] files = dir.findFiles(new PruningFileSelector(new GitIgnoreFileFilter()));
+ * for (int i = 0; i &lt; files.length; i++) {
+ *     System.out.println(files[i]);
+ * }
+ * </pre>
+ */
+public class GitIgnoreFileFilter implements PruningFileFilter, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Default name of the ignore files. */
+    public static final String GITIGNORE = ".gitignore";
+
+    /** Encoding of the ignore files. */
+    private static final String ENCODING = "UTF-8";
+
+    /** Whether the comparison is case sensitive. */
+    private final IOCase caseSensitivity;
+
+    /** The names of the ignore files. */
+    private final List<String> ignoreFileNames;
+
+    /** Rules and matching states of the traversed folders. */
+    private transient FolderCache<Folder> folders;
+
+    /**
+     * Construct a new case-sensitive filter for <code>.gitignore</code> files.
+     */
+    public GitIgnoreFileFilter() {
+        this((IOCase) null, GITIGNORE);
+    }
+
+    /**
+     * Construct a new case-sensitive filter for a list of ignore file names.
+     * 
+     * @param ignoreFileNames
+     *            the list of ignore file names, not null
+     */
+    public GitIgnoreFileFilter(final List<String> ignoreFileNames) {
+        this((IOCase) null, ignoreFileNames);
+    }
+
+    /**
+     * Construct a new filter for a list of ignore file names specifying
+     * case-sensitivity.
+     * 
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param ignoreFileNames
+     *            the list of ignore file names, not null
+     */
+    public GitIgnoreFileFilter(final IOCase caseSensitivity, final List<String> ignoreFileNames) {
+        if (ignoreFileNames == null) {
+            throw new IllegalArgumentException("The list of ignore file names must not be null");
+        }
+        this.ignoreFileNames = new ArrayList<String>(ignoreFileNames);
+        this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.folders = new FolderCache<Folder>();
+    }
+
+    /**
+     * Construct a new case-sensitive filter for an array of ignore file names.
+     * 
+     * @param ignoreFileNames
+     *            the array of ignore file names, not null
+     */
+    public GitIgnoreFileFilter(final String... ignoreFileNames) {
+        this((IOCase) null, ignoreFileNames);
+    }
+
+    /**
+     * Construct a new filter for an array of ignore file names specifying
+     * case-sensitivity.
+     * 
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param ignoreFileNames
+     *            the array of ignore file names, not null
+     */
+    public GitIgnoreFileFilter(final IOCase caseSensitivity, final String... ignoreFileNames) {
+        if (ignoreFileNames == null) {
+            throw new IllegalArgumentException("The array of ignore file names must not be null");
+        }
+        this.ignoreFileNames = new ArrayList<String>(Arrays.asList(ignoreFileNames));
+        this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.folders = new FolderCache<Folder>();
+    }
+
+    /**
+     * Checks to see if the file is not ignored.
+     * 
+     * @param fileInfo
+     *            the file to check
+     * 
+     * @return true if no ignore file excludes the file or one of its parent
+     *         folders
+     */
+    @Override
+    public boolean accept(final FileSelectInfo fileInfo) {
+        try {
+            final FileObject base = fileInfo.getBaseFolder();
+            final FileObject file = fileInfo.getFile();
+            final Folder cached = folders.get(base.getName(), file.getName());
+            if (cached != null) {
+                return !cached.ignored;
+            }
+            final FileObject parent = parentBelow(base.getName(), file);
+            if (parent == null) {
+                return true;
+            }
+            return !isIgnored(folder(base, parent), file);
+        } catch (final IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Checks if the directory is not ignored.
+     * 
+     * @param fileInfo
+     *            the directory to check
+     * 
+     * @return false if the directory is ignored
+     */
+    @Override
+    public boolean traverseDescendents(final FileSelectInfo fileInfo) {
+        try {
+            return !folder(fileInfo.getBaseFolder(), fileInfo.getFile()).ignored;
+        } catch (final IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Returns the rules and states of a folder.
+     * 
+     * @param base
+     *            the base folder
+     * @param dir
+     *            the folder
+     * 
+     * @return the folder data
+     * 
+     * @throws IOException
+     *             error reading an ignore file
+     */
+    private Folder folder(final FileObject base, final FileObject dir) throws IOException {
+        final FileName baseName = base.getName();
+        final FileName name = dir.getName();
+        Folder folder = folders.get(baseName, name);
+        if (folder != null) {
+            return folder;
+        }
+        if (name.equals(baseName)) {
+            folder = Folder.NONE.enter(load(dir));
+        } else {
+            final FileObject parent = parentBelow(baseName, dir);
+            if (parent == null) {
+                folder = Folder.NONE;
+            } else {
+                folder = folder(base, parent).child(dir);
+                if (!folder.ignored) {
+                    folder = folder.enter(load(dir));
+                }
+            }
+        }
+        folders.put(baseName, name, folder);
+        return folder;
+    }
+
+    /**
+     * Returns the parent of a file below the base folder.
+     * 
+     * @param base
+     *            name of the base folder
+     * @param file
+     *            the file
+     * 
+     * @return the parent or <code>null</code> if the file is not below the
+     *         base folder
+     * 
+     * @throws IOException
+     *             error resolving the parent
+     */
+    private static FileObject parentBelow(final FileName base, final FileObject file) throws IOException {
+        if (file.getName().getDepth() <= base.getDepth()) {
+            return null;
+        }
+        return file.getParent();
+    }
+
+    /**
+     * Checks if a file is ignored by the rules of its parent folder.
+     * 
+     * @param parent
+     *            data of the parent folder
+     * @param file
+     *            the file to check
+     * 
+     * @return true if the file is ignored
+     * 
+     * @throws IOException
+     *             error reading the type of the file
+     */
+    private static boolean isIgnored(final Folder parent, final FileObject file) throws IOException {
+        if (parent.ignored) {
+            return true;
+        }
+        final String name = file.getName().getBaseName();
+        for (int i = parent.rules.length - 1; i >= 0; i--) {
+            final int result = parent.rules[i].apply(parent.rules[i].step(parent.states[i], name), file);
+            if (result != IgnoreRules.NO_MATCH) {
+                return result == IgnoreRules.IGNORED;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the ignore files of a folder.
+     * 
+     * @param dir
+     *            the folder
+     * 
+     * @return the compiled rules or <code>null</code> if the folder has no
+     *         ignore file
+     * 
+     * @throws IOException
+     *             error reading an ignore file
+     */
+    private IgnoreRules load(final FileObject dir) throws IOException {
+        List<String> lines = null;
+        for (final String ignoreFileName : ignoreFileNames) {
+            final FileObject file = dir.getChild(ignoreFileName);
+            if (file != null && file.getType().hasContent()) {
+                if (lines == null) {
+                    lines = new ArrayList<String>();
+                }
+                readLines(file, lines);
+            }
+        }
+        if (lines == null) {
+            return null;
+        }
+        return new IgnoreRules(lines, caseSensitivity);
+    }
+
+    /**
+     * Reads the lines of a file.
+     * 
+     * @param file
+     *            the file to read
+     * @param lines
+     *            the list to add the lines to
+     * 
+     * @throws IOException
+     *             error reading the file
+     */
+    private static void readLines(final FileObject file, final List<String> lines) throws IOException {
+        final FileContent content = file.getContent();
+        try {
+            final InputStream in = content.getInputStream();
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(in, ENCODING));
+            String line = reader.readLine();
+            while (line != null) {
+                lines.add(line);
+                line = reader.readLine();
+            }
+        } finally {
+            content.close();
+        }
+    }
+
+    /**
+     * Restores the cache after deserialization.
+     * 
+     * @param in
+     *            the stream to read from
+     * @throws IOException
+     *             error reading the stream
+     * @throws ClassNotFoundException
+     *             class of a serialized object not found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.folders = new FolderCache<Folder>();
+    }
+
+    /**
+     * Provide a String representation of this file filter.
+     * 
+     * @return a String representation
+     */
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append(super.toString());
+        buffer.append("(");
+        if (ignoreFileNames != null) {
+            for (int i = 0; i < ignoreFileNames.size(); i++) {
+                if (i > 0) {
+                    buffer.append(",");
+                }
+                buffer.append(ignoreFileNames.get(i));
+            }
+        }
+        buffer.append(")");
+        return buffer.toString();
+    }
+
+    /**
+     * Rule sets that may still match below a folder together with the
+     * matching state of the folder, ordered from the base folder down.
+     */
+    private static final class Folder {
+
+        /** Folder without any rules. */
+        static final Folder NONE = new Folder(false, new IgnoreRules[0], new int[0][]);
+
+        /** Ignored folder. */
+        static final Folder IGNORED = new Folder(true, new IgnoreRules[0], new int[0][]);
+
+        /** Whether the folder is ignored. */
+        private final boolean ignored;
+
+        /** Active rule sets. */
+        private final IgnoreRules[] rules;
+
+        /** State of the folder for every rule set. */
+        private final int[][] states;
+
+        /**
+         * Constructor with all data.
+         * 
+         * @param ignored
+         *            whether the folder is ignored
+         * @param rules
+         *            active rule sets
+         * @param states
+         *            state of the folder for every rule set
+         */
+        private Folder(final boolean ignored, final IgnoreRules[] rules, final int[][] states) {
+            this.ignored = ignored;
+            this.rules = rules;
+            this.states = states;
+        }
+
+        /**
+         * Returns the data of a sub folder.
+         * 
+         * @param dir
+         *            the sub folder
+         * 
+         * @return the data of the sub folder without its own rules
+         * 
+         * @throws IOException
+         *             error reading the type of the folder
+         */
+        Folder child(final FileObject dir) throws IOException {
+            if (ignored) {
+                return IGNORED;
+            }
+            final String name = dir.getName().getBaseName();
+            final int[][] stepped = new int[rules.length][];
+            for (int i = 0; i < rules.length; i++) {
+                stepped[i] = rules[i].step(states[i], name);
+            }
+            for (int i = rules.length - 1; i >= 0; i--) {
+                final int result = rules[i].apply(stepped[i], dir);
+                if (result == IgnoreRules.IGNORED) {
+                    return IGNORED;
+                }
+                if (result == IgnoreRules.INCLUDED) {
+                    break;
+                }
+            }
+            final List<IgnoreRules> childRules = new ArrayList<IgnoreRules>(rules.length);
+            final List<int[]> childStates = new ArrayList<int[]>(rules.length);
+            for (int i = 0; i < rules.length; i++) {
+                if (rules[i].canMatchBelow(stepped[i])) {
+                    childRules.add(rules[i]);
+                    childStates.add(stepped[i]);
+                }
+            }
+            return new Folder(false, childRules.toArray(new IgnoreRules[childRules.size()]),
+                    childStates.toArray(new int[childStates.size()][]));
+        }
+
+        /**
+         * Adds the rules of the folder's own ignore files.
+         * 
+         * @param own
+         *            the rules or <code>null</code>
+         * 
+         * @return the folder data including the rules
+         */
+        Folder enter(final IgnoreRules own) {
+            if (own == null) {
+                return this;
+            }
+            final IgnoreRules[] allRules = Arrays.copyOf(rules, rules.length + 1);
+            final int[][] allStates = Arrays.copyOf(states, states.length + 1);
+            allRules[rules.length] = own;
+            allStates[states.length] = own.start();
+            return new Folder(false, allRules, allStates);
+        }
+
+    }
+
+}
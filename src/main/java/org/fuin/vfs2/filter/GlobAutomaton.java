@@ -0,0 +1,969 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Minimal DFA that matches a filename against any number of globs in a single
+ * pass.
+ * <p>
+ * The globs are parsed and translated into one NFA. The NFA is turned into a
+ * DFA by the subset construction, which is then minimised. Code points that
+ * no glob tells apart share a character class, so the DFA is a table with one
+ * row per state and one column per class. Everything is built by the
+ * constructor - matching is a table lookup per code point without
+ * backtracking.
+ * <p>
+ * Case-insensitive matching folds the globs once and every filename code
+ * point while scanning (see {@link IOCase#foldCodePoint(int)}).
+ */
+final class GlobAutomaton {
+
+    /** Maximum number of DFA states built by the subset construction. */
+    static final int MAX_STATES = 10000;
+
+    /** NFA state matching one code point of a set. */
+    private static final byte SET = 0;
+
+    /** NFA state continuing with two states. */
+    private static final byte SPLIT = 1;
+
+    /** NFA state at the end of a glob. */
+    private static final byte ACCEPT = 2;
+
+    /** Intervals of the set containing all code points. */
+    private static final int[] ALL = { 0, Character.MAX_CODE_POINT };
+
+    /** Whether code points are folded before matching. */
+    private final boolean fold;
+
+    /** Character class of every ASCII character. */
+    private final int[] asciiClasses;
+
+    /** Sorted first code points of the ranges of non-ASCII code points. */
+    private final int[] otherStarts;
+
+    /** Class of the corresponding range in {@link #otherStarts}. */
+    private final int[] otherClasses;
+
+    /** Number of character classes. */
+    private final int classCount;
+
+    /** Next state for every state and class - row by row. */
+    private final int[] transitions;
+
+    /** Whether a filename ending in the state matches. */
+    private final boolean[] accepting;
+
+    /** Start state. */
+    private final int start;
+
+    /** State no continuation leaves a match from or -1. */
+    private final int dead;
+
+    /** State every continuation matches from or -1. */
+    private final int acceptsAll;
+
+    /**
+     * Constructor with globs and case sensitivity.
+     * 
+     * @param globs
+     *            the globs to combine, not null
+     * @param caseSensitivity
+     *            how to handle case sensitivity, not null
+     * 
+     * @throws IllegalArgumentException
+     *             a glob is invalid or the globs need too many states
+     */
+    GlobAutomaton(final List<String> globs, final IOCase caseSensitivity) {
+        this.fold = !caseSensitivity.isCaseSensitive();
+        final Builder builder = new Builder();
+        final int first = builder.compile(globs, fold);
+
+        // Code points no set tells apart form one class
+        final int[] starts = classStarts(builder);
+        final Dfa dfa = new Dfa(builder, first, starts);
+        final int[] block = minimise(dfa);
+        final int[] columnOf = mergeClasses(dfa, block);
+
+        int blocks = 0;
+        for (final int b : block) {
+            blocks = Math.max(blocks, b + 1);
+        }
+        int classes = 0;
+        for (final int c : columnOf) {
+            classes = Math.max(classes, c + 1);
+        }
+        this.classCount = classes;
+        this.transitions = new int[blocks * classCount];
+        this.accepting = new boolean[blocks];
+        for (int d = 0; d < dfa.count; d++) {
+            accepting[block[d]] = dfa.accepts[d];
+            for (int c = 0; c < dfa.classes; c++) {
+                transitions[block[d] * classCount + columnOf[c]] = block[dfa.next(d, c)];
+            }
+        }
+        this.start = block[0];
+        this.dead = findLoopsOnly(false);
+        this.acceptsAll = findLoopsOnly(true);
+
+        // Lookup tables from code points to the merged classes
+        this.asciiClasses = new int[128];
+        int raw = 0;
+        for (int cp = 0; cp < asciiClasses.length; cp++) {
+            while (raw + 1 < starts.length && starts[raw + 1] <= cp) {
+                raw++;
+            }
+            asciiClasses[cp] = columnOf[raw];
+        }
+        final int[][] ranges = otherRanges(starts, columnOf, raw);
+        this.otherStarts = ranges[0];
+        this.otherClasses = ranges[1];
+    }
+
+    /**
+     * Checks if the filename matches any of the globs.
+     * 
+     * @param filename
+     *            the filename to match on, not null
+     * 
+     * @return true if the filename matches at least one glob
+     */
+    boolean matches(final String filename) {
+        int state = start;
+        final int length = filename.length();
+        int i = 0;
+        while (i < length) {
+            if (state == dead) {
+                return false;
+            }
+            if (state == acceptsAll) {
+                return true;
+            }
+            int cp = filename.codePointAt(i);
+            i = i + Character.charCount(cp);
+            if (fold) {
+                cp = IOCase.foldCodePoint(cp);
+            }
+            state = transitions[state * classCount + classOf(cp)];
+        }
+        return accepting[state];
+    }
+
+    /**
+     * Returns the number of states of the minimal DFA.
+     * 
+     * @return number of states
+     */
+    int getStateCount() {
+        return accepting.length;
+    }
+
+    /**
+     * Returns the character class of a (folded) code point.
+     * 
+     * @param cp
+     *            the code point
+     * 
+     * @return the class
+     */
+    private int classOf(final int cp) {
+        if (cp < 128) {
+            return asciiClasses[cp];
+        }
+        int idx = Arrays.binarySearch(otherStarts, cp);
+        if (idx < 0) {
+            idx = -idx - 2;
+        }
+        return otherClasses[idx];
+    }
+
+    /**
+     * Returns a state that is never left.
+     * 
+     * @param accept
+     *            whether the state must be accepting or not
+     * 
+     * @return the state or -1 if there is none
+     */
+    private int findLoopsOnly(final boolean accept) {
+        for (int state = 0; state < accepting.length; state++) {
+            if (accepting[state] == accept && loopsOnly(state)) {
+                return state;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if all transitions of a state lead back to the state.
+     * 
+     * @param state
+     *            the state to check
+     * 
+     * @return true if the state is never left
+     */
+    private boolean loopsOnly(final int state) {
+        for (int c = 0; c < classCount; c++) {
+            if (transitions[state * classCount + c] != state) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the ranges of non-ASCII code points with the same class.
+     * 
+     * @param starts
+     *            first code point of every original class
+     * @param columnOf
+     *            merged class of every original class
+     * @param first
+     *            original class containing the first non-ASCII code point
+     * 
+     * @return first code points and merged classes of the ranges
+     */
+    private static int[][] otherRanges(final int[] starts, final int[] columnOf, final int first) {
+        final List<int[]> ranges = new ArrayList<int[]>();
+        for (int c = first; c < starts.length; c++) {
+            if (ranges.isEmpty() || ranges.get(ranges.size() - 1)[1] != columnOf[c]) {
+                ranges.add(new int[] { Math.max(starts[c], 128), columnOf[c] });
+            }
+        }
+        final int[][] result = new int[2][ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            result[0][i] = ranges.get(i)[0];
+            result[1][i] = ranges.get(i)[1];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first code point of every character class. A new class
+     * starts wherever a set of an NFA state starts or ends.
+     * 
+     * @param builder
+     *            the NFA
+     * 
+     * @return sorted first code points, starting with zero
+     */
+    private static int[] classStarts(final Builder builder) {
+        final TreeSet<Integer> starts = new TreeSet<Integer>();
+        starts.add(Integer.valueOf(0));
+        for (int s = 0; s < builder.size; s++) {
+            if (builder.kinds[s] == SET) {
+                final int[] intervals = builder.sets[s];
+                for (int i = 0; i < intervals.length; i = i + 2) {
+                    starts.add(Integer.valueOf(intervals[i]));
+                    if (intervals[i + 1] < Character.MAX_CODE_POINT) {
+                        starts.add(Integer.valueOf(intervals[i + 1] + 1));
+                    }
+                }
+            }
+        }
+        final int[] result = new int[starts.size()];
+        int idx = 0;
+        for (final Integer cp : starts) {
+            result[idx++] = cp.intValue();
+        }
+        return result;
+    }
+
+    /**
+     * Checks if a set contains a code point.
+     * 
+     * @param intervals
+     *            sorted, disjoint intervals of the set - first and last code
+     *            point of each interval
+     * @param cp
+     *            the code point
+     * 
+     * @return true if the code point is in one of the intervals
+     */
+    private static boolean contains(final int[] intervals, final int cp) {
+        for (int i = 0; i < intervals.length; i = i + 2) {
+            if (cp < intervals[i]) {
+                return false;
+            }
+            if (cp <= intervals[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds an NFA state and all states reachable without reading a code point.
+     * 
+     * @param builder
+     *            the NFA
+     * @param set
+     *            set of NFA states to add to
+     * @param state
+     *            the state to add
+     */
+    private static void closure(final Builder builder, final boolean[] set, final int state) {
+        if (state < 0 || set[state]) {
+            return;
+        }
+        set[state] = true;
+        if (builder.kinds[state] == SPLIT) {
+            closure(builder, set, builder.outs[state]);
+            closure(builder, set, builder.alts[state]);
+        }
+    }
+
+    /**
+     * Returns the members of a set of NFA states.
+     * 
+     * @param set
+     *            the set
+     * 
+     * @return sorted states in the set
+     */
+    private static int[] members(final boolean[] set) {
+        int size = 0;
+        for (final boolean b : set) {
+            if (b) {
+                size++;
+            }
+        }
+        final int[] result = new int[size];
+        int idx = 0;
+        for (int s = 0; s < set.length; s++) {
+            if (set[s]) {
+                result[idx++] = s;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Minimises a DFA by refining the partition into accepting and other
+     * states until states in the same block have the same successor blocks
+     * (Moore's algorithm).
+     * 
+     * @param dfa
+     *            the DFA to minimise
+     * 
+     * @return block of every state - the states of the minimal DFA
+     */
+    private static int[] minimise(final Dfa dfa) {
+        int[] block = new int[dfa.count];
+        for (int d = 0; d < dfa.count; d++) {
+            block[d] = dfa.accepts[d] == dfa.accepts[0] ? 0 : 1;
+        }
+        int blocks = -1;
+        while (true) {
+            final Map<Key, Integer> signatures = new HashMap<Key, Integer>();
+            final int[] refined = new int[dfa.count];
+            for (int d = 0; d < dfa.count; d++) {
+                final int[] signature = new int[dfa.classes + 1];
+                signature[0] = block[d];
+                for (int c = 0; c < dfa.classes; c++) {
+                    signature[c + 1] = block[dfa.next(d, c)];
+                }
+                refined[d] = indexOf(signatures, new Key(signature));
+            }
+            block = refined;
+            if (signatures.size() == blocks) {
+                return block;
+            }
+            blocks = signatures.size();
+        }
+    }
+
+    /**
+     * Merges classes every state treats the same.
+     * 
+     * @param dfa
+     *            the DFA
+     * @param block
+     *            state of the minimal DFA for every state
+     * 
+     * @return merged class of every class
+     */
+    private static int[] mergeClasses(final Dfa dfa, final int[] block) {
+        final int[] columnOf = new int[dfa.classes];
+        final Map<Key, Integer> columns = new HashMap<Key, Integer>();
+        for (int c = 0; c < dfa.classes; c++) {
+            final int[] column = new int[dfa.count];
+            for (int d = 0; d < dfa.count; d++) {
+                column[d] = block[dfa.next(d, c)];
+            }
+            columnOf[c] = indexOf(columns, new Key(column));
+        }
+        return columnOf;
+    }
+
+    /**
+     * Returns the index of a key, adding the key with the next free index if
+     * it is not yet known.
+     * 
+     * @param index
+     *            the known keys
+     * @param key
+     *            the key
+     * 
+     * @return index of the key
+     */
+    private static int indexOf(final Map<Key, Integer> index, final Key key) {
+        final Integer known = index.get(key);
+        if (known != null) {
+            return known.intValue();
+        }
+        final int next = index.size();
+        index.put(key, Integer.valueOf(next));
+        return next;
+    }
+
+    /**
+     * DFA built from the NFA by the subset construction.
+     */
+    private static final class Dfa {
+
+        /** Number of classes. */
+        final int classes;
+
+        /** Next state for every state and class - row by row. */
+        private int[] table;
+
+        /** Whether a state accepts. */
+        final boolean[] accepts;
+
+        /** Number of states. */
+        final int count;
+
+        /**
+         * Constructor with the NFA.
+         * 
+         * @param builder
+         *            the NFA
+         * @param first
+         *            first NFA state
+         * @param starts
+         *            first code point of every class
+         */
+        Dfa(final Builder builder, final int first, final int[] starts) {
+            this.classes = starts.length;
+            final boolean[][] contained = new boolean[builder.size][];
+            for (int s = 0; s < builder.size; s++) {
+                if (builder.kinds[s] == SET) {
+                    contained[s] = new boolean[classes];
+                    for (int c = 0; c < classes; c++) {
+                        contained[s][c] = contains(builder.sets[s], starts[c]);
+                    }
+                }
+            }
+            final Map<Key, Integer> index = new HashMap<Key, Integer>();
+            final List<int[]> nfaSets = new ArrayList<int[]>();
+            final boolean[] set = new boolean[builder.size];
+            closure(builder, set, first);
+            nfaSets.add(members(set));
+            index.put(new Key(nfaSets.get(0)), Integer.valueOf(0));
+            table = new int[classes * 16];
+            for (int d = 0; d < nfaSets.size(); d++) {
+                if ((d + 1) * classes > table.length) {
+                    table = Arrays.copyOf(table, table.length * 2);
+                }
+                for (int c = 0; c < classes; c++) {
+                    Arrays.fill(set, false);
+                    for (final int s : nfaSets.get(d)) {
+                        if (builder.kinds[s] == SET && contained[s][c]) {
+                            closure(builder, set, builder.outs[s]);
+                        }
+                    }
+                    final int[] members = members(set);
+                    final int target = indexOf(index, new Key(members));
+                    if (target == nfaSets.size()) {
+                        if (target >= MAX_STATES) {
+                            throw new IllegalArgumentException("Globs too complex: more than " + MAX_STATES
+                                    + " states");
+                        }
+                        nfaSets.add(members);
+                    }
+                    table[d * classes + c] = target;
+                }
+            }
+            this.count = nfaSets.size();
+            this.accepts = new boolean[count];
+            for (int d = 0; d < count; d++) {
+                for (final int s : nfaSets.get(d)) {
+                    accepts[d] = accepts[d] || builder.kinds[s] == ACCEPT;
+                }
+            }
+        }
+
+        /**
+         * Returns the next state.
+         * 
+         * @param state
+         *            the current state
+         * @param cls
+         *            class of the code point read
+         * 
+         * @return the next state
+         */
+        int next(final int state, final int cls) {
+            return table[state * classes + cls];
+        }
+
+    }
+
+    /**
+     * Immutable array of integers usable as a hash key.
+     */
+    private static final class Key {
+
+        /** The values. */
+        private final int[] values;
+
+        /** Hash code of the values. */
+        private final int hash;
+
+        /**
+         * Constructor with values.
+         * 
+         * @param values
+         *            the values, not changed afterwards
+         */
+        Key(final int[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            return Arrays.equals(values, ((Key) obj).values);
+        }
+
+    }
+
+    /**
+     * Node of a parsed glob.
+     */
+    private static final class Node {
+
+        /** Matches one code point of a set. */
+        static final int SET = 0;
+
+        /** Matches any number of code points. */
+        static final int STAR = 1;
+
+        /** Matches the children one after another. */
+        static final int SEQUENCE = 2;
+
+        /** Matches any of the children. */
+        static final int ALTERNATION = 3;
+
+        /** Type of the node. */
+        final int type;
+
+        /** Intervals of a {@link #SET}. */
+        final int[] set;
+
+        /** Children of a sequence or an alternation. */
+        final List<Node> children;
+
+        /**
+         * Constructor with all values.
+         * 
+         * @param type
+         *            type of the node
+         * @param set
+         *            intervals of a set or <code>null</code>
+         * @param children
+         *            children or <code>null</code>
+         */
+        Node(final int type, final int[] set, final List<Node> children) {
+            this.type = type;
+            this.set = set;
+            this.children = children;
+        }
+
+    }
+
+    /**
+     * Parses a single glob.
+     */
+    private static final class Parser {
+
+        /** The glob. */
+        private final String glob;
+
+        /** Whether code points are folded. */
+        private final boolean fold;
+
+        /** Current position in the glob. */
+        private int pos;
+
+        /** Number of braces currently open. */
+        private int depth;
+
+        /**
+         * Constructor with glob.
+         * 
+         * @param glob
+         *            the glob to parse
+         * @param fold
+         *            whether code points are folded
+         */
+        Parser(final String glob, final boolean fold) {
+            this.glob = glob;
+            this.fold = fold;
+        }
+
+        /**
+         * Parses the glob.
+         * 
+         * @return the root node
+         */
+        Node parse() {
+            final Node node = parseSequence();
+            if (pos < glob.length()) {
+                throw error("Unexpected '" + glob.charAt(pos) + "'");
+            }
+            return node;
+        }
+
+        /**
+         * Parses a sequence up to the end of the glob or, inside braces, the
+         * next <code>,</code> or <code>}</code>.
+         * 
+         * @return the node
+         */
+        // CHECKSTYLE:OFF Cyclomatic complexity is OK here - one case per special character
+        private Node parseSequence() {
+            final List<Node> nodes = new ArrayList<Node>();
+            while (pos < glob.length()) {
+                final int cp = glob.codePointAt(pos);
+                if (depth > 0 && (cp == ',' || cp == '}')) {
+                    break;
+                }
+                pos = pos + Character.charCount(cp);
+                switch (cp) {
+                case '*':
+                    if (nodes.isEmpty() || nodes.get(nodes.size() - 1).type != Node.STAR) {
+                        nodes.add(new Node(Node.STAR, null, null));
+                    }
+                    break;
+                case '?':
+                    nodes.add(new Node(Node.SET, ALL, null));
+                    break;
+                case '[':
+                    nodes.add(new Node(Node.SET, parseClass(), null));
+                    break;
+                case '{':
+                    nodes.add(parseAlternation());
+                    break;
+                case '\\':
+                    nodes.add(new Node(Node.SET, literal(parseEscaped()), null));
+                    break;
+                default:
+                    nodes.add(new Node(Node.SET, literal(cp), null));
+                    break;
+                }
+            }
+            return new Node(Node.SEQUENCE, null, nodes);
+        }
+
+        // CHECKSTYLE:ON
+
+        /**
+         * Parses alternatives following a <code>{</code>.
+         * 
+         * @return the node
+         */
+        private Node parseAlternation() {
+            final List<Node> alternatives = new ArrayList<Node>();
+            depth++;
+            while (true) {
+                alternatives.add(parseSequence());
+                if (pos >= glob.length()) {
+                    throw error("Missing '}'");
+                }
+                if (glob.charAt(pos++) == '}') {
+                    break;
+                }
+            }
+            depth--;
+            return new Node(Node.ALTERNATION, null, alternatives);
+        }
+
+        /**
+         * Parses a character class following a <code>[</code>.
+         * 
+         * @return intervals of the code points matched
+         */
+        private int[] parseClass() {
+            final BitSet members = new BitSet();
+            boolean negated = false;
+            if (pos < glob.length() && glob.charAt(pos) == '!') {
+                negated = true;
+                pos++;
+            }
+            // A ']' right at the start is a member
+            parseMember(members);
+            while (pos >= glob.length() || glob.charAt(pos) != ']') {
+                parseMember(members);
+            }
+            pos++;
+            if (negated) {
+                members.flip(0, Character.MAX_CODE_POINT + 1);
+            }
+            return intervals(members);
+        }
+
+        /**
+         * Parses a code point or a range of a character class.
+         * 
+         * @param members
+         *            the members of the class to add to
+         */
+        private void parseMember(final BitSet members) {
+            final int from = parseClassCodePoint();
+            int to = from;
+            if (pos + 1 < glob.length() && glob.charAt(pos) == '-' && glob.charAt(pos + 1) != ']') {
+                pos++;
+                to = parseClassCodePoint();
+                if (to < from) {
+                    throw error("Invalid range");
+                }
+            }
+            for (int cp = from; cp <= to; cp++) {
+                members.set(fold ? IOCase.foldCodePoint(cp) : cp);
+            }
+        }
+
+        /**
+         * Parses a possibly escaped code point of a character class.
+         * 
+         * @return the code point
+         */
+        private int parseClassCodePoint() {
+            if (pos >= glob.length()) {
+                throw error("Missing ']'");
+            }
+            final int cp = glob.codePointAt(pos);
+            pos = pos + Character.charCount(cp);
+            if (cp == '\\') {
+                return parseEscaped();
+            }
+            return cp;
+        }
+
+        /**
+         * Returns the code point following a backslash.
+         * 
+         * @return the escaped code point
+         */
+        private int parseEscaped() {
+            if (pos >= glob.length()) {
+                throw error("Escape character at the end");
+            }
+            final int cp = glob.codePointAt(pos);
+            pos = pos + Character.charCount(cp);
+            return cp;
+        }
+
+        /**
+         * Returns the set for a literal code point.
+         * 
+         * @param cp
+         *            the code point
+         * 
+         * @return intervals of the code points matched
+         */
+        private int[] literal(final int cp) {
+            final int folded = fold ? IOCase.foldCodePoint(cp) : cp;
+            return new int[] { folded, folded };
+        }
+
+        /**
+         * Creates the exception for an invalid glob.
+         * 
+         * @param message
+         *            the problem
+         * 
+         * @return the exception to throw
+         */
+        private IllegalArgumentException error(final String message) {
+            return new IllegalArgumentException(message + " near index " + pos + " of glob '" + glob + "'");
+        }
+
+        /**
+         * Converts a set of code points into intervals.
+         * 
+         * @param members
+         *            the code points
+         * 
+         * @return sorted, disjoint intervals - first and last code point of
+         *         each interval
+         */
+        private static int[] intervals(final BitSet members) {
+            final List<Integer> bounds = new ArrayList<Integer>();
+            int from = members.nextSetBit(0);
+            while (from >= 0) {
+                final int end = members.nextClearBit(from);
+                bounds.add(Integer.valueOf(from));
+                bounds.add(Integer.valueOf(end - 1));
+                from = members.nextSetBit(end);
+            }
+            final int[] result = new int[bounds.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = bounds.get(i).intValue();
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * Translates parsed globs into NFA states.
+     */
+    private static final class Builder {
+
+        /** Type of each NFA state. */
+        private byte[] kinds = new byte[16];
+
+        /** Next state. */
+        private int[] outs = new int[16];
+
+        /** Second next state of a {@link GlobAutomaton#SPLIT} state. */
+        private int[] alts = new int[16];
+
+        /** Intervals matched by a {@link GlobAutomaton#SET} state. */
+        private int[][] sets = new int[16][];
+
+        /** Number of states added. */
+        private int size;
+
+        /**
+         * Adds the states of all globs.
+         * 
+         * @param globs
+         *            the globs
+         * @param fold
+         *            whether code points are folded
+         * 
+         * @return the first state
+         */
+        int compile(final List<String> globs, final boolean fold) {
+            int first = -1;
+            for (int i = globs.size() - 1; i >= 0; i--) {
+                final String glob = globs.get(i);
+                if (glob == null) {
+                    throw new IllegalArgumentException("The glob must not be null");
+                }
+                final Node root = new Parser(glob, fold).parse();
+                final int state = compile(root, add(ACCEPT, -1, -1, null));
+                first = first < 0 ? state : add(SPLIT, state, first, null);
+            }
+            if (first < 0) {
+                first = add(SPLIT, -1, -1, null);
+            }
+            return first;
+        }
+
+        /**
+         * Adds the states of a node.
+         * 
+         * @param node
+         *            the node to add
+         * @param next
+         *            the state following the node
+         * 
+         * @return the first state of the node
+         */
+        int compile(final Node node, final int next) {
+            switch (node.type) {
+            case Node.SET:
+                return add(SET, next, -1, node.set);
+            case Node.STAR:
+                final int loop = add(SPLIT, -1, next, null);
+                // The arrays may grow while adding the body
+                final int body = add(SET, loop, -1, ALL);
+                outs[loop] = body;
+                return loop;
+            case Node.SEQUENCE:
+                int state = next;
+                for (int i = node.children.size() - 1; i >= 0; i--) {
+                    state = compile(node.children.get(i), state);
+                }
+                return state;
+            default:
+                int alternative = compile(node.children.get(node.children.size() - 1), next);
+                for (int i = node.children.size() - 2; i >= 0; i--) {
+                    // The arrays may grow while compiling the child
+                    final int child = compile(node.children.get(i), next);
+                    alternative = add(SPLIT, child, alternative, null);
+                }
+                return alternative;
+            }
+        }
+
+        /**
+         * Adds a state.
+         * 
+         * @param kind
+         *            type of the state
+         * @param out
+         *            next state
+         * @param alt
+         *            second next state
+         * @param set
+         *            intervals matched
+         * 
+         * @return index of the new state
+         */
+        int add(final byte kind, final int out, final int alt, final int[] set) {
+            if (size == kinds.length) {
+                final int capacity = size * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                outs = Arrays.copyOf(outs, capacity);
+                alts = Arrays.copyOf(alts, capacity);
+                sets = Arrays.copyOf(sets, capacity);
+            }
+            kinds[size] = kind;
+            outs[size] = out;
+            alts[size] = alt;
+            sets[size] = set;
+            return size++;
+        }
+
+    }
+
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.vfs2.FileFilter;
+import org.apache.commons.vfs2.FileSelectInfo;
+
+/**
+ * Filters files using the supplied globs.
+ * <p>
+ * In addition to the wildcards '?' and '*' of {@link WildcardFileFilter} a
+ * glob may contain:
+ * <ul>
+ * <li><code>[abc]</code>, <code>[a-z0-9]</code> - one character of the set or
+ * the ranges; a <code>]</code> right after the opening bracket is part of the
+ * set, a <code>-</code> at the start or the end is a literal</li>
+ * <li><code>[!abc]</code> - one character not in the set</li>
+ * <li><code>{csv,tsv}</code> - any of the comma separated alternatives, which
+ * may contain all other constructs including nested braces</li>
+ * <li><code>\</code> - the following character is taken literally</li>
+ * </ul>
+ * '?' and a set match one Unicode code point. Testing is case-sensitive by
+ * default, but this can be configured.
+ * <p>
+ * All globs are compiled into one minimal DFA when the filter is created, so
+ * matching is a single table-driven pass over the filename without
+ * backtracking. Invalid globs are rejected with an
+ * {@link IllegalArgumentException}.
+ * <p>
+ * For example, to retrieve and print all numbered CSV and TSV files in the
+ * current directory:
+ * 
+ * <pre>
+ * FileSystemManager fsManager = VFS.getManager();
+ * FileObject dir = fsManager.toFileObject(new File(&quot;.&quot;));
+ * FileObject[] files;
+ * files = dir.findFiles(new FileFilterSelector(new GlobFileFilter(&quot;data-[0-9]*.{csv,tsv}&quot;)));
+ * for (int i = 0; i &lt; files.length; i++) {
+ *     System.out.println(files[i]);
+ * }
+ * </pre>
+ */
+public class GlobFileFilter implements FileFilter, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Whether the comparison is case sensitive. */
+    private final IOCase caseSensitivity;
+
+    /** The globs that will be used to match filenames. */
+    private final List<String> globs;
+
+    /** Minimal DFA for all globs. */
+    private transient GlobAutomaton automaton;
+
+    /**
+     * Construct a new case-sensitive glob filter for a list of globs.
+     * 
+     * @param globs
+     *            the list of globs to match, not null
+     */
+    public GlobFileFilter(final List<String> globs) {
+        this((IOCase) null, globs);
+    }
+
+    /**
+     * Construct a new glob filter for a list of globs specifying
+     * case-sensitivity.
+     * 
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param globs
+     *            the list of globs to match, not null
+     */
+    public GlobFileFilter(final IOCase caseSensitivity, final List<String> globs) {
+        if (globs == null) {
+            throw new IllegalArgumentException("The glob list must not be null");
+        }
+        this.globs = new ArrayList<String>(globs);
+        this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.automaton = compile(this.globs, this.caseSensitivity);
+    }
+
+    /**
+     * Construct a new case-sensitive glob filter for an array of globs.
+     * 
+     * @param globs
+     *            the array of globs to match, not null
+     */
+    public GlobFileFilter(final String... globs) {
+        this((IOCase) null, globs);
+    }
+
+    /**
+     * Construct a new glob filter for an array of globs specifying
+     * case-sensitivity.
+     * 
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param globs
+     *            the array of globs to match, not null
+     */
+    public GlobFileFilter(final IOCase caseSensitivity, final String... globs) {
+        if (globs == null) {
+            throw new IllegalArgumentException("The glob array must not be null");
+        }
+        this.globs = new ArrayList<String>(Arrays.asList(globs));
+        this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.automaton = compile(this.globs, this.caseSensitivity);
+    }
+
+    /**
+     * Checks to see if the filename matches one of the globs.
+     * 
+     * @param fileInfo
+     *            the file to check
+     * 
+     * @return true if the filename matches one of the globs
+     */
+    @Override
+    public boolean accept(final FileSelectInfo fileInfo) {
+        final String name = FileNameView.baseName(fileInfo);
+        return automaton.matches(name);
+    }
+
+    /**
+     * Creates the automaton for the globs. A single glob is taken from the
+     * {@link PatternCache}.
+     * 
+     * @param globs
+     *            the globs, not null
+     * @param caseSensitivity
+     *            how to handle case sensitivity, not null
+     * 
+     * @return the automaton
+     */
+    private static GlobAutomaton compile(final List<String> globs, final IOCase caseSensitivity) {
+        if (globs.size() == 1 && globs.get(0) != null) {
+            return PatternCache.glob(globs.get(0), caseSensitivity);
+        }
+        return new GlobAutomaton(globs, caseSensitivity);
+    }
+
+    /**
+     * Restores the automaton after deserialization.
+     * 
+     * @param in
+     *            the stream to read from
+     * @throws IOException
+     *             error reading the stream
+     * @throws ClassNotFoundException
+     *             class of a serialized object not found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.automaton = compile(this.globs, this.caseSensitivity);
+    }
+
+    /**
+     * Provide a String representation of this file filter.
+     * 
+     * @return a String representation
+     */
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append(super.toString());
+        buffer.append("(");
+        if (globs != null) {
+            for (int i = 0; i < globs.size(); i++) {
+                if (i > 0) {
+                    buffer.append(",");
+                }
+                buffer.append(globs.get(i));
+            }
+        }
+        buffer.append(")");
+        return buffer.toString();
+    }
+
+}
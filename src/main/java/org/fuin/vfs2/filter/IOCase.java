@@ -64,6 +64,9 @@ public final class IOCase implements Serializable {
      */
     public static final IOCase SYSTEM = new IOCase("System", !(File.separatorChar == '\\'));
 
+    /** Folded value of every ASCII character - see {@link #foldCase(char)}. */
+    private static final char[] ASCII_FOLD = createAsciiFold();
+
     /**
      * Factory method to create an IOCase from a name.
      * 
@@ -135,8 +138,11 @@ public final class IOCase implements Serializable {
      * @return true if equal using the case rules
      */
     public boolean checkEndsWith(final String str, final String end) {
+        if (sensitive) {
+            return str.endsWith(end);
+        }
         final int endLen = end.length();
-        return str.regionMatches(!sensitive, str.length() - endLen, end, 0, endLen);
+        return regionMatchesIgnoreCase(str, str.length() - endLen, end, endLen);
     }
 
     /**
@@ -155,7 +161,10 @@ public final class IOCase implements Serializable {
         if (str1 == null || str2 == null) {
             throw new NullPointerException("The strings must not be null");
         }
-        return sensitive ? str1.equals(str2) : str1.equalsIgnoreCase(str2);
+        if (sensitive) {
+            return str1.equals(str2);
+        }
+        return str1.length() == str2.length() && regionMatchesIgnoreCase(str1, 0, str2, str2.length());
     }
 
     /**
@@ -177,12 +186,27 @@ public final class IOCase implements Serializable {
      */
     public int checkIndexOf(final String str, final int strStartIndex, final String search) {
         final int endIndex = str.length() - search.length();
-        if (endIndex >= strStartIndex) {
-            for (int i = strStartIndex; i <= endIndex; i++) {
+        if (endIndex < strStartIndex) {
+            return -1;
+        }
+        if (sensitive) {
+            return str.indexOf(search, strStartIndex);
+        }
+        final int start = Math.max(strStartIndex, 0);
+        if (search.length() == 0 || isSurrogate(search.charAt(0))) {
+            for (int i = start; i <= endIndex; i++) {
                 if (checkRegionMatches(str, i, search)) {
                     return i;
                 }
             }
+            return -1;
+        }
+        // Only positions with an equal first character are compared
+        final char first = foldCase(search.charAt(0));
+        for (int i = start; i <= endIndex; i++) {
+            if (foldCase(str.charAt(i)) == first && checkRegionMatches(str, i, search)) {
+                return i;
+            }
         }
         return -1;
     }
@@ -204,7 +228,10 @@ public final class IOCase implements Serializable {
      * @return true if equal using the case rules
      */
     public boolean checkRegionMatches(final String str, final int strStartIndex, final String search) {
-        return str.regionMatches(!sensitive, strStartIndex, search, 0, search.length());
+        if (sensitive) {
+            return str.startsWith(search, strStartIndex);
+        }
+        return regionMatchesIgnoreCase(str, strStartIndex, search, search.length());
     }
 
     /**
@@ -220,7 +247,122 @@ public final class IOCase implements Serializable {
      * @return true if equal using the case rules
      */
     public boolean checkStartsWith(final String str, final String start) {
-        return str.regionMatches(!sensitive, 0, start, 0, start.length());
+        if (sensitive) {
+            return str.startsWith(start);
+        }
+        return regionMatchesIgnoreCase(str, 0, start, start.length());
+    }
+
+    /**
+     * Compares a region of a string with the start of another string ignoring
+     * case, like {@link String#regionMatches(boolean, int, String, int, int)}.
+     * ASCII characters are compared with a table lookup. The remaining region
+     * starting at the first other character is compared by the JDK, so
+     * surrogate pairs are handled the same way.
+     * 
+     * @param str
+     *            the string containing the region, not null
+     * @param offset
+     *            start index of the region in str
+     * @param other
+     *            the string to compare with, not null
+     * @param len
+     *            number of characters to compare
+     * @return true if the region is equal to the start of the other string
+     *         ignoring case
+     */
+    static boolean regionMatchesIgnoreCase(final String str, final int offset, final String other,
+            final int len) {
+        if (offset < 0 || offset > str.length() - len || len > other.length()) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            final char c1 = str.charAt(offset + i);
+            final char c2 = other.charAt(i);
+            if (c1 >= ASCII_FOLD.length || c2 >= ASCII_FOLD.length) {
+                return str.regionMatches(true, offset + i, other, i, len - i);
+            }
+            if (c1 != c2 && ASCII_FOLD[c1] != ASCII_FOLD[c2]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Folds a single character for a case-insensitive comparison.
+     * <p>
+     * Two characters are equal ignoring case exactly if their folded values
+     * are equal. This is the rule used by
+     * {@link String#regionMatches(boolean, int, String, int, int)} for
+     * characters that are not part of a surrogate pair. Surrogates are
+     * returned unchanged. ASCII characters are folded with a table lookup.
+     * 
+     * @param ch
+     *            the character to fold
+     * @return the folded character
+     */
+    static char foldCase(final char ch) {
+        if (ch < ASCII_FOLD.length) {
+            return ASCII_FOLD[ch];
+        }
+        return Character.toLowerCase(Character.toUpperCase(ch));
+    }
+
+    /**
+     * Folds a code point for a case-insensitive comparison. Characters of the
+     * basic multilingual plane are folded like {@link #foldCase(char)},
+     * supplementary code points with the same rule applied to the code point.
+     * 
+     * @param codePoint
+     *            the code point to fold
+     * @return the folded code point
+     */
+    static int foldCodePoint(final int codePoint) {
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            return foldCase((char) codePoint);
+        }
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+
+    /**
+     * Checks if a character is a high or low surrogate.
+     * 
+     * @param ch
+     *            the character to check
+     * @return true if the character is part of a surrogate pair
+     */
+    static boolean isSurrogate(final char ch) {
+        return ch >= Character.MIN_SURROGATE && ch <= Character.MAX_SURROGATE;
+    }
+
+    /**
+     * Checks if a string contains a high or low surrogate.
+     * 
+     * @param str
+     *            the string to check, not null
+     * @return true if the string contains at least one surrogate
+     */
+    static boolean containsSurrogate(final String str) {
+        for (int i = 0; i < str.length(); i++) {
+            if (isSurrogate(str.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates the table used to fold ASCII characters.
+     * 
+     * @return folded value of the characters 0 to 127
+     */
+    private static char[] createAsciiFold() {
+        final char[] table = new char[128];
+        for (char ch = 0; ch < table.length; ch++) {
+            table[ch] = Character.toLowerCase(Character.toUpperCase(ch));
+        }
+        return table;
     }
 
     /**
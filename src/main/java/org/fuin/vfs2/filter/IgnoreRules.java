@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+
+/**
+ * Compiled rules of one ignore file with the semantics of
+ * <code>.gitignore</code>.
+ * <p>
+ * Every rule is translated into a path glob relative to the folder of the
+ * ignore file: a rule without a '/' except at the end matches at any level
+ * below the folder, any other rule is anchored at the folder. A trailing
+ * <code>/**</code> only matches inside a directory, not the directory itself.
+ * All rules are combined in one {@link PathMatcher}, so the state of a path
+ * tells which rules match it. Rules that are invalid globs never match.
+ */
+final class IgnoreRules {
+
+    /** Result if no rule matches. */
+    static final int NO_MATCH = 0;
+
+    /** Result if the last matching rule ignores the path. */
+    static final int IGNORED = 1;
+
+    /** Result if the last matching rule is a negated one. */
+    static final int INCLUDED = 2;
+
+    /** Matcher for all rules. */
+    private final PathMatcher matcher;
+
+    /** Whether the rule starts with '!'. */
+    private final boolean[] negated;
+
+    /** Whether the rule ends with '/' and only matches directories. */
+    private final boolean[] directoryOnly;
+
+    /**
+     * Constructor with the lines of an ignore file.
+     * 
+     * @param lines
+     *            the lines of the file, not null
+     * @param caseSensitivity
+     *            how to handle case sensitivity, not null
+     */
+    IgnoreRules(final List<String> lines, final IOCase caseSensitivity) {
+        final List<String> globs = new ArrayList<String>();
+        final List<Boolean> negatedList = new ArrayList<Boolean>();
+        final List<Boolean> directoryOnlyList = new ArrayList<Boolean>();
+        for (final String line : lines) {
+            String rule = trimTrailingSpaces(line);
+            if (rule.length() == 0 || rule.charAt(0) == '#') {
+                continue;
+            }
+            final boolean neg = rule.charAt(0) == '!';
+            if (neg) {
+                rule = rule.substring(1);
+            }
+            final boolean dirOnly = rule.endsWith("/");
+            if (dirOnly) {
+                rule = rule.substring(0, rule.length() - 1);
+            }
+            if (rule.length() == 0) {
+                continue;
+            }
+            globs.add(toPathGlob(rule));
+            negatedList.add(neg);
+            directoryOnlyList.add(dirOnly);
+        }
+        this.matcher = new PathMatcher(globs, caseSensitivity, true);
+        this.negated = new boolean[globs.size()];
+        this.directoryOnly = new boolean[globs.size()];
+        for (int i = 0; i < globs.size(); i++) {
+            negated[i] = negatedList.get(i);
+            directoryOnly[i] = directoryOnlyList.get(i);
+        }
+    }
+
+    /**
+     * Returns the state of the folder of the ignore file.
+     * 
+     * @return the initial state
+     */
+    int[] start() {
+        return matcher.start();
+    }
+
+    /**
+     * Computes the state after reading a name.
+     * 
+     * @param state
+     *            the state of the parent folder
+     * @param name
+     *            the name of the file or folder
+     * 
+     * @return the state of the file or folder
+     */
+    int[] step(final int[] state, final String name) {
+        return matcher.step(state, name);
+    }
+
+    /**
+     * Checks if a rule may still match anything below the path of a state.
+     * 
+     * @param state
+     *            the state to check
+     * 
+     * @return true if the state has to be kept for the descendants
+     */
+    boolean canMatchBelow(final int[] state) {
+        return matcher.canMatchBelow(state);
+    }
+
+    /**
+     * Applies the last rule matching a file or folder. The type of the file
+     * is only read if a directory rule matches.
+     * 
+     * @param state
+     *            the state of the file or folder
+     * @param file
+     *            the file or folder
+     * 
+     * @return {@link #NO_MATCH}, {@link #IGNORED} or {@link #INCLUDED}
+     * 
+     * @throws FileSystemException
+     *             error reading the type of the file
+     */
+    int apply(final int[] state, final FileObject file) throws FileSystemException {
+        int rule = matcher.lastMatch(state, negated.length);
+        Boolean folder = null;
+        while (rule >= 0 && directoryOnly[rule]) {
+            if (folder == null) {
+                folder = Boolean.valueOf(file.getType().hasChildren());
+            }
+            if (folder.booleanValue()) {
+                break;
+            }
+            rule = matcher.lastMatch(state, rule);
+        }
+        if (rule < 0) {
+            return NO_MATCH;
+        }
+        return negated[rule] ? INCLUDED : IGNORED;
+    }
+
+    /**
+     * Removes trailing spaces that are not escaped with a backslash.
+     * 
+     * @param line
+     *            the line
+     * 
+     * @return the line without unescaped trailing spaces
+     */
+    private static String trimTrailingSpaces(final String line) {
+        int end = line.length();
+        while (end > 0 && line.charAt(end - 1) == ' ' && (end < 2 || line.charAt(end - 2) != '\\')) {
+            end--;
+        }
+        return line.substring(0, end);
+    }
+
+    /**
+     * Translates a rule without negation and trailing '/' into a path glob.
+     * 
+     * @param rule
+     *            the rule
+     * 
+     * @return the path glob
+     */
+    static String toPathGlob(final String rule) {
+        final StringBuilder sb = new StringBuilder();
+        if (rule.indexOf('/') < 0) {
+            sb.append("**/");
+        }
+        escapeBraces(rule, sb);
+        if (rule.equals("**") || rule.endsWith("/**")) {
+            // Only the contents of the directory, not the directory itself
+            sb.insert(sb.length() - 2, "*/");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Copies a rule and escapes the characters that have a special meaning
+     * for a {@link GlobAutomaton} but not for an ignore file.
+     * 
+     * @param rule
+     *            the rule
+     * @param sb
+     *            the buffer to append to
+     */
+    private static void escapeBraces(final String rule, final StringBuilder sb) {
+        boolean inClass = false;
+        int i = 0;
+        while (i < rule.length()) {
+            final char ch = rule.charAt(i);
+            if (ch == '\\' && i + 1 < rule.length()) {
+                sb.append(ch).append(rule.charAt(i + 1));
+                i = i + 2;
+                continue;
+            }
+            if (inClass) {
+                inClass = ch != ']';
+                sb.append(ch);
+            } else if (ch == '[') {
+                inClass = true;
+                sb.append(ch);
+                i = classStart(rule, i + 1, sb);
+                continue;
+            } else if (ch == '{') {
+                sb.append("\\{");
+            } else {
+                sb.append(ch);
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Copies the negation and a leading ']' of a character class.
+     * 
+     * @param rule
+     *            the rule
+     * @param first
+     *            index after the '['
+     * @param sb
+     *            the buffer to append to
+     * 
+     * @return index of the next character to copy
+     */
+    private static int classStart(final String rule, final int first, final StringBuilder sb) {
+        int i = first;
+        if (i < rule.length() && (rule.charAt(i) == '!' || rule.charAt(i) == '^')) {
+            sb.append('!');
+            i++;
+        }
+        if (i < rule.length() && rule.charAt(i) == ']') {
+            sb.append(']');
+            i++;
+        }
+        return i;
+    }
+
+}
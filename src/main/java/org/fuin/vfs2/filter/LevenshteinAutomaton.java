@@ -0,0 +1,419 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Combined automaton that checks in a single pass if a filename is within a
+ * maximum Levenshtein distance of any of a list of targets.
+ * <p>
+ * The distance counts insertions, deletions and substitutions of single
+ * characters. After reading a prefix of the filename, the state of a target
+ * is the row of the edit distance matrix, i.e. the distance of the prefix to
+ * every prefix of the target, where distances above the maximum are all
+ * treated as one. Like in {@link WildcardAutomaton}, DFA states combining the
+ * rows of all targets are built lazily while filenames are scanned and are
+ * cached for later calls, so the cost of a match depends on the length of the
+ * filename only, and characters that do not appear in any target share one
+ * transition. Scanning stops as soon as no target can be reached any more. If
+ * the cached states exceed {@link #MAX_STATE_BYTES}, the rows are computed
+ * without caching.
+ * <p>
+ * Case-insensitive matching folds the targets once and every filename
+ * character while scanning (see {@link IOCase#foldCase(char)}).
+ */
+final class LevenshteinAutomaton {
+
+    /** Largest supported maximum distance. */
+    static final int MAX_DISTANCE = Byte.MAX_VALUE - 1;
+
+    /** Maximum number of bytes of all cached rows. */
+    static final int MAX_STATE_BYTES = 1 << 24;
+
+    /** Whether characters are folded before matching. */
+    private final boolean fold;
+
+    /** The maximum distance. */
+    private final int max;
+
+    /** The (folded) targets. */
+    private final char[][] targets;
+
+    /** Offset of the row of every target in the combined rows. */
+    private final int[] offsets;
+
+    /** Character class of every ASCII character. */
+    private final int[] asciiClasses;
+
+    /** Sorted non-ASCII characters that have their own class. */
+    private final char[] otherChars;
+
+    /** Class of the corresponding entry in {@link #otherChars}. */
+    private final int[] otherClasses;
+
+    /** Representative character for every class. */
+    private final char[] classChars;
+
+    /** DFA states built so far. */
+    private final ConcurrentMap<State, State> states;
+
+    /** DFA start state. */
+    private final State start;
+
+    /**
+     * Constructor with targets, maximum distance and case sensitivity.
+     * 
+     * @param targets
+     *            the targets, not null - null entries are ignored
+     * @param maxDistance
+     *            the maximum distance, between 0 and {@link #MAX_DISTANCE}
+     * @param caseSensitivity
+     *            case sensitivity rule, not null
+     */
+    LevenshteinAutomaton(final List<String> targets, final int maxDistance, final IOCase caseSensitivity) {
+        this.fold = !caseSensitivity.isCaseSensitive();
+        this.max = maxDistance;
+        int count = 0;
+        for (final String target : targets) {
+            if (target != null) {
+                count++;
+            }
+        }
+        this.targets = new char[count][];
+        this.offsets = new int[count + 1];
+        int idx = 0;
+        for (final String target : targets) {
+            if (target != null) {
+                final char[] chars = target.toCharArray();
+                if (fold) {
+                    for (int i = 0; i < chars.length; i++) {
+                        chars[i] = IOCase.foldCase(chars[i]);
+                    }
+                }
+                this.targets[idx] = chars;
+                offsets[idx + 1] = offsets[idx] + chars.length + 1;
+                idx++;
+            }
+        }
+
+        final char[] alphabet = alphabet(this.targets);
+        asciiClasses = new int[128];
+        int others = 0;
+        for (final char ch : alphabet) {
+            if (ch >= 128) {
+                others++;
+            }
+        }
+        otherChars = new char[others];
+        otherClasses = new int[others];
+        classChars = new char[alphabet.length + 1];
+        classChars[0] = unusedChar(alphabet);
+        int o = 0;
+        for (int i = 0; i < alphabet.length; i++) {
+            final char ch = alphabet[i];
+            classChars[i + 1] = ch;
+            if (ch < 128) {
+                asciiClasses[ch] = i + 1;
+            } else {
+                otherChars[o] = ch;
+                otherClasses[o] = i + 1;
+                o++;
+            }
+        }
+
+        final byte[] rows = new byte[offsets[count]];
+        for (int t = 0; t < count; t++) {
+            for (int j = 0; j <= this.targets[t].length; j++) {
+                rows[offsets[t] + j] = (byte) Math.min(j, max + 1);
+            }
+        }
+        states = new ConcurrentHashMap<State, State>();
+        start = new State(rows, accepting(rows), dead(rows), classChars.length);
+        states.put(start, start);
+    }
+
+    /**
+     * Checks if the filename is within the maximum distance of any target.
+     * 
+     * @param filename
+     *            the filename to match on, not null
+     * 
+     * @return true if the filename is similar to at least one target
+     */
+    boolean matches(final String filename) {
+        State state = start;
+        final int length = filename.length();
+        for (int i = 0; i < length; i++) {
+            if (state.dead) {
+                return false;
+            }
+            final char ch = fold ? IOCase.foldCase(filename.charAt(i)) : filename.charAt(i);
+            final int cls = classOf(ch);
+            State next = state.next[cls];
+            if (next == null) {
+                final byte[] rows = step(state.rows, classChars[cls]);
+                next = canonical(rows);
+                if (next == null) {
+                    return scan(rows, filename, i + 1);
+                }
+                state.next[cls] = next;
+            }
+            state = next;
+        }
+        return state.accepting;
+    }
+
+    /**
+     * Continues a match without caching any states.
+     * 
+     * @param rows
+     *            the rows after reading the characters before the start index
+     * @param filename
+     *            the filename to match on
+     * @param from
+     *            index of the next character
+     * 
+     * @return true if the filename is similar to at least one target
+     */
+    private boolean scan(final byte[] rows, final String filename, final int from) {
+        byte[] current = rows;
+        for (int i = from; i < filename.length(); i++) {
+            if (dead(current)) {
+                return false;
+            }
+            final char ch = fold ? IOCase.foldCase(filename.charAt(i)) : filename.charAt(i);
+            current = step(current, classChars[classOf(ch)]);
+        }
+        return accepting(current);
+    }
+
+    /**
+     * Computes the rows after reading a character.
+     * 
+     * @param rows
+     *            the current rows
+     * @param ch
+     *            the (folded) character read
+     * 
+     * @return the next rows
+     */
+    private byte[] step(final byte[] rows, final char ch) {
+        final int cap = max + 1;
+        final byte[] next = new byte[rows.length];
+        for (int t = 0; t < targets.length; t++) {
+            final char[] target = targets[t];
+            final int o = offsets[t];
+            next[o] = (byte) Math.min(rows[o] + 1, cap);
+            for (int j = 1; j <= target.length; j++) {
+                final int substitute = rows[o + j - 1] + (target[j - 1] == ch ? 0 : 1);
+                final int delete = rows[o + j] + 1;
+                final int insert = next[o + j - 1] + 1;
+                next[o + j] = (byte) Math.min(Math.min(substitute, cap), Math.min(delete, insert));
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Checks if any target is within the maximum distance.
+     * 
+     * @param rows
+     *            the rows after reading the complete filename
+     * 
+     * @return true if the last entry of any row is not above the maximum
+     */
+    private boolean accepting(final byte[] rows) {
+        for (int t = 0; t < targets.length; t++) {
+            if (rows[offsets[t + 1] - 1] <= max) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if no target can be reached any more.
+     * 
+     * @param rows
+     *            the current rows
+     * 
+     * @return true if all entries are above the maximum
+     */
+    private boolean dead(final byte[] rows) {
+        for (final byte value : rows) {
+            if (value <= max) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the character class of a (folded) character.
+     * 
+     * @param ch
+     *            the character
+     * 
+     * @return the class, zero for characters not used in any target
+     */
+    private int classOf(final char ch) {
+        if (ch < 128) {
+            return asciiClasses[ch];
+        }
+        final int idx = Arrays.binarySearch(otherChars, ch);
+        if (idx < 0) {
+            return 0;
+        }
+        return otherClasses[idx];
+    }
+
+    /**
+     * Returns the cached DFA state for rows or creates it.
+     * 
+     * @param rows
+     *            the rows
+     * 
+     * @return the DFA state or <code>null</code> if the cache is full
+     */
+    private State canonical(final byte[] rows) {
+        final State state = new State(rows, accepting(rows), dead(rows), classChars.length);
+        final State existing = states.get(state);
+        if (existing != null) {
+            return existing;
+        }
+        if ((long) states.size() * (rows.length + classChars.length) >= MAX_STATE_BYTES) {
+            return null;
+        }
+        final State other = states.putIfAbsent(state, state);
+        if (other == null) {
+            return state;
+        }
+        return other;
+    }
+
+    /**
+     * Returns the sorted distinct characters of all targets.
+     * 
+     * @param targets
+     *            the (folded) targets
+     * 
+     * @return the alphabet
+     */
+    private static char[] alphabet(final char[][] targets) {
+        int count = 0;
+        for (final char[] target : targets) {
+            count = count + target.length;
+        }
+        final char[] all = new char[count];
+        int idx = 0;
+        for (final char[] target : targets) {
+            System.arraycopy(target, 0, all, idx, target.length);
+            idx = idx + target.length;
+        }
+        Arrays.sort(all);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || all[distinct - 1] != all[i]) {
+                all[distinct++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, distinct);
+    }
+
+    /**
+     * Returns a character that is not part of the alphabet.
+     * 
+     * @param alphabet
+     *            the sorted alphabet
+     * 
+     * @return an unused character
+     */
+    private static char unusedChar(final char[] alphabet) {
+        char ch = 0;
+        for (final char used : alphabet) {
+            if (used != ch) {
+                break;
+            }
+            ch++;
+        }
+        return ch;
+    }
+
+    /**
+     * DFA state representing the rows of all targets. Equality is based on
+     * the rows only.
+     */
+    private static final class State {
+
+        /** Rows of all targets. */
+        private final byte[] rows;
+
+        /** Whether a filename ending in this state matches. */
+        private final boolean accepting;
+
+        /** Whether no continuation of the filename matches. */
+        private final boolean dead;
+
+        /** Successor states by character class - filled lazily. */
+        private final State[] next;
+
+        /** Hash code of the rows. */
+        private final int hash;
+
+        /**
+         * Constructor with all data.
+         * 
+         * @param rows
+         *            rows of all targets
+         * @param accepting
+         *            whether a filename ending in this state matches
+         * @param dead
+         *            whether no continuation of the filename matches
+         * @param classes
+         *            number of character classes
+         */
+        State(final byte[] rows, final boolean accepting, final boolean dead, final int classes) {
+            this.rows = rows;
+            this.accepting = accepting;
+            this.dead = dead;
+            this.next = new State[classes];
+            this.hash = Arrays.hashCode(rows);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof State)) {
+                return false;
+            }
+            return Arrays.equals(rows, ((State) obj).rows);
+        }
+
+    }
+
+}
@@ -0,0 +1,553 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Read-only sorted name list that is memory-mapped from a file created by
+ * {@link NameListBuilder}.
+ * <p>
+ * The names are stored as UTF-8 in unsigned byte order and front-coded in
+ * blocks: the first name of a block is stored completely, every other name
+ * as the length of the prefix it shares with its predecessor followed by the
+ * remaining bytes. An index with the offset of every block follows the
+ * header. A lookup does a binary search over the first names of the blocks
+ * and scans one block without decoding the names, so all work is done on
+ * the mapped file and the only object created is the UTF-8 form of the name
+ * looked up. Unpaired surrogates are encoded with three bytes like any other
+ * character of the Basic Multilingual Plane instead of being replaced, so no
+ * two names share an encoding.
+ * <p>
+ * File layout (big-endian):
+ * 
+ * <pre>
+ * int    magic ({@link #MAGIC})
+ * int    version ({@link #VERSION})
+ * int    flags ({@link #FLAG_FOLDED} if the names are case-folded)
+ * int    number of names
+ * int    number of names per block
+ * int    number of blocks
+ * int[]  offset of every block relative to the end of the index
+ * byte[] blocks
+ * </pre>
+ * 
+ * Lengths are unsigned variable-length integers with seven bits per byte.
+ * Lists opened with {@link #open(File)} are shared as long as they are used.
+ */
+final class MappedNameList implements Iterable<String> {
+
+    /** Magic number at the start of a name list file. */
+    static final int MAGIC = 0x564E4C53;
+
+    /** Version of the file format. */
+    static final int VERSION = 1;
+
+    /** Flag set if the names are case-folded. */
+    static final int FLAG_FOLDED = 1;
+
+    /** Size of the header in bytes. */
+    static final int HEADER_SIZE = 24;
+
+    /** Encoding of the names. */
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** Lists opened so far by canonical path. */
+    private static final ConcurrentMap<String, Reference<MappedNameList>> OPEN =
+            new ConcurrentHashMap<String, Reference<MappedNameList>>();
+
+    /** The mapped file. */
+    private final ByteBuffer buffer;
+
+    /** Whether the names are case-folded. */
+    private final boolean folded;
+
+    /** Number of names. */
+    private final int count;
+
+    /** Number of names per block. */
+    private final int blockSize;
+
+    /** Number of blocks. */
+    private final int blockCount;
+
+    /** Offset of the first block. */
+    private final int dataStart;
+
+    /** Last modification time of the file when it was mapped. */
+    private final long lastModified;
+
+    /**
+     * Constructor mapping a file.
+     * 
+     * @param file
+     *            the canonical file to map
+     * 
+     * @throws IOException
+     *             error reading the file or the file is no name list
+     */
+    private MappedNameList(final File file) throws IOException {
+        this.lastModified = file.lastModified();
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final long length = raf.length();
+            if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+                throw new IOException("Not a name list file: " + file);
+            }
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+        } finally {
+            raf.close();
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a name list file: " + file);
+        }
+        folded = (buffer.getInt(8) & FLAG_FOLDED) != 0;
+        count = buffer.getInt(12);
+        blockSize = buffer.getInt(16);
+        blockCount = buffer.getInt(20);
+        dataStart = HEADER_SIZE + 4 * blockCount;
+        if (count < 0 || blockSize < 1 || blockCount != (count + blockSize - 1) / blockSize
+                || dataStart > buffer.capacity()) {
+            throw new IOException("Corrupt name list file: " + file);
+        }
+    }
+
+    /**
+     * Returns the mapped list of a file. The mapping is shared with all other
+     * users of the same file as long as the file is not modified.
+     * 
+     * @param file
+     *            the file to map, not null
+     * 
+     * @return the list
+     * 
+     * @throws IOException
+     *             error reading the file or the file is no name list
+     */
+    static MappedNameList open(final File file) throws IOException {
+        final File canonical = file.getCanonicalFile();
+        final String key = canonical.getPath();
+        final Reference<MappedNameList> ref = OPEN.get(key);
+        MappedNameList list = null;
+        if (ref != null) {
+            list = ref.get();
+        }
+        if (list == null || list.lastModified != canonical.lastModified()) {
+            list = new MappedNameList(canonical);
+            OPEN.put(key, new WeakReference<MappedNameList>(list));
+        }
+        return list;
+    }
+
+    /**
+     * Returns the number of names.
+     * 
+     * @return number of names
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Returns whether the names are case-folded.
+     * 
+     * @return true if the list is case-insensitive
+     */
+    boolean isFolded() {
+        return folded;
+    }
+
+    /**
+     * Checks if the list contains a name.
+     * 
+     * @param name
+     *            the name to find, not null
+     * 
+     * @return true if the name is part of the list
+     */
+    boolean contains(final String name) {
+        if (blockCount == 0) {
+            return false;
+        }
+        final byte[] key = encode(name, folded);
+        // Last block whose first name is not greater than the key
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (compareFirst(mid, key) <= 0) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return scanBlock(low, key);
+    }
+
+    /**
+     * Returns an iterator decoding the (folded) names in the order of the
+     * list.
+     * 
+     * @return iterator over all names
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new NameIterator();
+    }
+
+    /**
+     * Compares the first name of a block with a key.
+     * 
+     * @param block
+     *            the block
+     * @param key
+     *            the UTF-8 key
+     * 
+     * @return a negative number, zero or a positive number if the first name
+     *         is less than, equal to or greater than the key
+     */
+    private int compareFirst(final int block, final byte[] key) {
+        int pos = blockOffset(block);
+        final int length = readVarInt(pos);
+        pos = pos + varIntSize(length);
+        final int common = commonPrefix(pos, length, key, 0);
+        if (common < length && common < key.length) {
+            return (buffer.get(pos + common) & 0xFF) - (key[common] & 0xFF);
+        }
+        return length - key.length;
+    }
+
+    /**
+     * Searches a key in a block. The names are compared with the key without
+     * decoding them, using the fact that the names are sorted.
+     * 
+     * @param block
+     *            the block whose first name is not greater than the key
+     * @param key
+     *            the UTF-8 key
+     * 
+     * @return true if the block contains the key
+     */
+    private boolean scanBlock(final int block, final byte[] key) {
+        int pos = blockOffset(block);
+        final int length = readVarInt(pos);
+        pos = pos + varIntSize(length);
+        // Number of leading bytes the current name shares with the key
+        int matched = commonPrefix(pos, length, key, 0);
+        if (matched == length && matched == key.length) {
+            return true;
+        }
+        if (matched < length
+                && (matched == key.length || (buffer.get(pos + matched) & 0xFF) > (key[matched] & 0xFF))) {
+            // Only possible for the first block
+            return false;
+        }
+        pos = pos + length;
+        final int names = Math.min(blockSize, count - block * blockSize);
+        for (int i = 1; i < names; i++) {
+            final int prefix = readVarInt(pos);
+            pos = pos + varIntSize(prefix);
+            final int suffix = readVarInt(pos);
+            pos = pos + varIntSize(suffix);
+            if (prefix < matched) {
+                // The name differs from its predecessor where that equals the key
+                return false;
+            }
+            if (prefix == matched) {
+                final int common = commonPrefix(pos, suffix, key, matched);
+                matched = matched + common;
+                if (common < suffix) {
+                    if (matched == key.length
+                            || (buffer.get(pos + common) & 0xFF) > (key[matched] & 0xFF)) {
+                        return false;
+                    }
+                } else if (matched == key.length) {
+                    return true;
+                }
+            }
+            pos = pos + suffix;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of leading bytes a stored name part shares with a
+     * region of the key.
+     * 
+     * @param pos
+     *            position of the name part in the buffer
+     * @param length
+     *            length of the name part
+     * @param key
+     *            the key
+     * @param offset
+     *            start of the region in the key
+     * 
+     * @return length of the common prefix
+     */
+    private int commonPrefix(final int pos, final int length, final byte[] key, final int offset) {
+        final int max = Math.min(length, key.length - offset);
+        int i = 0;
+        while (i < max && buffer.get(pos + i) == key[offset + i]) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the position of a block in the buffer.
+     * 
+     * @param block
+     *            the block
+     * 
+     * @return the absolute position
+     */
+    private int blockOffset(final int block) {
+        return dataStart + buffer.getInt(HEADER_SIZE + 4 * block);
+    }
+
+    /**
+     * Reads a variable-length integer.
+     * 
+     * @param pos
+     *            position of the first byte
+     * 
+     * @return the value
+     */
+    private int readVarInt(final int pos) {
+        int value = 0;
+        int shift = 0;
+        int p = pos;
+        byte b;
+        do {
+            b = buffer.get(p++);
+            value = value | ((b & 0x7F) << shift);
+            shift = shift + 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * Returns the number of bytes of a variable-length integer.
+     * 
+     * @param value
+     *            the non-negative value
+     * 
+     * @return number of bytes
+     */
+    static int varIntSize(final int value) {
+        int size = 1;
+        int v = value >>> 7;
+        while (v != 0) {
+            size++;
+            v = v >>> 7;
+        }
+        return size;
+    }
+
+    /**
+     * Converts a name into the form stored in a list.
+     * 
+     * @param name
+     *            the name, not null
+     * @param fold
+     *            whether to fold the case of every code point - see
+     *            {@link IOCase#foldCodePoint(int)}
+     * 
+     * @return the UTF-8 bytes of the (folded) name, unpaired surrogates are
+     *         encoded like other characters
+     */
+    static byte[] encode(final String name, final boolean fold) {
+        int length = 0;
+        int i = 0;
+        while (i < name.length()) {
+            final int cp = name.codePointAt(i);
+            length = length + encodedLength(fold ? IOCase.foldCodePoint(cp) : cp);
+            i = i + Character.charCount(cp);
+        }
+        final byte[] bytes = new byte[length];
+        int pos = 0;
+        i = 0;
+        while (i < name.length()) {
+            final int cp = name.codePointAt(i);
+            pos = encode(fold ? IOCase.foldCodePoint(cp) : cp, bytes, pos);
+            i = i + Character.charCount(cp);
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the number of bytes of an encoded code point.
+     * 
+     * @param cp
+     *            the code point
+     * 
+     * @return 1 to 4
+     */
+    private static int encodedLength(final int cp) {
+        if (cp < 0x80) {
+            return 1;
+        }
+        if (cp < 0x800) {
+            return 2;
+        }
+        if (cp < 0x10000) {
+            return 3;
+        }
+        return 4;
+    }
+
+    /**
+     * Encodes a code point.
+     * 
+     * @param cp
+     *            the code point
+     * @param bytes
+     *            the array to write to
+     * @param pos
+     *            the position to write to
+     * 
+     * @return the position after the code point
+     */
+    private static int encode(final int cp, final byte[] bytes, final int pos) {
+        final int length = encodedLength(cp);
+        if (length == 1) {
+            bytes[pos] = (byte) cp;
+            return pos + 1;
+        }
+        int rest = cp;
+        for (int i = length - 1; i > 0; i--) {
+            bytes[pos + i] = (byte) (0x80 | (rest & 0x3F));
+            rest = rest >>> 6;
+        }
+        bytes[pos] = (byte) ((0xFF << (8 - length)) | rest);
+        return pos + length;
+    }
+
+    /**
+     * Converts the stored form of a name back into a string.
+     * 
+     * @param bytes
+     *            the encoded name
+     * @param length
+     *            number of bytes of the name
+     * 
+     * @return the name
+     */
+    static String decode(final byte[] bytes, final int length) {
+        final StringBuilder sb = new StringBuilder(length);
+        int pos = 0;
+        while (pos < length) {
+            final int first = bytes[pos] & 0xFF;
+            final int size = sequenceLength(first);
+            int cp = first & (0xFF >>> size);
+            for (int i = 1; i < size; i++) {
+                cp = (cp << 6) | (bytes[pos + i] & 0x3F);
+            }
+            sb.appendCodePoint(cp);
+            pos = pos + size;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the number of bytes of an encoded code point.
+     * 
+     * @param first
+     *            the first byte of the code point as unsigned value
+     * 
+     * @return 1 to 4
+     */
+    private static int sequenceLength(final int first) {
+        if (first < 0x80) {
+            return 1;
+        }
+        if (first < 0xE0) {
+            return 2;
+        }
+        if (first < 0xF0) {
+            return 3;
+        }
+        return 4;
+    }
+
+    /**
+     * Iterator decoding the names block by block.
+     */
+    private final class NameIterator implements Iterator<String> {
+
+        /** Bytes of the current name. */
+        private byte[] current = new byte[64];
+
+        /** Index of the next name. */
+        private int index;
+
+        /** Position of the next name in the buffer. */
+        private int pos;
+
+        @Override
+        public boolean hasNext() {
+            return index < count;
+        }
+
+        @Override
+        public String next() {
+            if (index >= count) {
+                throw new NoSuchElementException();
+            }
+            final int prefix;
+            final int suffix;
+            if (index % blockSize == 0) {
+                pos = blockOffset(index / blockSize);
+                prefix = 0;
+            } else {
+                prefix = readVarInt(pos);
+                pos = pos + varIntSize(prefix);
+            }
+            suffix = readVarInt(pos);
+            pos = pos + varIntSize(suffix);
+            if (prefix + suffix > current.length) {
+                current = Arrays.copyOf(current, Math.max(prefix + suffix, 2 * current.length));
+            }
+            for (int i = 0; i < suffix; i++) {
+                current[prefix + i] = buffer.get(pos + i);
+            }
+            pos = pos + suffix;
+            index++;
+            return decode(current, prefix + suffix);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("The name list is read-only");
+        }
+
+    }
+
+}
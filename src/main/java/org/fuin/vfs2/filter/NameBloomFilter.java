@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bloom filter for names stored off-heap in a direct {@link ByteBuffer}.
+ * <p>
+ * The number of bits and hash functions are derived from the expected number
+ * of names and the requested false positive rate. Each name is hashed once
+ * with a 64 bit hash and the probe positions are derived from it by double
+ * hashing, so a lookup costs one pass over the name and a few memory reads.
+ * A name that was added is always reported as possibly contained, other names
+ * are reported with the false positive rate.
+ * <p>
+ * Names are hashed according to a key mode. {@link #FOLD_CHARS} hashes the
+ * folded characters like {@link NameTable} and treats all surrogates as equal.
+ * The other modes hash code points, folded for {@link #FOLD_CODE_POINTS},
+ * and treat unpaired surrogates like the UTF-8 encoding of
+ * {@link MappedNameList} does.
+ * Instances are thread-safe once all names have been added.
+ */
+final class NameBloomFilter {
+
+    /** Code points are hashed as they are. */
+    static final int SENSITIVE = 0;
+
+    /** Characters are folded, all surrogates hash the same. */
+    static final int FOLD_CHARS = 1;
+
+    /** Code points are folded. */
+    static final int FOLD_CODE_POINTS = 2;
+
+    /** Maximum number of bits. */
+    static final long MAX_BITS = 8L * (Integer.MAX_VALUE & ~7);
+
+    /** Maximum number of hash functions. */
+    private static final int MAX_HASHES = 30;
+
+    /** Offset basis of the FNV-1a hash. */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    /** Prime of the FNV-1a hash. */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** Value hashed for every surrogate if characters are folded. */
+    private static final int SURROGATE = Character.MIN_SURROGATE;
+
+    /** Value hashed for an unpaired surrogate if code points are hashed. */
+    private static final int UNPAIRED = '?';
+
+    /** The bits. */
+    private final ByteBuffer bits;
+
+    /** Number of bits. */
+    private final long bitCount;
+
+    /** Number of hash functions. */
+    private final int hashCount;
+
+    /** How lookups hash a name. */
+    private final int mode;
+
+    /** Number of names added. */
+    private int size;
+
+    /**
+     * Constructor with the expected number of names, the false positive rate
+     * and the key mode of lookups.
+     * 
+     * @param expected
+     *            the expected number of names
+     * @param falsePositiveRate
+     *            the false positive rate, greater than 0 and less than 1
+     * @param mode
+     *            how lookups hash a name - one of {@link #SENSITIVE},
+     *            {@link #FOLD_CHARS} and {@link #FOLD_CODE_POINTS}
+     */
+    NameBloomFilter(final int expected, final double falsePositiveRate, final int mode) {
+        final int n = Math.max(expected, 1);
+        final double ln2 = Math.log(2);
+        final double optimal = -n * Math.log(falsePositiveRate) / (ln2 * ln2);
+        if (optimal > MAX_BITS) {
+            throw new IllegalArgumentException("Too many names for the false positive rate: " + expected);
+        }
+        // Whole longs, as the bits are read and written as longs
+        bitCount = Math.max(64, ((long) Math.ceil(optimal) + 63) & ~63L);
+        hashCount = (int) Math.max(1, Math.min(MAX_HASHES, Math.round((double) bitCount / n * ln2)));
+        bits = ByteBuffer.allocateDirect((int) (bitCount / 8));
+        this.mode = mode;
+    }
+
+    /**
+     * Adds a name.
+     * 
+     * @param name
+     *            the name, not null
+     * @param keyMode
+     *            how to hash the name - one of {@link #SENSITIVE},
+     *            {@link #FOLD_CHARS} and {@link #FOLD_CODE_POINTS}
+     */
+    void add(final String name, final int keyMode) {
+        final long hash = hash(name, keyMode);
+        final long h2 = (hash >>> 32) | 1;
+        long combined = hash;
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = (combined & Long.MAX_VALUE) % bitCount;
+            final int idx = (int) (bit >>> 6) * 8;
+            bits.putLong(idx, bits.getLong(idx) | (1L << bit));
+            combined = combined + h2;
+        }
+        size++;
+    }
+
+    /**
+     * Checks if a name may have been added.
+     * 
+     * @param name
+     *            the name, not null
+     * 
+     * @return false if the name was definitely not added, true if it probably
+     *         was
+     */
+    boolean mightContain(final String name) {
+        final long hash = hash(name, mode);
+        final long h2 = (hash >>> 32) | 1;
+        long combined = hash;
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = (combined & Long.MAX_VALUE) % bitCount;
+            if ((bits.getLong((int) (bit >>> 6) * 8) & (1L << bit)) == 0) {
+                return false;
+            }
+            combined = combined + h2;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the false positive rate expected for the names added.
+     * 
+     * @return probability that a name that was not added is reported as
+     *         possibly contained
+     */
+    double getExpectedFalsePositiveRate() {
+        final double empty = Math.exp(-(double) hashCount * size / bitCount);
+        return Math.pow(1 - empty, hashCount);
+    }
+
+    /**
+     * Returns the number of bits.
+     * 
+     * @return size of the filter in bits
+     */
+    long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * Returns the number of hash functions.
+     * 
+     * @return number of probes per lookup
+     */
+    int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Returns the number of names added.
+     * 
+     * @return number of names including duplicates
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Calculates the 64 bit hash of a name.
+     * 
+     * @param name
+     *            the name
+     * @param keyMode
+     *            how to hash the name
+     * 
+     * @return the hash
+     */
+    static long hash(final String name, final int keyMode) {
+        long hash = FNV_OFFSET;
+        final int length = name.length();
+        int i = 0;
+        while (i < length) {
+            final int value;
+            if (keyMode == FOLD_CHARS) {
+                final char ch = name.charAt(i);
+                value = IOCase.isSurrogate(ch) ? SURROGATE : IOCase.foldCase(ch);
+                i++;
+            } else {
+                final int cp = name.codePointAt(i);
+                if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT && IOCase.isSurrogate((char) cp)) {
+                    // Encoded as '?' in UTF-8
+                    value = UNPAIRED;
+                } else if (keyMode == FOLD_CODE_POINTS) {
+                    value = IOCase.foldCodePoint(cp);
+                } else {
+                    value = cp;
+                }
+                i = i + Character.charCount(cp);
+            }
+            hash = (hash ^ value) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Mixes the bits of a hash, so the upper and lower half are independent.
+     * 
+     * @param value
+     *            the hash
+     * 
+     * @return the mixed hash
+     */
+    private static long mix(final long value) {
+        long h = value;
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+}
@@ -16,8 +16,9 @@
  */
 package org.fuin.vfs2.filter;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -46,11 +47,26 @@ public class NameFileFilter implements FileFilter, Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /** Compiles the hash index of the names. */
+    private static final CompiledPatterns.Compiler<NameTable> COMPILER =
+            new CompiledPatterns.Compiler<NameTable>() {
+                @Override
+                public NameTable compile(final List<String> patterns, final IOCase caseSensitivity) {
+                    return new NameTable(patterns, caseSensitivity);
+                }
+            };
+
     /** Whether the comparison is case sensitive. */
     private final IOCase caseSensitivity;
 
-    /** The file names to search for. */
-    private final List<String> names;
+    /** The file names to search for - shared by equal filters. */
+    private List<String> names;
+
+    /** Perfect hash table of the names or <code>null</code> if the index is used. */
+    private final PerfectNameSet table;
+
+    /** Names and their hash index or <code>null</code> if the table is used. */
+    private transient CompiledPatterns<NameTable> patterns;
 
     /**
      * Constructs a new case-sensitive name file filter for a list of names.
@@ -75,8 +91,10 @@ public class NameFileFilter implements FileFilter, Serializable {
         if (names == null) {
             throw new IllegalArgumentException("The list of names must not be null");
         }
-        this.names = new ArrayList<String>(names);
         this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.table = null;
+        this.patterns = PatternRegistry.compile(COMPILER, this.caseSensitivity, names);
+        this.names = patterns.getPatterns();
     }
 
     /**
@@ -105,12 +123,32 @@ public class NameFileFilter implements FileFilter, Serializable {
         if (names == null) {
             throw new IllegalArgumentException("The array of names must not be null");
         }
-        this.names = new ArrayList<String>(Arrays.asList(names));
         this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.table = null;
+        this.patterns = PatternRegistry.compile(COMPILER, this.caseSensitivity, Arrays.asList(names));
+        this.names = patterns.getPatterns();
     }
 
     /**
-     * Checks to see if the filename matches.
+     * Constructs a new name file filter backed by a perfect hash table that
+     * was built in advance. The names and the case sensitivity are taken from
+     * the table.
+     * 
+     * @param names
+     *            the names to allow, must not be null
+     */
+    public NameFileFilter(final PerfectNameSet names) {
+        if (names == null) {
+            throw new IllegalArgumentException("The set of names must not be null");
+        }
+        this.names = names.getNames();
+        this.caseSensitivity = names.getCaseSensitivity();
+        this.table = names;
+    }
+
+    /**
+     * Checks to see if the filename matches. The lookup uses a hash index, so
+     * the cost does not depend on the number of names.
      * 
      * @param fileInfo
      *            the File to check
@@ -119,13 +157,49 @@ public class NameFileFilter implements FileFilter, Serializable {
      */
     @Override
     public boolean accept(final FileSelectInfo fileInfo) {
-        final String name = fileInfo.getFile().getName().getBaseName();
-        for (final String name2 : this.names) {
-            if (caseSensitivity.checkEquals(name, name2)) {
-                return true;
-            }
+        final String name = FileNameView.baseName(fileInfo);
+        if (table != null) {
+            return table.contains(name);
+        }
+        return patterns.getMatcher().contains(name);
+    }
+
+    /**
+     * Returns the names to search for.
+     * 
+     * @return the names as passed to the constructor
+     */
+    List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Returns the case sensitivity rule.
+     * 
+     * @return how to compare the names
+     */
+    IOCase getCaseSensitivity() {
+        return caseSensitivity;
+    }
+
+    /**
+     * Restores the shared names and index after deserialization.
+     * 
+     * @param in
+     *            the stream to read from
+     * @throws IOException
+     *             error reading the stream
+     * @throws ClassNotFoundException
+     *             class of a serialized object not found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (table == null) {
+            this.patterns = PatternRegistry.compile(COMPILER, this.caseSensitivity, this.names);
+            this.names = patterns.getPatterns();
+        } else {
+            this.names = table.getNames();
         }
-        return false;
     }
 
     /**
@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Creates the name list files used by {@link NameListFileFilter} from a
+ * collection of names or a plain text file with one name per line.
+ * <p>
+ * The names are sorted by their UTF-8 bytes, duplicates are removed and the
+ * result is written front-coded in blocks as described in
+ * {@link MappedNameList}. Case-insensitive lists store the case-folded names.
+ * <p>
+ * The class can be run from the command line:
+ * 
+ * <pre>
+ * java org.fuin.vfs2.filter.NameListBuilder [-i] [-b blockSize] names.txt names.lst
+ * </pre>
+ * 
+ * <code>-i</code> creates a case-insensitive list, <code>-b</code> sets the
+ * number of names per block (default {@link #DEFAULT_BLOCK_SIZE}). Blank lines
+ * of the text file are skipped, it must be encoded in UTF-8.
+ */
+public final class NameListBuilder {
+
+    /** Default number of names per block. */
+    public static final int DEFAULT_BLOCK_SIZE = 16;
+
+    /** Orders byte arrays by unsigned bytes. */
+    private static final Comparator<byte[]> UNSIGNED = new Comparator<byte[]>() {
+        @Override
+        public int compare(final byte[] a, final byte[] b) {
+            final int length = Math.min(a.length, b.length);
+            for (int i = 0; i < length; i++) {
+                final int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return a.length - b.length;
+        }
+    };
+
+    /**
+     * Private utility class constructor.
+     */
+    private NameListBuilder() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Writes a name list file.
+     * 
+     * @param names
+     *            the names, null entries are ignored
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param blockSize
+     *            number of names per block, at least 1
+     * @param output
+     *            the file to create
+     * 
+     * @throws IOException
+     *             error writing the file
+     */
+    public static void build(final Iterable<String> names, final IOCase caseSensitivity, final int blockSize,
+            final File output) throws IOException {
+        if (names == null) {
+            throw new IllegalArgumentException("The names must not be null");
+        }
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("The block size must be at least 1");
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("The output file must not be null");
+        }
+        final boolean fold = caseSensitivity != null && !caseSensitivity.isCaseSensitive();
+        final List<byte[]> list = new ArrayList<byte[]>();
+        for (final String name : names) {
+            if (name != null) {
+                list.add(MappedNameList.encode(name, fold));
+            }
+        }
+        final byte[][] sorted = sortDistinct(list);
+
+        final int blockCount = (sorted.length + blockSize - 1) / blockSize;
+        final int[] offsets = new int[blockCount];
+        final ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+        for (int i = 0; i < sorted.length; i++) {
+            if (i % blockSize == 0) {
+                offsets[i / blockSize] = blocks.size();
+                writeVarInt(blocks, sorted[i].length);
+                blocks.write(sorted[i], 0, sorted[i].length);
+            } else {
+                final int prefix = commonPrefix(sorted[i - 1], sorted[i]);
+                writeVarInt(blocks, prefix);
+                writeVarInt(blocks, sorted[i].length - prefix);
+                blocks.write(sorted[i], prefix, sorted[i].length - prefix);
+            }
+        }
+
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(output)));
+        try {
+            out.writeInt(MappedNameList.MAGIC);
+            out.writeInt(MappedNameList.VERSION);
+            out.writeInt(fold ? MappedNameList.FLAG_FOLDED : 0);
+            out.writeInt(sorted.length);
+            out.writeInt(blockSize);
+            out.writeInt(blockCount);
+            for (final int offset : offsets) {
+                out.writeInt(offset);
+            }
+            blocks.writeTo(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes a name list file from a text file with one name per line.
+     * 
+     * @param input
+     *            the UTF-8 text file, blank lines are skipped
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param blockSize
+     *            number of names per block, at least 1
+     * @param output
+     *            the file to create
+     * 
+     * @throws IOException
+     *             error reading the text file or writing the list file
+     */
+    public static void build(final File input, final IOCase caseSensitivity, final int blockSize,
+            final File output) throws IOException {
+        if (input == null) {
+            throw new IllegalArgumentException("The input file must not be null");
+        }
+        final List<String> names = new ArrayList<String>();
+        final InputStream in = new FileInputStream(input);
+        try {
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(in, MappedNameList.UTF8));
+            String line = reader.readLine();
+            while (line != null) {
+                if (line.length() > 0) {
+                    names.add(line);
+                }
+                line = reader.readLine();
+            }
+        } finally {
+            in.close();
+        }
+        build(names, caseSensitivity, blockSize, output);
+    }
+
+    /**
+     * Creates a name list file from a text file.
+     * 
+     * @param args
+     *            <code>[-i] [-b blockSize] input output</code>
+     * 
+     * @throws IOException
+     *             error reading or writing a file
+     */
+    public static void main(final String[] args) throws IOException {
+        IOCase caseSensitivity = IOCase.SENSITIVE;
+        int blockSize = DEFAULT_BLOCK_SIZE;
+        int i = 0;
+        while (i < args.length - 2) {
+            if (args[i].equals("-i")) {
+                caseSensitivity = IOCase.INSENSITIVE;
+                i++;
+            } else if (args[i].equals("-b") && i + 1 < args.length - 2) {
+                blockSize = Integer.parseInt(args[i + 1]);
+                i = i + 2;
+            } else {
+                break;
+            }
+        }
+        if (args.length - i != 2) {
+            System.err.println("Usage: java " + NameListBuilder.class.getName()
+                    + " [-i] [-b blockSize] input output");
+            System.exit(1);
+        }
+        build(new File(args[i]), caseSensitivity, blockSize, new File(args[i + 1]));
+    }
+
+    /**
+     * Sorts byte arrays by unsigned bytes and removes duplicates.
+     * 
+     * @param list
+     *            the arrays
+     * 
+     * @return sorted distinct arrays
+     */
+    private static byte[][] sortDistinct(final List<byte[]> list) {
+        final byte[][] all = list.toArray(new byte[list.size()][]);
+        Arrays.sort(all, UNSIGNED);
+        int distinct = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (distinct == 0 || !Arrays.equals(all[distinct - 1], all[i])) {
+                all[distinct++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, distinct);
+    }
+
+    /**
+     * Returns the number of leading bytes two arrays share.
+     * 
+     * @param a
+     *            first array
+     * @param b
+     *            second array
+     * 
+     * @return length of the common prefix
+     */
+    private static int commonPrefix(final byte[] a, final byte[] b) {
+        final int length = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < length && a[i] == b[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Writes an unsigned variable-length integer with seven bits per byte.
+     * 
+     * @param out
+     *            the stream to write to
+     * @param value
+     *            the non-negative value
+     */
+    private static void writeVarInt(final ByteArrayOutputStream out, final int value) {
+        int v = value;
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v = v >>> 7;
+        }
+        out.write(v);
+    }
+
+}
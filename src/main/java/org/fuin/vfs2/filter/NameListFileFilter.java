@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+import org.apache.commons.vfs2.FileFilter;
+import org.apache.commons.vfs2.FileSelectInfo;
+
+/**
+ * Filters filenames contained in a large name list file.
+ * <p>
+ * The file is created once with {@link NameListBuilder} and memory-mapped
+ * when the filter is created, so even lists with millions of names need
+ * almost no heap. The names are sorted and front-coded in blocks; a lookup
+ * is a binary search over the blocks followed by the scan of one block
+ * directly on the mapped file. All filters for the same file share one
+ * mapping. Whether the comparison is case-sensitive is defined when the file
+ * is built.
+ * <p>
+ * For example, to print all files and directories in the current directory
+ * whose name is on a deny list:
+ * 
+ * <pre>
+ * NameListBuilder.build(new File(&quot;deny.txt&quot;), IOCase.SENSITIVE, NameListBuilder.DEFAULT_BLOCK_SIZE,
+ *         new File(&quot;deny.lst&quot;));
+ * FileSystemManager fsManager = VFS.getManager();
+ * FileObject dir = fsManager.toFileObject(new File(&quot;.&quot;));
+ * FileFilter filter = new NameListFileFilter(new File(&quot;deny.lst&quot;));
+ * FileObject[] files = dir.findFiles(new FileFilterSelector(filter));
+ * for (int i = 0; i &lt; files.length; i++) {
+ *     System.out.println(files[i]);
+ * }
+ * </pre>
+ */
+public class NameListFileFilter implements FileFilter, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The name list file. */
+    private final File file;
+
+    /** The mapped name list. */
+    private transient MappedNameList list;
+
+    /**
+     * Constructs a new name list file filter.
+     * 
+     * @param file
+     *            the file created with {@link NameListBuilder}, must not be
+     *            null
+     * 
+     * @throws IOException
+     *             error reading the file or the file is no name list
+     */
+    public NameListFileFilter(final File file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("The file must not be null");
+        }
+        this.file = file;
+        this.list = MappedNameList.open(file);
+    }
+
+    /**
+     * Checks to see if the filename is contained in the list.
+     * 
+     * @param fileInfo
+     *            the File to check
+     * 
+     * @return true if the filename is part of the list
+     */
+    @Override
+    public boolean accept(final FileSelectInfo fileInfo) {
+        final String name = FileNameView.baseName(fileInfo);
+        return list.contains(name);
+    }
+
+    /**
+     * Returns the number of names in the list.
+     * 
+     * @return number of distinct names
+     */
+    public int size() {
+        return list.size();
+    }
+
+    /**
+     * Returns the mapped name list.
+     * 
+     * @return the list
+     */
+    MappedNameList getList() {
+        return list;
+    }
+
+    /**
+     * Maps the file again after deserialization.
+     * 
+     * @param in
+     *            the stream to read from
+     * @throws IOException
+     *             error reading the stream or the name list file
+     * @throws ClassNotFoundException
+     *             class of a serialized object not found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.list = MappedNameList.open(file);
+    }
+
+    /**
+     * Provide a String representation of this file filter.
+     * 
+     * @return a String representation
+     */
+    @Override
+    public String toString() {
+        return super.toString() + "(" + file + ")";
+    }
+
+}
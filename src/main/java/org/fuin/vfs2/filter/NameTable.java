@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable hash set of strings that respects a case sensitivity rule.
+ * <p>
+ * Lookups work on a region of a string, so parts of a filename can be looked
+ * up without creating substrings. Case-insensitive tables hash the folded
+ * characters (see {@link IOCase#foldCase(char)}) and compare with the same
+ * rules as {@link IOCase#checkRegionMatches(String, int, String)}.
+ * As the JDK compares surrogate pairs as code points, case-insensitive lookups
+ * of regions containing surrogates compare the region with all entries. A
+ * lookup does not allocate any objects.
+ */
+final class NameTable {
+
+    /** Whether the comparison is case sensitive. */
+    private final boolean sensitive;
+
+    /** Open addressing hash table, <code>null</code> marks a free slot. */
+    private final String[] entries;
+
+    /** Hash of the corresponding entry. */
+    private final int[] hashes;
+
+    /** Number of distinct entries. */
+    private final int size;
+
+    /**
+     * Constructor with names and case sensitivity.
+     * 
+     * @param names
+     *            the names to add, null entries are ignored
+     * @param caseSensitivity
+     *            what case sensitivity rule to use, not null
+     */
+    NameTable(final Collection<String> names, final IOCase caseSensitivity) {
+        this.sensitive = caseSensitivity.isCaseSensitive();
+        int capacity = 4;
+        while (capacity < names.size() * 2) {
+            capacity = capacity * 2;
+        }
+        entries = new String[capacity];
+        hashes = new int[capacity];
+        int count = 0;
+        for (final String name : names) {
+            if (name != null && add(name)) {
+                count++;
+            }
+        }
+        size = count;
+    }
+
+    /**
+     * Returns the number of distinct entries.
+     * 
+     * @return number of entries
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the table contains the string.
+     * 
+     * @param str
+     *            the string to look up, not null
+     * 
+     * @return true if the table contains an equal entry
+     */
+    boolean contains(final String str) {
+        return contains(str, 0, str.length());
+    }
+
+    /**
+     * Checks if the table contains a region of the string.
+     * 
+     * @param str
+     *            the string to look up, not null
+     * @param start
+     *            start index of the region (inclusive)
+     * @param end
+     *            end index of the region (exclusive)
+     * 
+     * @return true if the table contains an entry equal to the region
+     */
+    boolean contains(final String str, final int start, final int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            final int key = key(str.charAt(i));
+            if (key < 0) {
+                return scan(str, start, end - start);
+            }
+            hash = 31 * hash + key;
+        }
+        return probe(str, start, end - start, hash);
+    }
+
+    /**
+     * Looks up a region with a precomputed hash.
+     * 
+     * @param str
+     *            the string to look up, not null
+     * @param start
+     *            start index of the region
+     * @param len
+     *            length of the region
+     * @param rawHash
+     *            hash of the region
+     * 
+     * @return true if the table contains an entry equal to the region
+     */
+    private boolean probe(final String str, final int start, final int len, final int rawHash) {
+        final int hash = spread(rawHash);
+        final int mask = entries.length - 1;
+        int slot = hash & mask;
+        while (true) {
+            final String entry = entries[slot];
+            if (entry == null) {
+                return false;
+            }
+            if (hashes[slot] == hash && entry.length() == len
+                    && str.regionMatches(!sensitive, start, entry, 0, len)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Compares a region of the string with all entries.
+     * 
+     * @param str
+     *            the string to look up, not null
+     * @param start
+     *            start index of the region
+     * @param len
+     *            length of the region
+     * 
+     * @return true if the table contains an entry equal to the region
+     */
+    private boolean scan(final String str, final int start, final int len) {
+        for (final String entry : entries) {
+            if (entry != null && entry.length() == len
+                    && str.regionMatches(!sensitive, start, entry, 0, len)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a string if no equal entry exists.
+     * 
+     * @param str
+     *            the string to add
+     * 
+     * @return true if the string was added
+     */
+    private boolean add(final String str) {
+        if (contains(str)) {
+            return false;
+        }
+        final int hash = hash(str);
+        final int mask = entries.length - 1;
+        int slot = hash & mask;
+        while (entries[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        entries[slot] = str;
+        hashes[slot] = hash;
+        return true;
+    }
+
+    /**
+     * Calculates the hash of a complete string as stored in the table.
+     * Strings containing surrogates in a case-insensitive table are only
+     * found by {@link #scan(String, int, int)}, so their hash does not matter.
+     * 
+     * @param str
+     *            the string
+     * 
+     * @return the hash
+     */
+    private int hash(final String str) {
+        int hash = 0;
+        final int length = str.length();
+        for (int i = 0; i < length; i++) {
+            final int key = key(str.charAt(i));
+            hash = 31 * hash + key;
+        }
+        return spread(hash);
+    }
+
+    /**
+     * Returns the value of a character used for the hash. Characters that are
+     * equal using the case rules have the same value.
+     * 
+     * @param ch
+     *            the character
+     * 
+     * @return the value or -1 for a surrogate in a case-insensitive table
+     */
+    private int key(final char ch) {
+        if (sensitive) {
+            return ch;
+        }
+        if (IOCase.isSurrogate(ch)) {
+            return -1;
+        }
+        return IOCase.foldCase(ch);
+    }
+
+    /**
+     * Spreads the bits of a hash as only the lower ones select the slot.
+     * 
+     * @param hash
+     *            the raw hash
+     * 
+     * @return the hash used in the table
+     */
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        final String[] copy = new String[size];
+        int idx = 0;
+        for (final String entry : entries) {
+            if (entry != null) {
+                copy[idx++] = entry;
+            }
+        }
+        return Arrays.toString(copy);
+    }
+
+}
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable character trie used to check if a filename starts with any of a
+ * set of strings. A reversed trie stores the strings from the last to the
+ * first character and checks if a filename ends with any of them.
+ * <p>
+ * The trie is packed into arrays: the edges of a node are stored next to each
+ * other sorted by their label, so a child is found by a binary search. A node
+ * that completes a string has no children, as longer strings starting with it
+ * cannot change the result. Checking a filename costs O(length of the
+ * filename) regardless of the number of strings.
+ * <p>
+ * Case-insensitive tries store folded characters (see
+ * {@link IOCase#foldCase(char)}) and fold every filename character. As the JDK
+ * compares surrogate pairs as code points, filenames containing surrogates are
+ * compared with all strings instead if any of the strings contains surrogates.
+ */
+final class NameTrie {
+
+    /** Whether the comparison is case sensitive. */
+    private final boolean sensitive;
+
+    /** Whether strings are stored from the last to the first character. */
+    private final boolean reverse;
+
+    /** The strings used for the fallback. */
+    private final String[] strings;
+
+    /** Whether filenames containing surrogates use the fallback. */
+    private final boolean surrogates;
+
+    /** Whether a node completes a string. */
+    private final boolean[] terminal;
+
+    /** Index of the first edge of a node. */
+    private final int[] edgeStart;
+
+    /** Index after the last edge of a node. */
+    private final int[] edgeEnd;
+
+    /** Label of an edge. */
+    private final char[] labels;
+
+    /** Target node of an edge. */
+    private final int[] targets;
+
+    /** Number of nodes used during construction. */
+    private int nodeCount;
+
+    /** Number of edges used during construction. */
+    private int edgeCount;
+
+    /**
+     * Constructor for a trie that checks prefixes.
+     * 
+     * @param strings
+     *            the strings to add, null entries are ignored
+     * @param caseSensitivity
+     *            what case sensitivity rule to use, not null
+     */
+    NameTrie(final Collection<String> strings, final IOCase caseSensitivity) {
+        this(strings, caseSensitivity, false);
+    }
+
+    /**
+     * Constructor with strings, case sensitivity and direction.
+     * 
+     * @param strings
+     *            the strings to add, null entries are ignored
+     * @param caseSensitivity
+     *            what case sensitivity rule to use, not null
+     * @param reverse
+     *            true to check suffixes instead of prefixes
+     */
+    NameTrie(final Collection<String> strings, final IOCase caseSensitivity, final boolean reverse) {
+        this.sensitive = caseSensitivity.isCaseSensitive();
+        this.reverse = reverse;
+        int count = 0;
+        int chars = 0;
+        for (final String str : strings) {
+            if (str != null) {
+                count++;
+                chars = chars + str.length();
+            }
+        }
+        this.strings = new String[count];
+        final String[] keys = new String[count];
+        boolean found = false;
+        int idx = 0;
+        for (final String str : strings) {
+            if (str != null) {
+                this.strings[idx] = str;
+                keys[idx] = key(str);
+                found = found || IOCase.containsSurrogate(str);
+                idx++;
+            }
+        }
+        this.surrogates = !sensitive && found;
+        Arrays.sort(keys);
+
+        terminal = new boolean[chars + 1];
+        edgeStart = new int[chars + 1];
+        edgeEnd = new int[chars + 1];
+        labels = new char[chars];
+        targets = new int[chars];
+        nodeCount = 1;
+        edgeCount = 0;
+        build(0, keys, 0, keys.length, 0);
+    }
+
+    /**
+     * Checks if the string starts with any of the strings of the trie or ends
+     * with any of them if the trie is reversed.
+     * 
+     * @param str
+     *            the string to check, not null
+     * 
+     * @return true if the string starts (ends) with one of the strings
+     */
+    boolean matches(final String str) {
+        if (surrogates && IOCase.containsSurrogate(str)) {
+            return scan(str);
+        }
+        int node = 0;
+        final int length = str.length();
+        for (int i = 0; i < length; i++) {
+            if (terminal[node]) {
+                return true;
+            }
+            char ch = str.charAt(reverse ? length - 1 - i : i);
+            if (!sensitive) {
+                ch = IOCase.foldCase(ch);
+            }
+            final int edge = Arrays.binarySearch(labels, edgeStart[node], edgeEnd[node], ch);
+            if (edge < 0) {
+                return false;
+            }
+            node = targets[edge];
+        }
+        return terminal[node];
+    }
+
+    /**
+     * Compares the string with all strings of the trie.
+     * 
+     * @param str
+     *            the string to check, not null
+     * 
+     * @return true if the string starts (ends) with one of the strings
+     */
+    private boolean scan(final String str) {
+        for (final String part : strings) {
+            final int start = reverse ? str.length() - part.length() : 0;
+            if (start >= 0 && str.regionMatches(!sensitive, start, part, 0, part.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds a node and its children from a sorted range of keys that share
+     * the first <code>depth</code> characters.
+     * 
+     * @param node
+     *            index of the node to build
+     * @param keys
+     *            all sorted keys
+     * @param from
+     *            first key of the range (inclusive)
+     * @param to
+     *            last key of the range (exclusive)
+     * @param depth
+     *            number of characters shared by the keys
+     */
+    private void build(final int node, final String[] keys, final int from, final int to, final int depth) {
+        if (from == to) {
+            return;
+        }
+        if (keys[from].length() == depth) {
+            // The shortest key ends here - longer keys are not needed
+            terminal[node] = true;
+            return;
+        }
+        // Reserve the edges of this node first to keep them together
+        int groups = 0;
+        for (int i = from; i < to; i++) {
+            if (i == from || keys[i].charAt(depth) != keys[i - 1].charAt(depth)) {
+                groups++;
+            }
+        }
+        final int first = edgeCount;
+        edgeStart[node] = first;
+        edgeEnd[node] = first + groups;
+        edgeCount = edgeCount + groups;
+        int edge = first;
+        int start = from;
+        for (int i = from + 1; i <= to; i++) {
+            if (i == to || keys[i].charAt(depth) != keys[start].charAt(depth)) {
+                final int child = nodeCount++;
+                labels[edge] = keys[start].charAt(depth);
+                targets[edge] = child;
+                edge++;
+                build(child, keys, start, i, depth + 1);
+                start = i;
+            }
+        }
+    }
+
+    /**
+     * Returns the characters of a string in the order they are stored in the
+     * trie, folded if the trie is case-insensitive.
+     * 
+     * @param str
+     *            the string
+     * 
+     * @return the key used to build the trie
+     */
+    private String key(final String str) {
+        final int length = str.length();
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            final char ch = str.charAt(reverse ? length - 1 - i : i);
+            chars[i] = sensitive ? ch : IOCase.foldCase(ch);
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(strings);
+    }
+
+}
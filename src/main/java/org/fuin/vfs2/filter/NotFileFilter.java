@@ -58,7 +58,7 @@ public class NotFileFilter implements FileFilter, Serializable {
      */
     @Override
     public boolean accept(final FileSelectInfo fileInfo) {
-        return !filter.accept(fileInfo);
+        return !filter.accept(FileNameView.of(fileInfo));
     }
 
     /**
@@ -83,8 +83,10 @@ public class OrFileFilter implements FileFilter, ConditionalFileFilter, Serializ
 
     @Override
     public boolean accept(final FileSelectInfo fileInfo) {
+        // All filters share the name related values of the file
+        final FileNameView view = FileNameView.of(fileInfo);
         for (final FileFilter fileFilter : fileFilters) {
-            if (fileFilter.accept(fileInfo)) {
+            if (fileFilter.accept(view)) {
                 return true;
             }
         }
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileSelectInfo;
+
+/**
+ * Filters files by their path relative to the base folder of the selection
+ * using the supplied path globs.
+ * <p>
+ * A path glob consists of segments separated by '/'. The segment
+ * <code>**</code> matches zero or more directories, every other segment is
+ * matched against one name with the syntax of {@link GlobFileFilter}. A
+ * segment cannot contain '/', not even inside braces. Leading, trailing and
+ * repeated '/' are ignored, so all globs are relative to the base folder.
+ * The base folder itself is never accepted. For example
+ * <code>logs/**&#47;2024-*&#47;*.gz</code> accepts
+ * <code>logs/2024-01/a.gz</code> and <code>logs/app/2024-02/b.gz</code>,
+ * but not <code>logs/a.gz</code>. Testing is case-sensitive by default, but
+ * this can be configured.
+ * <p>
+ * The matching state of a directory is derived from the state of its parent
+ * with a single step for the directory's name and is cached by the name of
+ * the directory, so the cost per file is one lookup and one step for its
+ * base name regardless of its depth. Used with a {@link PruningFileSelector}
+ * directories below which no glob can match are not traversed at all.
+ * <p>
+ * For example, to retrieve and print all compressed log files of 2024 below
+ * the current directory:
+ * 
+ * <pre>
+ * FileSystemManager fsManager = VFS.getManager();
+ * FileObject dir = fsManager.toFileObject(new File(&quot;.&quot;));
+ * PruningFileFilter filter = new PathGlobFileFilter(&quot;logs/**&#47;2024-*&#47;*.gz&quot;);
+ * FileObject[] files = dir.findFiles(new PruningFileSelector(filter));
+ * for (int i = 0; i &lt; files.length; i++) {
+ *     System.out.println(files[i]);
+ * }
+ * </pre>
+ */
+public class PathGlobFileFilter implements PruningFileFilter, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Whether the comparison is case sensitive. */
+    private final IOCase caseSensitivity;
+
+    /** The path globs that will be used to match paths. */
+    private final List<String> globs;
+
+    /** Matcher for all path globs with the cached directory states. */
+    private transient PathMatcher matcher;
+
+    /**
+     * Construct a new case-sensitive path glob filter for a list of globs.
+     * 
+     * @param globs
+     *            the list of path globs to match, not null
+     */
+    public PathGlobFileFilter(final List<String> globs) {
+        this((IOCase) null, globs);
+    }
+
+    /**
+     * Construct a new path glob filter for a list of globs specifying
+     * case-sensitivity.
+     * 
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param globs
+     *            the list of path globs to match, not null
+     */
+    public PathGlobFileFilter(final IOCase caseSensitivity, final List<String> globs) {
+        if (globs == null) {
+            throw new IllegalArgumentException("The glob list must not be null");
+        }
+        this.globs = new ArrayList<String>(globs);
+        this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.matcher = new PathMatcher(this.globs, this.caseSensitivity);
+    }
+
+    /**
+     * Construct a new case-sensitive path glob filter for an array of globs.
+     * 
+     * @param globs
+     *            the array of path globs to match, not null
+     */
+    public PathGlobFileFilter(final String... globs) {
+        this((IOCase) null, globs);
+    }
+
+    /**
+     * Construct a new path glob filter for an array of globs specifying
+     * case-sensitivity.
+     * 
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param globs
+     *            the array of path globs to match, not null
+     */
+    public PathGlobFileFilter(final IOCase caseSensitivity, final String... globs) {
+        if (globs == null) {
+            throw new IllegalArgumentException("The glob array must not be null");
+        }
+        this.globs = new ArrayList<String>(Arrays.asList(globs));
+        this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.matcher = new PathMatcher(this.globs, this.caseSensitivity);
+    }
+
+    /**
+     * Checks to see if the path relative to the base folder matches one of
+     * the globs.
+     * 
+     * @param fileInfo
+     *            the file to check
+     * 
+     * @return true if the relative path matches one of the globs
+     */
+    @Override
+    public boolean accept(final FileSelectInfo fileInfo) {
+        final FileName base = fileInfo.getBaseFolder().getName();
+        final FileName name = fileInfo.getFile().getName();
+        if (name.equals(base)) {
+            return false;
+        }
+        return matcher.matches(matcher.fileState(base, name));
+    }
+
+    /**
+     * Checks if a path below the directory can match one of the globs.
+     * 
+     * @param fileInfo
+     *            the directory to check
+     * 
+     * @return false if no glob can match anything below the directory
+     */
+    @Override
+    public boolean traverseDescendents(final FileSelectInfo fileInfo) {
+        final FileName base = fileInfo.getBaseFolder().getName();
+        final FileName name = fileInfo.getFile().getName();
+        return matcher.canMatchBelow(matcher.state(base, name));
+    }
+
+    /**
+     * Restores the matcher after deserialization.
+     * 
+     * @param in
+     *            the stream to read from
+     * @throws IOException
+     *             error reading the stream
+     * @throws ClassNotFoundException
+     *             class of a serialized object not found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.matcher = new PathMatcher(this.globs, this.caseSensitivity);
+    }
+
+    /**
+     * Provide a String representation of this file filter.
+     * 
+     * @return a String representation
+     */
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append(super.toString());
+        buffer.append("(");
+        if (globs != null) {
+            for (int i = 0; i < globs.size(); i++) {
+                if (i > 0) {
+                    buffer.append(",");
+                }
+                buffer.append(globs.get(i));
+            }
+        }
+        buffer.append(")");
+        return buffer.toString();
+    }
+
+}
@@ -0,0 +1,437 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.vfs2.FileName;
+
+/**
+ * Matches paths relative to a base folder against any number of path globs
+ * segment by segment.
+ * <p>
+ * A path glob is split at '/' into segments. A segment <code>**</code> matches
+ * zero or more directories, every other segment is a glob for a single name as
+ * supported by {@link GlobAutomaton}. Every segment position of every glob is
+ * a state, so the matching state of a path is the set of positions reached
+ * after reading its names. The state of a directory is computed from the state
+ * of its parent with one step for its base name and is cached by the
+ * directory's {@link FileName}, so all children of a directory share the work
+ * done for its ancestors. An empty state means that nothing below the
+ * directory can match.
+ */
+final class PathMatcher {
+
+    /** Segment matching zero or more directories. */
+    private static final String ANY_DIRS = "**";
+
+    /** State without any position. */
+    private static final int[] NONE = new int[0];
+
+    /** Glob matching a name for every position or null. */
+    private final GlobAutomaton[] segments;
+
+    /** Index of the path glob every position belongs to. */
+    private final int[] globOf;
+
+    /** Whether the position is a <code>**</code> segment. */
+    private final boolean[] anyDirs;
+
+    /** Whether the position is the end of a glob. */
+    private final boolean[] ends;
+
+    /** State of the base folder. */
+    private final int[] start;
+
+    /** States of directories. */
+    private final FolderCache<int[]> cache;
+
+    /**
+     * Constructor with globs and case sensitivity.
+     * 
+     * @param globs
+     *            the path globs, not null
+     * @param caseSensitivity
+     *            how to handle case sensitivity, not null
+     * 
+     * @throws IllegalArgumentException
+     *             a segment is an invalid glob
+     */
+    PathMatcher(final List<String> globs, final IOCase caseSensitivity) {
+        this(globs, caseSensitivity, false);
+    }
+
+    /**
+     * Constructor with globs, case sensitivity and the handling of invalid
+     * segments.
+     * 
+     * @param globs
+     *            the path globs, not null
+     * @param caseSensitivity
+     *            how to handle case sensitivity, not null
+     * @param lenient
+     *            true if a segment that is an invalid glob never matches,
+     *            false if it is rejected
+     * 
+     * @throws IllegalArgumentException
+     *             a segment is an invalid glob and lenient is false
+     */
+    PathMatcher(final List<String> globs, final IOCase caseSensitivity, final boolean lenient) {
+        final List<List<String>> split = new ArrayList<List<String>>();
+        int count = 0;
+        for (final String glob : globs) {
+            final List<String> segs = split(glob);
+            split.add(segs);
+            count = count + segs.size() + 1;
+        }
+        segments = new GlobAutomaton[count];
+        globOf = new int[count];
+        anyDirs = new boolean[count];
+        ends = new boolean[count];
+
+        // Identical segments share one automaton
+        final Map<String, GlobAutomaton> compiled = new HashMap<String, GlobAutomaton>();
+        final int[] firsts = new int[split.size()];
+        int pos = 0;
+        for (int i = 0; i < split.size(); i++) {
+            firsts[i] = pos;
+            for (final String seg : split.get(i)) {
+                globOf[pos] = i;
+                if (seg.equals(ANY_DIRS)) {
+                    anyDirs[pos] = true;
+                } else if (compiled.containsKey(seg)) {
+                    segments[pos] = compiled.get(seg);
+                } else {
+                    segments[pos] = compile(seg, caseSensitivity, lenient);
+                    compiled.put(seg, segments[pos]);
+                }
+                pos++;
+            }
+            globOf[pos] = i;
+            ends[pos] = true;
+            pos++;
+        }
+
+        final int[] buffer = new int[2 * firsts.length];
+        int size = 0;
+        for (final int first : firsts) {
+            size = closure(buffer, size, first);
+        }
+        start = sorted(buffer, size);
+        cache = new FolderCache<int[]>();
+    }
+
+    /**
+     * Returns the state of the base folder.
+     * 
+     * @return the state before reading any name
+     */
+    int[] start() {
+        return start;
+    }
+
+    /**
+     * Returns the state of a directory.
+     * 
+     * @param base
+     *            name of the base folder, not null
+     * @param dir
+     *            name of the directory, not null
+     * 
+     * @return the state, empty if the directory is not below the base folder
+     *         or nothing below it can match
+     */
+    int[] state(final FileName base, final FileName dir) {
+        if (dir.equals(base)) {
+            return start;
+        }
+        final int[] cached = cache.get(base, dir);
+        if (cached != null) {
+            return cached;
+        }
+        final FileName parent = dir.getParent();
+        final int[] state;
+        if (parent == null || dir.getDepth() <= base.getDepth()) {
+            state = NONE;
+        } else {
+            state = step(state(base, parent), dir.getBaseName());
+        }
+        cache.put(base, dir, state);
+        return state;
+    }
+
+    /**
+     * Returns the state of a file without caching it. The state of the parent
+     * is cached as usual.
+     * 
+     * @param base
+     *            name of the base folder, not null
+     * @param file
+     *            name of the file, not null
+     * 
+     * @return the state, empty if the file is not below the base folder or
+     *         nothing can match the file or anything below it
+     */
+    int[] fileState(final FileName base, final FileName file) {
+        if (file.equals(base)) {
+            return start;
+        }
+        final int[] cached = cache.get(base, file);
+        if (cached != null) {
+            return cached;
+        }
+        final FileName parent = file.getParent();
+        if (parent == null || file.getDepth() <= base.getDepth()) {
+            return NONE;
+        }
+        return step(state(base, parent), file.getBaseName());
+    }
+
+    /**
+     * Computes the state after reading a name.
+     * 
+     * @param state
+     *            the current state
+     * @param name
+     *            the name of the next file or directory
+     * 
+     * @return the next state
+     */
+    int[] step(final int[] state, final String name) {
+        if (state.length == 0) {
+            return NONE;
+        }
+        // Every position leads to at most two positions
+        final int[] buffer = new int[2 * state.length];
+        int size = 0;
+        for (final int pos : state) {
+            if (anyDirs[pos]) {
+                size = closure(buffer, size, pos);
+            } else if (segments[pos] != null && segments[pos].matches(name)) {
+                size = closure(buffer, size, pos + 1);
+            }
+        }
+        return sorted(buffer, size);
+    }
+
+    /**
+     * Checks if a state is the end of any glob.
+     * 
+     * @param state
+     *            the state to check
+     * 
+     * @return true if the path of the state matches
+     */
+    boolean matches(final int[] state) {
+        for (final int pos : state) {
+            if (ends[pos]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the glob with the highest index below a limit whose end is part
+     * of a state.
+     * 
+     * @param state
+     *            the state to check
+     * @param limit
+     *            the globs with this or a higher index are ignored
+     * 
+     * @return index of the last glob matching the path of the state or -1 if
+     *         none below the limit matches
+     */
+    int lastMatch(final int[] state, final int limit) {
+        // Positions are sorted and numbered glob by glob
+        for (int i = state.length - 1; i >= 0; i--) {
+            final int pos = state[i];
+            if (ends[pos] && globOf[pos] < limit) {
+                return globOf[pos];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if anything below the path of a state can match.
+     * 
+     * @param state
+     *            the state to check
+     * 
+     * @return true if a glob still expects more names
+     */
+    boolean canMatchBelow(final int[] state) {
+        for (final int pos : state) {
+            if (!ends[pos]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if one of a range of globs can match anything below the path of
+     * a state.
+     * 
+     * @param state
+     *            the state to check
+     * @param from
+     *            index of the first glob of the range
+     * @param to
+     *            index after the last glob of the range
+     * 
+     * @return true if a glob of the range still expects more names
+     */
+    boolean canMatchBelow(final int[] state, final int from, final int to) {
+        for (final int pos : state) {
+            if (!ends[pos] && globOf[pos] >= from && globOf[pos] < to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if one of a range of globs matches everything below the path of
+     * a state, because only a trailing <code>**</code> segment is left.
+     * 
+     * @param state
+     *            the state to check
+     * @param from
+     *            index of the first glob of the range
+     * @param to
+     *            index after the last glob of the range
+     * 
+     * @return true if every path below matches a glob of the range
+     */
+    boolean matchesAllBelow(final int[] state, final int from, final int to) {
+        for (final int pos : state) {
+            if (anyDirs[pos] && ends[pos + 1] && globOf[pos] >= from && globOf[pos] < to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a position and the position following it if it is a
+     * <code>**</code> segment.
+     * 
+     * @param buffer
+     *            the positions collected so far
+     * @param size
+     *            number of positions in the buffer
+     * @param pos
+     *            the position to add
+     * 
+     * @return the new number of positions
+     */
+    private int closure(final int[] buffer, final int size, final int pos) {
+        int n = size;
+        buffer[n++] = pos;
+        if (anyDirs[pos]) {
+            // The split never creates two ** segments in a row
+            buffer[n++] = pos + 1;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the sorted distinct positions of a buffer.
+     * 
+     * @param buffer
+     *            the positions
+     * @param size
+     *            number of positions in the buffer
+     * 
+     * @return the state
+     */
+    private static int[] sorted(final int[] buffer, final int size) {
+        if (size == 0) {
+            return NONE;
+        }
+        Arrays.sort(buffer, 0, size);
+        int distinct = 1;
+        for (int i = 1; i < size; i++) {
+            if (buffer[i] != buffer[distinct - 1]) {
+                buffer[distinct++] = buffer[i];
+            }
+        }
+        return Arrays.copyOf(buffer, distinct);
+    }
+
+    /**
+     * Compiles a segment.
+     * 
+     * @param seg
+     *            the segment
+     * @param caseSensitivity
+     *            how to handle case sensitivity
+     * @param lenient
+     *            whether an invalid segment is compiled to <code>null</code>
+     *            instead of being rejected
+     * 
+     * @return the automaton or <code>null</code> for a segment that never
+     *         matches
+     */
+    private static GlobAutomaton compile(final String seg, final IOCase caseSensitivity,
+            final boolean lenient) {
+        try {
+            return PatternCache.glob(seg, caseSensitivity);
+        } catch (final IllegalArgumentException ex) {
+            if (lenient) {
+                return null;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Splits a path glob into its segments. Empty segments are ignored and
+     * repeated <code>**</code> segments are merged.
+     * 
+     * @param glob
+     *            the path glob, not null
+     * 
+     * @return the segments
+     */
+    static List<String> split(final String glob) {
+        final List<String> segs = new ArrayList<String>();
+        int begin = 0;
+        while (begin <= glob.length()) {
+            int end = glob.indexOf('/', begin);
+            if (end < 0) {
+                end = glob.length();
+            }
+            final String seg = glob.substring(begin, end);
+            final boolean repeated = seg.equals(ANY_DIRS) && !segs.isEmpty()
+                    && segs.get(segs.size() - 1).equals(ANY_DIRS);
+            if (seg.length() > 0 && !repeated) {
+                segs.add(seg);
+            }
+            begin = end + 1;
+        }
+        return segs;
+    }
+
+}
@@ -0,0 +1,487 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Size-bounded cache of compiled single patterns shared by all filters.
+ * <p>
+ * Regular expressions of {@link RegexFileFilter} and
+ * {@link RegexSetFileFilter}, wildcards of {@link WildcardFileFilter} and
+ * globs of {@link GlobFileFilter} and {@link PathGlobFileFilter} are compiled
+ * once per pattern, case sensitivity and flags. Filters created again and
+ * again from the same few patterns, for example one per request of a service,
+ * then skip parsing and compiling. Compiled patterns are immutable, so they
+ * can be used by any number of filters and threads.
+ * <p>
+ * The entries are spread over {@value #SEGMENT_COUNT} segments, each with its
+ * own lock and least recently used order. A segment holds a share of
+ * {@link #getMaximumSize()} rounded up, so the cache may hold a few more
+ * entries than the maximum. The hit and miss counters show whether the size
+ * fits the patterns in use.
+ */
+public final class PatternCache {
+
+    /** Default maximum number of cached patterns. */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    /** Number of independently locked segments. */
+    static final int SEGMENT_COUNT = 16;
+
+    /** Kind of a regular expression matched by its pattern. */
+    private static final byte REGEX = 0;
+
+    /** Kind of a regular expression matched in linear time. */
+    private static final byte LINEAR_REGEX = 1;
+
+    /** Kind of a wildcard. */
+    private static final byte WILDCARD = 2;
+
+    /** Kind of a glob. */
+    private static final byte GLOB = 3;
+
+    /** The segments. */
+    private static final Segment[] SEGMENTS = createSegments();
+
+    /** Number of patterns found in the cache. */
+    private static final AtomicLong HITS = new AtomicLong();
+
+    /** Number of patterns compiled because they were not in the cache. */
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    /** Number of patterns removed to stay within the maximum size. */
+    private static final AtomicLong EVICTIONS = new AtomicLong();
+
+    /** Maximum number of entries of a segment - zero disables the cache. */
+    private static volatile int segmentSize = segmentSize(DEFAULT_MAXIMUM_SIZE);
+
+    /** Maximum number of cached patterns. */
+    private static volatile int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    /**
+     * Private utility class constructor.
+     */
+    private PatternCache() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Returns the maximum number of cached patterns.
+     * 
+     * @return the maximum size, zero if caching is disabled
+     */
+    public static int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Sets the maximum number of cached patterns. If the cache holds more
+     * patterns, the least recently used ones are removed.
+     * 
+     * @param size
+     *            the maximum size, zero disables caching
+     */
+    public static void setMaximumSize(final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The maximum size must not be negative: " + size);
+        }
+        maximumSize = size;
+        segmentSize = segmentSize(size);
+        for (final Segment segment : SEGMENTS) {
+            segment.trim();
+        }
+    }
+
+    /**
+     * Returns the number of cached patterns.
+     * 
+     * @return the current size
+     */
+    public static int size() {
+        int size = 0;
+        for (final Segment segment : SEGMENTS) {
+            size = size + segment.count();
+        }
+        return size;
+    }
+
+    /**
+     * Returns how often a compiled pattern was found in the cache.
+     * 
+     * @return number of hits since start or the last call of {@link #clear()}
+     */
+    public static long getHitCount() {
+        return HITS.get();
+    }
+
+    /**
+     * Returns how often a pattern was compiled because it was not found in
+     * the cache.
+     * 
+     * @return number of misses since start or the last call of
+     *         {@link #clear()}
+     */
+    public static long getMissCount() {
+        return MISSES.get();
+    }
+
+    /**
+     * Returns how often a pattern was removed to stay within the maximum
+     * size.
+     * 
+     * @return number of evictions since start or the last call of
+     *         {@link #clear()}
+     */
+    public static long getEvictionCount() {
+        return EVICTIONS.get();
+    }
+
+    /**
+     * Removes all patterns and resets the counters. Existing filters keep
+     * their compiled patterns.
+     */
+    public static void clear() {
+        for (final Segment segment : SEGMENTS) {
+            segment.clear();
+        }
+        HITS.set(0);
+        MISSES.set(0);
+        EVICTIONS.set(0);
+    }
+
+    /**
+     * Returns the compiled form of a regular expression.
+     * 
+     * @param regex
+     *            the regular expression, not null
+     * @param flags
+     *            pattern flags - e.g. {@link Pattern#CASE_INSENSITIVE}
+     * @param linearTime
+     *            true if names are matched in time linear to their length
+     * 
+     * @return the shared compiled regular expression
+     * 
+     * @throws java.util.regex.PatternSyntaxException
+     *             the regular expression is invalid
+     * @throws IllegalArgumentException
+     *             linear time mode is requested and the regular expression
+     *             uses a construct the automaton does not support
+     */
+    static RegexProgram regex(final String regex, final int flags, final boolean linearTime) {
+        final Key key = new Key(linearTime ? LINEAR_REGEX : REGEX, regex, null, flags);
+        final Object cached = get(key);
+        if (cached != null) {
+            return (RegexProgram) cached;
+        }
+        final RegexProgram program = new RegexProgram(Pattern.compile(regex, flags), linearTime);
+        put(key, program);
+        return program;
+    }
+
+    /**
+     * Returns the compiled form of a regular expression that was already
+     * compiled into a pattern. If the expression is not cached yet, the
+     * pattern is used for the new entry.
+     * 
+     * @param pattern
+     *            the pattern, not null
+     * @param linearTime
+     *            true if names are matched in time linear to their length
+     * 
+     * @return the shared compiled regular expression
+     * 
+     * @throws IllegalArgumentException
+     *             linear time mode is requested and the regular expression
+     *             uses a construct the automaton does not support
+     */
+    static RegexProgram regex(final Pattern pattern, final boolean linearTime) {
+        final Key key = new Key(linearTime ? LINEAR_REGEX : REGEX, pattern.pattern(), null, pattern.flags());
+        final Object cached = get(key);
+        if (cached != null) {
+            return (RegexProgram) cached;
+        }
+        final RegexProgram program = new RegexProgram(pattern, linearTime);
+        put(key, program);
+        return program;
+    }
+
+    /**
+     * Returns the compiled form of a wildcard.
+     * 
+     * @param wildcard
+     *            the wildcard, not null
+     * @param caseSensitivity
+     *            how to handle case sensitivity, not null
+     * 
+     * @return the shared compiled wildcard
+     */
+    static WildcardPattern wildcard(final String wildcard, final IOCase caseSensitivity) {
+        final Key key = new Key(WILDCARD, wildcard, caseSensitivity, 0);
+        final Object cached = get(key);
+        if (cached != null) {
+            return (WildcardPattern) cached;
+        }
+        final WildcardPattern pattern = WildcardPattern.compile(wildcard, caseSensitivity);
+        put(key, pattern);
+        return pattern;
+    }
+
+    /**
+     * Returns the automaton of a single glob.
+     * 
+     * @param glob
+     *            the glob, not null
+     * @param caseSensitivity
+     *            how to handle case sensitivity, not null
+     * 
+     * @return the shared automaton
+     * 
+     * @throws IllegalArgumentException
+     *             the glob is invalid
+     */
+    static GlobAutomaton glob(final String glob, final IOCase caseSensitivity) {
+        final Key key = new Key(GLOB, glob, caseSensitivity, 0);
+        final Object cached = get(key);
+        if (cached != null) {
+            return (GlobAutomaton) cached;
+        }
+        final GlobAutomaton automaton = new GlobAutomaton(Collections.singletonList(glob), caseSensitivity);
+        put(key, automaton);
+        return automaton;
+    }
+
+    /**
+     * Looks up a compiled pattern and counts the hit or miss.
+     * 
+     * @param key
+     *            the key
+     * 
+     * @return the compiled pattern or <code>null</code> if it is not cached
+     */
+    private static Object get(final Key key) {
+        final Object value = segmentFor(key).get(key);
+        if (value == null) {
+            MISSES.incrementAndGet();
+        } else {
+            HITS.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Adds a compiled pattern. Patterns compiled by two threads at the same
+     * time are equal, so the later one simply replaces the other.
+     * 
+     * @param key
+     *            the key
+     * @param value
+     *            the compiled pattern
+     */
+    private static void put(final Key key, final Object value) {
+        segmentFor(key).put(key, value);
+    }
+
+    /**
+     * Returns the segment of a key.
+     * 
+     * @param key
+     *            the key
+     * 
+     * @return the segment
+     */
+    private static Segment segmentFor(final Key key) {
+        final int hash = key.hashCode();
+        return SEGMENTS[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+    /**
+     * Returns the maximum number of entries of a segment.
+     * 
+     * @param size
+     *            maximum number of cached patterns
+     * 
+     * @return the share of a segment rounded up
+     */
+    private static int segmentSize(final int size) {
+        return (size + SEGMENT_COUNT - 1) / SEGMENT_COUNT;
+    }
+
+    /**
+     * Creates the segments.
+     * 
+     * @return the empty segments
+     */
+    private static Segment[] createSegments() {
+        final Segment[] segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+        return segments;
+    }
+
+    /**
+     * Identifies a compiled pattern by kind, pattern, case sensitivity and
+     * flags.
+     */
+    private static final class Key {
+
+        /** Kind of the pattern. */
+        private final byte kind;
+
+        /** The pattern. */
+        private final String pattern;
+
+        /** How to handle case sensitivity or <code>null</code> for regular expressions. */
+        private final IOCase caseSensitivity;
+
+        /** Pattern flags or zero. */
+        private final int flags;
+
+        /** Hash code of all values. */
+        private final int hash;
+
+        /**
+         * Constructor with all data.
+         * 
+         * @param kind
+         *            kind of the pattern
+         * @param pattern
+         *            the pattern, not null
+         * @param caseSensitivity
+         *            how to handle case sensitivity or <code>null</code>
+         * @param flags
+         *            pattern flags or zero
+         */
+        Key(final byte kind, final String pattern, final IOCase caseSensitivity, final int flags) {
+            this.kind = kind;
+            this.pattern = pattern;
+            this.caseSensitivity = caseSensitivity;
+            this.flags = flags;
+            final int cs = caseSensitivity == null ? 0 : caseSensitivity.hashCode();
+            this.hash = 31 * (31 * (31 * kind + pattern.hashCode()) + cs) + flags;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return kind == other.kind && flags == other.flags && caseSensitivity == other.caseSensitivity
+                    && pattern.equals(other.pattern);
+        }
+
+    }
+
+    /**
+     * Part of the cache with its own lock and least recently used order.
+     */
+    private static final class Segment {
+
+        /** Entries in access order - guarded by this segment. */
+        private final Map<Key, Object> entries;
+
+        /**
+         * Default constructor.
+         */
+        Segment() {
+            entries = new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Key, Object> eldest) {
+                    if (size() > segmentSize) {
+                        EVICTIONS.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        /**
+         * Returns an entry and marks it as most recently used.
+         * 
+         * @param key
+         *            the key
+         * 
+         * @return the compiled pattern or <code>null</code>
+         */
+        synchronized Object get(final Key key) {
+            return entries.get(key);
+        }
+
+        /**
+         * Adds an entry and removes the least recently used one if the
+         * segment is full.
+         * 
+         * @param key
+         *            the key
+         * @param value
+         *            the compiled pattern
+         */
+        synchronized void put(final Key key, final Object value) {
+            if (segmentSize > 0) {
+                entries.put(key, value);
+            }
+        }
+
+        /**
+         * Returns the number of entries.
+         * 
+         * @return the size
+         */
+        synchronized int count() {
+            return entries.size();
+        }
+
+        /**
+         * Removes the least recently used entries beyond the maximum size.
+         */
+        synchronized void trim() {
+            final Iterator<Key> it = entries.keySet().iterator();
+            while (entries.size() > segmentSize && it.hasNext()) {
+                it.next();
+                it.remove();
+                EVICTIONS.incrementAndGet();
+            }
+        }
+
+        /**
+         * Removes all entries.
+         */
+        synchronized void clear() {
+            entries.clear();
+        }
+
+    }
+
+}
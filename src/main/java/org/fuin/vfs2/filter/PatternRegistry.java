@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Canonicalizing registry of the compiled patterns used by
+ * {@link NameFileFilter}, {@link PrefixFileFilter}, {@link SuffixFileFilter}
+ * and {@link WildcardFileFilter}.
+ * <p>
+ * Filters created with the same patterns in the same order and the same case
+ * sensitivity share one immutable pattern array and one compiled matcher, so
+ * the heap used grows with the number of distinct pattern sets and not with
+ * the number of filter instances. This is useful if many filters are created
+ * from configuration, for example one per watched folder.
+ * <p>
+ * The registry holds its entries weakly, so a pattern set is removed once no
+ * filter uses it any more. Interning is enabled by default and can be
+ * switched off with {@link #setEnabled(boolean)}, in which case every filter
+ * compiles its own patterns.
+ */
+public final class PatternRegistry {
+
+    /** Registered pattern sets by key. */
+    private static final ConcurrentMap<Key, Entry> ENTRIES = new ConcurrentHashMap<Key, Entry>();
+
+    /** Entries whose patterns were garbage collected. */
+    private static final ReferenceQueue<CompiledPatterns<?>> QUEUE =
+            new ReferenceQueue<CompiledPatterns<?>>();
+
+    /** Whether identical pattern sets are shared. */
+    private static volatile boolean enabled = true;
+
+    /**
+     * Private utility class constructor.
+     */
+    private PatternRegistry() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Checks if identical pattern sets are shared.
+     * 
+     * @return true if filters created from now on use the registry
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Defines if identical pattern sets are shared. Filters that already
+     * exist are not changed.
+     * 
+     * @param value
+     *            true to share the patterns of filters created from now on,
+     *            false to compile them for every filter
+     */
+    public static void setEnabled(final boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * Returns the number of pattern sets currently registered.
+     * 
+     * @return number of distinct pattern sets still in use
+     */
+    public static int size() {
+        expunge();
+        return ENTRIES.size();
+    }
+
+    /**
+     * Returns the compiled patterns for a pattern set. An existing instance is
+     * returned if the same compiler was already used for equal patterns and
+     * the same case sensitivity and that instance is still in use.
+     * 
+     * @param <M>
+     *            type of the compiled matcher
+     * @param compiler
+     *            creates the matcher, not null - should be a constant of the
+     *            filter class, as it is part of the key
+     * @param caseSensitivity
+     *            how to handle case sensitivity, not null
+     * @param patterns
+     *            the patterns, not null - the collection is copied
+     * 
+     * @return the shared or a new instance
+     */
+    @SuppressWarnings("unchecked")
+    static <M> CompiledPatterns<M> compile(final CompiledPatterns.Compiler<M> compiler,
+            final IOCase caseSensitivity, final Collection<String> patterns) {
+        final String[] array = patterns.toArray(new String[patterns.size()]);
+        if (!enabled) {
+            return new CompiledPatterns<M>(array, caseSensitivity, compiler);
+        }
+        expunge();
+        final Key key = new Key(compiler, caseSensitivity, array);
+        final Entry entry = ENTRIES.get(key);
+        if (entry != null) {
+            final CompiledPatterns<?> existing = entry.get();
+            if (existing != null) {
+                return (CompiledPatterns<M>) existing;
+            }
+        }
+        // Two threads compiling the same patterns at once is harmless,
+        // the later one replaces the entry of the other
+        final CompiledPatterns<M> created = new CompiledPatterns<M>(array, caseSensitivity, compiler);
+        ENTRIES.put(key, new Entry(key, created));
+        return created;
+    }
+
+    /**
+     * Removes the entries whose patterns were garbage collected.
+     */
+    private static void expunge() {
+        Entry entry = (Entry) QUEUE.poll();
+        while (entry != null) {
+            ENTRIES.remove(entry.key, entry);
+            entry = (Entry) QUEUE.poll();
+        }
+    }
+
+    /**
+     * Identifies a pattern set by compiler, case sensitivity and patterns.
+     */
+    private static final class Key {
+
+        /** The compiler. */
+        private final CompiledPatterns.Compiler<?> compiler;
+
+        /** How to handle case sensitivity. */
+        private final IOCase caseSensitivity;
+
+        /** The patterns. */
+        private final String[] patterns;
+
+        /** Hash code of all values. */
+        private final int hash;
+
+        /**
+         * Constructor with all data.
+         * 
+         * @param compiler
+         *            the compiler
+         * @param caseSensitivity
+         *            how to handle case sensitivity
+         * @param patterns
+         *            the patterns
+         */
+        Key(final CompiledPatterns.Compiler<?> compiler, final IOCase caseSensitivity,
+                final String[] patterns) {
+            this.compiler = compiler;
+            this.caseSensitivity = caseSensitivity;
+            this.patterns = patterns;
+            this.hash = 31 * (31 * System.identityHashCode(compiler) + caseSensitivity.hashCode())
+                    + Arrays.hashCode(patterns);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return compiler == other.compiler && caseSensitivity == other.caseSensitivity
+                    && Arrays.equals(patterns, other.patterns);
+        }
+
+    }
+
+    /**
+     * Weak reference to registered patterns that knows its key.
+     */
+    private static final class Entry extends WeakReference<CompiledPatterns<?>> {
+
+        /** Key the entry is registered with. */
+        private final Key key;
+
+        /**
+         * Constructor with key and patterns.
+         * 
+         * @param key
+         *            the key
+         * @param patterns
+         *            the patterns
+         */
+        Entry(final Key key, final CompiledPatterns<?> patterns) {
+            super(patterns, QUEUE);
+            this.key = key;
+        }
+
+    }
+
+}
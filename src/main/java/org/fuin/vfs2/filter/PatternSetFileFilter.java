@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileSelectInfo;
+
+/**
+ * Filters files by their path relative to the base folder of the selection
+ * with include and exclude patterns like Ant's <code>DirectoryScanner</code>.
+ * <p>
+ * A file or directory is accepted if it matches at least one include pattern
+ * and no exclude pattern. Without include patterns everything is included.
+ * The patterns use Ant's syntax:
+ * <ul>
+ * <li><code>/</code> and <code>\</code> separate the names of the path.</li>
+ * <li><code>*</code> matches zero or more characters and <code>?</code> one
+ * character of a name, all other characters are literals.</li>
+ * <li><code>**</code> as a complete name matches zero or more
+ * directories.</li>
+ * <li>A pattern ending with a separator is treated as if it ended with
+ * <code>**</code>, so <code>build/</code> matches <code>build</code> and
+ * everything inside.</li>
+ * </ul>
+ * Leading separators are ignored and the base folder itself is never
+ * accepted. Testing is case-sensitive by default, but this can be
+ * configured.
+ * <p>
+ * All include and exclude patterns are compiled into one matcher that
+ * advances a single state per directory. The states are cached by the name
+ * of the directory, so the cost per file is one lookup and one step for its
+ * base name. Used with a {@link PruningFileSelector}, directories are not
+ * traversed if no include pattern can match below them or if an exclude
+ * pattern ending with <code>**</code> excludes their whole content.
+ * <p>
+ * For example, to retrieve and print all JAR files below the current
+ * directory except those in test folders:
+ * 
+ * <pre>
+ * FileSystemManager fsManager = VFS.getManager();
+ * FileObject dir = fsManager.toFileObject(new File(&quot;.&quot;));
+ * PruningFileFilter filter = new PatternSetFileFilter(new String[] { &quot;**&#47;*.jar&quot; },
+ *         new String[] { &quot;**&#47;test/&quot; });
+ * FileObject[] files = dir.findFiles(new PruningFileSelector(filter));
+ * for (int i = 0; i &lt; files.length; i++) {
+ *     System.out.println(files[i]);
+ * }
+ * </pre>
+ */
+public class PatternSetFileFilter implements PruningFileFilter, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Whether the comparison is case sensitive. */
+    private final IOCase caseSensitivity;
+
+    /** The include patterns. */
+    private final List<String> includes;
+
+    /** The exclude patterns. */
+    private final List<String> excludes;
+
+    /** Matcher for the include patterns followed by the exclude patterns. */
+    private transient PathMatcher matcher;
+
+    /** Number of globs of the matcher for include patterns. */
+    private transient int includeCount;
+
+    /** Total number of globs of the matcher. */
+    private transient int globCount;
+
+    /**
+     * Construct a new case-sensitive pattern set filter for lists of
+     * patterns.
+     * 
+     * @param includes
+     *            the list of include patterns, empty to include everything,
+     *            not null
+     * @param excludes
+     *            the list of exclude patterns, not null
+     */
+    public PatternSetFileFilter(final List<String> includes, final List<String> excludes) {
+        this((IOCase) null, includes, excludes);
+    }
+
+    /**
+     * Construct a new pattern set filter for lists of patterns specifying
+     * case-sensitivity.
+     * 
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param includes
+     *            the list of include patterns, empty to include everything,
+     *            not null
+     * @param excludes
+     *            the list of exclude patterns, not null
+     */
+    public PatternSetFileFilter(final IOCase caseSensitivity, final List<String> includes,
+            final List<String> excludes) {
+        if (includes == null) {
+            throw new IllegalArgumentException("The list of includes must not be null");
+        }
+        if (excludes == null) {
+            throw new IllegalArgumentException("The list of excludes must not be null");
+        }
+        this.includes = new ArrayList<String>(includes);
+        this.excludes = new ArrayList<String>(excludes);
+        this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        init();
+    }
+
+    /**
+     * Construct a new case-sensitive pattern set filter for arrays of
+     * patterns.
+     * 
+     * @param includes
+     *            the array of include patterns, empty to include everything,
+     *            not null
+     * @param excludes
+     *            the array of exclude patterns, not null
+     */
+    public PatternSetFileFilter(final String[] includes, final String[] excludes) {
+        this((IOCase) null, includes, excludes);
+    }
+
+    /**
+     * Construct a new pattern set filter for arrays of patterns specifying
+     * case-sensitivity.
+     * 
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param includes
+     *            the array of include patterns, empty to include everything,
+     *            not null
+     * @param excludes
+     *            the array of exclude patterns, not null
+     */
+    public PatternSetFileFilter(final IOCase caseSensitivity, final String[] includes,
+            final String[] excludes) {
+        if (includes == null) {
+            throw new IllegalArgumentException("The array of includes must not be null");
+        }
+        if (excludes == null) {
+            throw new IllegalArgumentException("The array of excludes must not be null");
+        }
+        this.includes = new ArrayList<String>(Arrays.asList(includes));
+        this.excludes = new ArrayList<String>(Arrays.asList(excludes));
+        this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        init();
+    }
+
+    /**
+     * Compiles the include and exclude patterns into one matcher.
+     */
+    private void init() {
+        final List<String> globs = new ArrayList<String>();
+        if (includes.isEmpty()) {
+            globs.add("**");
+        }
+        for (final String include : includes) {
+            globs.add(toPathGlob(include));
+        }
+        includeCount = globs.size();
+        for (final String exclude : excludes) {
+            globs.add(toPathGlob(exclude));
+        }
+        globCount = globs.size();
+        matcher = new PathMatcher(globs, caseSensitivity);
+    }
+
+    /**
+     * Checks to see if the path relative to the base folder is included and
+     * not excluded.
+     * 
+     * @param fileInfo
+     *            the file to check
+     * 
+     * @return true if the path matches an include pattern and no exclude
+     *         pattern
+     */
+    @Override
+    public boolean accept(final FileSelectInfo fileInfo) {
+        final FileName base = fileInfo.getBaseFolder().getName();
+        final FileName name = fileInfo.getFile().getName();
+        if (name.equals(base)) {
+            return false;
+        }
+        final int[] state = matcher.fileState(base, name);
+        return matcher.lastMatch(state, includeCount) >= 0
+                && matcher.lastMatch(state, globCount) < includeCount;
+    }
+
+    /**
+     * Checks if a path below the directory can be included and not excluded.
+     * 
+     * @param fileInfo
+     *            the directory to check
+     * 
+     * @return false if no include pattern can match below the directory or an
+     *         exclude pattern matches everything below it
+     */
+    @Override
+    public boolean traverseDescendents(final FileSelectInfo fileInfo) {
+        final FileName base = fileInfo.getBaseFolder().getName();
+        final FileName name = fileInfo.getFile().getName();
+        final int[] state = matcher.state(base, name);
+        return matcher.canMatchBelow(state, 0, includeCount)
+                && !matcher.matchesAllBelow(state, includeCount, globCount);
+    }
+
+    /**
+     * Translates an Ant pattern into a path glob.
+     * 
+     * @param pattern
+     *            the pattern, not null
+     * 
+     * @return the path glob
+     */
+    static String toPathGlob(final String pattern) {
+        final StringBuilder sb = new StringBuilder(pattern.length() + 2);
+        for (int i = 0; i < pattern.length(); i++) {
+            final char ch = pattern.charAt(i);
+            if (ch == '\\') {
+                sb.append('/');
+            } else {
+                if (ch == '[' || ch == '{') {
+                    sb.append('\\');
+                }
+                sb.append(ch);
+            }
+        }
+        if (sb.length() > 0 && sb.charAt(sb.length() - 1) == '/') {
+            sb.append("**");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Restores the matcher after deserialization.
+     * 
+     * @param in
+     *            the stream to read from
+     * @throws IOException
+     *             error reading the stream
+     * @throws ClassNotFoundException
+     *             class of a serialized object not found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        init();
+    }
+
+    /**
+     * Provide a String representation of this file filter.
+     * 
+     * @return a String representation
+     */
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append(super.toString());
+        buffer.append("(includes=");
+        append(buffer, includes);
+        buffer.append(";excludes=");
+        append(buffer, excludes);
+        buffer.append(")");
+        return buffer.toString();
+    }
+
+    /**
+     * Appends a comma separated list of patterns.
+     * 
+     * @param buffer
+     *            the buffer to append to
+     * @param patterns
+     *            the patterns or <code>null</code>
+     */
+    private static void append(final StringBuilder buffer, final List<String> patterns) {
+        if (patterns != null) {
+            for (int i = 0; i < patterns.size(); i++) {
+                if (i > 0) {
+                    buffer.append(",");
+                }
+                buffer.append(patterns.get(i));
+            }
+        }
+    }
+
+}
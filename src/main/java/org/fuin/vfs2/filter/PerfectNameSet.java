@@ -0,0 +1,527 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable set of names or suffixes stored in a minimal perfect hash table.
+ * <p>
+ * The table is built once for a fixed set: every name gets its own slot, and
+ * a lookup computes the only slot the name can be in from its hash and a
+ * displacement stored for a small bucket of names. A lookup is one pass over
+ * the name, two array reads and one comparison; it does not allocate any
+ * objects. As the table is {@link Serializable} including the computed
+ * displacements, a set can be built at deploy time, written with an
+ * {@link java.io.ObjectOutputStream} and loaded at startup without rebuilding.
+ * It can be used as the backing of a {@link NameFileFilter} and a
+ * {@link SuffixFileFilter}.
+ * <p>
+ * Case-insensitive sets hash the folded characters (see
+ * {@link IOCase#foldCase(char)}) and compare with the same rules as
+ * {@link IOCase#checkEquals(String, String)}. As the JDK compares surrogate
+ * pairs as code points, case-insensitive names containing surrogates are kept
+ * in a separate list that is searched sequentially.
+ */
+public final class PerfectNameSet implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Average number of names per bucket. */
+    private static final int BUCKET_SIZE = 4;
+
+    /** Displacements tried for a bucket before another seed is used. */
+    private static final int MAX_TRIES = 1 << 16;
+
+    /** Offset basis of the FNV-1a hash. */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    /** Prime of the FNV-1a hash. */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** Multiplier spreading the displacements. */
+    private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+
+    /** Whether the comparison is case sensitive. */
+    private final IOCase caseSensitivity;
+
+    /** Whether the comparison is case sensitive - cached flag. */
+    private final boolean sensitive;
+
+    /** Distinct names in the order they were given. */
+    private final String[] names;
+
+    /** Seed of the hash function. */
+    private final long seed;
+
+    /**
+     * Displacement of every bucket: 0 for an empty bucket, a negative value
+     * <code>-(slot + 1)</code> for a bucket with a single name and the
+     * displacement used by {@link #slot(long, int, int)} otherwise.
+     */
+    private final int[] displacements;
+
+    /** Name stored in every slot. */
+    private final String[] slots;
+
+    /** Case-insensitive names containing surrogates. */
+    private final String[] others;
+
+    /** Sorted distinct lengths of the names. */
+    private final int[] lengths;
+
+    /**
+     * Constructs a new case-sensitive set.
+     * 
+     * @param names
+     *            the names, must not be null - null entries are ignored
+     */
+    public PerfectNameSet(final Collection<String> names) {
+        this(IOCase.SENSITIVE, names);
+    }
+
+    /**
+     * Constructs a new set specifying case-sensitivity.
+     * 
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param names
+     *            the names, must not be null - null entries are ignored
+     */
+    public PerfectNameSet(final IOCase caseSensitivity, final Collection<String> names) {
+        if (names == null) {
+            throw new IllegalArgumentException("The collection of names must not be null");
+        }
+        this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.sensitive = this.caseSensitivity.isCaseSensitive();
+
+        final List<String> distinct = new ArrayList<String>();
+        final List<String> hashed = new ArrayList<String>();
+        final List<String> scanned = new ArrayList<String>();
+        final Set<String> keys = new HashSet<String>();
+        for (final String name : names) {
+            if (name == null) {
+                continue;
+            }
+            if (!sensitive && IOCase.containsSurrogate(name)) {
+                if (!contains(scanned, name)) {
+                    scanned.add(name);
+                    distinct.add(name);
+                }
+            } else if (keys.add(sensitive ? name : fold(name))) {
+                hashed.add(name);
+                distinct.add(name);
+            }
+        }
+        this.names = distinct.toArray(new String[distinct.size()]);
+        this.others = scanned.toArray(new String[scanned.size()]);
+        this.lengths = lengths(this.names);
+
+        final int n = hashed.size();
+        slots = new String[n];
+        displacements = new int[(n + BUCKET_SIZE - 1) / BUCKET_SIZE];
+        long s = 0;
+        while (!place(hashed, s)) {
+            s++;
+        }
+        seed = s;
+    }
+
+    /**
+     * Constructs a new case-sensitive set.
+     * 
+     * @param names
+     *            the names, must not be null - null entries are ignored
+     */
+    public PerfectNameSet(final String... names) {
+        this(IOCase.SENSITIVE, names);
+    }
+
+    /**
+     * Constructs a new set specifying case-sensitivity.
+     * 
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param names
+     *            the names, must not be null - null entries are ignored
+     */
+    public PerfectNameSet(final IOCase caseSensitivity, final String... names) {
+        this(caseSensitivity, names == null ? null : Arrays.asList(names));
+    }
+
+    /**
+     * Checks if the set contains a name.
+     * 
+     * @param name
+     *            the name to look up, not null
+     * 
+     * @return true if the set contains an equal name
+     */
+    public boolean contains(final String name) {
+        return contains(name, 0, name.length());
+    }
+
+    /**
+     * Checks if the set contains a region of a string.
+     * 
+     * @param str
+     *            the string to look up, not null
+     * @param start
+     *            start index of the region (inclusive)
+     * @param end
+     *            end index of the region (exclusive)
+     * 
+     * @return true if the set contains a name equal to the region
+     */
+    boolean contains(final String str, final int start, final int end) {
+        long hash = FNV_OFFSET + seed;
+        for (int i = start; i < end; i++) {
+            final char ch = str.charAt(i);
+            if (sensitive) {
+                hash = (hash ^ ch) * FNV_PRIME;
+            } else if (IOCase.isSurrogate(ch)) {
+                return scan(str, start, end - start);
+            } else {
+                hash = (hash ^ IOCase.foldCase(ch)) * FNV_PRIME;
+            }
+        }
+        if (slots.length == 0) {
+            return false;
+        }
+        final long mixed = mix(hash);
+        final int d = displacements[bucket(mixed, displacements.length)];
+        final int slot;
+        if (d < 0) {
+            slot = -d - 1;
+        } else if (d == 0) {
+            return false;
+        } else {
+            slot = slot(mixed, d, slots.length);
+        }
+        final String entry = slots[slot];
+        return entry.length() == end - start && str.regionMatches(!sensitive, start, entry, 0, end - start);
+    }
+
+    /**
+     * Returns the number of distinct names.
+     * 
+     * @return number of names
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Returns the case sensitivity rule.
+     * 
+     * @return how names are compared
+     */
+    public IOCase getCaseSensitivity() {
+        return caseSensitivity;
+    }
+
+    /**
+     * Returns the distinct names in the order they were given.
+     * 
+     * @return unmodifiable list of names
+     */
+    public List<String> getNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * Returns the distinct lengths of the names.
+     * 
+     * @return sorted lengths - must not be modified
+     */
+    int[] getLengths() {
+        return lengths;
+    }
+
+    /**
+     * Compares a region of a string with all names containing surrogates.
+     * 
+     * @param str
+     *            the string to look up
+     * @param start
+     *            start index of the region
+     * @param len
+     *            length of the region
+     * 
+     * @return true if the region is equal to one of the names
+     */
+    private boolean scan(final String str, final int start, final int len) {
+        for (final String other : others) {
+            if (other.length() == len && str.regionMatches(!sensitive, start, other, 0, len)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tries to place all hashed names with a seed.
+     * 
+     * @param hashed
+     *            the distinct names to place
+     * @param s
+     *            the seed to try
+     * 
+     * @return true if all names were placed, false if another seed is
+     *         required
+     */
+    private boolean place(final List<String> hashed, final long s) {
+        final int n = hashed.size();
+        final long[] hashes = new long[n];
+        for (int i = 0; i < n; i++) {
+            hashes[i] = hash(hashed.get(i), s);
+        }
+        final int[][] members = group(hashes, displacements.length);
+        final Integer[] order = new Integer[members.length];
+        for (int b = 0; b < order.length; b++) {
+            order[b] = b;
+        }
+        // Large buckets first while most slots are free
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer b1, final Integer b2) {
+                return members[b2].length - members[b1].length;
+            }
+        });
+
+        Arrays.fill(slots, null);
+        Arrays.fill(displacements, 0);
+        final int[] taken = new int[BUCKET_SIZE * 4];
+        int next = 0;
+        for (final int b : order) {
+            final int[] bucket = members[b];
+            if (bucket.length == 1) {
+                // Single names take the free slots directly
+                while (slots[next] != null) {
+                    next++;
+                }
+                slots[next] = hashed.get(bucket[0]);
+                displacements[b] = -(next + 1);
+            } else if (bucket.length > 1) {
+                final int d = displace(bucket, hashes, bucket.length <= taken.length ? taken
+                        : new int[bucket.length]);
+                if (d == 0) {
+                    return false;
+                }
+                for (final int i : bucket) {
+                    slots[slot(hashes[i], d, n)] = hashed.get(i);
+                }
+                displacements[b] = d;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Groups the names by bucket.
+     * 
+     * @param hashes
+     *            hashes of all names
+     * @param buckets
+     *            number of buckets
+     * 
+     * @return indexes of the names of every bucket
+     */
+    private static int[][] group(final long[] hashes, final int buckets) {
+        final int[] counts = new int[buckets];
+        for (final long hash : hashes) {
+            counts[bucket(hash, buckets)]++;
+        }
+        final int[][] members = new int[buckets][];
+        for (int b = 0; b < buckets; b++) {
+            members[b] = new int[counts[b]];
+            counts[b] = 0;
+        }
+        for (int i = 0; i < hashes.length; i++) {
+            final int b = bucket(hashes[i], buckets);
+            members[b][counts[b]++] = i;
+        }
+        return members;
+    }
+
+    /**
+     * Finds a displacement that maps all names of a bucket to distinct free
+     * slots.
+     * 
+     * @param bucket
+     *            indexes of the names of the bucket
+     * @param hashes
+     *            hashes of all names
+     * @param taken
+     *            buffer for the slots of the bucket
+     * 
+     * @return the displacement or 0 if none was found
+     */
+    private int displace(final int[] bucket, final long[] hashes, final int[] taken) {
+        for (int d = 1; d <= MAX_TRIES; d++) {
+            boolean free = true;
+            for (int j = 0; free && j < bucket.length; j++) {
+                final int slot = slot(hashes[bucket[j]], d, slots.length);
+                free = slots[slot] == null;
+                for (int k = 0; free && k < j; k++) {
+                    free = taken[k] != slot;
+                }
+                taken[j] = slot;
+            }
+            if (free) {
+                return d;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Calculates the hash of a complete name.
+     * 
+     * @param name
+     *            the name
+     * @param s
+     *            the seed
+     * 
+     * @return the hash
+     */
+    private long hash(final String name, final long s) {
+        long hash = FNV_OFFSET + s;
+        for (int i = 0; i < name.length(); i++) {
+            final char ch = name.charAt(i);
+            hash = (hash ^ (sensitive ? ch : IOCase.foldCase(ch))) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Returns the bucket of a hash.
+     * 
+     * @param hash
+     *            the hash
+     * @param buckets
+     *            number of buckets
+     * 
+     * @return the bucket
+     */
+    private static int bucket(final long hash, final int buckets) {
+        return (int) ((hash >>> 1) % buckets);
+    }
+
+    /**
+     * Returns the slot of a hash for a displacement.
+     * 
+     * @param hash
+     *            the hash
+     * @param d
+     *            the displacement
+     * @param n
+     *            number of slots
+     * 
+     * @return the slot
+     */
+    private static int slot(final long hash, final int d, final int n) {
+        return (int) ((mix(hash + d * GOLDEN) >>> 1) % n);
+    }
+
+    /**
+     * Mixes the bits of a hash.
+     * 
+     * @param value
+     *            the hash
+     * 
+     * @return the mixed hash
+     */
+    private static long mix(final long value) {
+        long h = value;
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Folds all characters of a name without surrogates.
+     * 
+     * @param name
+     *            the name
+     * 
+     * @return the folded name
+     */
+    private static String fold(final String name) {
+        final char[] chars = new char[name.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = IOCase.foldCase(name.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Checks if a list contains a name ignoring case.
+     * 
+     * @param list
+     *            the list
+     * @param name
+     *            the name
+     * 
+     * @return true if the list contains the name
+     */
+    private static boolean contains(final List<String> list, final String name) {
+        for (final String entry : list) {
+            if (entry.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the sorted distinct lengths of names.
+     * 
+     * @param names
+     *            the names
+     * 
+     * @return the lengths
+     */
+    private static int[] lengths(final String[] names) {
+        final int[] all = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            all[i] = names[i].length();
+        }
+        Arrays.sort(all);
+        int distinct = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (distinct == 0 || all[distinct - 1] != all[i]) {
+                all[distinct++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, distinct);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(names);
+    }
+
+}
@@ -16,8 +16,9 @@
  */
 package org.fuin.vfs2.filter;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -46,11 +47,23 @@ public class PrefixFileFilter implements FileFilter, Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /** Compiles the trie of the prefixes. */
+    private static final CompiledPatterns.Compiler<NameTrie> COMPILER =
+            new CompiledPatterns.Compiler<NameTrie>() {
+                @Override
+                public NameTrie compile(final List<String> patterns, final IOCase caseSensitivity) {
+                    return new NameTrie(patterns, caseSensitivity);
+                }
+            };
+
     /** Whether the comparison is case sensitive. */
     private final IOCase caseSensitivity;
 
-    /** The filename prefixes to search for. */
-    private final List<String> prefixes;
+    /** The filename prefixes to search for - shared by equal filters. */
+    private List<String> prefixes;
+
+    /** Prefixes and their trie respecting the case sensitivity. */
+    private transient CompiledPatterns<NameTrie> patterns;
 
     /**
      * Constructs a new Prefix file filter for a list of prefixes.
@@ -75,8 +88,9 @@ public class PrefixFileFilter implements FileFilter, Serializable {
         if (prefixes == null) {
             throw new IllegalArgumentException("The list of prefixes must not be null");
         }
-        this.prefixes = new ArrayList<String>(prefixes);
         this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.patterns = PatternRegistry.compile(COMPILER, this.caseSensitivity, prefixes);
+        this.prefixes = patterns.getPatterns();
     }
 
     /**
@@ -105,12 +119,15 @@ public class PrefixFileFilter implements FileFilter, Serializable {
         if (prefixes == null) {
             throw new IllegalArgumentException("The array of prefixes must not be null");
         }
-        this.prefixes = new ArrayList<String>(Arrays.asList(prefixes));
         this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.patterns = PatternRegistry.compile(COMPILER, this.caseSensitivity, Arrays.asList(prefixes));
+        this.prefixes = patterns.getPatterns();
     }
 
     /**
-     * Checks to see if the filename starts with the prefix.
+     * Checks to see if the filename starts with the prefix. The prefixes are
+     * looked up in a trie, so the cost depends on the length of the filename
+     * and not on the number of prefixes.
      * 
      * @param fileInfo
      *            the File to check
@@ -119,13 +136,24 @@ public class PrefixFileFilter implements FileFilter, Serializable {
      */
     @Override
     public boolean accept(final FileSelectInfo fileInfo) {
-        final String name = fileInfo.getFile().getName().getBaseName();
-        for (final String prefix : this.prefixes) {
-            if (caseSensitivity.checkStartsWith(name, prefix)) {
-                return true;
-            }
-        }
-        return false;
+        final String name = FileNameView.baseName(fileInfo);
+        return patterns.getMatcher().matches(name);
+    }
+
+    /**
+     * Restores the shared prefixes and trie after deserialization.
+     * 
+     * @param in
+     *            the stream to read from
+     * @throws IOException
+     *             error reading the stream
+     * @throws ClassNotFoundException
+     *             class of a serialized object not found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.patterns = PatternRegistry.compile(COMPILER, this.caseSensitivity, this.prefixes);
+        this.prefixes = patterns.getPatterns();
     }
 
     /**
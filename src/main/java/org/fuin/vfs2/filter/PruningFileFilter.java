@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import org.apache.commons.vfs2.FileFilter;
+import org.apache.commons.vfs2.FileSelectInfo;
+
+/**
+ * File filter that knows in advance which directories contain no accepted
+ * files. Use it with a {@link PruningFileSelector} to skip such directories
+ * during a traversal instead of listing them and rejecting their contents.
+ */
+public interface PruningFileFilter extends FileFilter {
+
+    /**
+     * Checks if a file or directory below the given directory may be
+     * accepted. The result does not depend on whether the directory itself is
+     * accepted.
+     * 
+     * @param fileInfo
+     *            the directory to check
+     * 
+     * @return false if no descendant of the directory is accepted, true if
+     *         the descendants have to be visited
+     */
+    boolean traverseDescendents(FileSelectInfo fileInfo);
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import org.apache.commons.vfs2.FileSelectInfo;
+import org.apache.commons.vfs2.FileSelector;
+
+/**
+ * Selects the files accepted by a {@link PruningFileFilter} and descends only
+ * into directories that may contain accepted files.
+ * <p>
+ * For example, to print all compressed log files of 2024 below the
+ * <code>logs</code> directory, without listing any other directory:
+ * 
+ * <pre>
+ * FileSystemManager fsManager = VFS.getManager();
+ * FileObject dir = fsManager.toFileObject(new File(&quot;.&quot;));
+ * PruningFileFilter filter = new PathGlobFileFilter(&quot;logs/**&#47;2024-*&#47;*.gz&quot;);
+ * FileObject[] files = dir.findFiles(new PruningFileSelector(filter));
+ * for (int i = 0; i &lt; files.length; i++) {
+ *     System.out.println(files[i]);
+ * }
+ * </pre>
+ */
+public class PruningFileSelector implements FileSelector {
+
+    /** The filter to use. */
+    private final PruningFileFilter filter;
+
+    /**
+     * Constructor with the filter.
+     * 
+     * @param filter
+     *            the filter that selects the files and directories, must not
+     *            be null
+     */
+    public PruningFileSelector(final PruningFileFilter filter) {
+        if (filter == null) {
+            throw new IllegalArgumentException("The filter must not be null");
+        }
+        this.filter = filter;
+    }
+
+    /**
+     * Determines if a file or folder should be selected.
+     * 
+     * @param fileInfo
+     *            the file or folder to select
+     * 
+     * @return true if the filter accepts the file or folder
+     */
+    @Override
+    public boolean includeFile(final FileSelectInfo fileInfo) {
+        return filter.accept(fileInfo);
+    }
+
+    /**
+     * Determines whether a folder should be traversed.
+     * 
+     * @param fileInfo
+     *            the folder to traverse
+     * 
+     * @return true if the filter may accept files below the folder
+     */
+    @Override
+    public boolean traverseDescendents(final FileSelectInfo fileInfo) {
+        return filter.traverseDescendents(fileInfo);
+    }
+
+    /**
+     * Provide a String representation of this file selector.
+     * 
+     * @return a String representation
+     */
+    @Override
+    public String toString() {
+        return super.toString() + "(" + filter + ")";
+    }
+
+}
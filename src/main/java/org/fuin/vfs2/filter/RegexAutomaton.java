@@ -0,0 +1,946 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Automaton that matches filenames against regular expressions in time
+ * linear to the length of the filename.
+ * <p>
+ * The patterns are parsed with {@link RegexParser} and translated into one
+ * Thompson NFA. Like in {@link WildcardAutomaton}, DFA states are built lazily
+ * from sets of NFA states while filenames are scanned and are cached for
+ * later calls. Patterns using line anchors (<code>^</code> and <code>$</code>
+ * with {@link Pattern#MULTILINE} or <code>$</code> in front of a line
+ * terminator) are matched by simulating the NFA, which looks at every NFA
+ * state at most once per character. The same simulation is used if the number
+ * of DFA states exceeds {@link #MAX_STATES}. No backtracking takes place, so
+ * the time is bound by the length of the filename times the size of the
+ * patterns.
+ * <p>
+ * Only the regular subset of the {@link Pattern} syntax is supported: back
+ * references, lookahead, lookbehind, atomic groups, possessive quantifiers and
+ * word boundaries are rejected with an {@link IllegalArgumentException}. So
+ * are boundary matchers in repeated groups that can match the empty string,
+ * because {@link Pattern} stops repeating after an empty iteration.
+ */
+final class RegexAutomaton {
+
+    /** Maximum number of cached DFA states. */
+    static final int MAX_STATES = 10000;
+
+    /** Maximum number of NFA states. */
+    static final int MAX_NFA_STATES = 100000;
+
+    /** Maximum number of cached transitions for non-ASCII characters per DFA state. */
+    private static final int MAX_OTHER_TRANSITIONS = 256;
+
+    /** NFA state matching one code point. */
+    private static final byte CONSUME = 0;
+
+    /** NFA state continuing with two states. */
+    private static final byte SPLIT = 1;
+
+    /** NFA state continuing only if a boundary condition holds. */
+    private static final byte ASSERT = 2;
+
+    /** NFA state at the end of a pattern. */
+    private static final byte MATCH = 3;
+
+    /** Boundary at the beginning of the input. */
+    private static final int BEGIN = 0;
+
+    /** Boundary at the end of the input. */
+    private static final int END = 1;
+
+    /** Boundary at the end of the input or before a final line terminator. */
+    private static final int DOLLAR = 2;
+
+    /** {@link #DOLLAR} with {@link Pattern#UNIX_LINES}. */
+    private static final int UNIX_DOLLAR = 3;
+
+    /** Boundary at the beginning of a line. */
+    private static final int LINE_BEGIN = 4;
+
+    /** {@link #LINE_BEGIN} with {@link Pattern#UNIX_LINES}. */
+    private static final int UNIX_LINE_BEGIN = 5;
+
+    /** Boundary at the end of a line. */
+    private static final int LINE_END = 6;
+
+    /** {@link #LINE_END} with {@link Pattern#UNIX_LINES}. */
+    private static final int UNIX_LINE_END = 7;
+
+    /** Result if no pattern matches. */
+    private static final int[] NONE = new int[0];
+
+    /** Number of patterns. */
+    private final int count;
+
+    /** Type of each NFA state. */
+    private final byte[] kinds;
+
+    /** Next state. */
+    private final int[] outs;
+
+    /** Second next state of a {@link #SPLIT} state. */
+    private final int[] alts;
+
+    /** Boundary of an {@link #ASSERT} state or pattern index of a {@link #MATCH} state. */
+    private final int[] args;
+
+    /** Code points matched by a {@link #CONSUME} state. */
+    private final RegexCharSet[] sets;
+
+    /** First NFA state. */
+    private final int first;
+
+    /** DFA states built so far or <code>null</code> if the NFA is simulated. */
+    private final ConcurrentMap<State, State> states;
+
+    /** DFA start state or <code>null</code> if the NFA is simulated. */
+    private final State start;
+
+    /**
+     * Constructor with patterns.
+     * 
+     * @param patterns
+     *            the patterns to combine, not null
+     * 
+     * @throws IllegalArgumentException
+     *             a pattern uses a construct that cannot be matched in linear
+     *             time or is too large
+     */
+    RegexAutomaton(final List<Pattern> patterns) {
+        this.count = patterns.size();
+        final Builder builder = new Builder();
+        int next = -1;
+        for (int i = count - 1; i >= 0; i--) {
+            final RegexNode root = RegexParser.parse(patterns.get(i));
+            final int pattern = builder.compile(root, builder.add(MATCH, -1, -1, i, null));
+            next = next < 0 ? pattern : builder.add(SPLIT, pattern, next, 0, null);
+        }
+        if (next < 0) {
+            next = builder.add(SPLIT, -1, -1, 0, null);
+        }
+        this.first = next;
+        this.kinds = Arrays.copyOf(builder.kinds, builder.size);
+        this.outs = Arrays.copyOf(builder.outs, builder.size);
+        this.alts = Arrays.copyOf(builder.alts, builder.size);
+        this.args = Arrays.copyOf(builder.args, builder.size);
+        this.sets = Arrays.copyOf(builder.sets, builder.size);
+
+        boolean simple = true;
+        for (int s = 0; s < kinds.length; s++) {
+            if (kinds[s] == ASSERT && args[s] != BEGIN) {
+                if (isEnd(args[s]) && !consumes(outs[s])) {
+                    // Only matters at the end of the input - where the boundary holds
+                    args[s] = END;
+                }
+                simple = simple && args[s] == END;
+            }
+        }
+        if (simple) {
+            states = new ConcurrentHashMap<State, State>();
+            final boolean[] set = new boolean[kinds.length];
+            closure(set, first, true, false);
+            start = canonical(set, true);
+        } else {
+            states = null;
+            start = null;
+        }
+    }
+
+    /**
+     * Checks if the filename matches any of the patterns.
+     * 
+     * @param filename
+     *            the filename to match on, not null
+     * 
+     * @return true if the filename matches at least one pattern
+     */
+    boolean matches(final String filename) {
+        return match(filename).length > 0;
+    }
+
+    /**
+     * Returns the patterns matching the filename.
+     * 
+     * @param filename
+     *            the filename to match on, not null
+     * 
+     * @return sorted indexes of the matching patterns - shared, must not be
+     *         modified
+     */
+    int[] match(final String filename) {
+        if (start == null) {
+            return simulate(filename);
+        }
+        State state = start;
+        final int length = filename.length();
+        int i = 0;
+        while (i < length) {
+            if (state.dead) {
+                return NONE;
+            }
+            final int cp = filename.codePointAt(i);
+            i = i + Character.charCount(cp);
+            State next = state.next(cp);
+            if (next == null) {
+                next = step(state, cp);
+                if (next == null) {
+                    return simulate(filename);
+                }
+                state.cache(cp, next);
+            }
+            state = next;
+        }
+        return state.matches;
+    }
+
+    /**
+     * Matches the filename by simulating the NFA.
+     * 
+     * @param filename
+     *            the filename to match on, not null
+     * 
+     * @return sorted indexes of the matching patterns
+     */
+    private int[] simulate(final String filename) {
+        final int n = kinds.length;
+        int[] current = new int[n];
+        int[] next = new int[n];
+        final int[] marks = new int[n];
+        final int[] stack = new int[n];
+        int generation = 1;
+        int size = add(current, 0, first, filename, 0, marks, generation, stack);
+        final int length = filename.length();
+        int i = 0;
+        while (i < length && size > 0) {
+            final int cp = filename.codePointAt(i);
+            i = i + Character.charCount(cp);
+            generation++;
+            int nextSize = 0;
+            for (int k = 0; k < size; k++) {
+                final int s = current[k];
+                if (kinds[s] == CONSUME && sets[s].contains(cp)) {
+                    nextSize = add(next, nextSize, outs[s], filename, i, marks, generation, stack);
+                }
+            }
+            final int[] tmp = current;
+            current = next;
+            next = tmp;
+            size = nextSize;
+        }
+        if (i < length) {
+            return NONE;
+        }
+        final boolean[] matched = new boolean[count];
+        for (int k = 0; k < size; k++) {
+            final int s = current[k];
+            if (kinds[s] == MATCH) {
+                matched[args[s]] = true;
+            }
+        }
+        return indexes(matched);
+    }
+
+    /**
+     * Adds the consuming and matching states reachable from a state without
+     * reading a character to a list.
+     * 
+     * @param list
+     *            the list to add to
+     * @param size
+     *            current size of the list
+     * @param state
+     *            the state to add
+     * @param filename
+     *            the filename
+     * @param pos
+     *            current index in the filename
+     * @param marks
+     *            generation a state was last added in
+     * @param generation
+     *            the current generation
+     * @param stack
+     *            work stack
+     * 
+     * @return new size of the list
+     */
+    // CHECKSTYLE:OFF More than 7 parameters are OK here - avoids allocations per character
+    private int add(final int[] list, final int size, final int state, final String filename, final int pos,
+            final int[] marks, final int generation, final int[] stack) {
+        // CHECKSTYLE:ON
+        int result = size;
+        int top = 0;
+        if (marks[state] != generation) {
+            marks[state] = generation;
+            stack[top++] = state;
+        }
+        while (top > 0) {
+            final int s = stack[--top];
+            final byte kind = kinds[s];
+            if (kind == CONSUME || kind == MATCH) {
+                list[result++] = s;
+            } else if (kind == SPLIT || holds(args[s], filename, pos)) {
+                if (outs[s] >= 0 && marks[outs[s]] != generation) {
+                    marks[outs[s]] = generation;
+                    stack[top++] = outs[s];
+                }
+                if (kind == SPLIT && alts[s] >= 0 && marks[alts[s]] != generation) {
+                    marks[alts[s]] = generation;
+                    stack[top++] = alts[s];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the successor of a DFA state.
+     * 
+     * @param state
+     *            the current state
+     * @param cp
+     *            the code point read
+     * 
+     * @return the next state or <code>null</code> if the state limit is
+     *         reached
+     */
+    private State step(final State state, final int cp) {
+        final boolean[] set = new boolean[kinds.length];
+        for (final int s : state.nfa) {
+            if (kinds[s] == CONSUME && sets[s].contains(cp)) {
+                closure(set, outs[s], false, false);
+            }
+        }
+        return canonical(set, false);
+    }
+
+    /**
+     * Adds the states reachable from a state without reading a character to
+     * a DFA state set. Only {@link #BEGIN} and {@link #END} boundaries are
+     * used by DFA states.
+     * 
+     * @param set
+     *            set of NFA states to add to
+     * @param state
+     *            the state to add
+     * @param atStart
+     *            whether the input is at the beginning
+     * @param atEnd
+     *            whether the input is at the end - otherwise {@link #END}
+     *            states are added to the set
+     */
+    private void closure(final boolean[] set, final int state, final boolean atStart, final boolean atEnd) {
+        final boolean[] visited = new boolean[kinds.length];
+        final int[] stack = new int[kinds.length];
+        int top = 0;
+        visited[state] = true;
+        stack[top++] = state;
+        while (top > 0) {
+            final int s = stack[--top];
+            final byte kind = kinds[s];
+            if (kind == CONSUME || kind == MATCH || (kind == ASSERT && args[s] == END && !atEnd)) {
+                set[s] = true;
+            } else if (kind == SPLIT || (args[s] == BEGIN ? atStart : atEnd)) {
+                if (outs[s] >= 0 && !visited[outs[s]]) {
+                    visited[outs[s]] = true;
+                    stack[top++] = outs[s];
+                }
+                if (kind == SPLIT && alts[s] >= 0 && !visited[alts[s]]) {
+                    visited[alts[s]] = true;
+                    stack[top++] = alts[s];
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cached DFA state for a set of NFA states or creates it.
+     * 
+     * @param set
+     *            the set of NFA states
+     * @param atStart
+     *            whether the state is the start state
+     * 
+     * @return the DFA state or <code>null</code> if the state limit is
+     *         reached
+     */
+    private State canonical(final boolean[] set, final boolean atStart) {
+        int size = 0;
+        for (final boolean b : set) {
+            if (b) {
+                size++;
+            }
+        }
+        final int[] nfa = new int[size];
+        int idx = 0;
+        boolean consumes = false;
+        final boolean[] atEnd = new boolean[kinds.length];
+        for (int s = 0; s < set.length; s++) {
+            if (set[s]) {
+                nfa[idx++] = s;
+                consumes = consumes || kinds[s] == CONSUME;
+                if (kinds[s] == ASSERT) {
+                    closure(atEnd, outs[s], atStart, true);
+                } else if (kinds[s] == MATCH) {
+                    atEnd[s] = true;
+                }
+            }
+        }
+        final boolean[] matched = new boolean[count];
+        for (int s = 0; s < atEnd.length; s++) {
+            if (atEnd[s] && kinds[s] == MATCH) {
+                matched[args[s]] = true;
+            }
+        }
+        final State state = new State(nfa, atStart, indexes(matched), !consumes);
+        final State existing = states.get(state);
+        if (existing != null) {
+            return existing;
+        }
+        if (states.size() >= MAX_STATES) {
+            return null;
+        }
+        final State other = states.putIfAbsent(state, state);
+        if (other == null) {
+            return state;
+        }
+        return other;
+    }
+
+    /**
+     * Checks if a boundary holds at the end of the input.
+     * 
+     * @param boundary
+     *            the boundary
+     * 
+     * @return true for end of input and end of line boundaries
+     */
+    private static boolean isEnd(final int boundary) {
+        return boundary != LINE_BEGIN && boundary != UNIX_LINE_BEGIN;
+    }
+
+    /**
+     * Checks if a consuming state is reachable from a state without reading
+     * a character.
+     * 
+     * @param state
+     *            the state to start at
+     * 
+     * @return true if a character may be read after the state
+     */
+    private boolean consumes(final int state) {
+        final boolean[] visited = new boolean[kinds.length];
+        final int[] stack = new int[kinds.length];
+        int top = 0;
+        visited[state] = true;
+        stack[top++] = state;
+        while (top > 0) {
+            final int s = stack[--top];
+            if (kinds[s] == CONSUME) {
+                return true;
+            }
+            if (kinds[s] != MATCH && outs[s] >= 0 && !visited[outs[s]]) {
+                visited[outs[s]] = true;
+                stack[top++] = outs[s];
+            }
+            if (kinds[s] == SPLIT && alts[s] >= 0 && !visited[alts[s]]) {
+                visited[alts[s]] = true;
+                stack[top++] = alts[s];
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a boundary condition holds at an index of the filename. Same
+     * rules as {@link Pattern}.
+     * 
+     * @param boundary
+     *            the boundary
+     * @param filename
+     *            the filename
+     * @param pos
+     *            the index
+     * 
+     * @return true if the condition holds
+     */
+    // CHECKSTYLE:OFF Cyclomatic complexity is OK here - one case per boundary
+    private static boolean holds(final int boundary, final String filename, final int pos) {
+        final int length = filename.length();
+        switch (boundary) {
+        case BEGIN:
+            return pos == 0;
+        case END:
+            return pos == length;
+        case DOLLAR:
+            if (pos == length - 2) {
+                return filename.charAt(pos) == '\r' && filename.charAt(pos + 1) == '\n';
+            }
+            return pos == length || pos == length - 1 && isLineEnd(filename, pos);
+        case UNIX_DOLLAR:
+            return pos == length || pos == length - 1 && filename.charAt(pos) == '\n';
+        case LINE_BEGIN:
+            if (pos == length) {
+                return false;
+            }
+            if (pos == 0) {
+                return true;
+            }
+            final char prev = filename.charAt(pos - 1);
+            if (prev == '\r') {
+                return filename.charAt(pos) != '\n';
+            }
+            return isLineTerminator(prev);
+        case UNIX_LINE_BEGIN:
+            return pos < length && (pos == 0 || filename.charAt(pos - 1) == '\n');
+        case LINE_END:
+            return pos == length || isLineEnd(filename, pos);
+        case UNIX_LINE_END:
+            return pos == length || filename.charAt(pos) == '\n';
+        default:
+            throw new IllegalStateException("Unknown boundary: " + boundary);
+        }
+    }
+
+    // CHECKSTYLE:ON
+
+    /**
+     * Checks if a line ends in front of an index. A line feed following a
+     * carriage return is not a line end, as both terminate the same line.
+     * 
+     * @param filename
+     *            the filename
+     * @param pos
+     *            index of the character to check
+     * 
+     * @return true if the character is a line terminator
+     */
+    private static boolean isLineEnd(final String filename, final int pos) {
+        final char ch = filename.charAt(pos);
+        if (ch == '\n') {
+            return pos == 0 || filename.charAt(pos - 1) != '\r';
+        }
+        return isLineTerminator(ch);
+    }
+
+    /**
+     * Checks if a character terminates a line.
+     * 
+     * @param ch
+     *            the character
+     * 
+     * @return true if the character is a line terminator
+     */
+    private static boolean isLineTerminator(final char ch) {
+        return ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
+    }
+
+    /**
+     * Returns the indexes of the set flags.
+     * 
+     * @param flags
+     *            the flags
+     * 
+     * @return sorted indexes
+     */
+    private static int[] indexes(final boolean[] flags) {
+        int size = 0;
+        for (final boolean flag : flags) {
+            if (flag) {
+                size++;
+            }
+        }
+        if (size == 0) {
+            return NONE;
+        }
+        final int[] result = new int[size];
+        int idx = 0;
+        for (int i = 0; i < flags.length; i++) {
+            if (flags[i]) {
+                result[idx++] = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Translates syntax trees into NFA states.
+     */
+    private static final class Builder {
+
+        /** Type of each NFA state. */
+        private byte[] kinds = new byte[16];
+
+        /** Next state. */
+        private int[] outs = new int[16];
+
+        /** Second next state. */
+        private int[] alts = new int[16];
+
+        /** Boundary or pattern index. */
+        private int[] args = new int[16];
+
+        /** Code points matched. */
+        private RegexCharSet[] sets = new RegexCharSet[16];
+
+        /** Number of states added. */
+        private int size;
+
+        /**
+         * Adds the states of a node.
+         * 
+         * @param node
+         *            the node to add
+         * @param next
+         *            the state following the node
+         * 
+         * @return the first state of the node
+         */
+        int compile(final RegexNode node, final int next) {
+            switch (node.getType()) {
+            case RegexNode.EMPTY:
+                return next;
+            case RegexNode.CHAR:
+                return add(CONSUME, next, -1, 0, RegexCharSet.literal(node.getCodePoint(), node.getFlags()));
+            case RegexNode.CHAR_CLASS:
+                return add(CONSUME, next, -1, 0, RegexCharSet.charClass(node.getSource(), node.getFlags()));
+            case RegexNode.CONCAT:
+                int state = next;
+                for (int i = node.getChildCount() - 1; i >= 0; i--) {
+                    state = compile(node.getChild(i), state);
+                }
+                return state;
+            case RegexNode.ALTERNATION:
+                int alternative = compile(node.getChild(node.getChildCount() - 1), next);
+                for (int i = node.getChildCount() - 2; i >= 0; i--) {
+                    alternative = add(SPLIT, compile(node.getChild(i), next), alternative, 0, null);
+                }
+                return alternative;
+            case RegexNode.REPEAT:
+                return repeat(node.getChild(0), node.getMin(), node.getMax(), next);
+            case RegexNode.BOUNDARY:
+                return add(ASSERT, next, -1, boundary(node.getSource(), node.getFlags()), null);
+            case RegexNode.BACK_REFERENCE:
+                throw new IllegalArgumentException("Back references are not supported in linear time mode: "
+                        + node.getSource());
+            case RegexNode.LOOKAROUND:
+                throw new IllegalArgumentException("Lookahead and lookbehind are not supported in linear "
+                        + "time mode: " + node.getSource());
+            default:
+                throw new IllegalArgumentException(
+                        "Atomic groups and possessive quantifiers are not supported in linear time mode");
+            }
+        }
+
+        /**
+         * Adds the states of a repeated node.
+         * 
+         * @param child
+         *            the repeated node
+         * @param min
+         *            minimum number of repetitions
+         * @param max
+         *            maximum number of repetitions or
+         *            {@link RegexNode#UNBOUNDED}
+         * @param next
+         *            the state following the repetition
+         * 
+         * @return the first state of the repetition
+         */
+        private int repeat(final RegexNode child, final int min, final int max, final int next) {
+            if (max != 0 && max != 1 && matchesEmpty(child) && hasBoundary(child)) {
+                // Pattern leaves a loop after an empty iteration - the boundary is not tested again later
+                throw new IllegalArgumentException("Boundaries in repeated groups that can match the empty "
+                        + "string are not supported in linear time mode");
+            }
+            int state;
+            if (max == RegexNode.UNBOUNDED) {
+                state = add(SPLIT, -1, next, 0, null);
+                // The arrays may grow while compiling the child
+                final int body = compile(child, state);
+                outs[state] = body;
+            } else {
+                state = next;
+                for (int i = min; i < max; i++) {
+                    state = add(SPLIT, compile(child, state), next, 0, null);
+                }
+            }
+            for (int i = 0; i < min; i++) {
+                state = compile(child, state);
+            }
+            return state;
+        }
+
+        /**
+         * Checks if a node can match the empty string.
+         * 
+         * @param node
+         *            the node to check
+         * 
+         * @return true if the node can match without consuming a character
+         */
+        private static boolean matchesEmpty(final RegexNode node) {
+            switch (node.getType()) {
+            case RegexNode.EMPTY:
+            case RegexNode.BOUNDARY:
+                return true;
+            case RegexNode.CONCAT:
+                for (int i = 0; i < node.getChildCount(); i++) {
+                    if (!matchesEmpty(node.getChild(i))) {
+                        return false;
+                    }
+                }
+                return true;
+            case RegexNode.ALTERNATION:
+                for (int i = 0; i < node.getChildCount(); i++) {
+                    if (matchesEmpty(node.getChild(i))) {
+                        return true;
+                    }
+                }
+                return false;
+            case RegexNode.REPEAT:
+                return node.getMin() == 0 || matchesEmpty(node.getChild(0));
+            default:
+                return false;
+            }
+        }
+
+        /**
+         * Checks if a node contains a boundary matcher.
+         * 
+         * @param node
+         *            the node to check
+         * 
+         * @return true if the node or a child is a {@link RegexNode#BOUNDARY}
+         */
+        private static boolean hasBoundary(final RegexNode node) {
+            if (node.getType() == RegexNode.BOUNDARY) {
+                return true;
+            }
+            for (int i = 0; i < node.getChildCount(); i++) {
+                if (hasBoundary(node.getChild(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Adds a state.
+         * 
+         * @param kind
+         *            type of the state
+         * @param out
+         *            next state
+         * @param alt
+         *            second next state
+         * @param arg
+         *            boundary or pattern index
+         * @param set
+         *            code points matched
+         * 
+         * @return index of the new state
+         */
+        int add(final byte kind, final int out, final int alt, final int arg, final RegexCharSet set) {
+            if (size == kinds.length) {
+                if (size >= MAX_NFA_STATES) {
+                    throw new IllegalArgumentException("Pattern too large for linear time mode");
+                }
+                final int capacity = size * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                outs = Arrays.copyOf(outs, capacity);
+                alts = Arrays.copyOf(alts, capacity);
+                args = Arrays.copyOf(args, capacity);
+                sets = Arrays.copyOf(sets, capacity);
+            }
+            kinds[size] = kind;
+            outs[size] = out;
+            alts[size] = alt;
+            args[size] = arg;
+            sets[size] = set;
+            return size++;
+        }
+
+        /**
+         * Returns the boundary for the source of a boundary matcher.
+         * 
+         * @param source
+         *            the source
+         * @param flags
+         *            flags of {@link Pattern} in effect
+         * 
+         * @return the boundary
+         */
+        private static int boundary(final String source, final int flags) {
+            final boolean multiline = (flags & Pattern.MULTILINE) != 0;
+            final boolean unix = (flags & Pattern.UNIX_LINES) != 0;
+            if ("^".equals(source)) {
+                if (multiline) {
+                    return unix ? UNIX_LINE_BEGIN : LINE_BEGIN;
+                }
+                return BEGIN;
+            }
+            if ("$".equals(source)) {
+                if (multiline) {
+                    return unix ? UNIX_LINE_END : LINE_END;
+                }
+                return unix ? UNIX_DOLLAR : DOLLAR;
+            }
+            if ("\\Z".equals(source)) {
+                return unix ? UNIX_DOLLAR : DOLLAR;
+            }
+            if ("\\z".equals(source)) {
+                return END;
+            }
+            if ("\\A".equals(source) || "\\G".equals(source)) {
+                return BEGIN;
+            }
+            throw new IllegalArgumentException("Word boundaries are not supported in linear time mode: "
+                    + source);
+        }
+
+    }
+
+    /**
+     * DFA state representing a set of NFA states. Equality is based on the NFA
+     * states and the start flag only.
+     */
+    private static final class State {
+
+        /** Sorted NFA states. */
+        private final int[] nfa;
+
+        /** Whether this is the start state. */
+        private final boolean atStart;
+
+        /** Sorted indexes of the patterns matching a filename ending in this state. */
+        private final int[] matches;
+
+        /** Whether no continuation of the filename matches. */
+        private final boolean dead;
+
+        /** Successor states by ASCII character - created and filled lazily. */
+        private volatile State[] next;
+
+        /** Successor states by other code points - created lazily. */
+        private volatile ConcurrentMap<Integer, State> others;
+
+        /** Hash code of the NFA states. */
+        private final int hash;
+
+        /**
+         * Constructor with all data.
+         * 
+         * @param nfa
+         *            sorted NFA states
+         * @param atStart
+         *            whether this is the start state
+         * @param matches
+         *            indexes of the patterns matching a filename ending in
+         *            this state
+         * @param dead
+         *            whether no continuation of the filename matches
+         */
+        State(final int[] nfa, final boolean atStart, final int[] matches, final boolean dead) {
+            this.nfa = nfa;
+            this.atStart = atStart;
+            this.matches = matches;
+            this.dead = dead;
+            this.hash = Arrays.hashCode(nfa) * 2 + (atStart ? 1 : 0);
+        }
+
+        /**
+         * Returns the cached successor for a code point.
+         * 
+         * @param cp
+         *            the code point
+         * 
+         * @return the successor or <code>null</code> if not cached
+         */
+        State next(final int cp) {
+            if (cp < 128) {
+                final State[] ascii = next;
+                if (ascii == null) {
+                    return null;
+                }
+                return ascii[cp];
+            }
+            final ConcurrentMap<Integer, State> map = others;
+            if (map == null) {
+                return null;
+            }
+            return map.get(Integer.valueOf(cp));
+        }
+
+        /**
+         * Caches the successor for a code point.
+         * 
+         * @param cp
+         *            the code point
+         * @param state
+         *            the successor
+         */
+        void cache(final int cp, final State state) {
+            if (cp < 128) {
+                // States that are only compared or never see ASCII need no table
+                State[] ascii = next;
+                if (ascii == null) {
+                    ascii = new State[128];
+                    next = ascii;
+                }
+                ascii[cp] = state;
+                return;
+            }
+            ConcurrentMap<Integer, State> map = others;
+            if (map == null) {
+                map = new ConcurrentHashMap<Integer, State>();
+                others = map;
+            }
+            if (map.size() < MAX_OTHER_TRANSITIONS) {
+                map.put(Integer.valueOf(cp), state);
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof State)) {
+                return false;
+            }
+            final State other = (State) obj;
+            return atStart == other.atStart && Arrays.equals(nfa, other.nfa);
+        }
+
+    }
+
+}
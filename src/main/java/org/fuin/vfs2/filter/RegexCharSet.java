@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable set of code points matched by a single character of a regular
+ * expression - a literal character or a character class.
+ * <p>
+ * Literal characters follow the case rules of {@link Pattern}: with
+ * {@link Pattern#CASE_INSENSITIVE} only ASCII letters match their other case,
+ * with {@link Pattern#UNICODE_CASE} in addition characters match if their
+ * folded forms are equal. Character classes are tested with a
+ * {@link Pattern} compiled from the source of the class, so they match
+ * exactly like in the original pattern. The result for ASCII characters is
+ * computed once. For other code points the class is tested the first time
+ * the code point is seen and the result is cached with two bits per code
+ * point in a table per Unicode plane, so repeated tests do not allocate.
+ */
+final class RegexCharSet {
+
+    /** Number of code points of a Unicode plane. */
+    private static final int PLANE_SIZE = 0x10000;
+
+    /** Number of Unicode planes. */
+    private static final int PLANE_COUNT = (Character.MAX_CODE_POINT + 1) / PLANE_SIZE;
+
+    /** Cache bit set once the result for a code point is known. */
+    private static final int KNOWN = 1;
+
+    /** Cache bit set if a code point is matched. */
+    private static final int MATCHES = 2;
+
+    /** Result for every ASCII character. */
+    private final boolean[] ascii;
+
+    /** Code point of a literal. */
+    private final int codePoint;
+
+    /** Folded code point of a literal or -1 if compared exactly. */
+    private final int folded;
+
+    /** Whether literals are folded with the unicode rules. */
+    private final boolean unicodeCase;
+
+    /** Pattern matching one code point of a class or <code>null</code>. */
+    private final Pattern pattern;
+
+    /**
+     * Cached results of the class by plane - 16 code points per entry, each
+     * with a {@link #KNOWN} and a {@link #MATCHES} bit. Entries are written
+     * without locking: an update lost by a race only forgets both bits of a
+     * code point, which is then tested again.
+     */
+    private final AtomicReferenceArray<int[]> planes;
+
+    /**
+     * Constructor with all values.
+     * 
+     * @param codePoint
+     *            code point of a literal
+     * @param folded
+     *            folded code point of a literal or -1
+     * @param unicodeCase
+     *            whether literals are folded with the unicode rules
+     * @param pattern
+     *            pattern of a class or <code>null</code>
+     */
+    private RegexCharSet(final int codePoint, final int folded, final boolean unicodeCase,
+            final Pattern pattern) {
+        this.codePoint = codePoint;
+        this.folded = folded;
+        this.unicodeCase = unicodeCase;
+        this.pattern = pattern;
+        this.planes = pattern == null ? null : new AtomicReferenceArray<int[]>(PLANE_COUNT);
+        this.ascii = new boolean[128];
+        for (int ch = 0; ch < ascii.length; ch++) {
+            ascii[ch] = test(ch);
+        }
+    }
+
+    /**
+     * Creates the set for a literal character.
+     * 
+     * @param codePoint
+     *            the code point
+     * @param flags
+     *            flags of {@link Pattern} in effect
+     * 
+     * @return new set
+     */
+    static RegexCharSet literal(final int codePoint, final int flags) {
+        if ((flags & Pattern.CASE_INSENSITIVE) == 0) {
+            return new RegexCharSet(codePoint, -1, false, null);
+        }
+        if ((flags & Pattern.UNICODE_CASE) != 0) {
+            final int upper = Character.toUpperCase(codePoint);
+            final int lower = Character.toLowerCase(upper);
+            return new RegexCharSet(codePoint, upper == lower ? -1 : lower, true, null);
+        }
+        if (codePoint < 128 && Character.isLetter(codePoint)) {
+            return new RegexCharSet(codePoint, Character.toLowerCase(codePoint), false, null);
+        }
+        return new RegexCharSet(codePoint, -1, false, null);
+    }
+
+    /**
+     * Creates the set for a character class.
+     * 
+     * @param source
+     *            source of the class, for example <code>[a-z]</code>
+     * @param flags
+     *            flags of {@link Pattern} in effect
+     * 
+     * @return new set
+     */
+    static RegexCharSet charClass(final String source, final int flags) {
+        return new RegexCharSet(-1, -1, false, Pattern.compile(source, flags));
+    }
+
+    /**
+     * Checks if the set contains a code point.
+     * 
+     * @param cp
+     *            the code point
+     * 
+     * @return true if the code point is matched
+     */
+    boolean contains(final int cp) {
+        if (cp < 128) {
+            return ascii[cp];
+        }
+        if (pattern == null) {
+            return test(cp);
+        }
+        return cached(cp);
+    }
+
+    /**
+     * Tests a code point of a class using the cache.
+     * 
+     * @param cp
+     *            the code point
+     * 
+     * @return true if the code point is matched
+     */
+    private boolean cached(final int cp) {
+        final int plane = cp / PLANE_SIZE;
+        int[] bits = planes.get(plane);
+        if (bits == null) {
+            planes.compareAndSet(plane, null, new int[PLANE_SIZE / 16]);
+            bits = planes.get(plane);
+        }
+        final int index = (cp % PLANE_SIZE) / 16;
+        final int shift = (cp % 16) * 2;
+        if ((bits[index] & (KNOWN << shift)) != 0) {
+            return (bits[index] & (MATCHES << shift)) != 0;
+        }
+        final boolean matches = test(cp);
+        final int flags = matches ? KNOWN | MATCHES : KNOWN;
+        bits[index] = bits[index] | (flags << shift);
+        return matches;
+    }
+
+    /**
+     * Tests a code point without using the ASCII table.
+     * 
+     * @param cp
+     *            the code point
+     * 
+     * @return true if the code point is matched
+     */
+    private boolean test(final int cp) {
+        if (pattern != null) {
+            return pattern.matcher(new String(Character.toChars(cp))).matches();
+        }
+        if (cp == codePoint) {
+            return true;
+        }
+        if (folded < 0) {
+            return false;
+        }
+        if (unicodeCase) {
+            return cp == folded || Character.toLowerCase(Character.toUpperCase(cp)) == folded;
+        }
+        return cp < 128 && Character.toLowerCase(cp) == folded;
+    }
+
+}
@@ -16,6 +16,8 @@
  */
 package org.fuin.vfs2.filter;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.regex.Pattern;
 
@@ -27,6 +29,22 @@ import org.apache.commons.vfs2.FileSelectInfo;
  * <p/>
  * See java.util.regex.Pattern for regex matching rules
  * <p/>
+ * The pattern is analysed when the filter is created. Names that are too
+ * short or lack literal text every match must start with, end with or contain
+ * (like <code>.csv</code> in <code>.*\\.csv</code>) are rejected without
+ * running the regular expression. The compiled pattern and its analysis are
+ * shared with other filters for the same regular expression through the
+ * {@link PatternCache}.
+ * <p/>
+ * Backtracking makes some patterns, like <code>(a+)+b</code>, take time
+ * exponential in the length of the name. If the patterns come from untrusted
+ * sources, create the filter in linear time mode: names are then matched by
+ * an automaton that looks at every character once and never backtracks. This
+ * mode accepts the same names as {@link Pattern} but supports only the regular
+ * subset of its syntax - back references, lookahead, lookbehind, atomic
+ * groups, possessive quantifiers and word boundaries are rejected when the
+ * filter is created.
+ * <p/>
  * 
  * <p/>
  * For example, to retrieve and print all java files where the name matched the
@@ -55,6 +73,12 @@ public class RegexFileFilter implements FileFilter, Serializable {
     /** The regular expression pattern that will be used to match filenames. */
     private final Pattern pattern;
 
+    /** Whether names are matched in time linear to their length. */
+    private final boolean linearTime;
+
+    /** Compiled form of the pattern shared through the cache. */
+    private transient RegexProgram program;
+
     /**
      * Construct a new regular expression filter for a compiled regular
      * expression.
@@ -63,11 +87,28 @@ public class RegexFileFilter implements FileFilter, Serializable {
      *            regular expression to match - Cannot be null
      */
     public RegexFileFilter(final Pattern pattern) {
+        this(pattern, false);
+    }
+
+    /**
+     * Construct a new regular expression filter for a compiled regular
+     * expression that optionally matches in linear time.
+     * 
+     * @param pattern
+     *            regular expression to match - Cannot be null
+     * @param linearTime
+     *            true to match names in time linear to their length - the
+     *            pattern must not use back references, lookaround, atomic
+     *            groups, possessive quantifiers or word boundaries
+     */
+    public RegexFileFilter(final Pattern pattern, final boolean linearTime) {
         if (pattern == null) {
             throw new IllegalArgumentException(PATTERN_IS_MISSING);
         }
 
         this.pattern = pattern;
+        this.linearTime = linearTime;
+        this.program = PatternCache.regex(pattern, linearTime);
     }
 
     /**
@@ -77,11 +118,7 @@ public class RegexFileFilter implements FileFilter, Serializable {
      *            regular string expression to match - Cannot be null
      */
     public RegexFileFilter(final String pattern) {
-        if (pattern == null) {
-            throw new IllegalArgumentException(PATTERN_IS_MISSING);
-        }
-
-        this.pattern = Pattern.compile(pattern);
+        this(pattern, 0, false);
     }
 
     /**
@@ -93,10 +130,29 @@ public class RegexFileFilter implements FileFilter, Serializable {
      *            pattern flags - e.g. {@link Pattern#CASE_INSENSITIVE}
      */
     public RegexFileFilter(final String pattern, final int flags) {
+        this(pattern, flags, false);
+    }
+
+    /**
+     * Construct a new regular expression filter with the specified flags that
+     * optionally matches in linear time.
+     * 
+     * @param pattern
+     *            regular string expression to match - Cannot be null
+     * @param flags
+     *            pattern flags - e.g. {@link Pattern#CASE_INSENSITIVE}
+     * @param linearTime
+     *            true to match names in time linear to their length - the
+     *            pattern must not use back references, lookaround, atomic
+     *            groups, possessive quantifiers or word boundaries
+     */
+    public RegexFileFilter(final String pattern, final int flags, final boolean linearTime) {
         if (pattern == null) {
             throw new IllegalArgumentException(PATTERN_IS_MISSING);
         }
-        this.pattern = Pattern.compile(pattern, flags);
+        this.program = PatternCache.regex(pattern, flags, linearTime);
+        this.pattern = program.getPattern();
+        this.linearTime = linearTime;
     }
 
     /**
@@ -109,14 +165,8 @@ public class RegexFileFilter implements FileFilter, Serializable {
      *            how to handle case sensitivity, null means case-sensitive
      */
     public RegexFileFilter(final String pattern, final IOCase caseSensitivity) {
-        if (pattern == null) {
-            throw new IllegalArgumentException(PATTERN_IS_MISSING);
-        }
-        int flags = 0;
-        if (caseSensitivity != null && !caseSensitivity.isCaseSensitive()) {
-            flags = Pattern.CASE_INSENSITIVE;
-        }
-        this.pattern = Pattern.compile(pattern, flags);
+        this(pattern, caseSensitivity == null || caseSensitivity.isCaseSensitive() ? 0
+                : Pattern.CASE_INSENSITIVE, false);
     }
 
     /**
@@ -129,8 +179,31 @@ public class RegexFileFilter implements FileFilter, Serializable {
      */
     @Override
     public boolean accept(final FileSelectInfo fileInfo) {
-        final String name = fileInfo.getFile().getName().getBaseName();
-        return pattern.matcher(name).matches();
+        return program.matches(FileNameView.baseName(fileInfo));
+    }
+
+    /**
+     * Returns the compiled form of the pattern.
+     * 
+     * @return the program shared through the cache
+     */
+    RegexProgram getProgram() {
+        return program;
+    }
+
+    /**
+     * Restores the compiled form of the pattern after deserialization.
+     * 
+     * @param in
+     *            the stream to read from
+     * @throws IOException
+     *             error reading the stream
+     * @throws ClassNotFoundException
+     *             class of a serialized object not found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.program = PatternCache.regex(pattern, linearTime);
     }
 
 }
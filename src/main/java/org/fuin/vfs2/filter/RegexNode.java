@@ -0,0 +1,328 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.List;
+
+/**
+ * Immutable node of the syntax tree of a regular expression as created by
+ * {@link RegexParser}.
+ * <p>
+ * Constructs that match exactly one character (character classes, predefined
+ * classes like <code>\d</code> and the dot) are not analysed any further.
+ * They keep their source text and the flags in effect, so the character can be
+ * tested with {@link java.util.regex.Pattern} itself.
+ */
+final class RegexNode {
+
+    /** Matches the empty string. */
+    static final int EMPTY = 0;
+
+    /** Matches a single code point. */
+    static final int CHAR = 1;
+
+    /** Matches a single code point of a character class. */
+    static final int CHAR_CLASS = 2;
+
+    /** Matches the children one after another. */
+    static final int CONCAT = 3;
+
+    /** Matches any of the children. */
+    static final int ALTERNATION = 4;
+
+    /** Matches the child repeatedly. */
+    static final int REPEAT = 5;
+
+    /** Zero-width boundary matcher like <code>^</code> or <code>\b</code>. */
+    static final int BOUNDARY = 6;
+
+    /** Zero-width lookahead or lookbehind with the looked at child. */
+    static final int LOOKAROUND = 7;
+
+    /** Atomic group or possessive quantifier with the child matched. */
+    static final int ATOMIC = 8;
+
+    /** Back reference to a capturing group. */
+    static final int BACK_REFERENCE = 9;
+
+    /** Other construct matching text not described by the tree. */
+    static final int OTHER = 10;
+
+    /** Value of <code>max</code> for repetitions without upper bound. */
+    static final int UNBOUNDED = -1;
+
+    private static final RegexNode[] NO_CHILDREN = new RegexNode[0];
+
+    /** Type of the node. */
+    private final int type;
+
+    /** Code point of a {@link #CHAR} node. */
+    private final int codePoint;
+
+    /** Source text of the construct. */
+    private final String source;
+
+    /** Flags of {@link java.util.regex.Pattern} in effect for the construct. */
+    private final int flags;
+
+    /** Child nodes. */
+    private final RegexNode[] children;
+
+    /** Minimum number of repetitions. */
+    private final int min;
+
+    /** Maximum number of repetitions or {@link #UNBOUNDED}. */
+    private final int max;
+
+    /**
+     * Constructor with all values - use the factory methods.
+     * 
+     * @param type
+     *            type of the node
+     * @param codePoint
+     *            code point of a character
+     * @param source
+     *            source text
+     * @param flags
+     *            flags in effect
+     * @param children
+     *            child nodes
+     * @param min
+     *            minimum number of repetitions
+     * @param max
+     *            maximum number of repetitions
+     */
+    private RegexNode(final int type, final int codePoint, final String source, final int flags,
+            final RegexNode[] children, final int min, final int max) {
+        this.type = type;
+        this.codePoint = codePoint;
+        this.source = source;
+        this.flags = flags;
+        this.children = children;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Creates a node matching the empty string.
+     * 
+     * @return new node
+     */
+    static RegexNode empty() {
+        return new RegexNode(EMPTY, 0, "", 0, NO_CHILDREN, 0, 0);
+    }
+
+    /**
+     * Creates a node matching a single code point.
+     * 
+     * @param codePoint
+     *            the code point
+     * @param flags
+     *            the flags in effect
+     * 
+     * @return new node
+     */
+    static RegexNode character(final int codePoint, final int flags) {
+        return new RegexNode(CHAR, codePoint, new String(Character.toChars(codePoint)), flags, NO_CHILDREN,
+                1, 1);
+    }
+
+    /**
+     * Creates a node matching a single code point of a character class.
+     * 
+     * @param source
+     *            source text of the class, for example <code>[a-z]</code>
+     * @param flags
+     *            the flags in effect
+     * 
+     * @return new node
+     */
+    static RegexNode charClass(final String source, final int flags) {
+        return new RegexNode(CHAR_CLASS, 0, source, flags, NO_CHILDREN, 1, 1);
+    }
+
+    /**
+     * Creates a node matching a list of nodes one after another.
+     * 
+     * @param nodes
+     *            the nodes
+     * 
+     * @return new node or the only node of the list
+     */
+    static RegexNode concat(final List<RegexNode> nodes) {
+        if (nodes.size() == 0) {
+            return empty();
+        }
+        if (nodes.size() == 1) {
+            return nodes.get(0);
+        }
+        return new RegexNode(CONCAT, 0, null, 0, nodes.toArray(new RegexNode[nodes.size()]), 1, 1);
+    }
+
+    /**
+     * Creates a node matching any of a list of nodes.
+     * 
+     * @param nodes
+     *            the alternatives
+     * 
+     * @return new node or the only node of the list
+     */
+    static RegexNode alternation(final List<RegexNode> nodes) {
+        if (nodes.size() == 1) {
+            return nodes.get(0);
+        }
+        return new RegexNode(ALTERNATION, 0, null, 0, nodes.toArray(new RegexNode[nodes.size()]), 1, 1);
+    }
+
+    /**
+     * Creates a node matching another node repeatedly.
+     * 
+     * @param child
+     *            the repeated node
+     * @param min
+     *            minimum number of repetitions
+     * @param max
+     *            maximum number of repetitions or {@link #UNBOUNDED}
+     * 
+     * @return new node
+     */
+    static RegexNode repeat(final RegexNode child, final int min, final int max) {
+        return new RegexNode(REPEAT, 0, null, 0, new RegexNode[] { child }, min, max);
+    }
+
+    /**
+     * Creates a zero-width boundary matcher.
+     * 
+     * @param source
+     *            source text, one of <code>^ $ \b \B \A \G \Z \z</code>
+     * @param flags
+     *            the flags in effect
+     * 
+     * @return new node
+     */
+    static RegexNode boundary(final String source, final int flags) {
+        return new RegexNode(BOUNDARY, 0, source, flags, NO_CHILDREN, 0, 0);
+    }
+
+    /**
+     * Creates a node for a construct that wraps a child, like a lookahead.
+     * 
+     * @param type
+     *            {@link #LOOKAROUND} or {@link #ATOMIC}
+     * @param source
+     *            short source text for messages
+     * @param child
+     *            the child
+     * 
+     * @return new node
+     */
+    static RegexNode wrapper(final int type, final String source, final RegexNode child) {
+        return new RegexNode(type, 0, source, 0, new RegexNode[] { child }, 1, 1);
+    }
+
+    /**
+     * Creates a node for a construct that matches text not described by the
+     * tree, like a back reference.
+     * 
+     * @param type
+     *            {@link #BACK_REFERENCE} or {@link #OTHER}
+     * @param source
+     *            source text of the construct
+     * 
+     * @return new node
+     */
+    static RegexNode opaque(final int type, final String source) {
+        return new RegexNode(type, 0, source, 0, NO_CHILDREN, 0, UNBOUNDED);
+    }
+
+    /**
+     * Returns the type of the node.
+     * 
+     * @return one of the type constants
+     */
+    int getType() {
+        return type;
+    }
+
+    /**
+     * Returns the code point of a {@link #CHAR} node.
+     * 
+     * @return the code point
+     */
+    int getCodePoint() {
+        return codePoint;
+    }
+
+    /**
+     * Returns the source text of a character, class, boundary or opaque
+     * construct.
+     * 
+     * @return the source text
+     */
+    String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the flags in effect for a character, class or boundary.
+     * 
+     * @return flags of {@link java.util.regex.Pattern}
+     */
+    int getFlags() {
+        return flags;
+    }
+
+    /**
+     * Returns the number of children.
+     * 
+     * @return number of children
+     */
+    int getChildCount() {
+        return children.length;
+    }
+
+    /**
+     * Returns a child.
+     * 
+     * @param index
+     *            index of the child
+     * 
+     * @return the child
+     */
+    RegexNode getChild(final int index) {
+        return children[index];
+    }
+
+    /**
+     * Returns the minimum number of repetitions of a {@link #REPEAT} node.
+     * 
+     * @return minimum number
+     */
+    int getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the maximum number of repetitions of a {@link #REPEAT} node.
+     * 
+     * @return maximum number or {@link #UNBOUNDED}
+     */
+    int getMax() {
+        return max;
+    }
+
+}
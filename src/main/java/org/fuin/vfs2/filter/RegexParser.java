@@ -0,0 +1,629 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the source of a compiled {@link Pattern} into a tree of
+ * {@link RegexNode}s.
+ * <p>
+ * The parser relies on the pattern being valid, as it has already been
+ * compiled by the JDK. It follows the syntax of {@link Pattern} including
+ * embedded flags, quotes and the {@link Pattern#COMMENTS} and
+ * {@link Pattern#LITERAL} flags. Constructs whose meaning it does not know
+ * exactly, like stacked quantifiers or {@link Pattern#CANON_EQ}, are rejected
+ * with an {@link IllegalArgumentException}.
+ */
+final class RegexParser {
+
+    /** Flag of {@link Pattern#UNICODE_CHARACTER_CLASS} which is not available in Java 6. */
+    private static final int UNICODE_CHARACTER_CLASS = 0x100;
+
+    /** Flags that are understood by the parser. */
+    private static final int SUPPORTED_FLAGS = Pattern.UNIX_LINES | Pattern.CASE_INSENSITIVE
+            | Pattern.COMMENTS | Pattern.MULTILINE | Pattern.LITERAL | Pattern.DOTALL | Pattern.UNICODE_CASE
+            | UNICODE_CHARACTER_CLASS;
+
+    /** Source of the pattern. */
+    private final String regex;
+
+    /** Current position in the source. */
+    private int pos;
+
+    /** Flags in effect at the current position. */
+    private int flags;
+
+    /** Nesting depth of groups at the current position. */
+    private int depth;
+
+    /** Whether an atom outside of all groups has been parsed. */
+    private boolean topLevelAtom;
+
+    /** Characters of the last quote before its last character. */
+    private final List<RegexNode> quotePrefix;
+
+    /**
+     * Constructor with source and flags.
+     * 
+     * @param regex
+     *            source of the pattern
+     * @param flags
+     *            flags of the pattern
+     */
+    private RegexParser(final String regex, final int flags) {
+        this.regex = regex;
+        this.flags = flags;
+        this.quotePrefix = new ArrayList<RegexNode>();
+    }
+
+    /**
+     * Parses a pattern.
+     * 
+     * @param pattern
+     *            the compiled pattern, not null
+     * 
+     * @return the root of the syntax tree
+     * 
+     * @throws IllegalArgumentException
+     *             the pattern uses a construct that is not understood
+     */
+    static RegexNode parse(final Pattern pattern) {
+        final int flags = pattern.flags();
+        if ((flags & ~SUPPORTED_FLAGS) != 0) {
+            throw new IllegalArgumentException("Unsupported flags: " + flags);
+        }
+        final RegexParser parser = new RegexParser(pattern.pattern(), flags);
+        if ((flags & Pattern.LITERAL) != 0) {
+            final List<RegexNode> nodes = new ArrayList<RegexNode>();
+            parser.parseQuoted(parser.regex.length(), nodes);
+            return RegexNode.concat(nodes);
+        }
+        final RegexNode node = parser.parseAlternation();
+        if (parser.pos < parser.regex.length()) {
+            throw parser.error("Unmatched closing ')'");
+        }
+        return node;
+    }
+
+    /**
+     * Parses alternatives separated by <code>|</code> up to the end of the
+     * enclosing group.
+     * 
+     * @return the node
+     */
+    private RegexNode parseAlternation() {
+        final List<RegexNode> nodes = new ArrayList<RegexNode>();
+        nodes.add(parseSequence());
+        while (pos < regex.length() && regex.charAt(pos) == '|') {
+            pos++;
+            nodes.add(parseSequence());
+        }
+        return RegexNode.alternation(nodes);
+    }
+
+    /**
+     * Parses a sequence of quantified atoms up to the next <code>|</code> or
+     * the end of the enclosing group.
+     * 
+     * @return the node
+     */
+    private RegexNode parseSequence() {
+        final List<RegexNode> nodes = new ArrayList<RegexNode>();
+        while (true) {
+            skipComments();
+            if (pos >= regex.length() || regex.charAt(pos) == '|' || regex.charAt(pos) == ')') {
+                return RegexNode.concat(nodes);
+            }
+            final RegexNode atom = parseAtom();
+            // Like in Pattern a quantifier only repeats the last character of a quote
+            nodes.addAll(quotePrefix);
+            quotePrefix.clear();
+            if (atom != null) {
+                nodes.add(parseQuantifier(atom));
+                topLevelAtom = topLevelAtom || depth == 0;
+            } else if (!nodes.isEmpty()) {
+                // A quantifier after an empty quote repeats the preceding atom
+                final int last = nodes.size() - 1;
+                nodes.set(last, parseQuantifier(nodes.get(last)));
+            }
+        }
+    }
+
+    /**
+     * Parses an optional quantifier following an atom.
+     * 
+     * @param atom
+     *            the atom
+     * 
+     * @return the atom or a node repeating it
+     */
+    private RegexNode parseQuantifier(final RegexNode atom) {
+        skipComments();
+        if (pos >= regex.length()) {
+            return atom;
+        }
+        final int min;
+        final int max;
+        final char ch = regex.charAt(pos);
+        if (ch == '*') {
+            min = 0;
+            max = RegexNode.UNBOUNDED;
+            pos++;
+        } else if (ch == '+') {
+            min = 1;
+            max = RegexNode.UNBOUNDED;
+            pos++;
+        } else if (ch == '?') {
+            min = 0;
+            max = 1;
+            pos++;
+        } else if (ch == '{') {
+            final int end = regex.indexOf('}', pos);
+            final String range = regex.substring(pos + 1, end);
+            final int comma = range.indexOf(',');
+            if (comma < 0) {
+                min = Integer.parseInt(range);
+                max = min;
+            } else {
+                min = Integer.parseInt(range.substring(0, comma));
+                max = comma == range.length() - 1 ? RegexNode.UNBOUNDED : Integer.parseInt(range
+                        .substring(comma + 1));
+            }
+            pos = end + 1;
+        } else {
+            return atom;
+        }
+        RegexNode node = RegexNode.repeat(atom, min, max);
+        if (pos < regex.length() && regex.charAt(pos) == '?') {
+            // Reluctant - same strings as the greedy quantifier
+            pos++;
+        } else if (pos < regex.length() && regex.charAt(pos) == '+') {
+            pos++;
+            node = RegexNode.wrapper(RegexNode.ATOMIC, "+", node);
+        }
+        skipComments();
+        if (pos < regex.length() && "*+?{".indexOf(regex.charAt(pos)) >= 0) {
+            throw error("Stacked quantifier");
+        }
+        return node;
+    }
+
+    /**
+     * Parses a single atom.
+     * 
+     * @return the node or <code>null</code> if the atom only changes the
+     *         flags or is an empty quote
+     */
+    private RegexNode parseAtom() {
+        final int cp = regex.codePointAt(pos);
+        switch (cp) {
+        case '(':
+            return parseGroup();
+        case '[':
+            return parseClass();
+        case '.':
+            pos++;
+            return RegexNode.charClass(".", flags);
+        case '^':
+        case '$':
+            pos++;
+            return RegexNode.boundary(String.valueOf((char) cp), flags);
+        case '\\':
+            return parseEscape();
+        default:
+            pos = pos + Character.charCount(cp);
+            return RegexNode.character(cp, flags);
+        }
+    }
+
+    /**
+     * Parses a character class starting with <code>[</code>.
+     * 
+     * @return the node
+     */
+    private RegexNode parseClass() {
+        final int start = pos;
+        pos = findClassEnd(start);
+        return RegexNode.charClass(regex.substring(start, pos), flags);
+    }
+
+    /**
+     * Parses a group starting with <code>(</code>.
+     * 
+     * @return the node or <code>null</code> if the group only changes the
+     *         flags
+     */
+    private RegexNode parseGroup() {
+        final int saved = flags;
+        pos++;
+        depth++;
+        RegexNode node;
+        if (regex.startsWith("?:", pos)) {
+            pos = pos + 2;
+            node = parseAlternation();
+        } else if (regex.startsWith("?=", pos) || regex.startsWith("?!", pos)) {
+            pos = pos + 2;
+            node = RegexNode.wrapper(RegexNode.LOOKAROUND, "(" + regex.substring(pos - 2, pos),
+                    parseAlternation());
+        } else if (regex.startsWith("?<=", pos) || regex.startsWith("?<!", pos)) {
+            pos = pos + 3;
+            node = RegexNode.wrapper(RegexNode.LOOKAROUND, "(" + regex.substring(pos - 3, pos),
+                    parseAlternation());
+        } else if (regex.startsWith("?>", pos)) {
+            pos = pos + 2;
+            node = RegexNode.wrapper(RegexNode.ATOMIC, "(?>", parseAlternation());
+        } else if (regex.startsWith("?<", pos)) {
+            // Named capturing group
+            pos = regex.indexOf('>', pos) + 1;
+            node = parseAlternation();
+        } else if (regex.startsWith("?", pos)) {
+            pos++;
+            final int newFlags = parseFlags();
+            if (regex.charAt(pos) == ')') {
+                if (depth == 1 && topLevelAtom) {
+                    // Pattern.flags() includes these flags - the flags of the text before are unknown
+                    throw error("Embedded flags after the start of the pattern");
+                }
+                // Applies to the rest of the enclosing group
+                pos++;
+                depth--;
+                flags = newFlags;
+                return null;
+            }
+            pos++;
+            flags = newFlags;
+            node = parseAlternation();
+        } else {
+            node = parseAlternation();
+        }
+        if (pos >= regex.length()) {
+            throw error("Unclosed group");
+        }
+        pos++;
+        depth--;
+        flags = saved;
+        return node;
+    }
+
+    /**
+     * Parses embedded flags like <code>i-s</code> up to the following
+     * <code>:</code> or <code>)</code>.
+     * 
+     * @return the flags in effect after the embedded flags
+     */
+    private int parseFlags() {
+        int result = flags;
+        boolean on = true;
+        while (regex.charAt(pos) != ':' && regex.charAt(pos) != ')') {
+            final char ch = regex.charAt(pos++);
+            final int flag;
+            switch (ch) {
+            case '-':
+                on = false;
+                continue;
+            case 'i':
+                flag = Pattern.CASE_INSENSITIVE;
+                break;
+            case 'd':
+                flag = Pattern.UNIX_LINES;
+                break;
+            case 'm':
+                flag = Pattern.MULTILINE;
+                break;
+            case 's':
+                flag = Pattern.DOTALL;
+                break;
+            case 'u':
+                flag = Pattern.UNICODE_CASE;
+                break;
+            case 'x':
+                flag = Pattern.COMMENTS;
+                break;
+            case 'U':
+                flag = UNICODE_CHARACTER_CLASS;
+                break;
+            default:
+                throw error("Unsupported embedded flag '" + ch + "'");
+            }
+            if (on) {
+                result = result | flag;
+            } else {
+                result = result & ~flag;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parses an escape sequence starting with a backslash. The characters of
+     * a quote before its last one are added to {@link #quotePrefix}.
+     * 
+     * @return the node or <code>null</code> for an empty quote
+     */
+    // CHECKSTYLE:OFF Cyclomatic complexity is OK here - one case per escape
+    private RegexNode parseEscape() {
+        final int start = pos;
+        final char ch = regex.charAt(pos + 1);
+        pos = pos + 2;
+        switch (ch) {
+        case 'd':
+        case 'D':
+        case 's':
+        case 'S':
+        case 'w':
+        case 'W':
+        case 'h':
+        case 'H':
+        case 'v':
+        case 'V':
+            return RegexNode.charClass(regex.substring(start, pos), flags);
+        case 'p':
+        case 'P':
+            if (regex.charAt(pos) == '{') {
+                pos = regex.indexOf('}', pos) + 1;
+            } else {
+                pos++;
+            }
+            return RegexNode.charClass(regex.substring(start, pos), flags);
+        case 'b':
+        case 'B':
+        case 'A':
+        case 'G':
+        case 'Z':
+        case 'z':
+            if (regex.startsWith("{", pos)) {
+                throw error("Unsupported boundary");
+            }
+            return RegexNode.boundary(regex.substring(start, pos), flags);
+        case 'Q':
+            final int end = regex.indexOf("\\E", pos);
+            parseQuoted(end < 0 ? regex.length() : end, quotePrefix);
+            pos = end < 0 ? regex.length() : end + 2;
+            if (quotePrefix.isEmpty()) {
+                return null;
+            }
+            return quotePrefix.remove(quotePrefix.size() - 1);
+        case 'k':
+            pos = regex.indexOf('>', pos) + 1;
+            return RegexNode.opaque(RegexNode.BACK_REFERENCE, regex.substring(start, pos));
+        case 'R':
+        case 'X':
+        case 'N':
+            throw error("Unsupported escape '\\" + ch + "'");
+        case 't':
+            return RegexNode.character('\t', flags);
+        case 'n':
+            return RegexNode.character('\n', flags);
+        case 'r':
+            return RegexNode.character('\r', flags);
+        case 'f':
+            return RegexNode.character('\f', flags);
+        case 'a':
+            return RegexNode.character('\u0007', flags);
+        case 'e':
+            return RegexNode.character('\u001B', flags);
+        case 'c':
+            return RegexNode.character(regex.charAt(pos++) ^ 64, flags);
+        case '0':
+            return RegexNode.character(parseOctal(), flags);
+        case 'x':
+            return RegexNode.character(parseHex(), flags);
+        case 'u':
+            return RegexNode.character(parseUnicode(), flags);
+        default:
+            if (ch >= '1' && ch <= '9') {
+                while (pos < regex.length() && Character.isDigit(regex.charAt(pos))) {
+                    pos++;
+                }
+                return RegexNode.opaque(RegexNode.BACK_REFERENCE, regex.substring(start, pos));
+            }
+            if (Character.isLetter(ch)) {
+                throw error("Unsupported escape '\\" + ch + "'");
+            }
+            final int cp = regex.codePointAt(start + 1);
+            pos = start + 1 + Character.charCount(cp);
+            return RegexNode.character(cp, flags);
+        }
+    }
+
+    // CHECKSTYLE:ON
+
+    /**
+     * Parses the digits of an octal escape <code>\0n</code>, <code>\0nn</code>
+     * or <code>\0mnn</code>.
+     * 
+     * @return the code point
+     */
+    private int parseOctal() {
+        int value = 0;
+        int digits = 0;
+        final int maxDigits = regex.length() > pos && regex.charAt(pos) <= '3' ? 3 : 2;
+        while (digits < maxDigits && pos < regex.length() && regex.charAt(pos) >= '0'
+                && regex.charAt(pos) <= '7') {
+            value = value * 8 + regex.charAt(pos++) - '0';
+            digits++;
+        }
+        return value;
+    }
+
+    /**
+     * Parses the digits of a hexadecimal escape <code>\xhh</code> or
+     * <code>\x{h...h}</code>.
+     * 
+     * @return the code point
+     */
+    private int parseHex() {
+        if (regex.charAt(pos) == '{') {
+            final int end = regex.indexOf('}', pos);
+            final int value = Integer.parseInt(regex.substring(pos + 1, end), 16);
+            pos = end + 1;
+            return value;
+        }
+        pos = pos + 2;
+        return Integer.parseInt(regex.substring(pos - 2, pos), 16);
+    }
+
+    /**
+     * Parses the four digits of a unicode escape, combining two escaped
+     * surrogates into one code point.
+     * 
+     * @return the code point
+     */
+    private int parseUnicode() {
+        pos = pos + 4;
+        final char high = (char) Integer.parseInt(regex.substring(pos - 4, pos), 16);
+        if (Character.isHighSurrogate(high) && regex.startsWith("\\u", pos) && pos + 6 <= regex.length()) {
+            final char low = (char) Integer.parseInt(regex.substring(pos + 2, pos + 6), 16);
+            if (Character.isLowSurrogate(low)) {
+                pos = pos + 6;
+                return Character.toCodePoint(high, low);
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Creates nodes matching the characters of the source up to an index
+     * literally.
+     * 
+     * @param end
+     *            end index of the quoted text (exclusive)
+     * @param nodes
+     *            the list to add a node for every character to
+     */
+    private void parseQuoted(final int end, final List<RegexNode> nodes) {
+        while (pos < end) {
+            final int cp = regex.codePointAt(pos);
+            nodes.add(RegexNode.character(cp, flags));
+            pos = pos + Character.charCount(cp);
+        }
+    }
+
+    /**
+     * Finds the end of a character class including nested classes.
+     * 
+     * @param start
+     *            index of the opening <code>[</code>
+     * 
+     * @return index after the closing <code>]</code>
+     */
+    private int findClassEnd(final int start) {
+        int depth = 0;
+        int i = start;
+        while (true) {
+            if (i >= regex.length()) {
+                throw error("Unclosed character class");
+            }
+            final char ch = regex.charAt(i);
+            if (ch == '[') {
+                depth++;
+                i++;
+                // A closing bracket first in a class is a literal
+                if (regex.startsWith("^", i)) {
+                    i++;
+                }
+                if (regex.startsWith("]", i)) {
+                    i++;
+                }
+            } else if (ch == ']') {
+                depth--;
+                i++;
+                if (depth == 0) {
+                    return i;
+                }
+            } else if (ch == '\\') {
+                if (regex.startsWith("Q", i + 1)) {
+                    final int end = regex.indexOf("\\E", i + 2);
+                    i = end < 0 ? regex.length() : end + 2;
+                } else {
+                    i = i + 2;
+                }
+            } else if (ch == '#' && (flags & Pattern.COMMENTS) != 0) {
+                i = endOfComment(i);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Skips white space and comments if {@link Pattern#COMMENTS} is in
+     * effect.
+     */
+    private void skipComments() {
+        if ((flags & Pattern.COMMENTS) == 0) {
+            return;
+        }
+        while (pos < regex.length()) {
+            final char ch = regex.charAt(pos);
+            if (ch == '#') {
+                pos = endOfComment(pos);
+            } else if (ch == ' ' || ch == '\t' || ch == '\n' || ch == '\u000B' || ch == '\f' || ch == '\r') {
+                pos++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the index after a comment that runs to the end of the line.
+     * 
+     * @param start
+     *            index of the <code>#</code>
+     * 
+     * @return index after the line terminator or the length of the source
+     */
+    private int endOfComment(final int start) {
+        int i = start;
+        while (i < regex.length() && !isLineTerminator(regex.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Checks if a character terminates a line using the flags in effect.
+     * 
+     * @param ch
+     *            the character
+     * 
+     * @return true if the character is a line terminator
+     */
+    private boolean isLineTerminator(final char ch) {
+        if ((flags & Pattern.UNIX_LINES) != 0) {
+            return ch == '\n';
+        }
+        return ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
+    }
+
+    /**
+     * Creates an exception for a construct that is not supported.
+     * 
+     * @param message
+     *            description of the problem
+     * 
+     * @return the exception to throw
+     */
+    private IllegalArgumentException error(final String message) {
+        return new IllegalArgumentException(message + " near index " + pos + " of '" + regex + "'");
+    }
+
+}
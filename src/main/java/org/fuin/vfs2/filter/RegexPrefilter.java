@@ -0,0 +1,372 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.regex.Pattern;
+
+/**
+ * Cheap checks that reject most filenames a regular expression cannot match
+ * as a whole without running the regular expression.
+ * <p>
+ * The syntax tree of the pattern (see {@link RegexParser}) is analysed for a
+ * minimum length and for literal text that every match must start with, end
+ * with or contain. For example, every name matching
+ * <code>report_\d+\.csv</code> is at least 12 characters long, starts with
+ * <code>report_</code> and ends with <code>.csv</code>.
+ * <p>
+ * The checks never reject a name the pattern matches: if the pattern is case
+ * insensitive anywhere, the literals are compared case insensitive (see
+ * {@link IOCase#foldCase(char)}), which accepts at least the names accepted by
+ * the {@link Pattern} rules. Patterns that cannot be analysed get no checks.
+ */
+final class RegexPrefilter {
+
+    /** Maximum length of the text of a repeated literal. */
+    private static final int MAX_REPEATED_LENGTH = 256;
+
+    /** Minimum length of a matching name. */
+    private final int minLength;
+
+    /** Text every matching name starts with or <code>null</code>. */
+    private final CaseLiteral prefix;
+
+    /** Text every matching name ends with or <code>null</code>. */
+    private final CaseLiteral suffix;
+
+    /** Text every matching name contains or <code>null</code>. */
+    private final CaseLiteral infix;
+
+    /**
+     * Constructor with the pattern to analyse.
+     * 
+     * @param pattern
+     *            the pattern, not null
+     */
+    RegexPrefilter(final Pattern pattern) {
+        Info info;
+        IOCase caseSensitivity = IOCase.SENSITIVE;
+        try {
+            final RegexNode root = RegexParser.parse(pattern);
+            if (isCaseInsensitive(root)) {
+                caseSensitivity = IOCase.INSENSITIVE;
+            }
+            info = analyse(root, caseSensitivity);
+        } catch (final IllegalArgumentException ex) {
+            // Not understood - the pattern has to decide
+            info = Info.UNKNOWN;
+        }
+        minLength = info.minLength;
+        prefix = literal(info.prefix, caseSensitivity);
+        suffix = literal(info.suffix, caseSensitivity);
+        if (info.prefix.contains(info.infix) || info.suffix.contains(info.infix)) {
+            // Already checked
+            infix = null;
+        } else {
+            infix = new CaseLiteral(info.infix, caseSensitivity);
+        }
+    }
+
+    /**
+     * Checks if the pattern may match the name. Returns false only if the
+     * pattern cannot match the name as a whole.
+     * 
+     * @param name
+     *            the name to check, not null
+     * 
+     * @return false if the name is rejected by the checks
+     */
+    boolean mayMatch(final String name) {
+        final int length = name.length();
+        if (length < minLength) {
+            return false;
+        }
+        if (prefix != null && !prefix.matchesAt(name, 0)) {
+            return false;
+        }
+        if (suffix != null && !suffix.matchesAt(name, length - suffix.length())) {
+            return false;
+        }
+        return infix == null || infix.indexOf(name, 0) >= 0;
+    }
+
+    /**
+     * Checks if any character of the tree is matched case insensitive.
+     * 
+     * @param node
+     *            the node to check
+     * 
+     * @return true if {@link Pattern#CASE_INSENSITIVE} is in effect for a
+     *         character
+     */
+    private static boolean isCaseInsensitive(final RegexNode node) {
+        if (node.getType() == RegexNode.CHAR) {
+            return (node.getFlags() & Pattern.CASE_INSENSITIVE) != 0;
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            if (isCaseInsensitive(node.getChild(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Analyses a node.
+     * 
+     * @param node
+     *            the node to analyse
+     * @param caseSensitivity
+     *            case sensitivity of the checks
+     * 
+     * @return what is known about the text matched by the node
+     */
+    private static Info analyse(final RegexNode node, final IOCase caseSensitivity) {
+        switch (node.getType()) {
+        case RegexNode.CHAR:
+            if (!caseSensitivity.isCaseSensitive() && IOCase.containsSurrogate(node.getSource())) {
+                // The JDK folds code points - not comparable character by character
+                return Info.ONE_CHAR;
+            }
+            return Info.exact(node.getSource());
+        case RegexNode.CHAR_CLASS:
+            return Info.ONE_CHAR;
+        case RegexNode.CONCAT:
+            Info result = analyse(node.getChild(0), caseSensitivity);
+            for (int i = 1; i < node.getChildCount(); i++) {
+                result = Info.concat(result, analyse(node.getChild(i), caseSensitivity));
+            }
+            return result;
+        case RegexNode.ALTERNATION:
+            Info common = analyse(node.getChild(0), caseSensitivity);
+            for (int i = 1; i < node.getChildCount(); i++) {
+                common = Info.either(common, analyse(node.getChild(i), caseSensitivity));
+            }
+            return common;
+        case RegexNode.REPEAT:
+            return Info.repeat(analyse(node.getChild(0), caseSensitivity), node.getMin(), node.getMax());
+        case RegexNode.ATOMIC:
+            // Matches a subset of what the child matches
+            return analyse(node.getChild(0), caseSensitivity);
+        case RegexNode.EMPTY:
+        case RegexNode.BOUNDARY:
+        case RegexNode.LOOKAROUND:
+            return Info.EMPTY;
+        default:
+            return Info.UNKNOWN;
+        }
+    }
+
+    /**
+     * Creates a literal for a non empty text.
+     * 
+     * @param text
+     *            the text
+     * @param caseSensitivity
+     *            case sensitivity of the check
+     * 
+     * @return the literal or <code>null</code> if the text is empty
+     */
+    private static CaseLiteral literal(final String text, final IOCase caseSensitivity) {
+        if (text.length() == 0) {
+            return null;
+        }
+        return new CaseLiteral(text, caseSensitivity);
+    }
+
+    /**
+     * What is known about the text matched by a node.
+     */
+    private static final class Info {
+
+        /** Matches only the empty string. */
+        static final Info EMPTY = exact("");
+
+        /** Matches a single character. */
+        static final Info ONE_CHAR = new Info(null, "", "", "", 1);
+
+        /** Nothing is known. */
+        static final Info UNKNOWN = new Info(null, "", "", "", 0);
+
+        /** The only text matched or <code>null</code>. */
+        final String exact;
+
+        /** Text every match starts with. */
+        final String prefix;
+
+        /** Text every match ends with. */
+        final String suffix;
+
+        /** Longest known text every match contains. */
+        final String infix;
+
+        /** Minimum length of a match. */
+        final int minLength;
+
+        /**
+         * Constructor with all values.
+         * 
+         * @param exact
+         *            the only text matched or <code>null</code>
+         * @param prefix
+         *            text every match starts with
+         * @param suffix
+         *            text every match ends with
+         * @param infix
+         *            text every match contains
+         * @param minLength
+         *            minimum length of a match
+         */
+        Info(final String exact, final String prefix, final String suffix, final String infix,
+                final int minLength) {
+            this.exact = exact;
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.infix = infix;
+            this.minLength = minLength;
+        }
+
+        /**
+         * Creates the info for a node matching exactly one text.
+         * 
+         * @param text
+         *            the text
+         * 
+         * @return new info
+         */
+        static Info exact(final String text) {
+            return new Info(text, text, text, text, text.length());
+        }
+
+        /**
+         * Combines the info of two nodes matched one after another.
+         * 
+         * @param first
+         *            info of the first node
+         * @param second
+         *            info of the second node
+         * 
+         * @return info of the sequence
+         */
+        static Info concat(final Info first, final Info second) {
+            if (first.exact != null && second.exact != null) {
+                return exact(first.exact + second.exact);
+            }
+            final String prefix = first.exact == null ? first.prefix : first.exact + second.prefix;
+            final String suffix = second.exact == null ? second.suffix : first.suffix + second.exact;
+            final String infix = longest(longest(first.infix, second.infix), first.suffix + second.prefix);
+            return new Info(null, prefix, suffix, longest(longest(prefix, suffix), infix), add(
+                    first.minLength, second.minLength));
+        }
+
+        /**
+         * Combines the info of two alternatives.
+         * 
+         * @param first
+         *            info of the first alternative
+         * @param second
+         *            info of the second alternative
+         * 
+         * @return info of the alternation
+         */
+        static Info either(final Info first, final Info second) {
+            if (first.exact != null && first.exact.equals(second.exact)) {
+                return first;
+            }
+            int prefixLength = 0;
+            final int maxPrefix = Math.min(first.prefix.length(), second.prefix.length());
+            while (prefixLength < maxPrefix
+                    && first.prefix.charAt(prefixLength) == second.prefix.charAt(prefixLength)) {
+                prefixLength++;
+            }
+            int suffixLength = 0;
+            final int maxSuffix = Math.min(first.suffix.length(), second.suffix.length());
+            while (suffixLength < maxSuffix
+                    && first.suffix.charAt(first.suffix.length() - 1 - suffixLength) == second.suffix
+                            .charAt(second.suffix.length() - 1 - suffixLength)) {
+                suffixLength++;
+            }
+            final String prefix = first.prefix.substring(0, prefixLength);
+            final String suffix = first.suffix.substring(first.suffix.length() - suffixLength);
+            return new Info(null, prefix, suffix, longest(prefix, suffix), Math.min(first.minLength,
+                    second.minLength));
+        }
+
+        /**
+         * Creates the info of a repeated node.
+         * 
+         * @param child
+         *            info of the repeated node
+         * @param min
+         *            minimum number of repetitions
+         * @param max
+         *            maximum number of repetitions or
+         *            {@link RegexNode#UNBOUNDED}
+         * 
+         * @return info of the repetition
+         */
+        static Info repeat(final Info child, final int min, final int max) {
+            if (max == 0 || "".equals(child.exact)) {
+                return EMPTY;
+            }
+            if (min == 0) {
+                return UNKNOWN;
+            }
+            if (min == max && child.exact != null
+                    && (long) child.exact.length() * min <= MAX_REPEATED_LENGTH) {
+                final StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < min; i++) {
+                    sb.append(child.exact);
+                }
+                return exact(sb.toString());
+            }
+            final long minLength = (long) child.minLength * min;
+            return new Info(null, child.prefix, child.suffix, child.infix,
+                    (int) Math.min(minLength, Integer.MAX_VALUE));
+        }
+
+        /**
+         * Adds two lengths without overflow.
+         * 
+         * @param a
+         *            first length
+         * @param b
+         *            second length
+         * 
+         * @return the sum or {@link Integer#MAX_VALUE}
+         */
+        private static int add(final int a, final int b) {
+            return (int) Math.min((long) a + b, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Returns the longer of two texts.
+         * 
+         * @param a
+         *            first text
+         * @param b
+         *            second text
+         * 
+         * @return the longer text or the first one if both have the same
+         *         length
+         */
+        private static String longest(final String a, final String b) {
+            return b.length() > a.length() ? b : a;
+        }
+
+    }
+
+}
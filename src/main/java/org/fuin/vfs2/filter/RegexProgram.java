@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable compiled form of a single regular expression as used by
+ * {@link RegexFileFilter}: the pattern, its prefilter and, in linear time
+ * mode, its automaton. Instances are shared through the {@link PatternCache}.
+ * They hold no per-thread state, so a cached program keeps neither names nor
+ * threads reachable.
+ */
+final class RegexProgram {
+
+    /** The compiled pattern. */
+    private final Pattern pattern;
+
+    /** Cheap checks applied before the pattern. */
+    private final RegexPrefilter prefilter;
+
+    /** Automaton used in linear time mode or <code>null</code>. */
+    private final RegexAutomaton automaton;
+
+    /**
+     * Constructor with pattern and mode.
+     * 
+     * @param pattern
+     *            the compiled pattern, not null
+     * @param linearTime
+     *            true to create the automaton for linear time matching
+     * 
+     * @throws IllegalArgumentException
+     *             linear time mode is requested and the pattern uses a
+     *             construct the automaton does not support
+     */
+    RegexProgram(final Pattern pattern, final boolean linearTime) {
+        this.pattern = pattern;
+        this.prefilter = new RegexPrefilter(pattern);
+        if (linearTime) {
+            this.automaton = new RegexAutomaton(Collections.singletonList(pattern));
+        } else {
+            this.automaton = null;
+        }
+    }
+
+    /**
+     * Checks if a name matches the regular expression.
+     * 
+     * @param name
+     *            the name to check, not null
+     * 
+     * @return true if the whole name matches
+     */
+    boolean matches(final String name) {
+        if (!prefilter.mayMatch(name)) {
+            return false;
+        }
+        if (automaton != null) {
+            return automaton.matches(name);
+        }
+        return pattern.matcher(name).matches();
+    }
+
+    /**
+     * Returns the compiled pattern.
+     * 
+     * @return the pattern
+     */
+    Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns the checks applied before the pattern.
+     * 
+     * @return the prefilter
+     */
+    RegexPrefilter getPrefilter() {
+        return prefilter;
+    }
+
+    /**
+     * Returns the automaton used in linear time mode.
+     * 
+     * @return the automaton or <code>null</code> if the pattern is used
+     */
+    RegexAutomaton getAutomaton() {
+        return automaton;
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.commons.vfs2.FileFilter;
+import org.apache.commons.vfs2.FileSelectInfo;
+
+/**
+ * Filters filenames that match any of a list of regular expressions.
+ * <p>
+ * All patterns are compiled into one automaton that matches the filename in
+ * a single pass, so the cost depends on the length of the filename and not on
+ * the number of patterns. This is faster than an {@link OrFileFilter} with one
+ * {@link RegexFileFilter} per pattern. The patterns accept the same names as
+ * with {@link Pattern}, but only the regular subset of its syntax is supported
+ * (see the linear time mode of {@link RegexFileFilter}): back references,
+ * lookahead, lookbehind, atomic groups, possessive quantifiers and word
+ * boundaries are rejected when the filter is created.
+ * <p>
+ * For example, to print all files and directories in the current directory
+ * whose name looks like a report or a backup:
+ * 
+ * <pre>
+ * FileSystemManager fsManager = VFS.getManager();
+ * FileObject dir = fsManager.toFileObject(new File(&quot;.&quot;));
+ * List&lt;String&gt; regexes = Arrays.asList(&quot;report-\\d+\\.csv&quot;, &quot;.*\\.bak&quot;);
+ * FileFilter filter = new RegexSetFileFilter(regexes);
+ * FileObject[] files = dir.findFiles(new FileFilterSelector(filter));
+ * for (int i = 0; i &lt; files.length; i++) {
+ *     System.out.println(files[i]);
+ * }
+ * </pre>
+ */
+public class RegexSetFileFilter implements FileFilter, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The patterns to match. */
+    private final List<Pattern> patterns;
+
+    /** Automaton matching all patterns at once. */
+    private transient RegexAutomaton automaton;
+
+    /**
+     * Constructs a new regular expression set filter.
+     * 
+     * @param patterns
+     *            regular string expressions to match, must not be null
+     */
+    public RegexSetFileFilter(final List<String> patterns) {
+        this(patterns, 0);
+    }
+
+    /**
+     * Constructs a new regular expression set filter with the specified flags.
+     * 
+     * @param patterns
+     *            regular string expressions to match, must not be null
+     * @param flags
+     *            pattern flags used for all patterns - e.g.
+     *            {@link Pattern#CASE_INSENSITIVE}
+     */
+    public RegexSetFileFilter(final List<String> patterns, final int flags) {
+        if (patterns == null) {
+            throw new IllegalArgumentException("The list of patterns must not be null");
+        }
+        this.patterns = compile(patterns, flags);
+        this.automaton = new RegexAutomaton(this.patterns);
+    }
+
+    /**
+     * Constructs a new regular expression set filter specifying
+     * case-sensitivity.
+     * 
+     * @param patterns
+     *            regular string expressions to match, must not be null
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     */
+    public RegexSetFileFilter(final List<String> patterns, final IOCase caseSensitivity) {
+        this(patterns, caseSensitivity == null || caseSensitivity.isCaseSensitive() ? 0
+                : Pattern.CASE_INSENSITIVE);
+    }
+
+    /**
+     * Constructs a new regular expression set filter for compiled regular
+     * expressions.
+     * 
+     * @param patterns
+     *            regular expressions to match, must not be null
+     */
+    public RegexSetFileFilter(final Pattern... patterns) {
+        if (patterns == null) {
+            throw new IllegalArgumentException("The array of patterns must not be null");
+        }
+        this.patterns = new ArrayList<Pattern>(patterns.length);
+        for (final Pattern pattern : patterns) {
+            if (pattern == null) {
+                throw new IllegalArgumentException(RegexFileFilter.PATTERN_IS_MISSING);
+            }
+            this.patterns.add(pattern);
+        }
+        this.automaton = new RegexAutomaton(this.patterns);
+    }
+
+    /**
+     * Checks to see if the filename matches one of the regular expressions.
+     * 
+     * @param fileInfo
+     *            the File to check
+     * 
+     * @return true if the file matches one of the regular expressions
+     */
+    @Override
+    public boolean accept(final FileSelectInfo fileInfo) {
+        final String name = FileNameView.baseName(fileInfo);
+        return automaton.matches(name);
+    }
+
+    /**
+     * Returns the regular expressions the filename matches. This is useful to
+     * route files depending on the pattern they matched. All patterns are
+     * found in the same single pass as in {@link #accept(FileSelectInfo)}.
+     * 
+     * @param fileInfo
+     *            the File to check
+     * 
+     * @return indexes of the matching patterns in the order passed to the
+     *         constructor, an empty array if the filename matches none of
+     *         them
+     */
+    public int[] findPatterns(final FileSelectInfo fileInfo) {
+        final String name = FileNameView.baseName(fileInfo);
+        return automaton.match(name).clone();
+    }
+
+    /**
+     * Compiles a list of regular expressions.
+     * 
+     * @param regexes
+     *            the regular expressions
+     * @param flags
+     *            pattern flags
+     * 
+     * @return the compiled patterns
+     */
+    private static List<Pattern> compile(final List<String> regexes, final int flags) {
+        final List<Pattern> result = new ArrayList<Pattern>(regexes.size());
+        for (final String regex : regexes) {
+            if (regex == null) {
+                throw new IllegalArgumentException(RegexFileFilter.PATTERN_IS_MISSING);
+            }
+            result.add(PatternCache.regex(regex, flags, false).getPattern());
+        }
+        return result;
+    }
+
+    /**
+     * Restores the automaton after deserialization.
+     * 
+     * @param in
+     *            the stream to read from
+     * @throws IOException
+     *             error reading the stream
+     * @throws ClassNotFoundException
+     *             class of a serialized object not found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.automaton = new RegexAutomaton(this.patterns);
+    }
+
+    /**
+     * Provide a String representation of this file filter.
+     * 
+     * @return a String representation
+     */
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append(super.toString());
+        buffer.append("(");
+        if (patterns != null) {
+            for (int i = 0; i < patterns.size(); i++) {
+                if (i > 0) {
+                    buffer.append(",");
+                }
+                buffer.append(patterns.get(i).pattern());
+            }
+        }
+        buffer.append(")");
+        return buffer.toString();
+    }
+
+}
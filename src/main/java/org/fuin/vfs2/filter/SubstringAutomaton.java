@@ -0,0 +1,355 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton that finds any of a set of substrings in a filename
+ * with a single pass over the filename.
+ * <p>
+ * The substrings are stored in a trie packed into arrays like the one of
+ * {@link NameTrie}. Every node has a failure link to the node of its longest
+ * proper suffix that is also in the trie, and knows the substring that ends at
+ * the node or at one of the nodes reached by failure links. A node that
+ * completes a substring has no children, as the search stops there anyway.
+ * <p>
+ * Case-insensitive automatons store folded characters (see
+ * {@link IOCase#foldCase(char)}) and fold every filename character. As the JDK
+ * compares surrogate pairs as code points, filenames containing surrogates are
+ * searched with {@link IOCase#checkIndexOf(String, int, String)} for every
+ * substring instead if any of the substrings contains surrogates.
+ */
+final class SubstringAutomaton {
+
+    /** The root node of the trie. */
+    private static final int ROOT = 0;
+
+    /** Case sensitivity used for matching. */
+    private final IOCase caseSensitivity;
+
+    /** The substrings - may contain null entries that are ignored. */
+    private final String[] substrings;
+
+    /** Whether filenames containing surrogates use the fallback. */
+    private final boolean surrogates;
+
+    /** Index of the first edge of a node. */
+    private final int[] edgeStart;
+
+    /** Index after the last edge of a node. */
+    private final int[] edgeEnd;
+
+    /** Label of an edge. */
+    private final char[] labels;
+
+    /** Target node of an edge. */
+    private final int[] targets;
+
+    /** Failure link of a node. */
+    private final int[] fail;
+
+    /** Index of the substring found at a node or -1. */
+    private final int[] output;
+
+    /** Number of nodes used during construction. */
+    private int nodeCount;
+
+    /** Number of edges used during construction. */
+    private int edgeCount;
+
+    /**
+     * Constructor with substrings and case sensitivity.
+     * 
+     * @param substrings
+     *            the substrings to find, null entries are ignored
+     * @param caseSensitivity
+     *            what case sensitivity rule to use, not null
+     */
+    SubstringAutomaton(final List<String> substrings, final IOCase caseSensitivity) {
+        this.caseSensitivity = caseSensitivity;
+        this.substrings = substrings.toArray(new String[substrings.size()]);
+        final boolean sensitive = caseSensitivity.isCaseSensitive();
+
+        int count = 0;
+        int chars = 0;
+        boolean found = false;
+        for (final String str : this.substrings) {
+            if (str != null) {
+                count++;
+                chars = chars + str.length();
+                found = found || IOCase.containsSurrogate(str);
+            }
+        }
+        this.surrogates = !sensitive && found;
+
+        final String[] keys = new String[this.substrings.length];
+        final Integer[] order = new Integer[count];
+        int idx = 0;
+        for (int i = 0; i < this.substrings.length; i++) {
+            final String str = this.substrings[i];
+            if (str != null) {
+                keys[i] = sensitive ? str : fold(str);
+                order[idx++] = Integer.valueOf(i);
+            }
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer a, final Integer b) {
+                final int result = keys[a.intValue()].compareTo(keys[b.intValue()]);
+                if (result != 0) {
+                    return result;
+                }
+                return a.compareTo(b);
+            }
+        });
+
+        edgeStart = new int[chars + 1];
+        edgeEnd = new int[chars + 1];
+        labels = new char[chars];
+        targets = new int[chars];
+        output = new int[chars + 1];
+        Arrays.fill(output, -1);
+        nodeCount = 1;
+        edgeCount = 0;
+        build(ROOT, keys, order, 0, order.length, 0);
+        fail = new int[nodeCount];
+        link();
+    }
+
+    /**
+     * Searches the filename for any of the substrings.
+     * 
+     * @param filename
+     *            the filename to search, not null
+     * 
+     * @return index of a substring found in the filename or -1 if none of
+     *         the substrings is found
+     */
+    int find(final String filename) {
+        if (surrogates && IOCase.containsSurrogate(filename)) {
+            return scan(filename);
+        }
+        final boolean fold = !caseSensitivity.isCaseSensitive();
+        int node = ROOT;
+        if (output[node] >= 0) {
+            return output[node];
+        }
+        final int length = filename.length();
+        for (int i = 0; i < length; i++) {
+            char ch = filename.charAt(i);
+            if (fold) {
+                ch = IOCase.foldCase(ch);
+            }
+            node = next(node, ch);
+            if (output[node] >= 0) {
+                return output[node];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the substring with the given index.
+     * 
+     * @param index
+     *            index of the substring as returned by {@link #find(String)}
+     * 
+     * @return the substring as passed to the constructor
+     */
+    String getSubstring(final int index) {
+        return substrings[index];
+    }
+
+    /**
+     * Returns the node reached from a node by reading a character, following
+     * failure links if the node has no matching edge.
+     * 
+     * @param node
+     *            the current node
+     * @param ch
+     *            the (folded) character
+     * 
+     * @return the next node
+     */
+    private int next(final int node, final char ch) {
+        int current = node;
+        while (true) {
+            final int edge = edge(current, ch);
+            if (edge >= 0) {
+                return targets[edge];
+            }
+            if (current == ROOT) {
+                return ROOT;
+            }
+            current = fail[current];
+        }
+    }
+
+    /**
+     * Returns the edge of a node with the given label.
+     * 
+     * @param node
+     *            the node
+     * @param ch
+     *            the (folded) character
+     * 
+     * @return index of the edge or a negative value if there is no such edge
+     */
+    private int edge(final int node, final char ch) {
+        final int start = edgeStart[node];
+        final int end = edgeEnd[node];
+        if (start == end) {
+            return -1;
+        }
+        return Arrays.binarySearch(labels, start, end, ch);
+    }
+
+    /**
+     * Searches the filename for every substring one after another.
+     * 
+     * @param filename
+     *            the filename to search, not null
+     * 
+     * @return index of a substring found in the filename or -1 if none of
+     *         the substrings is found
+     */
+    private int scan(final String filename) {
+        for (int i = 0; i < substrings.length; i++) {
+            final String str = substrings[i];
+            if (str != null && caseSensitivity.checkIndexOf(filename, 0, str) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Builds a node and its children from a sorted range of keys that share
+     * the first <code>depth</code> characters.
+     * 
+     * @param node
+     *            index of the node to build
+     * @param keys
+     *            keys by substring index
+     * @param order
+     *            substring indexes sorted by key
+     * @param from
+     *            first entry of the range (inclusive)
+     * @param to
+     *            last entry of the range (exclusive)
+     * @param depth
+     *            number of characters shared by the keys
+     */
+    private void build(final int node, final String[] keys, final Integer[] order, final int from,
+            final int to, final int depth) {
+        if (from == to) {
+            return;
+        }
+        if (keys[order[from].intValue()].length() == depth) {
+            // The shortest key ends here - the search stops at this node
+            output[node] = order[from].intValue();
+            return;
+        }
+        // Reserve the edges of this node first to keep them together
+        int groups = 0;
+        for (int i = from; i < to; i++) {
+            if (i == from || charAt(keys, order, i, depth) != charAt(keys, order, i - 1, depth)) {
+                groups++;
+            }
+        }
+        final int first = edgeCount;
+        edgeStart[node] = first;
+        edgeEnd[node] = first + groups;
+        edgeCount = edgeCount + groups;
+        int edge = first;
+        int start = from;
+        for (int i = from + 1; i <= to; i++) {
+            if (i == to || charAt(keys, order, i, depth) != charAt(keys, order, start, depth)) {
+                final int child = nodeCount++;
+                labels[edge] = charAt(keys, order, start, depth);
+                targets[edge] = child;
+                edge++;
+                build(child, keys, order, start, i, depth + 1);
+                start = i;
+            }
+        }
+    }
+
+    /**
+     * Computes the failure links and propagates the output along them in
+     * breadth-first order.
+     */
+    private void link() {
+        final int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = ROOT;
+        while (head < tail) {
+            final int node = queue[head++];
+            for (int edge = edgeStart[node]; edge < edgeEnd[node]; edge++) {
+                final int child = targets[edge];
+                if (node == ROOT) {
+                    fail[child] = ROOT;
+                } else {
+                    fail[child] = next(fail[node], labels[edge]);
+                }
+                if (output[child] < 0) {
+                    output[child] = output[fail[child]];
+                }
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    /**
+     * Returns a character of a key.
+     * 
+     * @param keys
+     *            keys by substring index
+     * @param order
+     *            substring indexes sorted by key
+     * @param i
+     *            position in the sorted order
+     * @param depth
+     *            index of the character
+     * 
+     * @return the character
+     */
+    private static char charAt(final String[] keys, final Integer[] order, final int i, final int depth) {
+        return keys[order[i].intValue()].charAt(depth);
+    }
+
+    /**
+     * Folds all characters of a string.
+     * 
+     * @param str
+     *            the string
+     * 
+     * @return the folded string
+     */
+    private static String fold(final String str) {
+        final char[] chars = str.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = IOCase.foldCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+}
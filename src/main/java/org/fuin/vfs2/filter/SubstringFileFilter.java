@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.vfs2.FileFilter;
+import org.apache.commons.vfs2.FileSelectInfo;
+
+/**
+ * Filters filenames that contain any of a list of substrings.
+ * <p>
+ * All substrings are searched at once with an Aho-Corasick automaton, so the
+ * cost depends on the length of the filename and not on the number of
+ * substrings. This is faster than a {@link WildcardFileFilter} with one
+ * <code>*substring*</code> wildcard per substring.
+ * <p>
+ * For example, to print all files and directories in the current directory
+ * whose name contains <code>backup</code> or <code>copy</code>:
+ * 
+ * <pre>
+ * FileSystemManager fsManager = VFS.getManager();
+ * FileObject dir = fsManager.toFileObject(new File(&quot;.&quot;));
+ * FileFilter filter = new SubstringFileFilter(&quot;backup&quot;, &quot;copy&quot;);
+ * FileObject[] files = dir.findFiles(new FileFilterSelector(filter));
+ * for (int i = 0; i &lt; files.length; i++) {
+ *     System.out.println(files[i]);
+ * }
+ * </pre>
+ */
+public class SubstringFileFilter implements FileFilter, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Whether the comparison is case sensitive. */
+    private final IOCase caseSensitivity;
+
+    /** The substrings to search for. */
+    private final List<String> substrings;
+
+    /** Automaton searching all substrings at once. */
+    private transient SubstringAutomaton automaton;
+
+    /**
+     * Constructs a new case-sensitive substring file filter for a list of
+     * substrings.
+     * 
+     * @param substrings
+     *            the substrings to search for, must not be null
+     */
+    public SubstringFileFilter(final List<String> substrings) {
+        this((IOCase) null, substrings);
+    }
+
+    /**
+     * Constructs a new substring file filter for a list of substrings
+     * specifying case-sensitivity.
+     * 
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param substrings
+     *            the substrings to search for, must not be null
+     */
+    public SubstringFileFilter(final IOCase caseSensitivity, final List<String> substrings) {
+        if (substrings == null) {
+            throw new IllegalArgumentException("The list of substrings must not be null");
+        }
+        this.substrings = new ArrayList<String>(substrings);
+        this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.automaton = new SubstringAutomaton(this.substrings, this.caseSensitivity);
+    }
+
+    /**
+     * Constructs a new case-sensitive substring file filter for an array of
+     * substrings.
+     * 
+     * @param substrings
+     *            the substrings to search for, must not be null
+     */
+    public SubstringFileFilter(final String... substrings) {
+        this((IOCase) null, substrings);
+    }
+
+    /**
+     * Constructs a new substring file filter for an array of substrings
+     * specifying case-sensitivity.
+     * 
+     * @param caseSensitivity
+     *            how to handle case sensitivity, null means case-sensitive
+     * @param substrings
+     *            the substrings to search for, must not be null
+     */
+    public SubstringFileFilter(final IOCase caseSensitivity, final String... substrings) {
+        if (substrings == null) {
+            throw new IllegalArgumentException("The array of substrings must not be null");
+        }
+        this.substrings = new ArrayList<String>(Arrays.asList(substrings));
+        this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.automaton = new SubstringAutomaton(this.substrings, this.caseSensitivity);
+    }
+
+    /**
+     * Checks to see if the filename contains one of the substrings.
+     * 
+     * @param fileInfo
+     *            the File to check
+     * 
+     * @return true if the filename contains one of our substrings
+     */
+    @Override
+    public boolean accept(final FileSelectInfo fileInfo) {
+        final String name = FileNameView.baseName(fileInfo);
+        return automaton.find(name) >= 0;
+    }
+
+    /**
+     * Returns the substring found in the filename. This is useful to know why
+     * a file was accepted. If the filename contains several of our
+     * substrings, only one of them is returned.
+     * 
+     * @param fileInfo
+     *            the File to check
+     * 
+     * @return the substring as passed to the constructor or <code>null</code>
+     *         if the filename contains none of our substrings
+     */
+    public String findSubstring(final FileSelectInfo fileInfo) {
+        final String name = FileNameView.baseName(fileInfo);
+        final int index = automaton.find(name);
+        if (index < 0) {
+            return null;
+        }
+        return automaton.getSubstring(index);
+    }
+
+    /**
+     * Restores the automaton after deserialization.
+     * 
+     * @param in
+     *            the stream to read from
+     * @throws IOException
+     *             error reading the stream
+     * @throws ClassNotFoundException
+     *             class of a serialized object not found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.automaton = new SubstringAutomaton(this.substrings, this.caseSensitivity);
+    }
+
+    /**
+     * Provide a String representation of this file filter.
+     * 
+     * @return a String representation
+     */
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append(super.toString());
+        buffer.append("(");
+        if (substrings != null) {
+            for (int i = 0; i < substrings.size(); i++) {
+                if (i > 0) {
+                    buffer.append(",");
+                }
+                buffer.append(substrings.get(i));
+            }
+        }
+        buffer.append(")");
+        return buffer.toString();
+    }
+
+}
@@ -16,8 +16,9 @@
  */
 package org.fuin.vfs2.filter;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -47,11 +48,29 @@ public class SuffixFileFilter implements FileFilter, Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /** Compiles the index of the suffixes. */
+    private static final CompiledPatterns.Compiler<SuffixMatcher> COMPILER =
+            new CompiledPatterns.Compiler<SuffixMatcher>() {
+                @Override
+                public SuffixMatcher compile(final List<String> patterns, final IOCase caseSensitivity) {
+                    return new SuffixMatcher(patterns, caseSensitivity);
+                }
+            };
+
     /** Whether the comparison is case sensitive. */
     private final IOCase caseSensitivity;
 
-    /** The filename suffixes to search for. */
-    private final List<String> suffixes;
+    /** The filename suffixes to search for - shared by equal filters. */
+    private List<String> suffixes;
+
+    /** Perfect hash table of the suffixes or <code>null</code>. */
+    private final PerfectNameSet table;
+
+    /** Keeps the shared suffixes registered or <code>null</code> if the table is used. */
+    private transient CompiledPatterns<SuffixMatcher> patterns;
+
+    /** Index of the suffixes respecting the case sensitivity. */
+    private transient SuffixMatcher matcher;
 
     /**
      * Constructs a new Suffix file filter for a list of suffixes.
@@ -76,8 +95,9 @@ public class SuffixFileFilter implements FileFilter, Serializable {
         if (suffixes == null) {
             throw new IllegalArgumentException("The list of suffixes must not be null");
         }
-        this.suffixes = new ArrayList<String>(suffixes);
         this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.table = null;
+        init(PatternRegistry.compile(COMPILER, this.caseSensitivity, suffixes));
     }
 
     /**
@@ -103,12 +123,33 @@ public class SuffixFileFilter implements FileFilter, Serializable {
         if (suffixes == null) {
             throw new IllegalArgumentException("The array of suffixes must not be null");
         }
-        this.suffixes = new ArrayList<String>(Arrays.asList(suffixes));
         this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.table = null;
+        init(PatternRegistry.compile(COMPILER, this.caseSensitivity, Arrays.asList(suffixes)));
+    }
+
+    /**
+     * Constructs a new Suffix file filter backed by a perfect hash table that
+     * was built in advance. The suffixes and the case sensitivity are taken
+     * from the table.
+     * 
+     * @param suffixes
+     *            the suffixes to allow, must not be null
+     */
+    public SuffixFileFilter(final PerfectNameSet suffixes) {
+        if (suffixes == null) {
+            throw new IllegalArgumentException("The set of suffixes must not be null");
+        }
+        this.suffixes = suffixes.getNames();
+        this.caseSensitivity = suffixes.getCaseSensitivity();
+        this.table = suffixes;
+        this.matcher = new SuffixMatcher(suffixes);
     }
 
     /**
-     * Checks to see if the filename ends with the suffix.
+     * Checks to see if the filename ends with the suffix. The suffixes are
+     * indexed, so the cost depends on the length of the filename and not on
+     * the number of suffixes.
      * 
      * @param fileInfo
      *            the File to check
@@ -117,13 +158,43 @@ public class SuffixFileFilter implements FileFilter, Serializable {
      */
     @Override
     public boolean accept(final FileSelectInfo fileInfo) {
+        if (fileInfo instanceof FileNameView) {
+            return matcher.matches((FileNameView) fileInfo);
+        }
         final String name = fileInfo.getFile().getName().getBaseName();
-        for (final String suffix : this.suffixes) {
-            if (caseSensitivity.checkEndsWith(name, suffix)) {
-                return true;
-            }
+        return matcher.matches(name);
+    }
+
+    /**
+     * Uses shared suffixes and their index.
+     * 
+     * @param compiled
+     *            the suffixes and their index
+     */
+    private void init(final CompiledPatterns<SuffixMatcher> compiled) {
+        this.patterns = compiled;
+        this.suffixes = compiled.getPatterns();
+        this.matcher = compiled.getMatcher();
+    }
+
+    /**
+     * Restores the shared suffixes and index after deserialization.
+     * 
+     * @param in
+     *            the stream to read from
+     * @throws IOException
+     *             error reading the stream
+     * @throws ClassNotFoundException
+     *             class of a serialized object not found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (table == null) {
+            init(PatternRegistry.compile(COMPILER, this.caseSensitivity, this.suffixes));
+        } else {
+            this.suffixes = table.getNames();
+            this.matcher = new SuffixMatcher(table);
         }
-        return false;
     }
 
     /**
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Checks if a filename ends with any of a set of suffixes.
+ * <p>
+ * If every suffix is a simple extension like <code>.txt</code> (a dot followed
+ * by at least one character that is not a dot), the extension of the filename
+ * is looked up in a {@link NameTable}. Otherwise the suffixes are stored in a
+ * reversed {@link NameTrie} that walks the filename backwards once. Suffixes
+ * given as a {@link PerfectNameSet} are looked up in the set once for every
+ * distinct suffix length.
+ */
+final class SuffixMatcher {
+
+    /** Extensions without the dot or <code>null</code> if the trie is used. */
+    private final NameTable extensions;
+
+    /** Reversed trie of the suffixes or <code>null</code> if the table is used. */
+    private final NameTrie trie;
+
+    /** Perfect hash table of the suffixes or <code>null</code>. */
+    private final PerfectNameSet set;
+
+    /**
+     * Constructor with suffixes and case sensitivity.
+     * 
+     * @param suffixes
+     *            the suffixes to match, null entries are ignored
+     * @param caseSensitivity
+     *            what case sensitivity rule to use, not null
+     */
+    SuffixMatcher(final Collection<String> suffixes, final IOCase caseSensitivity) {
+        final List<String> list = new ArrayList<String>();
+        boolean simple = true;
+        for (final String suffix : suffixes) {
+            if (suffix != null) {
+                if (isExtension(suffix)) {
+                    list.add(suffix.substring(1));
+                } else {
+                    simple = false;
+                }
+            }
+        }
+        this.set = null;
+        if (simple && list.size() > 0) {
+            this.extensions = new NameTable(list, caseSensitivity);
+            this.trie = null;
+        } else {
+            this.extensions = null;
+            this.trie = new NameTrie(suffixes, caseSensitivity, true);
+        }
+    }
+
+    /**
+     * Constructor with a perfect hash table of the suffixes.
+     * 
+     * @param suffixes
+     *            the suffixes to match, not null
+     */
+    SuffixMatcher(final PerfectNameSet suffixes) {
+        this.extensions = null;
+        this.trie = null;
+        this.set = suffixes;
+    }
+
+    /**
+     * Checks if the filename ends with any of the suffixes.
+     * 
+     * @param filename
+     *            the filename to check, not null
+     * 
+     * @return true if the filename ends with one of the suffixes
+     */
+    boolean matches(final String filename) {
+        if (set != null) {
+            final int length = filename.length();
+            for (final int len : set.getLengths()) {
+                if (len > length) {
+                    return false;
+                }
+                if (set.contains(filename, length - len, length)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (extensions == null) {
+            return trie.matches(filename);
+        }
+        final int dot = filename.lastIndexOf('.');
+        return dot >= 0 && extensions.contains(filename, dot + 1, filename.length());
+    }
+
+    /**
+     * Checks if the base name of a view ends with any of the suffixes. Simple
+     * extensions are looked up with the extension of the view.
+     * 
+     * @param view
+     *            the view of the file to check, not null
+     * 
+     * @return true if the base name ends with one of the suffixes
+     */
+    boolean matches(final FileNameView view) {
+        if (extensions == null) {
+            return matches(view.getBaseName());
+        }
+        return extensions.contains(view.getExtension());
+    }
+
+    /**
+     * Checks if a suffix is a dot followed by at least one character that is
+     * not a dot.
+     * 
+     * @param suffix
+     *            the suffix to check, not null
+     * 
+     * @return true if the suffix is a simple extension
+     */
+    private static boolean isExtension(final String suffix) {
+        return suffix.length() > 1 && suffix.charAt(0) == '.' && suffix.indexOf('.', 1) < 0;
+    }
+
+}
@@ -0,0 +1,463 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Combined automaton that matches a filename against any number of wildcards
+ * in a single pass.
+ * <p>
+ * All wildcards are translated into one NFA with a state for every character
+ * position. DFA states are built lazily from sets of NFA states while
+ * filenames are scanned and are cached for later calls, so the cost of a match
+ * depends on the length of the filename only. Characters that do not appear in
+ * any wildcard share one transition.
+ * <p>
+ * Case-insensitive matching folds the wildcards once and every filename
+ * character while scanning. Filenames containing surrogates are matched
+ * case-insensitively by the single {@link WildcardPattern}s instead, as they
+ * compare surrogate pairs as code points. The same fallback is used if the
+ * number of DFA states exceeds {@link #MAX_STATES}.
+ */
+final class WildcardAutomaton {
+
+    /** Maximum number of cached DFA states. */
+    static final int MAX_STATES = 10000;
+
+    /** NFA state matching a single character. */
+    private static final byte CHAR = 0;
+
+    /** NFA state matching any character. */
+    private static final byte ANY = 1;
+
+    /** NFA state matching any number of characters. */
+    private static final byte STAR = 2;
+
+    /** NFA state at the end of a wildcard. */
+    private static final byte ACCEPT = 3;
+
+    /** Patterns used for the fallback. */
+    private final WildcardPattern[] patterns;
+
+    /** Whether characters are folded before matching. */
+    private final boolean fold;
+
+    /** Type of each NFA state. */
+    private final byte[] kinds;
+
+    /** Expected character for NFA states of type {@link #CHAR}. */
+    private final char[] chars;
+
+    /** Character class of every ASCII character. */
+    private final int[] asciiClasses;
+
+    /** Sorted non-ASCII characters that have their own class. */
+    private final char[] otherChars;
+
+    /** Class of the corresponding entry in {@link #otherChars}. */
+    private final int[] otherClasses;
+
+    /** Representative character for every class. */
+    private final char[] classChars;
+
+    /** DFA states built so far. */
+    private final ConcurrentMap<State, State> states;
+
+    /** DFA start state. */
+    private final State start;
+
+    /**
+     * Constructor with patterns and case sensitivity.
+     * 
+     * @param patterns
+     *            the wildcards to combine, not null
+     * @param caseSensitivity
+     *            case sensitivity rule the patterns were compiled with, not
+     *            null
+     */
+    WildcardAutomaton(final List<WildcardPattern> patterns, final IOCase caseSensitivity) {
+        this.patterns = patterns.toArray(new WildcardPattern[patterns.size()]);
+        this.fold = !caseSensitivity.isCaseSensitive();
+
+        int count = 0;
+        for (final WildcardPattern pattern : this.patterns) {
+            count = count + size(pattern) + 1;
+        }
+        kinds = new byte[count];
+        chars = new char[count];
+        final int[] starts = new int[this.patterns.length];
+        int idx = 0;
+        for (int i = 0; i < this.patterns.length; i++) {
+            starts[i] = idx;
+            idx = add(this.patterns[i], idx);
+        }
+
+        final char[] alphabet = alphabet();
+        asciiClasses = new int[128];
+        int others = 0;
+        for (final char ch : alphabet) {
+            if (ch >= 128) {
+                others++;
+            }
+        }
+        otherChars = new char[others];
+        otherClasses = new int[others];
+        classChars = new char[alphabet.length + 1];
+        classChars[0] = unusedChar(alphabet);
+        int o = 0;
+        for (int i = 0; i < alphabet.length; i++) {
+            final char ch = alphabet[i];
+            classChars[i + 1] = ch;
+            if (ch < 128) {
+                asciiClasses[ch] = i + 1;
+            } else {
+                otherChars[o] = ch;
+                otherClasses[o] = i + 1;
+                o++;
+            }
+        }
+
+        states = new ConcurrentHashMap<State, State>();
+        final boolean[] set = new boolean[count];
+        for (final int s : starts) {
+            closure(set, s);
+        }
+        start = canonical(set);
+    }
+
+    /**
+     * Checks if the filename matches any of the wildcards.
+     * 
+     * @param filename
+     *            the filename to match on, not null
+     * 
+     * @return true if the filename matches at least one wildcard
+     */
+    boolean matches(final String filename) {
+        State state = start;
+        final int length = filename.length();
+        for (int i = 0; i < length; i++) {
+            if (state.acceptsAll) {
+                return true;
+            }
+            if (state.dead) {
+                return false;
+            }
+            char ch = filename.charAt(i);
+            if (fold) {
+                if (IOCase.isSurrogate(ch)) {
+                    return matchesAny(filename);
+                }
+                ch = IOCase.foldCase(ch);
+            }
+            final int cls = classOf(ch);
+            State next = state.next[cls];
+            if (next == null) {
+                next = step(state, cls);
+                if (next == null) {
+                    return matchesAny(filename);
+                }
+                state.next[cls] = next;
+            }
+            state = next;
+        }
+        return state.accepting;
+    }
+
+    /**
+     * Matches the filename against the single patterns one after another.
+     * 
+     * @param filename
+     *            the filename to match on, not null
+     * 
+     * @return true if the filename matches at least one wildcard
+     */
+    private boolean matchesAny(final String filename) {
+        for (final WildcardPattern pattern : patterns) {
+            if (pattern.matches(filename)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the character class of a (folded) character.
+     * 
+     * @param ch
+     *            the character
+     * 
+     * @return the class, zero for characters not used in any wildcard
+     */
+    private int classOf(final char ch) {
+        if (ch < 128) {
+            return asciiClasses[ch];
+        }
+        final int idx = Arrays.binarySearch(otherChars, ch);
+        if (idx < 0) {
+            return 0;
+        }
+        return otherClasses[idx];
+    }
+
+    /**
+     * Computes the successor of a DFA state.
+     * 
+     * @param state
+     *            the current state
+     * @param cls
+     *            class of the character read
+     * 
+     * @return the next state or <code>null</code> if the state limit is
+     *         reached
+     */
+    private State step(final State state, final int cls) {
+        final char ch = classChars[cls];
+        final boolean[] set = new boolean[kinds.length];
+        for (final int s : state.nfa) {
+            final byte kind = kinds[s];
+            if (kind == STAR) {
+                closure(set, s);
+            } else if (kind == ANY || (kind == CHAR && chars[s] == ch)) {
+                closure(set, s + 1);
+            }
+        }
+        return canonical(set);
+    }
+
+    /**
+     * Adds an NFA state and all states reachable without reading a character.
+     * 
+     * @param set
+     *            set of NFA states to add to
+     * @param nfaState
+     *            the state to add
+     */
+    private void closure(final boolean[] set, final int nfaState) {
+        int s = nfaState;
+        set[s] = true;
+        while (kinds[s] == STAR) {
+            s++;
+            set[s] = true;
+        }
+    }
+
+    /**
+     * Returns the cached DFA state for a set of NFA states or creates it.
+     * 
+     * @param set
+     *            the set of NFA states
+     * 
+     * @return the DFA state or <code>null</code> if the state limit is
+     *         reached
+     */
+    private State canonical(final boolean[] set) {
+        int size = 0;
+        for (final boolean b : set) {
+            if (b) {
+                size++;
+            }
+        }
+        final int[] nfa = new int[size];
+        int idx = 0;
+        boolean accepting = false;
+        boolean acceptsAll = false;
+        for (int s = 0; s < set.length; s++) {
+            if (set[s]) {
+                nfa[idx++] = s;
+                if (kinds[s] == ACCEPT) {
+                    accepting = true;
+                    acceptsAll = acceptsAll || s > 0 && kinds[s - 1] == STAR;
+                }
+            }
+        }
+        final State state = new State(nfa, accepting, acceptsAll, classChars.length);
+        final State existing = states.get(state);
+        if (existing != null) {
+            return existing;
+        }
+        if (states.size() >= MAX_STATES) {
+            return null;
+        }
+        final State other = states.putIfAbsent(state, state);
+        if (other == null) {
+            return state;
+        }
+        return other;
+    }
+
+    /**
+     * Returns the number of NFA states required for a pattern without the
+     * final accepting state.
+     * 
+     * @param pattern
+     *            the pattern
+     * 
+     * @return number of states
+     */
+    private static int size(final WildcardPattern pattern) {
+        int size = 0;
+        for (int i = 0; i < pattern.getTokenCount(); i++) {
+            if (pattern.getType(i) == WildcardPattern.LITERAL) {
+                size = size + pattern.getLiteral(i).length();
+            } else {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Adds the NFA states of a pattern.
+     * 
+     * @param pattern
+     *            the pattern to add
+     * @param first
+     *            index of the first state to use
+     * 
+     * @return index of the next free state
+     */
+    private int add(final WildcardPattern pattern, final int first) {
+        int idx = first;
+        for (int i = 0; i < pattern.getTokenCount(); i++) {
+            final byte type = pattern.getType(i);
+            if (type == WildcardPattern.LITERAL) {
+                final String literal = pattern.getLiteral(i);
+                for (int j = 0; j < literal.length(); j++) {
+                    kinds[idx] = CHAR;
+                    chars[idx] = fold ? IOCase.foldCase(literal.charAt(j)) : literal.charAt(j);
+                    idx++;
+                }
+            } else {
+                kinds[idx] = type == WildcardPattern.ANY_CHAR ? ANY : STAR;
+                idx++;
+            }
+        }
+        kinds[idx] = ACCEPT;
+        return idx + 1;
+    }
+
+    /**
+     * Returns the sorted distinct characters used by all NFA states.
+     * 
+     * @return the alphabet
+     */
+    private char[] alphabet() {
+        final char[] all = new char[chars.length];
+        int count = 0;
+        for (int s = 0; s < kinds.length; s++) {
+            if (kinds[s] == CHAR) {
+                all[count++] = chars[s];
+            }
+        }
+        Arrays.sort(all, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || all[distinct - 1] != all[i]) {
+                all[distinct++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, distinct);
+    }
+
+    /**
+     * Returns a character that is not part of the alphabet.
+     * 
+     * @param alphabet
+     *            the sorted alphabet
+     * 
+     * @return an unused character
+     */
+    private static char unusedChar(final char[] alphabet) {
+        char ch = 0;
+        for (final char used : alphabet) {
+            if (used != ch) {
+                break;
+            }
+            ch++;
+        }
+        return ch;
+    }
+
+    /**
+     * DFA state representing a set of NFA states. Equality is based on the NFA
+     * states only.
+     */
+    private static final class State {
+
+        /** Sorted NFA states. */
+        private final int[] nfa;
+
+        /** Whether a filename ending in this state matches. */
+        private final boolean accepting;
+
+        /** Whether any continuation of the filename matches. */
+        private final boolean acceptsAll;
+
+        /** Whether no continuation of the filename matches. */
+        private final boolean dead;
+
+        /** Successor states by character class - filled lazily. */
+        private final State[] next;
+
+        /** Hash code of the NFA states. */
+        private final int hash;
+
+        /**
+         * Constructor with all data.
+         * 
+         * @param nfa
+         *            sorted NFA states
+         * @param accepting
+         *            whether a filename ending in this state matches
+         * @param acceptsAll
+         *            whether any continuation of the filename matches
+         * @param classes
+         *            number of character classes
+         */
+        State(final int[] nfa, final boolean accepting, final boolean acceptsAll, final int classes) {
+            this.nfa = nfa;
+            this.accepting = accepting;
+            this.acceptsAll = acceptsAll;
+            this.dead = nfa.length == 0;
+            this.next = new State[classes];
+            this.hash = Arrays.hashCode(nfa);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof State)) {
+                return false;
+            }
+            return Arrays.equals(nfa, ((State) obj).nfa);
+        }
+
+    }
+
+}
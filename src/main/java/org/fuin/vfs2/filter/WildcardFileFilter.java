@@ -16,11 +16,12 @@
  */
 package org.fuin.vfs2.filter;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Stack;
 
 import org.apache.commons.vfs2.FileFilter;
 import org.apache.commons.vfs2.FileSelectInfo;
@@ -56,11 +57,23 @@ public class WildcardFileFilter implements FileFilter, Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /** Compiles the matcher for the wildcards. */
+    private static final CompiledPatterns.Compiler<WildcardMatcher> COMPILER =
+            new CompiledPatterns.Compiler<WildcardMatcher>() {
+                @Override
+                public WildcardMatcher compile(final List<String> patterns, final IOCase caseSensitivity) {
+                    return new WildcardMatcher(patterns, caseSensitivity);
+                }
+            };
+
     /** Whether the comparison is case sensitive. */
     private final IOCase caseSensitivity;
 
-    /** The wildcards that will be used to match filenames. */
-    private final List<String> wildcards;
+    /** The wildcards that will be used to match filenames - shared by equal filters. */
+    private List<String> wildcards;
+
+    /** Wildcards and their precompiled matcher. */
+    private transient CompiledPatterns<WildcardMatcher> patterns;
 
     /**
      * Construct a new case-sensitive wildcard filter for a list of wildcards.
@@ -85,8 +98,9 @@ public class WildcardFileFilter implements FileFilter, Serializable {
         if (wildcards == null) {
             throw new IllegalArgumentException("The wildcard list must not be null");
         }
-        this.wildcards = new ArrayList<String>(wildcards);
         this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.patterns = PatternRegistry.compile(COMPILER, this.caseSensitivity, wildcards);
+        this.wildcards = patterns.getPatterns();
     }
 
     /**
@@ -115,8 +129,9 @@ public class WildcardFileFilter implements FileFilter, Serializable {
         if (wildcards == null) {
             throw new IllegalArgumentException("The wildcard array must not be null");
         }
-        this.wildcards = new ArrayList<String>(Arrays.asList(wildcards));
         this.caseSensitivity = caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity;
+        this.patterns = PatternRegistry.compile(COMPILER, this.caseSensitivity, Arrays.asList(wildcards));
+        this.wildcards = patterns.getPatterns();
     }
 
     /**
@@ -129,13 +144,8 @@ public class WildcardFileFilter implements FileFilter, Serializable {
      */
     @Override
     public boolean accept(final FileSelectInfo fileInfo) {
-        final String name = fileInfo.getFile().getName().getBaseName();
-        for (final String wildcard : wildcards) {
-            if (wildcardMatch(name, wildcard, caseSensitivity)) {
-                return true;
-            }
-        }
-        return false;
+        final String name = FileNameView.baseName(fileInfo);
+        return patterns.getMatcher().matches(name);
     }
 
     /**
@@ -160,6 +170,22 @@ public class WildcardFileFilter implements FileFilter, Serializable {
         return buffer.toString();
     }
 
+    /**
+     * Restores the precompiled wildcards after deserialization.
+     * 
+     * @param in
+     *            the stream to read from
+     * @throws IOException
+     *             error reading the stream
+     * @throws ClassNotFoundException
+     *             class of a serialized object not found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.patterns = PatternRegistry.compile(COMPILER, this.caseSensitivity, this.wildcards);
+        this.wildcards = patterns.getPatterns();
+    }
+
     /**
      * Splits a string into a number of tokens. The text is split by '?' and
      * '*'. Where multiple '*' occur consecutively they are collapsed into a
@@ -212,6 +238,8 @@ public class WildcardFileFilter implements FileFilter, Serializable {
      * The wildcard matcher uses the characters '?' and '*' to represent a
      * single or multiple (zero or more) wildcard characters. N.B. the sequence
      * "*?" does not work properly at present in match strings.
+     * <p>
+     * The compiled wildcard is taken from the {@link PatternCache}.
      * 
      * @param filename
      *            the filename to match on
@@ -222,91 +250,16 @@ public class WildcardFileFilter implements FileFilter, Serializable {
      * 
      * @return true if the filename matches the wilcard string
      */
-    // CHECKSTYLE:OFF TODO xxx Cyclomatic complexity of 19 should be refactored
     static boolean wildcardMatch(final String filename, final String wildcardMatcher,
-            IOCase caseSensitivity) {
+            final IOCase caseSensitivity) {
         if (filename == null && wildcardMatcher == null) {
             return true;
         }
         if (filename == null || wildcardMatcher == null) {
             return false;
         }
-        if (caseSensitivity == null) {
-            caseSensitivity = IOCase.SENSITIVE;
-        }
-        final String[] wcs = splitOnTokens(wildcardMatcher);
-        boolean anyChars = false;
-        int textIdx = 0;
-        int wcsIdx = 0;
-        final Stack<int[]> backtrack = new Stack<int[]>();
-
-        // loop around a backtrack stack, to handle complex * matching
-        do {
-            if (backtrack.size() > 0) {
-                final int[] array = backtrack.pop();
-                wcsIdx = array[0];
-                textIdx = array[1];
-                anyChars = true;
-            }
-
-            // loop whilst tokens and text left to process
-            while (wcsIdx < wcs.length) {
-
-                if (wcs[wcsIdx].equals("?")) {
-                    // ? so move to next text char
-                    textIdx++;
-                    if (textIdx > filename.length()) {
-                        break;
-                    }
-                    anyChars = false;
-
-                } else if (wcs[wcsIdx].equals("*")) {
-                    // set any chars status
-                    anyChars = true;
-                    if (wcsIdx == wcs.length - 1) {
-                        textIdx = filename.length();
-                    }
-
-                } else {
-                    // matching text token
-                    if (anyChars) {
-                        // any chars then try to locate text token
-                        textIdx = caseSensitivity.checkIndexOf(filename, textIdx, wcs[wcsIdx]);
-                        if (textIdx == -1) {
-                            // token not found
-                            break;
-                        }
-                        final int repeat = caseSensitivity.checkIndexOf(filename, textIdx + 1,
-                                wcs[wcsIdx]);
-                        if (repeat >= 0) {
-                            backtrack.push(new int[] { wcsIdx, repeat });
-                        }
-                    } else {
-                        // matching from current position
-                        if (!caseSensitivity.checkRegionMatches(filename, textIdx, wcs[wcsIdx])) {
-                            // couldnt match token
-                            break;
-                        }
-                    }
-
-                    // matched text token, move text index to end of matched
-                    // token
-                    textIdx += wcs[wcsIdx].length();
-                    anyChars = false;
-                }
-
-                wcsIdx++;
-            }
-
-            // full match
-            if (wcsIdx == wcs.length && textIdx == filename.length()) {
-                return true;
-            }
-
-        } while (backtrack.size() > 0);
-
-        return false;
+        return PatternCache.wildcard(wildcardMatcher,
+                caseSensitivity == null ? IOCase.SENSITIVE : caseSensitivity).matches(filename);
     }
-    // CHECKSTYLE:ON
 
 }
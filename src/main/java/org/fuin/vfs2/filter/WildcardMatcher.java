@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Matches a filename against a list of wildcards.
+ * <p>
+ * Every wildcard is classified by its shape when the matcher is created:
+ * <ul>
+ * <li><code>name</code> - exact names are looked up in a hash table.</li>
+ * <li><code>*.ext</code> - suffixes are looked up by a {@link SuffixMatcher}.</li>
+ * <li><code>prefix*</code> - prefixes are looked up in a {@link NameTrie}.</li>
+ * <li><code>*</code> - matches any filename.</li>
+ * </ul>
+ * All other wildcards are combined into a {@link WildcardAutomaton}. For
+ * wildcards like <code>*infix*</code> the automaton searches all infixes in a
+ * single pass.
+ */
+final class WildcardMatcher {
+
+    /** Whether any filename matches. */
+    private final boolean matchAll;
+
+    /** Wildcards without '?' and '*'. */
+    private final NameTable names;
+
+    /** Literal part of wildcards like <code>prefix*</code>. */
+    private final NameTrie prefixes;
+
+    /** Literal part of wildcards like <code>*.ext</code>. */
+    private final SuffixMatcher suffixes;
+
+    /** Automaton for all other wildcards or <code>null</code> if none. */
+    private final WildcardAutomaton automaton;
+
+    /**
+     * Constructor with wildcards and case sensitivity.
+     * 
+     * @param wildcards
+     *            the wildcards to match, null entries are ignored
+     * @param caseSensitivity
+     *            what case sensitivity rule to use, not null
+     */
+    WildcardMatcher(final List<String> wildcards, final IOCase caseSensitivity) {
+        boolean all = false;
+        final List<String> nameList = new ArrayList<String>();
+        final List<String> prefixList = new ArrayList<String>();
+        final List<String> suffixList = new ArrayList<String>();
+        final List<WildcardPattern> complex = new ArrayList<WildcardPattern>();
+        for (final String wildcard : wildcards) {
+            if (wildcard == null) {
+                // A null wildcard never matches
+                continue;
+            }
+            final WildcardPattern pattern = PatternCache.wildcard(wildcard, caseSensitivity);
+            final String shape = shape(pattern);
+            if (shape.equals("L")) {
+                nameList.add(pattern.getLiteral(0));
+            } else if (shape.equals("*")) {
+                all = true;
+            } else if (shape.equals("L*")) {
+                prefixList.add(pattern.getLiteral(0));
+            } else if (shape.equals("*L")) {
+                suffixList.add(pattern.getLiteral(1));
+            } else {
+                complex.add(pattern);
+            }
+        }
+        this.matchAll = all;
+        this.names = new NameTable(nameList, caseSensitivity);
+        this.prefixes = new NameTrie(prefixList, caseSensitivity);
+        this.suffixes = new SuffixMatcher(suffixList, caseSensitivity);
+        if (complex.isEmpty()) {
+            this.automaton = null;
+        } else {
+            this.automaton = new WildcardAutomaton(complex, caseSensitivity);
+        }
+    }
+
+    /**
+     * Checks if the filename matches any of the wildcards.
+     * 
+     * @param filename
+     *            the filename to match on, not null
+     * 
+     * @return true if the filename matches at least one wildcard
+     */
+    boolean matches(final String filename) {
+        if (matchAll) {
+            return true;
+        }
+        if (names.size() > 0 && names.contains(filename)) {
+            return true;
+        }
+        if (suffixes.matches(filename)) {
+            return true;
+        }
+        if (prefixes.matches(filename)) {
+            return true;
+        }
+        return automaton != null && automaton.matches(filename);
+    }
+
+    /**
+     * Returns the shape of a pattern with 'L' for a literal token and '*' or
+     * '?' for the other tokens.
+     * 
+     * @param pattern
+     *            the pattern
+     * 
+     * @return the shape, for example <code>*L</code> for <code>*.txt</code>
+     */
+    private static String shape(final WildcardPattern pattern) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < pattern.getTokenCount(); i++) {
+            final byte type = pattern.getType(i);
+            if (type == WildcardPattern.LITERAL) {
+                sb.append('L');
+            } else if (type == WildcardPattern.ANY_CHAR) {
+                sb.append('?');
+            } else {
+                sb.append('*');
+            }
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable, precompiled form of a single wildcard.
+ * <p>
+ * The wildcard is split into tokens once when it is compiled and the literal
+ * tokens are prepared for the case sensitivity rule (see {@link CaseLiteral}).
+ * Matching a filename afterwards does not allocate any objects and returns
+ * exactly the same result as
+ * {@link WildcardFileFilter#wildcardMatch(String, String, IOCase)} did with
+ * the former backtracking implementation. This includes the quirk that a '*'
+ * directly followed by a '?' behaves like a single '?'.
+ */
+final class WildcardPattern {
+
+    /** Token type for a literal text. */
+    static final byte LITERAL = 0;
+
+    /** Token type for '?'. */
+    static final byte ANY_CHAR = 1;
+
+    /** Token type for '*'. */
+    static final byte ANY_CHARS = 2;
+
+    /** The wildcard this pattern was compiled from. */
+    private final String wildcard;
+
+    /** Types of the tokens. */
+    private final byte[] types;
+
+    /** Literal tokens - <code>null</code> for other types. */
+    private final CaseLiteral[] literals;
+
+    /**
+     * Constructor with all data.
+     * 
+     * @param wildcard
+     *            the wildcard this pattern was compiled from
+     * @param types
+     *            types of the tokens
+     * @param literals
+     *            the literal tokens
+     */
+    private WildcardPattern(final String wildcard, final byte[] types, final CaseLiteral[] literals) {
+        this.wildcard = wildcard;
+        this.types = types;
+        this.literals = literals;
+    }
+
+    /**
+     * Compiles a wildcard into a token program.
+     * 
+     * @param wildcard
+     *            the wildcard to compile, not null
+     * @param caseSensitivity
+     *            what case sensitivity rule to use, not null
+     * 
+     * @return the compiled pattern
+     */
+    static WildcardPattern compile(final String wildcard, final IOCase caseSensitivity) {
+        if (wildcard == null) {
+            throw new IllegalArgumentException("The wildcard must not be null");
+        }
+        final String[] tokens = WildcardFileFilter.splitOnTokens(wildcard);
+        final List<String> list = new ArrayList<String>(tokens.length);
+        for (int i = 0; i < tokens.length; i++) {
+            // A '*' directly followed by '?' never matched more than the '?'
+            if (tokens[i].equals("*") && i + 1 < tokens.length && tokens[i + 1].equals("?")) {
+                continue;
+            }
+            list.add(tokens[i]);
+        }
+        final byte[] types = new byte[list.size()];
+        final CaseLiteral[] literals = new CaseLiteral[list.size()];
+        for (int i = 0; i < list.size(); i++) {
+            final String token = list.get(i);
+            if (token.equals("?")) {
+                types[i] = ANY_CHAR;
+            } else if (token.equals("*")) {
+                types[i] = ANY_CHARS;
+            } else {
+                types[i] = LITERAL;
+                literals[i] = new CaseLiteral(token, caseSensitivity);
+            }
+        }
+        return new WildcardPattern(wildcard, types, literals);
+    }
+
+    /**
+     * Returns the wildcard this pattern was compiled from.
+     * 
+     * @return the wildcard
+     */
+    String getWildcard() {
+        return wildcard;
+    }
+
+    /**
+     * Returns the number of tokens.
+     * 
+     * @return the token count
+     */
+    int getTokenCount() {
+        return types.length;
+    }
+
+    /**
+     * Returns the type of a token.
+     * 
+     * @param index
+     *            index of the token
+     * 
+     * @return one of {@link #LITERAL}, {@link #ANY_CHAR} or {@link #ANY_CHARS}
+     */
+    byte getType(final int index) {
+        return types[index];
+    }
+
+    /**
+     * Returns the text of a literal token.
+     * 
+     * @param index
+     *            index of the token
+     * 
+     * @return the text or <code>null</code> if the token is not a literal
+     */
+    String getLiteral(final int index) {
+        if (literals[index] == null) {
+            return null;
+        }
+        return literals[index].toString();
+    }
+
+    /**
+     * Checks if the filename matches this pattern. Only the last '*' seen is
+     * remembered for backtracking, so no allocation is necessary.
+     * 
+     * @param filename
+     *            the filename to match on, not null
+     * 
+     * @return true if the filename matches the pattern
+     */
+    // CHECKSTYLE:OFF Cyclomatic complexity is OK here
+    boolean matches(final String filename) {
+        final int length = filename.length();
+        final int last = types.length - 1;
+        int textIdx = 0;
+        int tokenIdx = 0;
+        int starTokenIdx = -1;
+        int starTextIdx = -1;
+
+        while (true) {
+            if (tokenIdx <= last) {
+                final byte type = types[tokenIdx];
+                if (type == ANY_CHARS) {
+                    if (tokenIdx == last) {
+                        return true;
+                    }
+                    starTokenIdx = tokenIdx;
+                    starTextIdx = textIdx;
+                    tokenIdx++;
+                    continue;
+                }
+                if (type == ANY_CHAR) {
+                    if (textIdx < length) {
+                        textIdx++;
+                        tokenIdx++;
+                        continue;
+                    }
+                } else {
+                    final CaseLiteral literal = literals[tokenIdx];
+                    if (starTokenIdx >= 0 && tokenIdx == starTokenIdx + 1) {
+                        // First literal after '*'
+                        if (tokenIdx == last) {
+                            final int start = length - literal.length();
+                            return start >= textIdx && literal.matchesAt(filename, start);
+                        }
+                        final int found = literal.indexOf(filename, textIdx);
+                        if (found < 0) {
+                            return false;
+                        }
+                        starTextIdx = found;
+                        textIdx = found + literal.length();
+                        tokenIdx++;
+                        continue;
+                    }
+                    if (literal.matchesAt(filename, textIdx)) {
+                        textIdx += literal.length();
+                        tokenIdx++;
+                        continue;
+                    }
+                }
+            } else if (textIdx == length) {
+                return true;
+            }
+
+            // Mismatch - let the last '*' consume one more character
+            if (starTokenIdx < 0 || starTextIdx >= length) {
+                return false;
+            }
+            starTextIdx++;
+            textIdx = starTextIdx;
+            tokenIdx = starTokenIdx + 1;
+        }
+    }
+
+    // CHECKSTYLE:ON
+
+    @Override
+    public String toString() {
+        return wildcard;
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.vfs2.FileFilterSelector;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSelectInfo;
+import org.apache.commons.vfs2.VFS;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test for {@link AncestorNameFileFilter}.
+ */
+// CHECKSTYLE:OFF Test code
+public class AncestorNameFileFilterTest extends BaseFilterTest {
+
+    private static File testDir;
+
+    @BeforeClass
+    public static void beforeClass() throws IOException {
+        testDir = getTestDir(AncestorNameFileFilterTest.class.getName());
+        FileUtils.touch(new File(testDir, "a.txt"));
+        FileUtils.touch(new File(testDir, "src/b.txt"));
+        FileUtils.touch(new File(testDir, "src/tmp/c.txt"));
+        FileUtils.touch(new File(testDir, "src/tmp/x/d.txt"));
+        FileUtils.touch(new File(testDir, "src/Cache/e.txt"));
+        FileUtils.touch(new File(testDir, "node_modules/lib/f.js"));
+        FileUtils.touch(new File(testDir, "tmpx/g.txt"));
+    }
+
+    @AfterClass
+    public static void afterClass() throws IOException {
+        FileUtils.deleteDirectory(testDir);
+        testDir = null;
+    }
+
+    private static FileSelectInfo fsi(final String path) {
+        return createFSI(testDir, new File(testDir, path));
+    }
+
+    @Test
+    public void testAccept() {
+
+        // PREPARE
+        AncestorNameFileFilter filter = new AncestorNameFileFilter("tmp", "cache", "node_modules");
+
+        // TEST
+        assertThat(filter.accept(fsi("src/tmp/c.txt"))).isTrue();
+        assertThat(filter.accept(fsi("src/tmp/x"))).isTrue();
+        assertThat(filter.accept(fsi("src/tmp/x/d.txt"))).isTrue();
+        assertThat(filter.accept(fsi("node_modules/lib/f.js"))).isTrue();
+        assertThat(filter.accept(fsi("src/tmp"))).isFalse();
+        assertThat(filter.accept(fsi("src/b.txt"))).isFalse();
+        assertThat(filter.accept(fsi("src/Cache/e.txt"))).isFalse();
+        assertThat(filter.accept(fsi("tmpx/g.txt"))).isFalse();
+        assertThat(filter.accept(fsi("a.txt"))).isFalse();
+        assertThat(filter.accept(fsi(""))).isFalse();
+        assertThat(filter.accept(fsi("src/tmp/x/d.txt"))).isTrue();
+
+    }
+
+    @Test
+    public void testAcceptIOCaseInsensitive() {
+
+        // PREPARE
+        AncestorNameFileFilter filter = new AncestorNameFileFilter(IOCase.INSENSITIVE, "cache");
+
+        // TEST
+        assertThat(filter.accept(fsi("src/Cache/e.txt"))).isTrue();
+        assertThat(filter.accept(fsi("src/b.txt"))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptBaseFolder() {
+
+        // PREPARE
+        AncestorNameFileFilter filter = new AncestorNameFileFilter("tmp", "src");
+        File tmp = new File(testDir, "src/tmp");
+
+        // TEST
+        assertThat(filter.accept(createFSI(tmp, new File(tmp, "c.txt")))).isFalse();
+        assertThat(filter.accept(createFSI(tmp, new File(tmp, "x/d.txt")))).isFalse();
+        assertThat(filter.accept(createFSI(tmp, new File(testDir, "node_modules/lib/f.js")))).isFalse();
+        assertThat(filter.accept(fsi("src/tmp/x/d.txt"))).isTrue();
+
+    }
+
+    @Test
+    public void testFindFiles() throws IOException {
+
+        // PREPARE
+        FileObject dir = VFS.getManager().toFileObject(testDir);
+        AncestorNameFileFilter filter = new AncestorNameFileFilter("tmp", "node_modules");
+
+        // TEST
+        FileObject[] files = dir.findFiles(new FileFilterSelector(filter));
+
+        // VERIFY
+        assertThat(files).hasSize(5);
+
+    }
+
+    @Test
+    public void testNullArgConstruction() {
+        try {
+            new AncestorNameFileFilter((List<String>) null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The list of names must not be null");
+        }
+        try {
+            new AncestorNameFileFilter((String[]) null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The array of names must not be null");
+        }
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+
+        // PREPARE
+        AncestorNameFileFilter original = new AncestorNameFileFilter("tmp", "cache");
+        original.accept(fsi("src/tmp/c.txt"));
+
+        // TEST
+        AncestorNameFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.accept(fsi("src/tmp/x/d.txt"))).isTrue();
+        assertThat(filter.accept(fsi("src/b.txt"))).isFalse();
+        assertThat(filter.toString()).contains("(tmp,cache)");
+
+    }
+
+}
+// CHECKSTYLE:ON
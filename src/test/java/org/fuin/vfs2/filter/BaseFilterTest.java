@@ -18,7 +18,13 @@ package org.fuin.vfs2.filter;
 
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.util.Arrays;
 
 import org.apache.commons.vfs2.FileObject;
@@ -69,6 +75,77 @@ public abstract class BaseFilterTest {
         }
     }
 
+    /**
+     * Creates a file select info object for the given file below a base
+     * folder.
+     * 
+     * @param baseFolder
+     *            Base folder of the selection.
+     * @param file
+     *            File to create an info for.
+     * 
+     * @return File selct info.
+     */
+    protected static FileSelectInfo createFSI(final File baseFolder, final File file) {
+        try {
+            final FileSystemManager fsManager = VFS.getManager();
+            final FileObject baseObject = fsManager.toFileObject(baseFolder);
+            final FileObject fileObject = fsManager.toFileObject(file);
+            return new FileSelectInfo() {
+                @Override
+                public FileObject getFile() {
+                    return fileObject;
+                }
+
+                @Override
+                public int getDepth() {
+                    return 0;
+                }
+
+                @Override
+                public FileObject getBaseFolder() {
+                    return baseObject;
+                }
+            };
+        } catch (FileSystemException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Serializes an object and deserializes it again.
+     * 
+     * @param <T>
+     *            Type of the object.
+     * @param obj
+     *            Object to serialize.
+     * 
+     * @return Deserialized copy of the object.
+     */
+    @SuppressWarnings("unchecked")
+    protected static <T extends Serializable> T serializeDeserialize(final T obj) {
+        try {
+            final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            final ObjectOutputStream out = new ObjectOutputStream(bout);
+            try {
+                out.writeObject(obj);
+            } finally {
+                out.close();
+            }
+            final ObjectInputStream in = new ObjectInputStream(
+                    new ByteArrayInputStream(bout.toByteArray()));
+            try {
+                return (T) in.readObject();
+            } finally {
+                in.close();
+            }
+        } catch (final IOException ex) {
+            throw new RuntimeException(ex);
+        } catch (final ClassNotFoundException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
     /**
      * Returns a ZIP file object.
      * 
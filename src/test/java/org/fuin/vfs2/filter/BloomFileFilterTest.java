@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test for {@link BloomFileFilter}.
+ */
+// CHECKSTYLE:OFF Test code
+public class BloomFileFilterTest extends BaseFilterTest {
+
+    private static File testDir;
+
+    @BeforeClass
+    public static void beforeClass() throws IOException {
+        testDir = getTestDir(BloomFileFilterTest.class.getName());
+        testDir.mkdir();
+    }
+
+    @AfterClass
+    public static void afterClass() throws IOException {
+        FileUtils.deleteDirectory(testDir);
+        testDir = null;
+    }
+
+    @Test
+    public void testAcceptNameFileFilter() {
+
+        // PREPARE
+        BloomFileFilter filter = new BloomFileFilter(new NameFileFilter("a.txt", "b.txt", "\ud801\udc00"));
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("a.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("b.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("\ud801\udc00")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("A.txt")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("c.txt")))).isFalse();
+
+        // VERIFY
+        assertThat(filter.getMatchCount()).isEqualTo(3);
+        assertThat(filter.getRejectedCount() + filter.getFalsePositiveCount()).isEqualTo(2);
+
+    }
+
+    @Test
+    public void testAcceptIOCaseInsensitive() {
+
+        // PREPARE
+        BloomFileFilter filter = new BloomFileFilter(new NameFileFilter(IOCase.INSENSITIVE, "Readme.TXT",
+                "\u00c4", "\ud801\udc00"));
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("README.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("\u00e4")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("\ud801\udc00")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("readme")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptNameListFileFilter() throws IOException {
+
+        // PREPARE
+        File file = new File(testDir, "insensitive.lst");
+        NameListBuilder.build(Arrays.asList("Readme.TXT", "\u00c4", "\ud801\udc00"), IOCase.INSENSITIVE, 2, file);
+        BloomFileFilter filter = new BloomFileFilter(new NameListFileFilter(file));
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("README.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("\u00e4")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("\ud801\udc28")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("readme")))).isFalse();
+
+    }
+
+    @Test
+    public void testFalsePositiveRate() throws IOException {
+
+        // PREPARE
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < 10000; i++) {
+            names.add("file" + i + ".txt");
+        }
+        File file = new File(testDir, "large.lst");
+        NameListBuilder.build(names, IOCase.SENSITIVE, 16, file);
+        BloomFileFilter nameFilter = new BloomFileFilter(new NameFileFilter(names), 0.01);
+        BloomFileFilter listFilter = new BloomFileFilter(new NameListFileFilter(file), 0.01);
+
+        // TEST
+        for (int i = 0; i < 20000; i++) {
+            boolean expected = i < 10000;
+            assertThat(nameFilter.accept(createFSI(new File("file" + i + ".txt")))).isEqualTo(expected);
+            assertThat(listFilter.accept(createFSI(new File("file" + i + ".txt")))).isEqualTo(expected);
+        }
+
+        // VERIFY
+        for (BloomFileFilter filter : new BloomFileFilter[] { nameFilter, listFilter }) {
+            assertThat(filter.getMatchCount()).isEqualTo(10000);
+            assertThat(filter.getRejectedCount() + filter.getFalsePositiveCount()).isEqualTo(10000);
+            assertThat(filter.getExpectedFalsePositiveRate()).isGreaterThan(0.005).isLessThan(0.011);
+            assertThat(filter.getObservedFalsePositiveRate()).isLessThan(0.02);
+            assertThat(filter.getByteCount()).isLessThan(20000);
+        }
+
+    }
+
+    @Test
+    public void testEmptyNames() {
+
+        // PREPARE
+        BloomFileFilter filter = new BloomFileFilter(new NameFileFilter(new ArrayList<String>()));
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("a")))).isFalse();
+
+        // VERIFY
+        assertThat(filter.getRejectedCount()).isEqualTo(1);
+        assertThat(filter.getObservedFalsePositiveRate()).isEqualTo(0.0);
+
+    }
+
+    @Test
+    public void testInvalidArgConstruction() {
+        try {
+            new BloomFileFilter((NameFileFilter) null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The filter must not be null");
+        }
+        for (double rate : new double[] { 0, 1, -0.5, Double.NaN }) {
+            try {
+                new BloomFileFilter(new NameFileFilter("a"), rate);
+                fail();
+            } catch (final IllegalArgumentException ex) {
+                assertThat(ex.getMessage()).startsWith("The false positive rate must be greater than 0");
+            }
+        }
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+
+        // PREPARE
+        BloomFileFilter original = new BloomFileFilter(new NameFileFilter("a.txt", "b.txt"), 0.001);
+        original.accept(createFSI(new File("a.txt")));
+
+        // TEST
+        BloomFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.getMatchCount()).isEqualTo(0);
+        assertThat(filter.getFalsePositiveRate()).isEqualTo(0.001);
+        assertThat(filter.accept(createFSI(new File("b.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("c.txt")))).isFalse();
+        assertThat(filter.toString()).contains("a.txt,b.txt").contains("0.001");
+
+    }
+
+}
+// CHECKSTYLE:ON
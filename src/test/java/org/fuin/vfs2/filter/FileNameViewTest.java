@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.vfs2.FileFilter;
+import org.apache.commons.vfs2.FileSelectInfo;
+import org.junit.Test;
+
+/**
+ * Test for {@link FileNameView}.
+ */
+// CHECKSTYLE:OFF Test code
+public class FileNameViewTest extends BaseFilterTest {
+
+    @Test
+    public void testNames() {
+
+        // PREPARE
+        File base = new File("base");
+        FileNameView view = FileNameView.of(createFSI(base, new File(base, "dir/Archive.TAR.gz")));
+
+        // TEST & VERIFY
+        assertThat(view.getBaseName()).isEqualTo("Archive.TAR.gz");
+        assertThat(view.getExtension()).isEqualTo("gz");
+        assertThat(view.getFoldedBaseName()).isEqualTo("archive.tar.gz");
+        assertThat(view.getRelativePath()).isEqualTo("dir/Archive.TAR.gz");
+        assertThat(view.getBaseName()).isSameAs(view.getBaseName());
+        assertThat(view.getFoldedBaseName()).isSameAs(view.getFoldedBaseName());
+
+    }
+
+    @Test
+    public void testExtension() {
+        assertThat(FileNameView.of(createFSI(new File("README"))).getExtension()).isEqualTo("");
+        assertThat(FileNameView.of(createFSI(new File(".profile"))).getExtension()).isEqualTo("profile");
+        assertThat(FileNameView.of(createFSI(new File("a."))).getExtension()).isEqualTo("");
+    }
+
+    @Test
+    public void testRelativePath() {
+
+        // PREPARE
+        File base = new File("base");
+
+        // TEST & VERIFY
+        assertThat(FileNameView.of(createFSI(base, base)).getRelativePath()).isEqualTo("");
+        assertThat(FileNameView.of(createFSI(base, new File(base, "a.txt"))).getRelativePath()).isEqualTo("a.txt");
+        assertThat(FileNameView.of(createFSI(base, new File("base2/a.txt"))).getRelativePath()).isNull();
+        assertThat(FileNameView.of(createFSI(base, new File("a.txt"))).getRelativePath()).isNull();
+
+    }
+
+    @Test
+    public void testOf() {
+
+        // PREPARE
+        FileSelectInfo fileInfo = createFSI(new File("a.txt"));
+        FileNameView view = FileNameView.of(fileInfo);
+
+        // TEST & VERIFY
+        assertThat(FileNameView.of(view)).isSameAs(view);
+        assertThat(view.getFile()).isSameAs(fileInfo.getFile());
+        assertThat(view.getBaseFolder().getName()).isEqualTo(fileInfo.getBaseFolder().getName());
+        assertThat(view.getDepth()).isEqualTo(fileInfo.getDepth());
+        try {
+            FileNameView.of(null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The file info must not be null");
+        }
+
+    }
+
+    @Test
+    public void testSharedByComposites() {
+
+        // PREPARE
+        final List<FileSelectInfo> seen = new ArrayList<FileSelectInfo>();
+        FileFilter recorder = new FileFilter() {
+            @Override
+            public boolean accept(final FileSelectInfo fileInfo) {
+                seen.add(fileInfo);
+                return true;
+            }
+        };
+        FileFilter filter = new AndFileFilter(new PrefixFileFilter("a"), recorder, new OrFileFilter(
+                new SuffixFileFilter(".bin"), new NotFileFilter(new NotFileFilter(recorder))), new SuffixFileFilter(
+                IOCase.INSENSITIVE, ".TXT"));
+
+        // TEST
+        boolean result = filter.accept(createFSI(new File("a.txt")));
+
+        // VERIFY
+        assertThat(result).isTrue();
+        assertThat(seen).hasSize(2);
+        assertThat(seen.get(0)).isInstanceOf(FileNameView.class);
+        assertThat(seen.get(1)).isSameAs(seen.get(0));
+
+    }
+
+}
+// CHECKSTYLE:ON
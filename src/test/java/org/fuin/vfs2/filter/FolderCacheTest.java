@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+
+import org.apache.commons.vfs2.FileName;
+import org.junit.Test;
+
+/**
+ * Test for {@link FolderCache}.
+ */
+// CHECKSTYLE:OFF Test code
+public class FolderCacheTest extends BaseFilterTest {
+
+    @Test
+    public void testOtherBaseFolder() throws Exception {
+
+        // PREPARE
+        final FileName base = name("base");
+        final FileName otherBase = name("other");
+        final FileName folder = name("base/a");
+        final FolderCache<String> testee = new FolderCache<String>();
+
+        // TEST
+        testee.put(base, folder, "a");
+
+        // VERIFY
+        assertThat(testee.get(base, folder)).isEqualTo("a");
+        assertThat(testee.get(otherBase, folder)).isNull();
+        assertThat(testee.get(base, base)).isNull();
+
+    }
+
+    @Test
+    public void testEvictDeepestFirst() throws Exception {
+
+        // PREPARE
+        final FileName base = name("base");
+        final FileName parent = name("base/parent");
+        final FolderCache<String> testee = new FolderCache<String>();
+        testee.put(base, base, "base");
+        testee.put(base, parent, "parent");
+
+        // TEST
+        for (int i = 0; i < FolderCache.MAX_SIZE; i++) {
+            testee.put(base, name("base/parent/leaf" + i), "leaf");
+        }
+
+        // VERIFY
+        assertThat(testee.get(base, base)).isEqualTo("base");
+        assertThat(testee.get(base, parent)).isEqualTo("parent");
+        final FileName last = name("base/parent/leaf" + (FolderCache.MAX_SIZE - 1));
+        assertThat(testee.get(base, last)).isEqualTo("leaf");
+
+    }
+
+    private static FileName name(final String path) {
+        return createFSI(new File(path)).getFile().getName();
+    }
+
+}
+// CHECKSTYLE:ON
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link FuzzyNameFileFilter}.
+ */
+// CHECKSTYLE:OFF Test code
+public class FuzzyNameFileFilterTest extends BaseFilterTest {
+
+    @Test
+    public void testAccept() {
+
+        // PREPARE
+        FuzzyNameFileFilter filter = new FuzzyNameFileFilter(1, "settings.xml", "config.yml");
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("settings.xml")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("setings.xml")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("settings.xm")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("settinqs.xml")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("config.yml~")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("Settings.xml")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("setings.xm")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("config.yml.bak")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("pom.xml")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptDistance() {
+
+        // PREPARE
+        FuzzyNameFileFilter exact = new FuzzyNameFileFilter(0, "config.yml");
+        FuzzyNameFileFilter fuzzy = new FuzzyNameFileFilter(4, "config.yml");
+
+        // TEST
+        assertThat(exact.accept(createFSI(new File("config.yml")))).isTrue();
+        assertThat(exact.accept(createFSI(new File("config.yaml")))).isFalse();
+        assertThat(fuzzy.accept(createFSI(new File("config.yml.bak")))).isTrue();
+        assertThat(fuzzy.accept(createFSI(new File("cnfig.yaml.b")))).isTrue();
+        assertThat(fuzzy.accept(createFSI(new File("config.yml.back")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptIOCaseInsensitive() {
+
+        // PREPARE
+        FuzzyNameFileFilter filter = new FuzzyNameFileFilter(IOCase.INSENSITIVE, 1, "Readme.TXT", "\u00c4rger");
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("README.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("READM.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("\u00e4rgern")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("READ.txt")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptRandomNames() {
+
+        // PREPARE
+        Random random = new Random(7);
+        List<String> targets = new ArrayList<String>();
+        for (int i = 0; i < 20; i++) {
+            targets.add(randomName(random));
+        }
+        FuzzyNameFileFilter filter = new FuzzyNameFileFilter(2, targets);
+
+        // TEST
+        for (int i = 0; i < 5000; i++) {
+            String name = randomName(random);
+            boolean expected = false;
+            for (String target : targets) {
+                expected = expected || distance(name, target) <= 2;
+            }
+            assertThat(filter.accept(createFSI(new File(name)))).isEqualTo(expected);
+        }
+
+    }
+
+    private static String randomName(final Random random) {
+        String chars = "abc.\u00e4";
+        StringBuilder sb = new StringBuilder();
+        int length = 1 + random.nextInt(7);
+        for (int i = 0; i < length; i++) {
+            sb.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return sb.toString();
+    }
+
+    private static int distance(final String a, final String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0) {
+                    d[i][j] = i + j;
+                } else {
+                    int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                    d[i][j] = Math.min(d[i - 1][j - 1] + cost, Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    @Test
+    public void testInvalidArgConstruction() {
+        try {
+            new FuzzyNameFileFilter(1, (List<String>) null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The list of names must not be null");
+        }
+        try {
+            new FuzzyNameFileFilter(1, (String[]) null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The array of names must not be null");
+        }
+        try {
+            new FuzzyNameFileFilter(-1, "a");
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The maximum distance must be between 0 and 126: -1");
+        }
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+
+        // PREPARE
+        FuzzyNameFileFilter original = new FuzzyNameFileFilter(IOCase.INSENSITIVE, 1, "settings.xml", "a");
+
+        // TEST
+        FuzzyNameFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.accept(createFSI(new File("SETINGS.xml")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("abc")))).isFalse();
+        assertThat(filter.toString()).contains("(1;settings.xml,a)");
+
+    }
+
+}
+// CHECKSTYLE:ON
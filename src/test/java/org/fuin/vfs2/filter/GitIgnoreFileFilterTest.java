@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSelectInfo;
+import org.apache.commons.vfs2.VFS;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test for {@link GitIgnoreFileFilter}.
+ */
+// CHECKSTYLE:OFF Test code
+public class GitIgnoreFileFilterTest extends BaseFilterTest {
+
+    private static File testDir;
+
+    @BeforeClass
+    public static void beforeClass() throws IOException {
+        testDir = getTestDir(GitIgnoreFileFilterTest.class.getName());
+        write(".gitignore", "# Build output\n*.log\n!keep.log\n/target\nbuild/\ndocs/**\n!docs/index.html\n");
+        write(".dockerignore", "*.md  \n!a.log\n");
+        write("a.log", "");
+        write("keep.log", "");
+        write("README.md", "");
+        write("target/a.class", "");
+        write("src/target/Main.java", "");
+        write("src/build/out.bin", "");
+        write("src/build.txt", "");
+        write("src/.gitignore", "!*.log\nlocal/\n");
+        write("src/b.log", "");
+        write("src/local/c.txt", "");
+        write("src/local/keep.log", "");
+        write("docs/index.html", "");
+        write("docs/other.html", "");
+        FileUtils.forceMkdir(new File(testDir, "build"));
+        write("build/.gitignore", "!*\n");
+        write("build/x.txt", "");
+    }
+
+    @AfterClass
+    public static void afterClass() throws IOException {
+        FileUtils.deleteDirectory(testDir);
+        testDir = null;
+    }
+
+    private static void write(final String path, final String content) throws IOException {
+        FileUtils.write(new File(testDir, path), content, "UTF-8");
+    }
+
+    private static FileSelectInfo fsi(final String path) {
+        return createFSI(testDir, new File(testDir, path));
+    }
+
+    @Test
+    public void testAccept() {
+
+        // PREPARE
+        GitIgnoreFileFilter filter = new GitIgnoreFileFilter();
+
+        // TEST
+        assertThat(filter.accept(fsi(""))).isTrue();
+        assertThat(filter.accept(fsi("a.log"))).isFalse();
+        assertThat(filter.accept(fsi("keep.log"))).isTrue();
+        assertThat(filter.accept(fsi("README.md"))).isTrue();
+        assertThat(filter.accept(fsi("target"))).isFalse();
+        assertThat(filter.accept(fsi("target/a.class"))).isFalse();
+        assertThat(filter.accept(fsi("src/target/Main.java"))).isTrue();
+        assertThat(filter.accept(fsi("src/build/out.bin"))).isFalse();
+        assertThat(filter.accept(fsi("src/build.txt"))).isTrue();
+        assertThat(filter.accept(fsi("docs"))).isTrue();
+        assertThat(filter.accept(fsi("docs/index.html"))).isTrue();
+        assertThat(filter.accept(fsi("docs/other.html"))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptNestedIgnoreFiles() {
+
+        // PREPARE
+        GitIgnoreFileFilter filter = new GitIgnoreFileFilter();
+
+        // TEST
+        assertThat(filter.accept(fsi("src/b.log"))).isTrue();
+        assertThat(filter.accept(fsi("src/local"))).isFalse();
+        assertThat(filter.accept(fsi("src/local/c.txt"))).isFalse();
+        assertThat(filter.accept(fsi("src/local/keep.log"))).isFalse();
+        assertThat(filter.accept(fsi("build/x.txt"))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptSeveralIgnoreFiles() {
+
+        // PREPARE
+        GitIgnoreFileFilter filter = new GitIgnoreFileFilter(".gitignore", ".dockerignore");
+
+        // TEST
+        assertThat(filter.accept(fsi("README.md"))).isFalse();
+        assertThat(filter.accept(fsi("a.log"))).isTrue();
+        assertThat(new GitIgnoreFileFilter(".dockerignore", ".gitignore").accept(fsi("a.log"))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptIOCaseInsensitive() {
+
+        // PREPARE
+        List<String> list = new ArrayList<String>();
+        list.add(".gitignore");
+        GitIgnoreFileFilter filter = new GitIgnoreFileFilter(IOCase.INSENSITIVE, list);
+
+        // TEST
+        assertThat(filter.accept(createFSI(testDir, new File(testDir, "A.LOG")))).isFalse();
+        assertThat(filter.accept(createFSI(testDir, new File(testDir, "Keep.Log")))).isTrue();
+        assertThat(new GitIgnoreFileFilter(list).accept(createFSI(testDir, new File(testDir, "A.LOG")))).isTrue();
+
+    }
+
+    @Test
+    public void testTraverseDescendents() {
+
+        // PREPARE
+        GitIgnoreFileFilter filter = new GitIgnoreFileFilter();
+
+        // TEST
+        assertThat(filter.traverseDescendents(fsi(""))).isTrue();
+        assertThat(filter.traverseDescendents(fsi("src"))).isTrue();
+        assertThat(filter.traverseDescendents(fsi("docs"))).isTrue();
+        assertThat(filter.traverseDescendents(fsi("target"))).isFalse();
+        assertThat(filter.traverseDescendents(fsi("build"))).isFalse();
+        assertThat(filter.traverseDescendents(fsi("src/local"))).isFalse();
+
+    }
+
+    @Test
+    public void testFindFilesPrunesIgnoredDirectories() throws Exception {
+
+        // PREPARE
+        final List<String> visited = new ArrayList<String>();
+        PruningFileSelector selector = new PruningFileSelector(new GitIgnoreFileFilter()) {
+            @Override
+            public boolean includeFile(final FileSelectInfo fileInfo) {
+                visited.add(fileInfo.getFile().getName().getBaseName());
+                return super.includeFile(fileInfo);
+            }
+        };
+        FileObject dir = VFS.getManager().toFileObject(testDir);
+
+        // TEST
+        FileObject[] files = dir.findFiles(selector);
+
+        // VERIFY
+        assertContains(files, "keep.log", "README.md", "Main.java", "build.txt", "b.log", "index.html");
+        assertThat(files).hasSize(13);
+        assertThat(visited).contains("target", "build", "local", "a.log", "other.html");
+        assertThat(visited).excludes("a.class", "x.txt", "c.txt", "out.bin");
+
+    }
+
+    @Test
+    public void testIgnoreRules() {
+        assertThat(IgnoreRules.toPathGlob("*.log")).isEqualTo("**/*.log");
+        assertThat(IgnoreRules.toPathGlob("/target")).isEqualTo("/target");
+        assertThat(IgnoreRules.toPathGlob("docs/**")).isEqualTo("docs/*/**");
+        assertThat(IgnoreRules.toPathGlob("a/[^b{]{c}")).isEqualTo("a/[!b{]\\{c}");
+    }
+
+    @Test
+    public void testNullArgConstruction() {
+        try {
+            new GitIgnoreFileFilter((List<String>) null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The list of ignore file names must not be null");
+        }
+        try {
+            new GitIgnoreFileFilter((String[]) null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The array of ignore file names must not be null");
+        }
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+
+        // PREPARE
+        GitIgnoreFileFilter original = new GitIgnoreFileFilter(".gitignore", ".dockerignore");
+
+        // TEST
+        GitIgnoreFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.accept(fsi("src/build/out.bin"))).isFalse();
+        assertThat(filter.accept(fsi("src/build.txt"))).isTrue();
+        assertThat(filter.toString()).contains("(.gitignore,.dockerignore)");
+
+    }
+
+}
+// CHECKSTYLE:ON
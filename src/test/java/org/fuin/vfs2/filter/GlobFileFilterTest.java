@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link GlobFileFilter}.
+ */
+// CHECKSTYLE:OFF Test code
+public class GlobFileFilterTest extends BaseFilterTest {
+
+    @Test
+    public void testAcceptWildcards() {
+
+        // PREPARE
+        GlobFileFilter filter = new GlobFileFilter("*.txt", "Test?.java");
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("a.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File(".txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("Test1.java")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("Test.java")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("a.TXT")))).isFalse();
+        assertThat(new GlobFileFilter().accept(createFSI(new File("x")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptCharacterClasses() {
+
+        // PREPARE
+        GlobFileFilter filter = new GlobFileFilter("data-[0-9][0-9].[!b]*", "[]-]x", "[a-]y");
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("data-07.csv")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("data-7a.csv")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("data-07.bak")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("]x")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("-x")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("-y")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("by")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptBraces() {
+
+        // PREPARE
+        GlobFileFilter filter = new GlobFileFilter("*.{csv,tsv,txt.{gz,bz2}}", "{,old-}report");
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("a.csv")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("a.tsv")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("a.txt.gz")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("a.txt")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("report")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("old-report")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("new-report")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptEscaped() {
+
+        // PREPARE
+        GlobFileFilter filter = new GlobFileFilter("\\*\\[a\\]\\{b,c\\}");
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("*[a]{b,c}")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("x[a]{b,c}")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptIOCaseInsensitive() {
+
+        // PREPARE
+        List<String> list = new ArrayList<String>();
+        list.add("[a-c]*.{CSV,tsv}");
+        list.add("[!x]\u00e4");
+        GlobFileFilter filter = new GlobFileFilter(IOCase.INSENSITIVE, list);
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("Big.csv")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("b.TSV")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("d.csv")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("y\u00c4")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("X\u00c4")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptSupplementaryCharacters() {
+
+        // PREPARE
+        GlobFileFilter filter = new GlobFileFilter(IOCase.INSENSITIVE, "?.txt", "[\ud801\udc00-\ud801\udc01]x");
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("\ud801\udc00.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("\ud801\udc29x")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("\ud801\udc02x")))).isFalse();
+
+    }
+
+    @Test
+    public void testMinimalAutomaton() {
+
+        // TEST
+        GlobAutomaton braces = new GlobAutomaton(Arrays.asList("*.{csv,tsv}"), IOCase.SENSITIVE);
+        GlobAutomaton classes = new GlobAutomaton(Arrays.asList("*.[ct]sv", "**.tsv"), IOCase.SENSITIVE);
+
+        // VERIFY
+        assertThat(braces.getStateCount()).isEqualTo(classes.getStateCount());
+
+    }
+
+    @Test
+    public void testInvalidGlobs() {
+        String[] globs = { "[abc", "{a,b", "a\\", "[z-a]" };
+        for (String glob : globs) {
+            try {
+                new GlobFileFilter(glob);
+                fail(glob);
+            } catch (final IllegalArgumentException ex) {
+                assertThat(ex.getMessage()).contains("glob '" + glob + "'");
+            }
+        }
+    }
+
+    @Test
+    public void testNullArgConstruction() {
+        try {
+            new GlobFileFilter((List<String>) null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The glob list must not be null");
+        }
+        try {
+            new GlobFileFilter((String[]) null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The glob array must not be null");
+        }
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+
+        // PREPARE
+        GlobFileFilter original = new GlobFileFilter(IOCase.INSENSITIVE, "*.{csv,tsv}");
+
+        // TEST
+        GlobFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.accept(createFSI(new File("a.TSV")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("a.txt")))).isFalse();
+        assertThat(filter.toString()).contains("(*.{csv,tsv})");
+
+    }
+
+}
+// CHECKSTYLE:ON
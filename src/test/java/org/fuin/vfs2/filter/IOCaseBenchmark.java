@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.Random;
+
+/**
+ * Compares the string checks of {@link IOCase} with the character by
+ * character comparison using
+ * {@link String#regionMatches(boolean, int, String, int, int)} at every
+ * position, on long names like hashed object store keys.
+ * <p>
+ * Run the <code>main</code> method, optionally with the name length as
+ * argument (default 120).
+ */
+// CHECKSTYLE:OFF Benchmark code
+public class IOCaseBenchmark {
+
+    public static void main(String[] args) {
+
+        final int length = args.length > 0 ? Integer.parseInt(args[0]) : 120;
+        final Random random = new Random(4711);
+        final String[] names = new String[10000];
+        final String[] searches = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            final StringBuilder sb = new StringBuilder("tenant-" + random.nextInt(100) + "/objects/");
+            while (sb.length() < length) {
+                sb.append(Long.toHexString(random.nextLong()).toUpperCase());
+            }
+            names[i] = sb.substring(0, length);
+            searches[i] = random.nextBoolean() ? names[i].substring(length - 12).toLowerCase()
+                    : Long.toHexString(random.nextLong());
+        }
+
+        for (final IOCase caseSensitivity : new IOCase[] { IOCase.SENSITIVE, IOCase.INSENSITIVE }) {
+            final boolean ignore = !caseSensitivity.isCaseSensitive();
+            System.out.println(caseSensitivity + ", " + names.length + " names of length " + length);
+            for (int round = 0; round < 5; round++) {
+                final long t0 = System.nanoTime();
+                int hits1 = 0;
+                for (int r = 0; r < 10; r++) {
+                    for (int i = 0; i < names.length; i++) {
+                        if (scalarIndexOf(ignore, names[i], searches[i]) >= 0) {
+                            hits1++;
+                        }
+                        if (names[i].regionMatches(ignore, 0, names[(i + 1) % names.length], 0, length)) {
+                            hits1++;
+                        }
+                    }
+                }
+                final long t1 = System.nanoTime();
+                int hits2 = 0;
+                for (int r = 0; r < 10; r++) {
+                    for (int i = 0; i < names.length; i++) {
+                        if (caseSensitivity.checkIndexOf(names[i], 0, searches[i]) >= 0) {
+                            hits2++;
+                        }
+                        if (caseSensitivity.checkRegionMatches(names[i], 0, names[(i + 1) % names.length])) {
+                            hits2++;
+                        }
+                    }
+                }
+                final long t2 = System.nanoTime();
+                if (hits1 != hits2) {
+                    throw new IllegalStateException("Different results: " + hits1 + " / " + hits2);
+                }
+                System.out.println("  round " + round + ": scalar " + (t1 - t0) / (10 * names.length)
+                        + " ns/name, IOCase " + (t2 - t1) / (10 * names.length) + " ns/name (" + hits1
+                        + " matches)");
+            }
+        }
+
+    }
+
+    private static int scalarIndexOf(final boolean ignore, final String str, final String search) {
+        for (int i = 0; i <= str.length() - search.length(); i++) {
+            if (str.regionMatches(ignore, i, search, 0, search.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
+// CHECKSTYLE:ON
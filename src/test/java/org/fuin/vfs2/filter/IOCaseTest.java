@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link IOCase}.
+ */
+// CHECKSTYLE:OFF Test code
+public class IOCaseTest {
+
+    private static final String CHARS = "abkKsS.-_0\u212a\u017f\u0130i\u00df\u00e4\u00c4\ud801\udc00\ud801\udc28";
+
+    @Test
+    public void testChecksLikeJdk() {
+
+        // PREPARE
+        Random random = new Random(11);
+
+        // TEST
+        for (int n = 0; n < 20000; n++) {
+            String str = randomString(random, 12);
+            String search = random.nextInt(4) == 0 ? str.substring(random.nextInt(str.length() + 1)) : randomString(
+                    random, 3);
+            int start = random.nextInt(str.length() + 4) - 2;
+            for (IOCase ioCase : new IOCase[] { IOCase.SENSITIVE, IOCase.INSENSITIVE }) {
+                boolean ignore = !ioCase.isCaseSensitive();
+                assertThat(ioCase.checkRegionMatches(str, start, search)).isEqualTo(
+                        str.regionMatches(ignore, start, search, 0, search.length()));
+                assertThat(ioCase.checkStartsWith(str, search)).isEqualTo(
+                        str.regionMatches(ignore, 0, search, 0, search.length()));
+                assertThat(ioCase.checkEndsWith(str, search)).isEqualTo(
+                        str.regionMatches(ignore, str.length() - search.length(), search, 0, search.length()));
+                assertThat(ioCase.checkEquals(str, search)).isEqualTo(
+                        ignore ? str.equalsIgnoreCase(search) : str.equals(search));
+                assertThat(ioCase.checkIndexOf(str, start, search)).isEqualTo(indexOf(ignore, str, start, search));
+            }
+        }
+
+    }
+
+    @Test
+    public void testCheckIndexOf() {
+        assertThat(IOCase.INSENSITIVE.checkIndexOf("object-store/0A1B2C3D4E5F", 0, "0a1b")).isEqualTo(13);
+        assertThat(IOCase.INSENSITIVE.checkIndexOf("abcABC", 1, "ABC")).isEqualTo(3);
+        assertThat(IOCase.SENSITIVE.checkIndexOf("abcABC", 0, "ABC")).isEqualTo(3);
+        assertThat(IOCase.SENSITIVE.checkIndexOf("abc", 4, "")).isEqualTo(-1);
+        assertThat(IOCase.INSENSITIVE.checkIndexOf("abc", 3, "")).isEqualTo(3);
+        assertThat(IOCase.INSENSITIVE.checkIndexOf("ab", 0, "abc")).isEqualTo(-1);
+    }
+
+    private static int indexOf(boolean ignore, String str, int start, String search) {
+        for (int i = start; i <= str.length() - search.length(); i++) {
+            if (str.regionMatches(ignore, i, search, 0, search.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String randomString(Random random, int max) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(max + 1);
+        for (int i = 0; i < length; i++) {
+            sb.append(CHARS.charAt(random.nextInt(CHARS.length())));
+        }
+        return sb.toString();
+    }
+
+}
+// CHECKSTYLE:ON
@@ -123,5 +123,70 @@ public class NameFileFilterTest extends BaseFilterTest {
 
     }
 
+    @Test
+    public void testAcceptLargeList() {
+
+        // PREPARE
+        List<String> list = new ArrayList<String>();
+        for (int i = 0; i < 50000; i++) {
+            list.add("file-" + i + ".txt");
+        }
+        NameFileFilter sensitive = new NameFileFilter(IOCase.SENSITIVE, list);
+        NameFileFilter insensitive = new NameFileFilter(IOCase.INSENSITIVE, list);
+
+        // TEST
+        assertThat(sensitive.accept(createFSI(new File("file-0.txt")))).isTrue();
+        assertThat(sensitive.accept(createFSI(new File("file-49999.txt")))).isTrue();
+        assertThat(sensitive.accept(createFSI(new File("FILE-49999.txt")))).isFalse();
+        assertThat(sensitive.accept(createFSI(new File("file-50000.txt")))).isFalse();
+        assertThat(insensitive.accept(createFSI(new File("FILE-49999.TXT")))).isTrue();
+        assertThat(insensitive.accept(createFSI(new File("file-50000.txt")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptIOCaseSystem() {
+
+        // PREPARE
+        NameFileFilter filter = new NameFileFilter(IOCase.SYSTEM, "test1.txt");
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("test1.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("TEST1.txt")))).isEqualTo(
+                !IOCase.SYSTEM.isCaseSensitive());
+
+    }
+
+    @Test
+    public void testAcceptPerfectNameSet() {
+
+        // PREPARE
+        NameFileFilter filter = new NameFileFilter(new PerfectNameSet(IOCase.INSENSITIVE, "test1.txt", "Test2.txt",
+                "TEST1.TXT"));
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("TEST1.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("test2.TXT")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("test3.txt")))).isFalse();
+        assertThat(filter.toString()).contains("(test1.txt,Test2.txt)");
+
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+
+        // PREPARE
+        NameFileFilter original = new NameFileFilter(IOCase.INSENSITIVE, "test1.txt", "test2.txt");
+
+        // TEST
+        NameFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.accept(createFSI(new File("TEST2.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("test3.txt")))).isFalse();
+        assertThat(filter.toString()).contains("(test1.txt,test2.txt)");
+
+    }
+
 }
 // CHECKSTYLE:ON
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test for {@link NameListFileFilter}.
+ */
+// CHECKSTYLE:OFF Test code
+public class NameListFileFilterTest extends BaseFilterTest {
+
+    private static File testDir;
+
+    private static File listFile;
+
+    @BeforeClass
+    public static void beforeClass() throws IOException {
+        testDir = getTestDir(NameListFileFilterTest.class.getName());
+        testDir.mkdir();
+        listFile = new File(testDir, "names.lst");
+        List<String> names = Arrays.asList("b", "abc", "a", "ab", "abd", "x.txt", "\u00e4.txt", "\ud801\udc00",
+                "ab", "zzz");
+        NameListBuilder.build(names, IOCase.SENSITIVE, 2, listFile);
+    }
+
+    @AfterClass
+    public static void afterClass() throws IOException {
+        FileUtils.deleteDirectory(testDir);
+        testDir = null;
+        listFile = null;
+    }
+
+    @Test
+    public void testAccept() throws IOException {
+
+        // PREPARE
+        NameListFileFilter filter = new NameListFileFilter(listFile);
+
+        // TEST
+        assertThat(filter.size()).isEqualTo(9);
+        for (String name : new String[] { "a", "ab", "abc", "abd", "b", "x.txt", "\u00e4.txt", "\ud801\udc00", "zzz" }) {
+            assertThat(filter.accept(createFSI(new File(name)))).isTrue();
+        }
+        for (String name : new String[] { "", "0", "aa", "abb", "abcd", "abe", "ac", "bb", "X.txt", "\u00c4.txt",
+                "\ud801\udc28", "zz", "zzzz", "\uffff" }) {
+            assertThat(filter.accept(createFSI(new File(name)))).isFalse();
+        }
+
+    }
+
+    @Test
+    public void testAcceptIOCaseInsensitive() throws IOException {
+
+        // PREPARE
+        File file = new File(testDir, "insensitive.lst");
+        NameListBuilder.build(Arrays.asList("Readme.TXT", "\u00c4", "\ud801\udc00"), IOCase.INSENSITIVE, 16, file);
+        NameListFileFilter filter = new NameListFileFilter(file);
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("README.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("\u00e4")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("\ud801\udc28")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("readme")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptRandomNames() throws IOException {
+
+        // PREPARE
+        Random random = new Random(17);
+        Set<String> names = new HashSet<String>();
+        while (names.size() < 3000) {
+            names.add(randomName(random));
+        }
+        File file = new File(testDir, "random.lst");
+        NameListBuilder.build(names, IOCase.SENSITIVE, 7, file);
+        NameListFileFilter filter = new NameListFileFilter(file);
+
+        // TEST
+        for (String name : names) {
+            assertThat(filter.accept(createFSI(new File(name)))).isTrue();
+        }
+        for (int i = 0; i < 3000; i++) {
+            String name = randomName(random);
+            assertThat(filter.accept(createFSI(new File(name)))).isEqualTo(names.contains(name));
+        }
+
+    }
+
+    private static String randomName(final Random random) {
+        String chars = "abc.\u00e4\u20ac";
+        StringBuilder sb = new StringBuilder();
+        int length = 1 + random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            sb.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testBuildFromTextFile() throws IOException {
+
+        // PREPARE
+        File text = new File(testDir, "names.txt");
+        FileUtils.write(text, "one\r\n\r\ntwo\nthree four\n", "UTF-8");
+        File file = new File(testDir, "text.lst");
+
+        // TEST
+        NameListBuilder.main(new String[] { "-b", "1", text.getPath(), file.getPath() });
+        NameListFileFilter filter = new NameListFileFilter(file);
+
+        // VERIFY
+        assertThat(filter.size()).isEqualTo(3);
+        assertThat(filter.accept(createFSI(new File("three four")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("two")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("three")))).isFalse();
+
+    }
+
+    @Test
+    public void testEmptyList() throws IOException {
+
+        // PREPARE
+        File file = new File(testDir, "empty.lst");
+        NameListBuilder.build(new ArrayList<String>(), null, 16, file);
+
+        // TEST
+        NameListFileFilter filter = new NameListFileFilter(file);
+
+        // VERIFY
+        assertThat(filter.size()).isEqualTo(0);
+        assertThat(filter.accept(createFSI(new File("a")))).isFalse();
+
+    }
+
+    @Test
+    public void testUnpairedSurrogates() throws IOException {
+
+        // PREPARE
+        File file = new File(testDir, "surrogates.lst");
+        List<String> names = Arrays.asList("?", "a\ud800", "\udc00", "\ud801\udc00", "\uffff");
+
+        // TEST
+        NameListBuilder.build(names, IOCase.SENSITIVE, 2, file);
+        MappedNameList list = MappedNameList.open(file);
+
+        // VERIFY
+        assertThat(list.size()).isEqualTo(5);
+        for (String name : names) {
+            assertThat(list.contains(name)).isTrue();
+        }
+        assertThat(list.contains("\ud800")).isFalse();
+        assertThat(list.contains("a?")).isFalse();
+        assertThat(list.contains("\udc01")).isFalse();
+        List<String> decoded = new ArrayList<String>();
+        for (String name : list) {
+            decoded.add(name);
+        }
+        assertThat(decoded).isEqualTo(Arrays.asList("?", "a\ud800", "\udc00", "\uffff", "\ud801\udc00"));
+
+    }
+
+    @Test
+    public void testSharedMapping() throws IOException {
+        assertThat(MappedNameList.open(listFile)).isSameAs(MappedNameList.open(new File(testDir, "./names.lst")));
+    }
+
+    @Test
+    public void testInvalidFile() throws IOException {
+
+        // PREPARE
+        File file = new File(testDir, "invalid.lst");
+        FileUtils.write(file, "This is not a name list file", "UTF-8");
+
+        // TEST
+        try {
+            new NameListFileFilter(file);
+            fail();
+        } catch (final IOException ex) {
+            assertThat(ex.getMessage()).startsWith("Not a name list file");
+        }
+
+    }
+
+    @Test
+    public void testNullArgConstruction() throws IOException {
+        try {
+            new NameListFileFilter(null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The file must not be null");
+        }
+        try {
+            NameListBuilder.build((List<String>) null, null, 16, listFile);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The names must not be null");
+        }
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+
+        // PREPARE
+        NameListFileFilter original = new NameListFileFilter(listFile);
+
+        // TEST
+        NameListFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.accept(createFSI(new File("abd")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("abe")))).isFalse();
+        assertThat(filter.toString()).contains("names.lst");
+
+    }
+
+}
+// CHECKSTYLE:ON
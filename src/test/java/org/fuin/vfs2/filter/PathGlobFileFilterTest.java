@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSelectInfo;
+import org.apache.commons.vfs2.VFS;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test for {@link PathGlobFileFilter}.
+ */
+// CHECKSTYLE:OFF Test code
+public class PathGlobFileFilterTest extends BaseFilterTest {
+
+    private static File testDir;
+
+    @BeforeClass
+    public static void beforeClass() throws IOException {
+        testDir = getTestDir(PathGlobFileFilterTest.class.getName());
+        FileUtils.touch(new File(testDir, "logs/2024-01/a.gz"));
+        FileUtils.touch(new File(testDir, "logs/2024-01/a.txt"));
+        FileUtils.touch(new File(testDir, "logs/app/2024-02/b.gz"));
+        FileUtils.touch(new File(testDir, "logs/2023-12/c.gz"));
+        FileUtils.touch(new File(testDir, "logs/d.gz"));
+        FileUtils.touch(new File(testDir, "src/e.gz"));
+        FileUtils.touch(new File(testDir, "other/logs/2024-03/f.gz"));
+    }
+
+    @AfterClass
+    public static void afterClass() throws IOException {
+        FileUtils.deleteDirectory(testDir);
+        testDir = null;
+    }
+
+    private static FileSelectInfo fsi(final String path) {
+        return createFSI(testDir, new File(testDir, path));
+    }
+
+    @Test
+    public void testAccept() {
+
+        // PREPARE
+        PathGlobFileFilter filter = new PathGlobFileFilter("logs/**/2024-*/*.gz");
+
+        // TEST
+        assertThat(filter.accept(fsi("logs/2024-01/a.gz"))).isTrue();
+        assertThat(filter.accept(fsi("logs/app/2024-02/b.gz"))).isTrue();
+        assertThat(filter.accept(fsi("logs/2024-01/a.txt"))).isFalse();
+        assertThat(filter.accept(fsi("logs/2023-12/c.gz"))).isFalse();
+        assertThat(filter.accept(fsi("logs/d.gz"))).isFalse();
+        assertThat(filter.accept(fsi("other/logs/2024-03/f.gz"))).isFalse();
+        assertThat(filter.accept(fsi("logs/2024-01"))).isFalse();
+        assertThat(filter.accept(fsi(""))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptDoubleStar() {
+
+        // PREPARE
+        PathGlobFileFilter all = new PathGlobFileFilter("**/*.gz");
+        PathGlobFileFilter below = new PathGlobFileFilter("/logs/**");
+
+        // TEST
+        assertThat(all.accept(fsi("logs/d.gz"))).isTrue();
+        assertThat(all.accept(fsi("other/logs/2024-03/f.gz"))).isTrue();
+        assertThat(all.accept(fsi("logs/2024-01/a.txt"))).isFalse();
+        assertThat(below.accept(fsi("logs"))).isTrue();
+        assertThat(below.accept(fsi("logs/app/2024-02/b.gz"))).isTrue();
+        assertThat(below.accept(fsi("src/e.gz"))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptOutsideBaseFolder() {
+
+        // PREPARE
+        PathGlobFileFilter filter = new PathGlobFileFilter("**");
+        File logs = new File(testDir, "logs");
+
+        // TEST
+        assertThat(filter.accept(createFSI(logs, new File(testDir, "src/e.gz")))).isFalse();
+        assertThat(filter.accept(createFSI(logs, new File(logs, "d.gz")))).isTrue();
+
+    }
+
+    @Test
+    public void testAcceptIOCaseInsensitive() {
+
+        // PREPARE
+        List<String> list = new ArrayList<String>();
+        list.add("LOGS/*/{A,B}.GZ");
+        PathGlobFileFilter filter = new PathGlobFileFilter(IOCase.INSENSITIVE, list);
+
+        // TEST
+        assertThat(filter.accept(fsi("logs/2024-01/a.gz"))).isTrue();
+        assertThat(filter.accept(fsi("logs/2023-12/c.gz"))).isFalse();
+        assertThat(new PathGlobFileFilter(list).accept(fsi("logs/2024-01/a.gz"))).isFalse();
+
+    }
+
+    @Test
+    public void testTraverseDescendents() {
+
+        // PREPARE
+        PathGlobFileFilter filter = new PathGlobFileFilter("logs/**/2024-*/*.gz", "src/*.java");
+
+        // TEST
+        assertThat(filter.traverseDescendents(fsi(""))).isTrue();
+        assertThat(filter.traverseDescendents(fsi("logs"))).isTrue();
+        assertThat(filter.traverseDescendents(fsi("logs/2023-12"))).isTrue();
+        assertThat(filter.traverseDescendents(fsi("src"))).isTrue();
+        assertThat(filter.traverseDescendents(fsi("other"))).isFalse();
+        assertThat(filter.traverseDescendents(fsi("other/logs"))).isFalse();
+        assertThat(new PathGlobFileFilter("src/*.java").traverseDescendents(fsi("src/e.gz"))).isFalse();
+
+    }
+
+    @Test
+    public void testFindFilesPrunesDirectories() throws Exception {
+
+        // PREPARE
+        final List<String> visited = new ArrayList<String>();
+        PathGlobFileFilter filter = new PathGlobFileFilter("logs/**/2024-*/*.gz");
+        PruningFileSelector selector = new PruningFileSelector(filter) {
+            @Override
+            public boolean includeFile(final FileSelectInfo fileInfo) {
+                visited.add(fileInfo.getFile().getName().getBaseName());
+                return super.includeFile(fileInfo);
+            }
+        };
+        FileObject dir = VFS.getManager().toFileObject(testDir);
+
+        // TEST
+        FileObject[] files = dir.findFiles(selector);
+
+        // VERIFY
+        assertThat(files).hasSize(2);
+        assertContains(files, "a.gz", "b.gz");
+        assertThat(visited).contains("src", "other", "c.gz", "d.gz");
+        assertThat(visited).excludes("e.gz", "logs/2024-03", "f.gz");
+
+    }
+
+    @Test
+    public void testNullArgConstruction() {
+        try {
+            new PathGlobFileFilter((List<String>) null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The glob list must not be null");
+        }
+        try {
+            new PathGlobFileFilter((String[]) null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The glob array must not be null");
+        }
+        try {
+            new PruningFileSelector(null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The filter must not be null");
+        }
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+
+        // PREPARE
+        PathGlobFileFilter original = new PathGlobFileFilter(IOCase.INSENSITIVE, "LOGS/**/*.gz");
+
+        // TEST
+        PathGlobFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.accept(fsi("logs/app/2024-02/b.gz"))).isTrue();
+        assertThat(filter.accept(fsi("src/e.gz"))).isFalse();
+        assertThat(filter.toString()).contains("(LOGS/**/*.gz)");
+
+    }
+
+}
+// CHECKSTYLE:ON
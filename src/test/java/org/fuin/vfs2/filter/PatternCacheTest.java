@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link PatternCache}.
+ */
+// CHECKSTYLE:OFF Test code
+public class PatternCacheTest extends BaseFilterTest {
+
+    @Before
+    public void before() {
+        PatternCache.setMaximumSize(PatternCache.DEFAULT_MAXIMUM_SIZE);
+        PatternCache.clear();
+    }
+
+    @After
+    public void after() {
+        PatternCache.setMaximumSize(PatternCache.DEFAULT_MAXIMUM_SIZE);
+        PatternCache.clear();
+    }
+
+    @Test
+    public void testRegexShared() {
+
+        // TEST
+        RegexProgram first = PatternCache.regex("a.*\\.txt", 0, false);
+        RegexProgram second = PatternCache.regex("a.*\\.txt", 0, false);
+        RegexProgram otherFlags = PatternCache.regex("a.*\\.txt", Pattern.CASE_INSENSITIVE, false);
+        RegexProgram linear = PatternCache.regex("a.*\\.txt", 0, true);
+        RegexProgram compiled = PatternCache.regex(Pattern.compile("a.*\\.txt"), false);
+
+        // VERIFY
+        assertThat(second).isSameAs(first);
+        assertThat(compiled).isSameAs(first);
+        assertThat(otherFlags).isNotSameAs(first);
+        assertThat(linear).isNotSameAs(first);
+        assertThat(first.getAutomaton()).isNull();
+        assertThat(linear.getAutomaton()).isNotNull();
+        assertThat(PatternCache.getMissCount()).isEqualTo(3);
+        assertThat(PatternCache.getHitCount()).isEqualTo(2);
+        assertThat(PatternCache.size()).isEqualTo(3);
+
+    }
+
+    @Test
+    public void testWildcardAndGlobShared() {
+
+        // TEST
+        WildcardPattern wildcard = PatternCache.wildcard("*.txt", IOCase.SENSITIVE);
+        WildcardPattern wildcardInsensitive = PatternCache.wildcard("*.txt", IOCase.INSENSITIVE);
+        GlobAutomaton glob = PatternCache.glob("*.txt", IOCase.SENSITIVE);
+
+        // VERIFY
+        assertThat(PatternCache.wildcard("*.txt", IOCase.SENSITIVE)).isSameAs(wildcard);
+        assertThat(wildcardInsensitive).isNotSameAs(wildcard);
+        assertThat(PatternCache.glob("*.txt", IOCase.SENSITIVE)).isSameAs(glob);
+        assertThat(PatternCache.getMissCount()).isEqualTo(3);
+        assertThat(PatternCache.getHitCount()).isEqualTo(2);
+
+    }
+
+    @Test
+    public void testFiltersUseCache() {
+
+        // TEST
+        RegexFileFilter regex1 = new RegexFileFilter("^.*[tT]est\\.java$");
+        RegexFileFilter regex2 = new RegexFileFilter("^.*[tT]est\\.java$");
+        WildcardFileFilter wildcard1 = new WildcardFileFilter("*test*.java");
+        GlobFileFilter glob1 = new GlobFileFilter("*.{csv,tsv}");
+        GlobFileFilter glob2 = new GlobFileFilter("*.{csv,tsv}");
+        RegexSetFileFilter set = new RegexSetFileFilter(Arrays.asList("^.*[tT]est\\.java$"));
+
+        // VERIFY
+        assertThat(PatternCache.getMissCount()).isEqualTo(3);
+        assertThat(PatternCache.getHitCount()).isEqualTo(3);
+        assertThat(regex1.accept(createFSI(new File("MyTest.java")))).isTrue();
+        assertThat(regex2.accept(createFSI(new File("MyTest.txt")))).isFalse();
+        assertThat(wildcard1.accept(createFSI(new File("a-test-b.java")))).isTrue();
+        assertThat(glob1.accept(createFSI(new File("a.csv")))).isTrue();
+        assertThat(glob2.accept(createFSI(new File("a.txt")))).isFalse();
+        assertThat(set.accept(createFSI(new File("test.java")))).isTrue();
+
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+
+        // PREPARE
+        // Two entries per segment
+        PatternCache.setMaximumSize(2 * PatternCache.SEGMENT_COUNT);
+        final int count = PatternCache.SEGMENT_COUNT * 8;
+        final WildcardPattern first = PatternCache.wildcard("first-*", IOCase.SENSITIVE);
+
+        // TEST
+        for (int i = 0; i < count; i++) {
+            PatternCache.wildcard("p" + i + "*", IOCase.SENSITIVE);
+            // Keep the first pattern the most recently used of its segment
+            assertThat(PatternCache.wildcard("first-*", IOCase.SENSITIVE)).isSameAs(first);
+        }
+
+        // VERIFY
+        assertThat(PatternCache.size()).isLessThanOrEqualTo(2 * PatternCache.SEGMENT_COUNT);
+        assertThat(PatternCache.getEvictionCount()).isEqualTo(count + 1 - PatternCache.size());
+        assertThat(PatternCache.getMissCount()).isEqualTo(count + 1);
+
+    }
+
+    @Test
+    public void testSetMaximumSize() {
+
+        // PREPARE
+        for (int i = 0; i < 100; i++) {
+            PatternCache.glob("*." + i, IOCase.SENSITIVE);
+        }
+        assertThat(PatternCache.size()).isEqualTo(100);
+
+        // TEST
+        PatternCache.setMaximumSize(0);
+
+        // VERIFY
+        assertThat(PatternCache.getMaximumSize()).isEqualTo(0);
+        assertThat(PatternCache.size()).isEqualTo(0);
+        assertThat(PatternCache.getEvictionCount()).isEqualTo(100);
+        PatternCache.glob("*.1", IOCase.SENSITIVE);
+        assertThat(PatternCache.size()).isEqualTo(0);
+        try {
+            PatternCache.setMaximumSize(-1);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The maximum size must not be negative: -1");
+        }
+
+    }
+
+    @Test
+    public void testInvalidPatternNotCached() {
+
+        // TEST
+        try {
+            new GlobFileFilter("[a-");
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            // Expected
+        }
+        try {
+            new RegexFileFilter("a(b)\\1", 0, true);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            // Expected
+        }
+
+        // VERIFY
+        assertThat(PatternCache.size()).isEqualTo(0);
+        assertThat(PatternCache.getMissCount()).isEqualTo(2);
+
+    }
+
+}
+// CHECKSTYLE:ON
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link PatternRegistry}.
+ */
+// CHECKSTYLE:OFF Test code
+public class PatternRegistryTest extends BaseFilterTest {
+
+    @Test
+    public void testCompileShared() {
+
+        // PREPARE
+        final CountingCompiler compiler = new CountingCompiler();
+
+        // TEST
+        CompiledPatterns<Integer> first = PatternRegistry.compile(compiler, IOCase.SENSITIVE,
+                Arrays.asList("a", "b"));
+        CompiledPatterns<Integer> second = PatternRegistry.compile(compiler, IOCase.SENSITIVE,
+                Arrays.asList("a", "b"));
+        CompiledPatterns<Integer> otherOrder = PatternRegistry.compile(compiler, IOCase.SENSITIVE,
+                Arrays.asList("b", "a"));
+        CompiledPatterns<Integer> otherCase = PatternRegistry.compile(compiler, IOCase.INSENSITIVE,
+                Arrays.asList("a", "b"));
+        CompiledPatterns<Integer> otherCompiler = PatternRegistry.compile(new CountingCompiler(),
+                IOCase.SENSITIVE, Arrays.asList("a", "b"));
+
+        // VERIFY
+        assertThat(second).isSameAs(first);
+        assertThat(otherOrder).isNotSameAs(first);
+        assertThat(otherCase).isNotSameAs(first);
+        assertThat(otherCompiler).isNotSameAs(first);
+        assertThat(compiler.count).isEqualTo(3);
+        assertThat(first.getPatterns()).isEqualTo(Arrays.asList("a", "b"));
+        assertThat(first.getCaseSensitivity()).isSameAs(IOCase.SENSITIVE);
+        assertThat(PatternRegistry.size()).isGreaterThanOrEqualTo(4);
+
+    }
+
+    @Test
+    public void testCompileCopiesPatterns() {
+
+        // PREPARE
+        final String[] names = new String[] { "a", "b" };
+        final CompiledPatterns<Integer> patterns = PatternRegistry.compile(new CountingCompiler(),
+                IOCase.SENSITIVE, Arrays.asList(names));
+
+        // TEST
+        names[0] = "c";
+
+        // VERIFY
+        assertThat(patterns.getPatterns()).isEqualTo(Arrays.asList("a", "b"));
+        try {
+            patterns.getPatterns().set(0, "c");
+        } catch (final UnsupportedOperationException ex) {
+            // Expected
+        }
+        assertThat(patterns.getPatterns()).isEqualTo(Arrays.asList("a", "b"));
+
+    }
+
+    @Test
+    public void testDisabled() {
+
+        // PREPARE
+        final CountingCompiler compiler = new CountingCompiler();
+        PatternRegistry.setEnabled(false);
+        try {
+
+            // TEST
+            CompiledPatterns<Integer> first = PatternRegistry.compile(compiler, IOCase.SENSITIVE,
+                    Arrays.asList("a"));
+            CompiledPatterns<Integer> second = PatternRegistry.compile(compiler, IOCase.SENSITIVE,
+                    Arrays.asList("a"));
+
+            // VERIFY
+            assertThat(PatternRegistry.isEnabled()).isFalse();
+            assertThat(second).isNotSameAs(first);
+            assertThat(compiler.count).isEqualTo(2);
+
+        } finally {
+            PatternRegistry.setEnabled(true);
+        }
+
+    }
+
+    @Test
+    public void testFiltersShareNames() {
+
+        // TEST
+        NameFileFilter first = new NameFileFilter(IOCase.INSENSITIVE, "shared-1.txt", "shared-2.txt");
+        NameFileFilter second = new NameFileFilter(IOCase.INSENSITIVE,
+                Arrays.asList("shared-1.txt", "shared-2.txt"));
+        NameFileFilter sensitive = new NameFileFilter("shared-1.txt", "shared-2.txt");
+
+        // VERIFY
+        assertThat(second.getNames()).isSameAs(first.getNames());
+        assertThat(sensitive.getNames()).isNotSameAs(first.getNames());
+        assertThat(second.accept(createFSI(new File("SHARED-2.TXT")))).isTrue();
+        assertThat(sensitive.accept(createFSI(new File("SHARED-2.TXT")))).isFalse();
+
+    }
+
+    @Test
+    public void testSharedFiltersAccept() {
+
+        // TEST
+        PrefixFileFilter prefix1 = new PrefixFileFilter("shared", "other");
+        PrefixFileFilter prefix2 = new PrefixFileFilter("shared", "other");
+        SuffixFileFilter suffix1 = new SuffixFileFilter(IOCase.INSENSITIVE, ".txt", ".log");
+        SuffixFileFilter suffix2 = new SuffixFileFilter(IOCase.INSENSITIVE, ".txt", ".log");
+        WildcardFileFilter wildcard1 = new WildcardFileFilter("*.t?t");
+        WildcardFileFilter wildcard2 = new WildcardFileFilter("*.t?t");
+
+        // VERIFY
+        assertThat(prefix1.accept(createFSI(new File("shared.txt")))).isTrue();
+        assertThat(prefix2.accept(createFSI(new File("xshared.txt")))).isFalse();
+        assertThat(suffix1.accept(createFSI(new File("a.TXT")))).isTrue();
+        assertThat(suffix2.accept(createFSI(new File("a.csv")))).isFalse();
+        assertThat(wildcard1.accept(createFSI(new File("a.txt")))).isTrue();
+        assertThat(wildcard2.accept(createFSI(new File("a.csv")))).isFalse();
+        assertThat(wildcard2.toString()).endsWith("(*.t?t)");
+
+    }
+
+    @Test
+    public void testSerializationShares() throws Exception {
+
+        // PREPARE
+        NameFileFilter original = new NameFileFilter("serial-a.txt", "serial-b.txt");
+
+        // TEST
+        NameFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.getNames()).isSameAs(original.getNames());
+        assertThat(filter.accept(createFSI(new File("serial-b.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("serial-c.txt")))).isFalse();
+
+    }
+
+    private static final class CountingCompiler implements CompiledPatterns.Compiler<Integer> {
+
+        private int count;
+
+        @Override
+        public Integer compile(final List<String> patterns, final IOCase caseSensitivity) {
+            count++;
+            return patterns.size();
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
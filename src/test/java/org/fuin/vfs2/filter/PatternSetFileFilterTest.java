@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSelectInfo;
+import org.apache.commons.vfs2.VFS;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test for {@link PatternSetFileFilter}.
+ */
+// CHECKSTYLE:OFF Test code
+public class PatternSetFileFilterTest extends BaseFilterTest {
+
+    private static File testDir;
+
+    @BeforeClass
+    public static void beforeClass() throws IOException {
+        testDir = getTestDir(PatternSetFileFilterTest.class.getName());
+        FileUtils.touch(new File(testDir, "lib/a.jar"));
+        FileUtils.touch(new File(testDir, "lib/a.txt"));
+        FileUtils.touch(new File(testDir, "lib/ext/b.jar"));
+        FileUtils.touch(new File(testDir, "module/target/c.jar"));
+        FileUtils.touch(new File(testDir, "module/target/classes/C.class"));
+        FileUtils.touch(new File(testDir, "module/test/d.jar"));
+        FileUtils.touch(new File(testDir, "e.jar"));
+    }
+
+    @AfterClass
+    public static void afterClass() throws IOException {
+        FileUtils.deleteDirectory(testDir);
+        testDir = null;
+    }
+
+    private static FileSelectInfo fsi(final String path) {
+        return createFSI(testDir, new File(testDir, path));
+    }
+
+    @Test
+    public void testAccept() {
+
+        // PREPARE
+        PatternSetFileFilter filter = new PatternSetFileFilter(new String[] { "**/*.jar", "lib/" },
+                new String[] { "**/test/**", "lib/ext/*" });
+
+        // TEST
+        assertThat(filter.accept(fsi("e.jar"))).isTrue();
+        assertThat(filter.accept(fsi("lib"))).isTrue();
+        assertThat(filter.accept(fsi("lib/a.jar"))).isTrue();
+        assertThat(filter.accept(fsi("lib/a.txt"))).isTrue();
+        assertThat(filter.accept(fsi("lib/ext"))).isTrue();
+        assertThat(filter.accept(fsi("lib/ext/b.jar"))).isFalse();
+        assertThat(filter.accept(fsi("module/target/c.jar"))).isTrue();
+        assertThat(filter.accept(fsi("module/target/classes/C.class"))).isFalse();
+        assertThat(filter.accept(fsi("module/test/d.jar"))).isFalse();
+        assertThat(filter.accept(fsi(""))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptDefaultIncludes() {
+
+        // PREPARE
+        PatternSetFileFilter filter = new PatternSetFileFilter(new String[0], new String[] { "**\\target\\" });
+
+        // TEST
+        assertThat(filter.accept(fsi("lib/ext/b.jar"))).isTrue();
+        assertThat(filter.accept(fsi("module"))).isTrue();
+        assertThat(filter.accept(fsi("module/target"))).isFalse();
+        assertThat(filter.accept(fsi("module/target/c.jar"))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptLiteralCharacters() {
+
+        // PREPARE
+        PatternSetFileFilter filter = new PatternSetFileFilter(new String[] { "[ab].{x,y}" }, new String[0]);
+
+        // TEST
+        assertThat(filter.accept(createFSI(testDir, new File(testDir, "[ab].{x,y}")))).isTrue();
+        assertThat(filter.accept(createFSI(testDir, new File(testDir, "a.x")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptIOCaseInsensitive() {
+
+        // PREPARE
+        List<String> includes = Arrays.asList("LIB/*.JAR");
+        List<String> excludes = new ArrayList<String>();
+        PatternSetFileFilter filter = new PatternSetFileFilter(IOCase.INSENSITIVE, includes, excludes);
+
+        // TEST
+        assertThat(filter.accept(fsi("lib/a.jar"))).isTrue();
+        assertThat(filter.accept(fsi("lib/a.txt"))).isFalse();
+        assertThat(new PatternSetFileFilter(includes, excludes).accept(fsi("lib/a.jar"))).isFalse();
+
+    }
+
+    @Test
+    public void testTraverseDescendents() {
+
+        // PREPARE
+        PatternSetFileFilter filter = new PatternSetFileFilter(new String[] { "lib/**/*.jar", "module/*/*.jar" },
+                new String[] { "**/test/**", "lib/ext/*" });
+
+        // TEST
+        assertThat(filter.traverseDescendents(fsi(""))).isTrue();
+        assertThat(filter.traverseDescendents(fsi("lib"))).isTrue();
+        assertThat(filter.traverseDescendents(fsi("lib/ext"))).isTrue();
+        assertThat(filter.traverseDescendents(fsi("module"))).isTrue();
+        assertThat(filter.traverseDescendents(fsi("module/target"))).isTrue();
+        assertThat(filter.traverseDescendents(fsi("module/target/classes"))).isFalse();
+        assertThat(filter.traverseDescendents(fsi("module/test"))).isFalse();
+
+    }
+
+    @Test
+    public void testFindFilesPrunesDirectories() throws Exception {
+
+        // PREPARE
+        final List<String> visited = new ArrayList<String>();
+        PatternSetFileFilter filter = new PatternSetFileFilter(new String[] { "**/*.jar" },
+                new String[] { "**/test/", "module/target/classes/**" });
+        PruningFileSelector selector = new PruningFileSelector(filter) {
+            @Override
+            public boolean includeFile(final FileSelectInfo fileInfo) {
+                visited.add(fileInfo.getFile().getName().getBaseName());
+                return super.includeFile(fileInfo);
+            }
+        };
+        FileObject dir = VFS.getManager().toFileObject(testDir);
+
+        // TEST
+        FileObject[] files = dir.findFiles(selector);
+
+        // VERIFY
+        assertThat(files).hasSize(4);
+        assertContains(files, "a.jar", "b.jar", "c.jar", "e.jar");
+        assertThat(visited).contains("test", "classes", "a.txt");
+        assertThat(visited).excludes("d.jar", "C.class");
+
+    }
+
+    @Test
+    public void testNullArgConstruction() {
+        List<String> empty = new ArrayList<String>();
+        try {
+            new PatternSetFileFilter(null, empty);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The list of includes must not be null");
+        }
+        try {
+            new PatternSetFileFilter(empty, null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The list of excludes must not be null");
+        }
+        try {
+            new PatternSetFileFilter(null, new String[0]);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The array of includes must not be null");
+        }
+        try {
+            new PatternSetFileFilter(new String[0], null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The array of excludes must not be null");
+        }
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+
+        // PREPARE
+        PatternSetFileFilter original = new PatternSetFileFilter(new String[] { "**/*.jar" },
+                new String[] { "lib/" });
+
+        // TEST
+        PatternSetFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.accept(fsi("module/target/c.jar"))).isTrue();
+        assertThat(filter.accept(fsi("lib/a.jar"))).isFalse();
+        assertThat(filter.toString()).contains("(includes=**/*.jar;excludes=lib/)");
+
+    }
+
+}
+// CHECKSTYLE:ON
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link PerfectNameSet}.
+ */
+// CHECKSTYLE:OFF Test code
+public class PerfectNameSetTest {
+
+    @Test
+    public void testContains() {
+
+        // PREPARE
+        PerfectNameSet set = new PerfectNameSet("a", "bb", "ccc", "bb", null, "", "\u00e4", "\ud801\udc00");
+
+        // TEST
+        for (String name : new String[] { "a", "bb", "ccc", "", "\u00e4", "\ud801\udc00" }) {
+            assertThat(set.contains(name)).isTrue();
+        }
+        for (String name : new String[] { "A", "b", "cc", "d", "\u00c4", "\ud801\udc28" }) {
+            assertThat(set.contains(name)).isFalse();
+        }
+
+        // VERIFY
+        assertThat(set.size()).isEqualTo(6);
+        assertThat(set.getNames()).isEqualTo(Arrays.asList("a", "bb", "ccc", "", "\u00e4", "\ud801\udc00"));
+        assertThat(set.getLengths()).isEqualTo(new int[] { 0, 1, 2, 3 });
+
+    }
+
+    @Test
+    public void testContainsIOCaseInsensitive() {
+
+        // PREPARE
+        PerfectNameSet set = new PerfectNameSet(IOCase.INSENSITIVE, "Readme.TXT", "README.txt", "\u00c4", "\ud801\udc00");
+
+        // TEST
+        assertThat(set.contains("readme.txt")).isTrue();
+        assertThat(set.contains("\u00e4")).isTrue();
+        assertThat(set.contains("\ud801\udc00")).isTrue();
+        assertThat(set.contains("readme")).isFalse();
+        assertThat(set.contains("\ud801\udc01")).isFalse();
+
+        // VERIFY
+        assertThat(set.size()).isEqualTo(3);
+        assertThat(set.getCaseSensitivity()).isSameAs(IOCase.INSENSITIVE);
+
+    }
+
+    @Test
+    public void testContainsRegion() {
+
+        // PREPARE
+        PerfectNameSet set = new PerfectNameSet(IOCase.INSENSITIVE, "txt", "gz");
+
+        // TEST
+        assertThat(set.contains("a.TXT", 2, 5)).isTrue();
+        assertThat(set.contains("a.gz.bak", 2, 4)).isTrue();
+        assertThat(set.contains("a.TXT", 1, 5)).isFalse();
+
+    }
+
+    @Test
+    public void testContainsRandomNames() {
+
+        // PREPARE
+        Random random = new Random(31);
+        Set<String> names = new HashSet<String>();
+        while (names.size() < 20000) {
+            names.add(randomName(random));
+        }
+        PerfectNameSet set = new PerfectNameSet(names);
+
+        // TEST
+        for (String name : names) {
+            assertThat(set.contains(name)).isTrue();
+        }
+        for (int i = 0; i < 20000; i++) {
+            String name = randomName(random);
+            assertThat(set.contains(name)).isEqualTo(names.contains(name));
+        }
+
+    }
+
+    private static String randomName(final Random random) {
+        String chars = "abcdef.";
+        StringBuilder sb = new StringBuilder();
+        int length = 1 + random.nextInt(10);
+        for (int i = 0; i < length; i++) {
+            sb.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testEmpty() {
+
+        // PREPARE
+        PerfectNameSet set = new PerfectNameSet(new ArrayList<String>());
+
+        // TEST
+        assertThat(set.contains("a")).isFalse();
+        assertThat(set.contains("")).isFalse();
+
+        // VERIFY
+        assertThat(set.size()).isEqualTo(0);
+
+    }
+
+    @Test
+    public void testNullArgConstruction() {
+        try {
+            new PerfectNameSet((List<String>) null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The collection of names must not be null");
+        }
+        try {
+            new PerfectNameSet((String[]) null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The collection of names must not be null");
+        }
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+
+        // PREPARE
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++) {
+            names.add("file" + i + ".TXT");
+        }
+        PerfectNameSet original = new PerfectNameSet(IOCase.INSENSITIVE, names);
+
+        // TEST
+        PerfectNameSet set = BaseFilterTest.serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(set.size()).isEqualTo(1000);
+        assertThat(set.contains("FILE999.txt")).isTrue();
+        assertThat(set.contains("file1000.txt")).isFalse();
+        assertThat(set.getNames()).isEqualTo(Arrays.asList(names.toArray()));
+
+    }
+
+}
+// CHECKSTYLE:ON
@@ -123,5 +123,73 @@ public class PrefixFileFilterTest extends BaseFilterTest {
 
     }
 
+    @Test
+    public void testAcceptLargeList() {
+
+        // PREPARE
+        List<String> list = new ArrayList<String>();
+        for (int i = 0; i < 10000; i++) {
+            list.add("report-" + i + "-");
+        }
+        PrefixFileFilter sensitive = new PrefixFileFilter(IOCase.SENSITIVE, list);
+        PrefixFileFilter insensitive = new PrefixFileFilter(IOCase.INSENSITIVE, list);
+
+        // TEST
+        assertThat(sensitive.accept(createFSI(new File("report-0-a.txt")))).isTrue();
+        assertThat(sensitive.accept(createFSI(new File("report-9999-.txt")))).isTrue();
+        assertThat(sensitive.accept(createFSI(new File("report-9999.txt")))).isFalse();
+        assertThat(sensitive.accept(createFSI(new File("REPORT-1-a.txt")))).isFalse();
+        assertThat(sensitive.accept(createFSI(new File("report-10000-a.txt")))).isFalse();
+        assertThat(insensitive.accept(createFSI(new File("REPORT-1-a.txt")))).isTrue();
+        assertThat(insensitive.accept(createFSI(new File("report-")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptNestedPrefixes() {
+
+        // PREPARE
+        PrefixFileFilter filter = new PrefixFileFilter("test12", "test", "test1", "", "x");
+        PrefixFileFilter noEmpty = new PrefixFileFilter("test12", "test1", "ab");
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("anything")))).isTrue();
+        assertThat(noEmpty.accept(createFSI(new File("test1")))).isTrue();
+        assertThat(noEmpty.accept(createFSI(new File("test2")))).isFalse();
+        assertThat(noEmpty.accept(createFSI(new File("a")))).isFalse();
+        assertThat(noEmpty.accept(createFSI(new File("abc")))).isTrue();
+
+    }
+
+    @Test
+    public void testAcceptNonAsciiIOCaseInsensitive() {
+
+        // PREPARE
+        PrefixFileFilter filter = new PrefixFileFilter(IOCase.INSENSITIVE, "\u00c4rger", "\ud801\udc00x");
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("\u00e4RGER.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("\u00e4rge.txt")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("\ud801\udc28X.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("\ud801\udc28Y.txt")))).isFalse();
+
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+
+        // PREPARE
+        PrefixFileFilter original = new PrefixFileFilter(IOCase.INSENSITIVE, "test1", "test2");
+
+        // TEST
+        PrefixFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.accept(createFSI(new File("TEST2.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("test3.txt")))).isFalse();
+        assertThat(filter.toString()).contains("(test1,test2)");
+
+    }
+
 }
 // CHECKSTYLE:ON
@@ -63,6 +63,265 @@ public class RegexFileFilterTestCase extends BaseFilterTest {
 
     }
 
+    @Test
+    public void testRequiredLiterals() throws Exception {
+
+        // PREPARE
+        final FileFilter suffix = new RegexFileFilter(".*\\.csv");
+        final FileFilter prefix = new RegexFileFilter("^report_\\d+.*$");
+        final FileFilter infix = new RegexFileFilter("[a-z]+-(?:draft|final)-v\\d");
+        final FileFilter alternation = new RegexFileFilter("data\\.(csv|tsv)|readme");
+
+        // TEST & VERIFY
+        assertThat(suffix.accept(createFSI(new File("a.csv")))).isTrue();
+        assertThat(suffix.accept(createFSI(new File(".csv")))).isTrue();
+        assertThat(suffix.accept(createFSI(new File("a.CSV")))).isFalse();
+        assertThat(suffix.accept(createFSI(new File("a.csv.bak")))).isFalse();
+        assertThat(prefix.accept(createFSI(new File("report_2.txt")))).isTrue();
+        assertThat(prefix.accept(createFSI(new File("report_x.txt")))).isFalse();
+        assertThat(prefix.accept(createFSI(new File("my_report_2.txt")))).isFalse();
+        assertThat(infix.accept(createFSI(new File("plan-draft-v2")))).isTrue();
+        assertThat(infix.accept(createFSI(new File("plan-final-v3")))).isTrue();
+        assertThat(infix.accept(createFSI(new File("plan-draft-2")))).isFalse();
+        assertThat(alternation.accept(createFSI(new File("data.csv")))).isTrue();
+        assertThat(alternation.accept(createFSI(new File("data.tsv")))).isTrue();
+        assertThat(alternation.accept(createFSI(new File("readme")))).isTrue();
+        assertThat(alternation.accept(createFSI(new File("data.txt")))).isFalse();
+
+    }
+
+    @Test
+    public void testRequiredLiteralsCaseInsensitive() throws Exception {
+
+        // PREPARE
+        final FileFilter ascii = new RegexFileFilter(".*\\.csv", IOCase.INSENSITIVE);
+        final FileFilter embedded = new RegexFileFilter("report_(?i:\\.csv)");
+        final FileFilter unicode = new RegexFileFilter("\u00e4.*", Pattern.CASE_INSENSITIVE
+                | Pattern.UNICODE_CASE);
+
+        // TEST & VERIFY
+        assertThat(ascii.accept(createFSI(new File("A.CSV")))).isTrue();
+        assertThat(ascii.accept(createFSI(new File("a.cSv")))).isTrue();
+        assertThat(ascii.accept(createFSI(new File("a.csx")))).isFalse();
+        assertThat(embedded.accept(createFSI(new File("report_.CSV")))).isTrue();
+        assertThat(embedded.accept(createFSI(new File("REPORT_.CSV")))).isFalse();
+        assertThat(unicode.accept(createFSI(new File("\u00c4pfel")))).isTrue();
+        assertThat(unicode.accept(createFSI(new File("Apfel")))).isFalse();
+
+    }
+
+    @Test
+    public void testUnanalysedConstructs() throws Exception {
+
+        // PREPARE
+        final FileFilter backReference = new RegexFileFilter("(a+)b\\1");
+        final FileFilter lookahead = new RegexFileFilter("(?=.*z)[a-z]+\\.txt");
+        final FileFilter comments = new RegexFileFilter("(?x) report # name\n _ \\d+");
+
+        // TEST & VERIFY
+        assertThat(backReference.accept(createFSI(new File("aabaa")))).isTrue();
+        assertThat(backReference.accept(createFSI(new File("aaba")))).isFalse();
+        assertThat(lookahead.accept(createFSI(new File("xyz.txt")))).isTrue();
+        assertThat(lookahead.accept(createFSI(new File("abc.txt")))).isFalse();
+        assertThat(comments.accept(createFSI(new File("report_12")))).isTrue();
+        assertThat(comments.accept(createFSI(new File("report 12")))).isFalse();
+
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+
+        // PREPARE
+        final RegexFileFilter original = new RegexFileFilter(".*\\.csv", IOCase.INSENSITIVE);
+
+        // TEST
+        final RegexFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.accept(createFSI(new File("a.CSV")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("a.txt")))).isFalse();
+
+    }
+
+    @Test
+    public void testEmbeddedFlagsAfterStart() throws Exception {
+
+        // PREPARE
+        final Pattern pattern = Pattern.compile("abc(?-i)x", Pattern.CASE_INSENSITIVE);
+
+        // TEST
+        final RegexFileFilter filter = new RegexFileFilter(pattern);
+
+        // VERIFY
+        assertThat(filter.accept(createFSI(new File("ABCx")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("ABCX")))).isFalse();
+
+    }
+
+    @Test
+    public void testQuantifiedQuote() throws Exception {
+
+        // PREPARE
+        final String[] regexes = { "x\\Qab\\E{2}", "\\Qab\\E+", "x\\Qab\\E*", "x\\Qab\\E?", "\\Qa.\\E+b",
+                "a\\Q\\E*", "(\\Qab\\E)+" };
+        final String[] names = { "xabb", "xabab", "xa", "x", "abb", "abab", "ab", "a", "aaa", "a..b", "a.a.b" };
+
+        for (final String regex : regexes) {
+
+            // TEST
+            final RegexFileFilter filter = new RegexFileFilter(regex);
+
+            // VERIFY
+            for (final String name : names) {
+                final boolean expected = Pattern.matches(regex, name);
+                assertThat(filter.accept(createFSI(new File(name)))).isEqualTo(expected);
+            }
+
+        }
+
+    }
+
+    @Test
+    public void testLinearTime() throws Exception {
+
+        // PREPARE
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append('a');
+        }
+        final String longName = sb.toString();
+
+        // TEST
+        final RegexFileFilter filter = new RegexFileFilter("(a+)+[bc]", 0, true);
+
+        // VERIFY
+        assertThat(filter.accept(createFSI(new File(longName)))).isFalse();
+        assertThat(filter.accept(createFSI(new File(longName + "c")))).isTrue();
+
+    }
+
+    @Test
+    public void testLinearTimeSameAsPattern() throws Exception {
+
+        // PREPARE
+        final String[] regexes = { "^.*[tT]est(-\\d+)?\\.java$", "(?i)[a-z]+_\\d{2,4}\\.(csv|txt)",
+                "(?:ab|a)*c?", "\\Qa.b\\E\\z|x$" };
+        final String[] names = { "Test.java", "MyTest-12.java", "test.java2", "Data_123.CSV", "data_1.txt",
+                "ababaac", "abc", "a.b", "axb", "x" };
+
+        for (final String regex : regexes) {
+
+            // TEST
+            final RegexFileFilter filter = new RegexFileFilter(regex, Pattern.UNICODE_CASE, true);
+
+            // VERIFY
+            for (final String name : names) {
+                final boolean expected = Pattern.compile(regex, Pattern.UNICODE_CASE).matcher(name).matches();
+                assertThat(filter.accept(createFSI(new File(name)))).isEqualTo(expected);
+            }
+
+        }
+
+    }
+
+    @Test
+    public void testLinearTimeQuantifiedQuote() throws Exception {
+
+        // PREPARE
+        final String[] regexes = { "\\Qab\\E*", "x\\Qab\\E?", "\\Qab\\E+", "x\\Qab\\E{2}", "\\Qa*\\E+",
+                "a\\Q\\E+", "(\\Qab\\E)*" };
+        final String[] names = { "a", "ab", "abb", "abab", "x", "xab", "xabb", "a*", "a**", "aa", "aaa" };
+
+        for (final String regex : regexes) {
+
+            // TEST
+            final RegexFileFilter filter = new RegexFileFilter(regex, 0, true);
+
+            // VERIFY
+            for (final String name : names) {
+                final boolean expected = Pattern.matches(regex, name);
+                assertThat(filter.accept(createFSI(new File(name)))).isEqualTo(expected);
+            }
+
+        }
+
+    }
+
+    @Test
+    public void testLinearTimeNonAsciiClasses() throws Exception {
+
+        // PREPARE
+        final String[] regexes = { "[\\p{L}&&[^a-z]]+\\.txt", "(?i)[\u00e4\u00f6\u00fc\\d]+",
+                "[^\\p{IsLatin}]+" };
+        final String[] names = { "\u00c4rger.txt", "\u00c4\u00d6\u00dc", "\u00e4\u00f69",
+                "\u65e5\u672c", "\uD83D\uDE00\u65e5", "abc.txt", "\u00dfx" };
+
+        for (final String regex : regexes) {
+
+            // TEST
+            final RegexFileFilter filter = new RegexFileFilter(regex, Pattern.UNICODE_CASE, true);
+
+            // VERIFY
+            for (int i = 0; i < 2; i++) {
+                for (final String name : names) {
+                    final boolean expected = Pattern.compile(regex, Pattern.UNICODE_CASE).matcher(name)
+                            .matches();
+                    assertThat(filter.accept(createFSI(new File(name)))).isEqualTo(expected);
+                }
+            }
+
+        }
+
+    }
+
+    @Test
+    public void testSharedProgram() throws Exception {
+
+        // TEST
+        final RegexFileFilter first = new RegexFileFilter("^.*[tT]est\\.java$");
+        final RegexFileFilter second = new RegexFileFilter(Pattern.compile("^.*[tT]est\\.java$"));
+        final RegexFileFilter restored = serializeDeserialize(first);
+        final RegexFileFilter linear = new RegexFileFilter("^.*[tT]est\\.java$", 0, true);
+
+        // VERIFY
+        assertThat(second.getProgram()).isSameAs(first.getProgram());
+        assertThat(restored.getProgram()).isSameAs(first.getProgram());
+        assertThat(linear.getProgram()).isNotSameAs(first.getProgram());
+        assertThat(second.accept(createFSI(new File("MyTest.java")))).isTrue();
+        assertThat(first.accept(createFSI(new File("MyTest.jav")))).isFalse();
+
+    }
+
+    @Test
+    public void testLinearTimeUnsupported() {
+
+        final String[] regexes = { "(a)\\1", "a(?=b)b", "(?>a)", "a++", "\\bword" };
+        for (final String regex : regexes) {
+            try {
+                new RegexFileFilter(regex, 0, true);
+                fail(regex);
+            } catch (final IllegalArgumentException ex) {
+                assertThat(ex.getMessage()).contains("not supported in linear time mode");
+            }
+        }
+
+    }
+
+    @Test
+    public void testLinearTimeSerialization() throws Exception {
+
+        // PREPARE
+        final RegexFileFilter original = new RegexFileFilter(Pattern.compile("(a|aa)*\\.log"), true);
+
+        // TEST
+        final RegexFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.accept(createFSI(new File("aaa.log")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("aba.log")))).isFalse();
+
+    }
+
     @Test
     public void testStringNullArgConstruction() {
         try {
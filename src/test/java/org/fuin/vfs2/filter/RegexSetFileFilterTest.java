@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link RegexSetFileFilter}.
+ */
+// CHECKSTYLE:OFF Test code
+public class RegexSetFileFilterTest extends BaseFilterTest {
+
+    @Test
+    public void testAcceptList() {
+
+        // PREPARE
+        RegexSetFileFilter filter = new RegexSetFileFilter(Arrays.asList("report-\\d+\\.csv", ".*\\.bak",
+                "^[tT]est.*"));
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("report-12.csv")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("a.txt.bak")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("Test.java")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("report-x.csv")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("a.BAK")))).isFalse();
+        assertThat(new RegexSetFileFilter().accept(createFSI(new File("x")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptIOCaseInsensitive() {
+
+        // PREPARE
+        RegexSetFileFilter filter = new RegexSetFileFilter(Arrays.asList("report-\\d+\\.csv", ".*\\.bak"),
+                IOCase.INSENSITIVE);
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("REPORT-1.CSV")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("a.Bak")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("a.txt")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptSameAsPatterns() {
+
+        // PREPARE
+        List<String> regexes = new ArrayList<String>();
+        for (int i = 0; i < 120; i++) {
+            regexes.add("(?i)log-" + i + "-\\d{2,4}(\\.gz)?|data_" + i + "[a-c]*\\.csv");
+        }
+        RegexSetFileFilter filter = new RegexSetFileFilter(regexes);
+        String[] names = { "LOG-7-123.gz", "log-119-12", "log-120-12", "data_3abc.csv", "data_3abd.csv",
+                "log-7-1", "Data_3.csv" };
+
+        // TEST
+        for (String name : names) {
+            boolean expected = false;
+            for (String regex : regexes) {
+                expected = expected || Pattern.matches(regex, name);
+            }
+            assertThat(filter.accept(createFSI(new File(name)))).isEqualTo(expected);
+        }
+
+    }
+
+    @Test
+    public void testAcceptQuantifiedQuote() {
+
+        // PREPARE
+        List<String> regexes = Arrays.asList("x\\Qab\\E{2}", "\\Qa.\\E+\\.txt", "[0-9]+", "(?i)y\\Qz\\E*");
+        RegexSetFileFilter filter = new RegexSetFileFilter(regexes);
+        String[] names = { "xabb", "xabab", "a..txt", "a.a..txt", "a.txt", "123", "y", "YZZ", "yzyz", "x" };
+
+        // TEST
+        for (String name : names) {
+            boolean expected = false;
+            for (String regex : regexes) {
+                expected = expected || Pattern.matches(regex, name);
+            }
+            assertThat(filter.accept(createFSI(new File(name)))).isEqualTo(expected);
+        }
+
+    }
+
+    @Test
+    public void testFindPatterns() {
+
+        // PREPARE
+        RegexSetFileFilter filter = new RegexSetFileFilter(Pattern.compile(".*\\.csv"),
+                Pattern.compile("report.*"), Pattern.compile("[a-z]+"));
+
+        // TEST
+        assertThat(filter.findPatterns(createFSI(new File("report.csv")))).isEqualTo(new int[] { 0, 1 });
+        assertThat(filter.findPatterns(createFSI(new File("report")))).isEqualTo(new int[] { 1, 2 });
+        assertThat(filter.findPatterns(createFSI(new File("data")))).isEqualTo(new int[] { 2 });
+        assertThat(filter.findPatterns(createFSI(new File("Data")))).isEqualTo(new int[0]);
+
+    }
+
+    @Test
+    public void testUnsupported() {
+        try {
+            new RegexSetFileFilter(Arrays.asList("a.*", "(a)\\1"));
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).contains("Back references are not supported");
+        }
+    }
+
+    @Test
+    public void testNullArgConstruction() {
+        try {
+            new RegexSetFileFilter((List<String>) null);
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The list of patterns must not be null");
+        }
+        try {
+            new RegexSetFileFilter(Arrays.asList("a", null));
+            fail();
+        } catch (final IllegalArgumentException ex) {
+            assertThat(ex.getMessage()).isEqualTo(RegexFileFilter.PATTERN_IS_MISSING);
+        }
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+
+        // PREPARE
+        RegexSetFileFilter original = new RegexSetFileFilter(Arrays.asList(".*\\.csv", "report.*"),
+                IOCase.INSENSITIVE);
+
+        // TEST
+        RegexSetFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.accept(createFSI(new File("a.CSV")))).isTrue();
+        assertThat(filter.findPatterns(createFSI(new File("Report.csv")))).isEqualTo(new int[] { 0, 1 });
+        assertThat(filter.accept(createFSI(new File("a.txt")))).isFalse();
+        assertThat(filter.toString()).contains("(.*\\.csv,report.*)");
+
+    }
+
+}
+// CHECKSTYLE:ON
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link SubstringFileFilter}.
+ */
+// CHECKSTYLE:OFF Test code
+public class SubstringFileFilterTest extends BaseFilterTest {
+
+    @Test
+    public void testAcceptList() {
+
+        // PREPARE
+        List<String> list = new ArrayList<String>();
+        list.add("backup");
+        list.add("copy");
+        SubstringFileFilter filter = new SubstringFileFilter(list);
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("backup.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("a-copy-of.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("test.copy")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("Backup.txt")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("cop.txt")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptStringIOCaseInsensitive() {
+
+        // PREPARE
+        SubstringFileFilter filter = new SubstringFileFilter(IOCase.INSENSITIVE, "backup", "copy");
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("BACKUP.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("a-Copy-of.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("cop.txt")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptOverlapping() {
+
+        // PREPARE
+        SubstringFileFilter filter = new SubstringFileFilter("he", "she", "his", "hers", "abcd", "bc");
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("ushers")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("xhix")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("abxbcx")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("abx")))).isFalse();
+        assertThat(new SubstringFileFilter("").accept(createFSI(new File("x")))).isTrue();
+        assertThat(new SubstringFileFilter().accept(createFSI(new File("x")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptManySubstrings() {
+
+        // PREPARE
+        List<String> list = new ArrayList<String>();
+        for (int i = 0; i < 10000; i++) {
+            list.add("-" + i + "-");
+        }
+        SubstringFileFilter filter = new SubstringFileFilter(IOCase.INSENSITIVE, list);
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("report-9999-a.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("report-10000-a.txt")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("report-1000.txt")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptNonAsciiIOCaseInsensitive() {
+
+        // PREPARE
+        SubstringFileFilter filter = new SubstringFileFilter(IOCase.INSENSITIVE, "\u00c4rger", "x\ud801\udc00");
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("mein-\u00e4RGER.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("aX\ud801\udc28.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("aY\ud801\udc28.txt")))).isFalse();
+
+    }
+
+    @Test
+    public void testFindSubstring() {
+
+        // PREPARE
+        SubstringFileFilter filter = new SubstringFileFilter(IOCase.INSENSITIVE, "Backup", "copy");
+
+        // TEST
+        assertThat(filter.findSubstring(createFSI(new File("my-BACKUP.txt")))).isEqualTo("Backup");
+        assertThat(filter.findSubstring(createFSI(new File("my-copy.txt")))).isEqualTo("copy");
+        assertThat(filter.findSubstring(createFSI(new File("my-file.txt")))).isNull();
+
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+
+        // PREPARE
+        SubstringFileFilter original = new SubstringFileFilter(IOCase.INSENSITIVE, "backup", "copy");
+
+        // TEST
+        SubstringFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.accept(createFSI(new File("a-COPY.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("a.txt")))).isFalse();
+        assertThat(filter.toString()).contains("(backup,copy)");
+
+    }
+
+}
+// CHECKSTYLE:ON
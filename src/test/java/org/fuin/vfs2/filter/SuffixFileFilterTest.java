@@ -123,5 +123,100 @@ public class SuffixFileFilterTest extends BaseFilterTest {
 
     }
 
+    @Test
+    public void testAcceptExtensions() {
+
+        // PREPARE
+        List<String> list = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(".ext" + i);
+        }
+        SuffixFileFilter sensitive = new SuffixFileFilter(IOCase.SENSITIVE, list);
+        SuffixFileFilter insensitive = new SuffixFileFilter(IOCase.INSENSITIVE, list);
+
+        // TEST
+        assertThat(sensitive.accept(createFSI(new File("a.ext0")))).isTrue();
+        assertThat(sensitive.accept(createFSI(new File("a.b.ext999")))).isTrue();
+        assertThat(sensitive.accept(createFSI(new File(".ext1")))).isTrue();
+        assertThat(sensitive.accept(createFSI(new File("ext1")))).isFalse();
+        assertThat(sensitive.accept(createFSI(new File("a.ext1000")))).isFalse();
+        assertThat(sensitive.accept(createFSI(new File("a.EXT1")))).isFalse();
+        assertThat(sensitive.accept(createFSI(new File("a.ext1.")))).isFalse();
+        assertThat(insensitive.accept(createFSI(new File("a.EXT1")))).isTrue();
+
+    }
+
+    @Test
+    public void testAcceptMixedSuffixes() {
+
+        // PREPARE
+        SuffixFileFilter sensitive = new SuffixFileFilter(IOCase.SENSITIVE, ".tar.gz", ".log.1", ".json", "~");
+        SuffixFileFilter insensitive = new SuffixFileFilter(IOCase.INSENSITIVE, ".tar.gz", ".log.1", ".json");
+
+        // TEST
+        assertThat(sensitive.accept(createFSI(new File("a.tar.gz")))).isTrue();
+        assertThat(sensitive.accept(createFSI(new File("a.gz")))).isFalse();
+        assertThat(sensitive.accept(createFSI(new File("server.log.1")))).isTrue();
+        assertThat(sensitive.accept(createFSI(new File("server.log.2")))).isFalse();
+        assertThat(sensitive.accept(createFSI(new File("a.json")))).isTrue();
+        assertThat(sensitive.accept(createFSI(new File("a.txt~")))).isTrue();
+        assertThat(sensitive.accept(createFSI(new File("a.JSON")))).isFalse();
+        assertThat(insensitive.accept(createFSI(new File("A.TAR.GZ")))).isTrue();
+        assertThat(insensitive.accept(createFSI(new File("a.Json")))).isTrue();
+        assertThat(insensitive.accept(createFSI(new File("a.txt~")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptNonAsciiIOCaseInsensitive() {
+
+        // PREPARE
+        SuffixFileFilter extension = new SuffixFileFilter(IOCase.INSENSITIVE, ".\u00c4", ".\ud801\udc00");
+        SuffixFileFilter suffix = new SuffixFileFilter(IOCase.INSENSITIVE, "x\u00c4", "x\ud801\udc00");
+
+        // TEST
+        assertThat(extension.accept(createFSI(new File("a.\u00e4")))).isTrue();
+        assertThat(extension.accept(createFSI(new File("a.\ud801\udc28")))).isTrue();
+        assertThat(extension.accept(createFSI(new File("a.\ud801\udc29")))).isFalse();
+        assertThat(suffix.accept(createFSI(new File("aX\u00e4")))).isTrue();
+        assertThat(suffix.accept(createFSI(new File("aX\ud801\udc28")))).isTrue();
+        assertThat(suffix.accept(createFSI(new File("aY\ud801\udc28")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptPerfectNameSet() {
+
+        // PREPARE
+        SuffixFileFilter filter = new SuffixFileFilter(new PerfectNameSet(IOCase.INSENSITIVE, ".txt", ".tar.gz",
+                "~"));
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("a.TXT")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("a.tar.GZ")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("a.txt~")))).isTrue();
+        assertThat(filter.accept(createFSI(new File(".txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("a.gz")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("txt")))).isFalse();
+        assertThat(filter.toString()).contains("(.txt,.tar.gz,~)");
+
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+
+        // PREPARE
+        SuffixFileFilter original = new SuffixFileFilter(IOCase.INSENSITIVE, ".txt", ".tar.gz");
+
+        // TEST
+        SuffixFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.accept(createFSI(new File("a.TAR.GZ")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("a.gz")))).isFalse();
+        assertThat(filter.toString()).contains("(.txt,.tar.gz)");
+
+    }
+
 }
 // CHECKSTYLE:ON
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fuin.vfs2.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the matching strategies used by {@link WildcardFileFilter} on a
+ * realistic mix of wildcards: mostly <code>*.ext</code>, <code>prefix*</code>,
+ * <code>*infix*</code> and plain names with a few complex wildcards.
+ * <p>
+ * Run the <code>main</code> method, optionally with the number of wildcards as
+ * argument (default 300).
+ */
+// CHECKSTYLE:OFF Benchmark code
+public class WildcardFileFilterBenchmark {
+
+    private static final String[] EXTENSIONS = { "txt", "log", "csv", "json", "xml", "tmp", "bak", "gz",
+            "zip", "jar", "class", "java", "html", "png", "jpg", "pdf", "doc", "yml", "properties", "md" };
+
+    private static final String[] WORDS = { "report", "backup", "invoice", "customer", "order", "config",
+            "settings", "data", "export", "import", "archive", "image", "thumb", "cache", "index" };
+
+    public static void main(String[] args) {
+
+        final int patternCount = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        final Random random = new Random(4711);
+        final List<String> wildcards = createWildcards(random, patternCount);
+        final String[] names = createNames(random, 100000);
+
+        for (final IOCase caseSensitivity : new IOCase[] { IOCase.SENSITIVE, IOCase.INSENSITIVE }) {
+
+            final List<WildcardPattern> patterns = new ArrayList<WildcardPattern>();
+            for (final String wildcard : wildcards) {
+                patterns.add(WildcardPattern.compile(wildcard, caseSensitivity));
+            }
+            final WildcardAutomaton automaton = new WildcardAutomaton(patterns, caseSensitivity);
+            final WildcardMatcher matcher = new WildcardMatcher(wildcards, caseSensitivity);
+
+            System.out.println(caseSensitivity + ", " + wildcards.size() + " wildcards, " + names.length
+                    + " names");
+            for (int round = 0; round < 5; round++) {
+                final long t0 = System.nanoTime();
+                int hits1 = 0;
+                for (final String name : names) {
+                    for (final WildcardPattern pattern : patterns) {
+                        if (pattern.matches(name)) {
+                            hits1++;
+                            break;
+                        }
+                    }
+                }
+                final long t1 = System.nanoTime();
+                int hits2 = 0;
+                for (final String name : names) {
+                    if (automaton.matches(name)) {
+                        hits2++;
+                    }
+                }
+                final long t2 = System.nanoTime();
+                int hits3 = 0;
+                for (final String name : names) {
+                    if (matcher.matches(name)) {
+                        hits3++;
+                    }
+                }
+                final long t3 = System.nanoTime();
+                if (hits1 != hits2 || hits1 != hits3) {
+                    throw new IllegalStateException("Different results: " + hits1 + " / " + hits2 + " / "
+                            + hits3);
+                }
+                System.out.println("  round " + round + ": one by one " + nsPerName(t0, t1, names)
+                        + " ns/name, automaton " + nsPerName(t1, t2, names) + " ns/name, by shape "
+                        + nsPerName(t2, t3, names) + " ns/name (" + hits1 + " matches)");
+            }
+        }
+
+    }
+
+    private static long nsPerName(final long start, final long end, final String[] names) {
+        return (end - start) / names.length;
+    }
+
+    private static List<String> createWildcards(final Random random, final int count) {
+        final List<String> list = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            final String word = WORDS[random.nextInt(WORDS.length)];
+            final String ext = EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+            final int shape = random.nextInt(100);
+            if (shape < 50) {
+                list.add("*." + ext + (i % 3 == 0 ? "." + i : ""));
+            } else if (shape < 70) {
+                list.add(word + "-" + i + "*");
+            } else if (shape < 80) {
+                list.add("*" + word + i + "*");
+            } else if (shape < 90) {
+                list.add(word + "-" + i + "." + ext);
+            } else {
+                list.add(word + "_*_" + i + "-??." + ext);
+            }
+        }
+        return list;
+    }
+
+    private static String[] createNames(final Random random, final int count) {
+        final String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            final String word = WORDS[random.nextInt(WORDS.length)];
+            final String ext = EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+            names[i] = word + (random.nextBoolean() ? "-" : "_") + random.nextInt(2000)
+                    + (random.nextBoolean() ? "_" + Long.toHexString(random.nextLong()) : "") + "."
+                    + (random.nextInt(4) == 0 ? ext.toUpperCase() : ext);
+        }
+        return names;
+    }
+
+}
+// CHECKSTYLE:ON
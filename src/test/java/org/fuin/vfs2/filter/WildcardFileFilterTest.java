@@ -165,5 +165,180 @@ public class WildcardFileFilterTest extends BaseFilterTest {
 
     }
 
+    @Test
+    public void testAcceptManyWildcards() {
+
+        // PREPARE
+        List<String> list = new ArrayList<String>();
+        for (int i = 0; i < 300; i++) {
+            list.add("*.tmp" + i);
+            list.add("backup-" + i + "-*.z?p");
+        }
+        WildcardFileFilter filter = new WildcardFileFilter(IOCase.INSENSITIVE, list);
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("file.tmp0")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("file.TMP299")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("file.tmp300")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("Backup-17-2013.zip")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("backup-17-.ZAP")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("backup-17.zip")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("backup-301-x.zip")))).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptNonAsciiIOCaseInsensitive() {
+
+        // PREPARE
+        WildcardFileFilter filter = new WildcardFileFilter(IOCase.INSENSITIVE, "\u00e9t\u00e9*",
+                "*\ud801\udc00.txt");
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("\u00c9T\u00c9.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("ete.txt")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("a\ud801\udc28.TXT")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("a\ud801\udc29.txt")))).isFalse();
+
+    }
+
+    @Test
+    public void testWildcardMatchSpecialCaseFolding() {
+
+        // Non-ASCII characters that fold to ASCII letters
+        assertThat(WildcardFileFilter.wildcardMatch("\u212aelvin.txt", "k*.TXT", IOCase.INSENSITIVE)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("a\u017f.txt", "*S.txt", IOCase.INSENSITIVE)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("a\u0130.txt", "a?.txt", IOCase.INSENSITIVE)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("a\u0130.txt", "*ai.txt", IOCase.INSENSITIVE)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("\u212aelvin.txt", "k*.TXT", IOCase.SENSITIVE)).isFalse();
+        assertThat(WildcardFileFilter.wildcardMatch("a\u00df.txt", "*ss.txt", IOCase.INSENSITIVE)).isFalse();
+
+    }
+
+    @Test
+    public void testWildcardMatchLongNames() {
+
+        // PREPARE
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append("abcdefghij");
+        }
+        String prefix = sb.toString();
+
+        // TEST
+        assertThat(WildcardFileFilter.wildcardMatch(prefix + "Invoice-Final.PDF", "*invoice-final*.pdf",
+                IOCase.INSENSITIVE)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch(prefix + "Invoice-Fina.PDF", "*invoice-final*.pdf",
+                IOCase.INSENSITIVE)).isFalse();
+        assertThat(WildcardFileFilter.wildcardMatch(prefix + "Invoice-Final.PDF", "*invoice-final*.pdf",
+                IOCase.SENSITIVE)).isFalse();
+        // Characters sharing an entry of the skip table ('a' and '\u00e1')
+        assertThat(WildcardFileFilter.wildcardMatch(prefix + "x\u00e1ya.txt", "*\u00c1ya*", IOCase.INSENSITIVE))
+                .isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch(prefix + "xayA.txt", "*\u00e1ya*", IOCase.INSENSITIVE))
+                .isFalse();
+        assertThat(WildcardFileFilter.wildcardMatch(prefix + "x\u00e1ya.txt", "*a\u00e1y*", IOCase.INSENSITIVE))
+                .isFalse();
+
+    }
+
+    @Test
+    public void testAcceptShapes() {
+
+        // PREPARE
+        WildcardFileFilter filter = new WildcardFileFilter(IOCase.INSENSITIVE, "README", "*.tar.gz", "*.log",
+                "build-*", "*cache*", "report_*_??.csv");
+
+        // TEST
+        assertThat(filter.accept(createFSI(new File("readme")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("readme.txt")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("sources.TAR.GZ")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("sources.gz")))).isFalse();
+        assertThat(filter.accept(createFSI(new File(".log")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("Build-17.zip")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("rebuild-17.zip")))).isFalse();
+        assertThat(filter.accept(createFSI(new File("my.Cache.db")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("report_2013_01.csv")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("report_2013_1.csv")))).isFalse();
+
+        assertThat(new WildcardFileFilter("*").accept(createFSI(new File("any.txt")))).isTrue();
+
+    }
+
+    @Test
+    public void testWildcardMatch() {
+
+        assertThat(WildcardFileFilter.wildcardMatch(null, null, null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("Foo", null, null)).isFalse();
+        assertThat(WildcardFileFilter.wildcardMatch(null, "Foo", null)).isFalse();
+        assertThat(WildcardFileFilter.wildcardMatch("", "", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("Foo", "", null)).isFalse();
+        assertThat(WildcardFileFilter.wildcardMatch("Foo", "Foo", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("", "Foo", null)).isFalse();
+        assertThat(WildcardFileFilter.wildcardMatch("Foo", "Fo*", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("Foo", "Fo?", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("Foo Bar and Catflap", "Fo*", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("New Bookmarks", "N?w ?o?k??r?s", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("Foo", "Bar", null)).isFalse();
+        assertThat(WildcardFileFilter.wildcardMatch("Foo Bar Foo", "F*o Bar*", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("Adobe Acrobat Installer", "Ad*er", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("Foo", "*Foo", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("BarFoo", "*Foo", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("Foo", "Foo*", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("FooBar", "Foo*", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("FOO", "*Foo", IOCase.SENSITIVE)).isFalse();
+        assertThat(WildcardFileFilter.wildcardMatch("BARFOO", "*Foo", IOCase.SENSITIVE)).isFalse();
+        assertThat(WildcardFileFilter.wildcardMatch("FOO", "*Foo", IOCase.INSENSITIVE)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("BARFOO", "*Foo", IOCase.INSENSITIVE)).isTrue();
+
+    }
+
+    @Test
+    public void testWildcardMatchBacktracking() {
+
+        assertThat(WildcardFileFilter.wildcardMatch("aaaa", "aa*?", null)).isFalse();
+        assertThat(WildcardFileFilter.wildcardMatch("abcabcabc", "*abc*abc", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("abcabcabd", "*abc*abc", null)).isFalse();
+        assertThat(WildcardFileFilter.wildcardMatch("log.txt.txt", "*.txt", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("a.b.c.d", "*.?.d", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("aXbXc", "a*b*c", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("aXbXcX", "a*b*c", null)).isFalse();
+
+        // The sequence "*?" behaves like a single "?"
+        assertThat(WildcardFileFilter.wildcardMatch("a", "*?", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("ab", "*?", null)).isFalse();
+        assertThat(WildcardFileFilter.wildcardMatch("ab", "a*?", null)).isTrue();
+        assertThat(WildcardFileFilter.wildcardMatch("abc", "a*?", null)).isFalse();
+
+    }
+
+    @Test
+    public void testAcceptNullWildcard() {
+
+        // PREPARE
+        WildcardFileFilter filter = new WildcardFileFilter("*.txt", (String) null);
+
+        // TEST & VERIFY
+        assertThat(filter.accept(createFSI(new File("test.txt")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("null")))).isFalse();
+
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+
+        // PREPARE
+        WildcardFileFilter original = new WildcardFileFilter(IOCase.INSENSITIVE, "*.txt", "*.a??");
+
+        // TEST
+        WildcardFileFilter filter = serializeDeserialize(original);
+
+        // VERIFY
+        assertThat(filter.accept(createFSI(new File("test1.TXT")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("test.Abc")))).isTrue();
+        assertThat(filter.accept(createFSI(new File("test.abcd")))).isFalse();
+
+    }
+
 }
 // CHECKSTYLE:ON